@@ -0,0 +1,54 @@
+package dm.dracolich.forge.benchmarks;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.to.DiceEnum;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling a range of nonces one draw at a time against the allocation-free batch draw.
+ * Scores are per range; divide by {@code count} for the per-roll cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+    private static final String SERVER_SEED = "9f2c1e4b-server-seed";
+    private static final String CLIENT_SEED = "player-42";
+
+    @Param({"1", "64", "1024"})
+    public int count;
+
+    private Roll.RollContext ctx;
+    private int[] faces;
+    private long nonce;
+
+    @Setup
+    public void setup() {
+        ctx = new Roll.RollContext(SERVER_SEED, CLIENT_SEED, 0);
+        faces = new int[count];
+    }
+
+    @Benchmark
+    public int[] singleDraws() {
+        long start = nonce;
+        nonce += count;
+        for (int i = 0; i < count; i++) {
+            faces[i] = DiceEnum.D20.getTable().indexOf(
+                    Roll.Prf.drawInt(new Roll.RollContext(SERVER_SEED, CLIENT_SEED, start + i), "value"));
+        }
+        return faces;
+    }
+
+    @Benchmark
+    public int[] batchDraws() {
+        long start = nonce;
+        nonce += count;
+        Roll.drawWeightedBatch(ctx, "value", start, count, DiceEnum.D20.getTable(), faces);
+        return faces;
+    }
+}
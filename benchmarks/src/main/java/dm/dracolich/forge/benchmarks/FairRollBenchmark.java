@@ -0,0 +1,66 @@
+package dm.dracolich.forge.benchmarks;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.to.CompactRollout;
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full two-stage rolls of the standard dice at each debug level and draw mode, from the value list,
+ * the compiled table, and straight into the compact form.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FairRollBenchmark {
+    private static final String SERVER_SEED = "9f2c1e4b-server-seed";
+    private static final String CLIENT_SEED = "player-42";
+
+    @Param({"D6", "D20", "D100"})
+    public DiceEnum dice;
+
+    @Param({"NONE", "SUMMARY", "FULL"})
+    public DebugLevel debugLevel;
+
+    @Param({"MODULO", "LEMIRE"})
+    public DrawMode drawMode;
+
+    private KeyedPrf prf;
+    private RollOptions options;
+    private long nonce;
+
+    @Setup
+    public void setup() {
+        prf = KeyedPrf.create(SERVER_SEED);
+        options = new RollOptions(debugLevel, drawMode);
+    }
+
+    @Benchmark
+    public Roll.FairRoll fairRollList() {
+        return Roll.fairRoll(SERVER_SEED, CLIENT_SEED, nonce++, dice.getDiceValues(), false, options);
+    }
+
+    @Benchmark
+    public Roll.FairRoll fairRollTable() {
+        return Roll.fairRoll(SERVER_SEED, CLIENT_SEED, nonce++, dice.getTable(), false, options);
+    }
+
+    @Benchmark
+    public Roll.FairRoll fairRollAdvancingSeed() {
+        return Roll.fairRoll(SERVER_SEED, CLIENT_SEED, nonce++, dice.getTable(), true, options);
+    }
+
+    @Benchmark
+    public CompactRollout compactRoll() {
+        return Roll.compactRoll(prf, CLIENT_SEED, nonce++, dice.getTable(), drawMode);
+    }
+}
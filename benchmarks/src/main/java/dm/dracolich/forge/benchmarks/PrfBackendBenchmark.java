@@ -0,0 +1,47 @@
+package dm.dracolich.forge.benchmarks;
+
+import dm.dracolich.forge.prf.PrfBackends;
+import dm.dracolich.forge.prf.PrfCursor;
+import dm.dracolich.forge.prf.PrfKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a roll that opens one stream and reads a number of draws from it, per PRF backend: a single
+ * draw, a handful of dice, and a bulk roll such as a shuffle or a chest opening.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrfBackendBenchmark {
+    private static final String SERVER_SEED = "9f2c1e4b-server-seed";
+    private static final String CLIENT_SEED = "player-42";
+
+    @Param({"hmac-sha256", "chacha20"})
+    public String backend;
+
+    @Param({"1", "8", "256"})
+    public int draws;
+
+    private PrfKey prf;
+    private long nonce;
+
+    @Setup
+    public void setup() {
+        prf = PrfBackends.of(backend).create(SERVER_SEED);
+    }
+
+    @Benchmark
+    public int openAndDraw() {
+        PrfCursor cursor = new PrfCursor(prf, CLIENT_SEED, nonce++, "loot");
+        int acc = 0;
+        for (int i = 0; i < draws; i++) {
+            acc += cursor.nextInt();
+        }
+        return acc;
+    }
+}
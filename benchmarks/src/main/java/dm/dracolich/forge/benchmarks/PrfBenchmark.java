@@ -0,0 +1,84 @@
+package dm.dracolich.forge.benchmarks;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.RollSession;
+import dm.dracolich.forge.codec.Hex;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.prf.MessageBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HMAC and hex encoding, from a fresh {@link Mac} per call down to the allocation-free keyed digest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrfBenchmark {
+    private static final String SERVER_SEED = "9f2c1e4b-server-seed";
+    private static final String CLIENT_SEED = "player-42";
+    private static final byte[] VALUE = MessageBuffer.suffix("value");
+    private static final RollSession.Category VALUE_CATEGORY = RollSession.category("value");
+
+    private KeyedPrf prf;
+    private MessageBuffer message;
+    private RollSession session;
+    private byte[] digest;
+    private long nonce;
+
+    @Setup
+    public void setup() {
+        prf = KeyedPrf.create(SERVER_SEED);
+        message = new MessageBuffer(CLIENT_SEED);
+        session = RollSession.open(SERVER_SEED, CLIENT_SEED, 0);
+        digest = prf.digest("warmup");
+    }
+
+    @Benchmark
+    public byte[] macPerCall() throws Exception {
+        Mac mac = Mac.getInstance(KeyedPrf.ALGORITHM);
+        mac.init(new SecretKeySpec(SERVER_SEED.getBytes(StandardCharsets.UTF_8), KeyedPrf.ALGORITHM));
+        return mac.doFinal(Roll.buildMessage(CLIENT_SEED, nonce++, "value").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public byte[] hmacBytes() {
+        return Roll.hmacBytes(SERVER_SEED, Roll.buildMessage(CLIENT_SEED, nonce++, "value"));
+    }
+
+    @Benchmark
+    public String hmacHex() {
+        return Roll.hmacHex(SERVER_SEED, Roll.buildMessage(CLIENT_SEED, nonce++, "value"));
+    }
+
+    @Benchmark
+    public byte[] keyedDigestIntoBuffer() {
+        int length = message.encode(nonce++, VALUE);
+        prf.digest(message.buffer(), 0, length, digest, 0);
+        return digest;
+    }
+
+    @Benchmark
+    public int drawIntPerCall() {
+        return Roll.Prf.drawInt(new Roll.RollContext(SERVER_SEED, CLIENT_SEED, nonce++), "value");
+    }
+
+    @Benchmark
+    public int sessionDrawInt() {
+        int draw = session.drawInt(VALUE_CATEGORY);
+        session.advance();
+        return draw;
+    }
+
+    @Benchmark
+    public String bytesToHex() {
+        return Hex.encode(digest);
+    }
+}
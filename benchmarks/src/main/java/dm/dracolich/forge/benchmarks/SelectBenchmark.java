@@ -0,0 +1,63 @@
+package dm.dracolich.forge.benchmarks;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.table.WeightedTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weighted selection over tables from a die up to 100k entries: the linear scan of
+ * {@link Roll.Select#weightedChoice(List, java.util.function.ToIntFunction, int)} against a compiled
+ * {@link WeightedTable}, plus the cost of compiling the table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SelectBenchmark {
+    private static final int DRAWS = 1024;
+
+    @Param({"6", "100", "1000", "100000"})
+    public int size;
+
+    private List<Integer> weights;
+    private WeightedTable<Integer> table;
+    private int[] draws;
+    private int next;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        weights = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            weights.add(1 + random.nextInt(1000));
+        }
+        table = WeightedTable.of(weights, Integer::intValue);
+
+        draws = new int[DRAWS];
+        for (int i = 0; i < DRAWS; i++) {
+            draws[i] = random.nextInt();
+        }
+    }
+
+    @Benchmark
+    public Integer weightedChoice() {
+        return Roll.Select.weightedChoice(weights, Integer::intValue, draws[next++ & (DRAWS - 1)]);
+    }
+
+    @Benchmark
+    public Integer tablePick() {
+        return table.pick(draws[next++ & (DRAWS - 1)]);
+    }
+
+    @Benchmark
+    public WeightedTable<Integer> tableCompile() {
+        return WeightedTable.of(weights, Integer::intValue);
+    }
+}
@@ -0,0 +1,72 @@
+package dm.dracolich.forge.benchmarks;
+
+import dm.dracolich.forge.service.RolloutServiceImpl;
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.Rollout;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multithreaded throughput of the service, with every thread rolling its own client seed against
+ * one shared server seed. Run with {@code -t} to change the thread count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ThroughputBenchmark {
+    private static final String SERVER_SEED = "9f2c1e4b-server-seed";
+
+    @State(Scope.Benchmark)
+    public static class Service {
+        public RolloutServiceImpl service;
+
+        @Setup
+        public void setup() {
+            service = new RolloutServiceImpl();
+        }
+
+        @TearDown
+        public void tearDown() {
+            service.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private static int clients;
+
+        public String clientSeed;
+        public long nonce;
+
+        @Setup
+        public void setup() {
+            synchronized (Client.class) {
+                clientSeed = "player-" + clients++;
+            }
+        }
+    }
+
+    @Benchmark
+    public Rollout rollDice(Service service, Client client) {
+        return service.service.rollDice(DiceEnum.D20, SERVER_SEED, client.clientSeed, client.nonce++, DebugLevel.NONE);
+    }
+
+    @Benchmark
+    public Rollout rollDiceAsync(Service service, Client client) {
+        return service.service.rollDiceAsync(DiceEnum.D20, SERVER_SEED, client.clientSeed, client.nonce++,
+                DebugLevel.NONE).join();
+    }
+
+    @Benchmark
+    public int[] rollDiceBatch(Service service, Client client) {
+        int[] faces = new int[64];
+        service.service.rollDiceBatch(DiceEnum.D20, SERVER_SEED, client.clientSeed, client.nonce, faces.length, faces);
+        client.nonce += faces.length;
+        return faces;
+    }
+}
@@ -3,48 +3,47 @@ package dm.dracolich.forge;
 import dm.dracolich.forge.to.Value;
 
 import java.util.List;
-import java.util.stream.IntStream;
 
 public class Dice {
     public static List<Value> d4() {
-        return IntStream.rangeClosed(1, 4)
-                .mapToObj(i -> new Value(String.valueOf(i), 1, 4))
-            .toList();
+        return faces(4);
     }
 
     public static List<Value> d6() {
-        return IntStream.rangeClosed(1, 6)
-                .mapToObj(i -> new Value(String.valueOf(i), 1, 6))
-            .toList();
+        return faces(6);
     }
 
     public static List<Value> d8() {
-        return IntStream.rangeClosed(1, 8)
-                .mapToObj(i -> new Value(String.valueOf(i), 1, 8))
-            .toList();
+        return faces(8);
     }
 
     public static List<Value> d10() {
-        return IntStream.rangeClosed(1, 10)
-                .mapToObj(i -> new Value(String.valueOf(i), 1, 10))
-            .toList();
+        return faces(10);
     }
 
     public static List<Value> d12() {
-        return IntStream.rangeClosed(1, 12)
-                .mapToObj(i -> new Value(String.valueOf(i), 1, 12))
-            .toList();
+        return faces(12);
     }
 
     public static List<Value> d20() {
-        return IntStream.rangeClosed(1, 20)
-                .mapToObj(i -> new Value(String.valueOf(i), 1, 20))
-            .toList();
+        return faces(20);
     }
 
     public static List<Value> d100() {
-        return IntStream.rangeClosed(1, 10)
-                .mapToObj(i -> new Value(String.format("%02d", (i % 10) * 10), 1, 10))
-            .toList();
+        Value[] faces = new Value[10];
+        for (int i = 1; i <= 10; i++) {
+            faces[i - 1] = new Value(String.format("%02d", (i % 10) * 10), 1, 10);
+        }
+        return List.of(faces);
+    }
+
+    // plain loops: DiceEnum builds every face list in its static initializer, so keep class init
+    // free of stream and lambda bootstrap
+    private static List<Value> faces(int sides) {
+        Value[] faces = new Value[sides];
+        for (int i = 1; i <= sides; i++) {
+            faces[i - 1] = new Value(String.valueOf(i), 1, sides);
+        }
+        return List.of(faces);
     }
 }
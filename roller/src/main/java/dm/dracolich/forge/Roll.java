@@ -1,18 +1,34 @@
 package dm.dracolich.forge;
 
+import dm.dracolich.forge.codec.Hex;
+import dm.dracolich.forge.metrics.ForgeMetrics;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.prf.PrfBackend;
+import dm.dracolich.forge.prf.PrfBackends;
+import dm.dracolich.forge.prf.PrfKey;
+import dm.dracolich.forge.prf.PrfStream;
+import dm.dracolich.forge.prf.MessageBuffer;
+import dm.dracolich.forge.prf.PrfCursor;
+import dm.dracolich.forge.table.DynamicWeightedTable;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.CompactRollout;
 import dm.dracolich.forge.to.Debug;
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
 import dm.dracolich.forge.to.Rollout;
 import dm.dracolich.forge.to.Value;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 
 public class Roll {
+    private static final byte[] VALUE_SUFFIX = MessageBuffer.suffix("value");
+    private static final byte[] ITEM_SUFFIX = MessageBuffer.suffix("item");
+
     /**
      * Compute the HMAC-SHA256 of a message using a given key.
      * Returns the HMAC as a hexadecimal string.
@@ -28,6 +44,9 @@ public class Roll {
     /**
      * Compute the HMAC-SHA256 of a message using a given key.
      * Returns the HMAC as a byte array.
+     * <p>
+     * The keyed engine is taken from the calling thread's {@link KeyedPrf} pool, so repeated
+     * calls with the same key skip the provider lookup and key setup.
      *
      * @param key the key to use for the HMAC computation
      * @param message the message to compute the HMAC of
@@ -35,17 +54,7 @@ public class Roll {
      * @throws RuntimeException if an exception occurs during the HMAC computation
      */
     public static byte[] hmacBytes(String key, String message) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8),
-                    "HmacSHA256");
-
-            mac.init(secretKeySpec);
-
-            return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to compute HMAC-SHA256", e);
-        }
+        return KeyedPrf.forSeed(key).digest(message);
     }
 
     /**
@@ -74,6 +83,9 @@ public class Roll {
      * @return the advanced server seed as a hexadecimal string
      */
     public static String seedChainAdvance(String serverSeed) {
+        if (ForgeMetrics.ENABLED) {
+            ForgeMetrics.get().recordSeedAdvance();
+        }
         return sha256Hex(serverSeed);
     }
 
@@ -81,7 +93,9 @@ public class Roll {
      * Pseudorandom function (PRF) utilities for generating deterministic random values.
      * <p>
      * This class provides methods to derive pseudorandom integers and hexadecimal strings
-     * from a {@link RollContext} using HMAC-SHA256.
+     * from a {@link RollContext} using HMAC-SHA256. Digests are computed with the calling
+     * thread's {@link KeyedPrf} for the context's server seed, so the key setup is paid once per
+     * seed and thread rather than once per draw.
      */
     public static final class Prf {
         /**
@@ -96,9 +110,7 @@ public class Roll {
          * @return a pseudorandom integer derived from the HMAC
          */
         public static int drawInt(RollContext ctx, String category) {
-            byte[] bytes = hmacBytes(ctx.serverSeed(), buildMessage(ctx.clientSeed(), ctx.nonce(), category));
-
-            return firstFourBytesAsInt(bytes);
+            return draw(ctx, category).prefix();
         }
 
         /**
@@ -112,7 +124,119 @@ public class Roll {
          * @return the full HMAC-SHA256 result as a hexadecimal string
          */
         public static String drawHex(RollContext ctx, String category) {
-            return hmacHex(ctx.serverSeed(), buildMessage(ctx.clientSeed(), ctx.nonce(), category));
+            return draw(ctx, category).hex();
+        }
+
+        /**
+         * Computes the HMAC-SHA256 for the given roll context and category once and returns
+         * the message together with the raw digest.
+         * <p>
+         * Callers that need both the numeric draw and the audit hex should use this instead of
+         * {@link #drawInt} and {@link #drawHex}, which would each compute the same HMAC again.
+         *
+         * @param ctx the roll context containing server seed, client seed, and nonce
+         * @param category the category identifier for this draw operation
+         * @return the message and its HMAC-SHA256 digest
+         */
+        public static Draw draw(RollContext ctx, String category) {
+            return draw(KeyedPrf.forSeed(ctx.serverSeed()), ctx, category);
+        }
+
+        /**
+         * Same as {@link #draw(RollContext, String)}, computed with the given keyed PRF, which must
+         * be keyed with the context's server seed.
+         *
+         * @param prf the keyed PRF to use
+         * @param ctx the roll context containing server seed, client seed, and nonce
+         * @param category the category identifier for this draw operation
+         * @return the message and its HMAC-SHA256 digest
+         */
+        public static Draw draw(KeyedPrf prf, RollContext ctx, String category) {
+            long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+            String message = buildMessage(ctx.clientSeed(), ctx.nonce(), category);
+            Draw draw = new Draw(message, prf.digest(message));
+
+            if (ForgeMetrics.ENABLED) {
+                ForgeMetrics.get().recordDraws(category, 1, System.nanoTime() - start);
+            }
+            return draw;
+        }
+
+        /**
+         * Same as {@link #draw(KeyedPrf, RollContext, String)} for a key of any {@link PrfBackend}: returns
+         * block 0 of the key's stream for the context and category, with the stream's message.
+         *
+         * @param prf the key for the context's server seed
+         * @param ctx the roll context containing server seed, client seed, and nonce
+         * @param category the category identifier for this draw operation
+         * @return the message and block 0 of its stream
+         */
+        public static Draw draw(PrfKey prf, RollContext ctx, String category) {
+            if (prf instanceof KeyedPrf keyed) {
+                return draw(keyed, ctx, category);
+            }
+
+            long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+            PrfStream stream = prf.open(ctx.clientSeed(), ctx.nonce(), category);
+            byte[] block = new byte[PrfStream.BLOCK_LENGTH];
+            stream.block(0, block, 0);
+            Draw draw = new Draw(stream.message(0), block);
+
+            if (ForgeMetrics.ENABLED) {
+                ForgeMetrics.get().recordDraws(category, 1, System.nanoTime() - start);
+            }
+            return draw;
+        }
+
+        /**
+         * Opens a cursor over the PRF stream of the given roll context and category.
+         * <p>
+         * The cursor's first draw equals {@link #drawInt(RollContext, String)}; each HMAC then serves
+         * {@value PrfCursor#DRAWS_PER_BLOCK} draws. See {@link PrfCursor} for the stream definition.
+         * The cursor uses the calling thread's keyed PRF and must stay on that thread.
+         *
+         * @param ctx the roll context containing server seed, client seed, and nonce
+         * @param category the category identifier of the stream
+         * @return a cursor positioned at the first draw
+         */
+        public static PrfCursor cursor(RollContext ctx, String category) {
+            return new PrfCursor(KeyedPrf.forSeed(ctx.serverSeed()), ctx.clientSeed(), ctx.nonce(), category);
+        }
+
+        /**
+         * Same as {@link #cursor(RollContext, String)}, reading the stream of the given backend with the
+         * calling thread's key for the context's server seed.
+         *
+         * @param ctx the roll context containing server seed, client seed, and nonce
+         * @param category the category identifier of the stream
+         * @param backend the PRF backend
+         * @return a cursor positioned at the first draw
+         */
+        public static PrfCursor cursor(RollContext ctx, String category, PrfBackend backend) {
+            return new PrfCursor(backend.forSeed(ctx.serverSeed()), ctx.clientSeed(), ctx.nonce(), category);
+        }
+
+        /**
+         * Returns the first accepted draw of a stream whose block 0 is already known. That is the
+         * block's prefix if the mode accepts it; otherwise the stream is continued with a
+         * {@link PrfCursor} until a draw is accepted, so only rejections cost further HMACs.
+         *
+         * @param prf the key for the server seed
+         * @param clientSeed the client seed
+         * @param nonce the nonce of the roll
+         * @param category the category identifier of the stream
+         * @param block block 0 of the stream; its first 32 bytes are read
+         * @param mode the draw mode
+         * @param size the upper bound (exclusive) of the index range; must be positive
+         * @return the accepted draw, to be mapped with {@link DrawMode#index(int, int)}
+         */
+        public static int accepted(PrfKey prf, String clientSeed, long nonce, String category, byte[] block,
+                                   DrawMode mode, int size) {
+            int draw = firstFourBytesAsInt(block);
+            if (mode.accepts(draw, size)) {
+                return draw;
+            }
+            return new PrfCursor(prf, clientSeed, nonce, category, block).nextAccepted(mode, size);
         }
     }
 
@@ -164,6 +288,40 @@ public class Roll {
             throw new IllegalStateException("Failed to select from weights");
         }
 
+        /**
+         * Selects an item from a compiled weighted table using a draw value.
+         * <p>
+         * Selects the same item as {@link #weightedChoice(List, ToIntFunction, int)} would for the
+         * table's items and weights, in O(1) expected time instead of two linear scans.
+         *
+         * @param <T> the type of items in the table
+         * @param table the compiled table to select from
+         * @param draw the draw value used for selection
+         * @return the selected item from the table
+         */
+        public static <T> T weightedChoice(WeightedTable<T> table, int draw) {
+            return table.pick(draw);
+        }
+
+        /**
+         * Selects an item from a snapshot of a dynamic weighted table using a draw value.
+         * <p>
+         * Selects the same item as {@link #weightedChoice(List, ToIntFunction, int)} would for the
+         * snapshot's items and weights, in O(log n) time. A single 32-bit draw cannot reach every roll of
+         * a total above {@link Integer#MAX_VALUE}, so such snapshots are rejected; draw them with
+         * {@link PrfCursor#nextWeighted(DynamicWeightedTable.Snapshot, DrawMode)}.
+         *
+         * @param <T> the type of items in the table
+         * @param table the snapshot to select from
+         * @param draw the draw value used for selection
+         * @return the selected item from the snapshot
+         * @throws IllegalArgumentException if the snapshot's total weight is zero or exceeds
+         *         {@link Integer#MAX_VALUE}
+         */
+        public static <T> T weightedChoice(DynamicWeightedTable.Snapshot<T> table, int draw) {
+            return table.pick(draw);
+        }
+
         /**
          * Selects an index from a range [0, size) using a draw value.
          * <p>
@@ -199,6 +357,25 @@ public class Roll {
         
     }
 
+    /**
+     * Same as {@link #drawIndex(String, String, long, String, int)}, mapping the draw with the given mode.
+     * With {@link DrawMode#LEMIRE} a rejected draw is replaced by the next draw of the category's
+     * {@link PrfCursor} stream.
+     *
+     * @param serverSeed the server seed used for HMAC computation
+     * @param clientSeed the client seed used for HMAC computation
+     * @param nonce the nonce to ensure uniqueness of each draw
+     * @param category the category identifier for the draw operation
+     * @param size the upper bound (exclusive) of the index range; must be positive
+     * @param mode the draw mode
+     * @return a random index in the range [0, size), or -1 if size is not positive
+     */
+    public static int drawIndex(String serverSeed, String clientSeed, long nonce, String category, int size,
+                                DrawMode mode) {
+        if (size <= 0) return -1;
+        return Prf.cursor(new RollContext(serverSeed, clientSeed, nonce), category).nextIndex(size, mode);
+    }
+
     /**
      * Selects an item from a weighted list using provably fair randomness.
      * <p>
@@ -223,6 +400,231 @@ public class Roll {
                 Prf.drawInt(new RollContext(serverSeed, clientSeed, nonce), category));
     }
 
+    /**
+     * Selects an item from a compiled weighted table using provably fair randomness.
+     *
+     * @param <T> the type of items in the table
+     * @param serverSeed the server seed used for HMAC computation
+     * @param clientSeed the client seed used for HMAC computation
+     * @param nonce the nonce to ensure uniqueness of each draw
+     * @param category the category identifier for the draw operation
+     * @param table the compiled table to select from
+     * @return the selected item from the table
+     * @see #drawWeighted(String, String, long, String, List, ToIntFunction)
+     */
+    public static <T> T drawWeighted(String serverSeed, String clientSeed, long nonce, String category,
+                                     WeightedTable<T> table) {
+        return Select.weightedChoice(table,
+                Prf.drawInt(new RollContext(serverSeed, clientSeed, nonce), category));
+    }
+
+    /**
+     * Same as {@link #drawWeighted(String, String, long, String, WeightedTable)}, mapping the draw
+     * with the given mode.
+     *
+     * @param <T> the type of items in the table
+     * @param serverSeed the server seed used for HMAC computation
+     * @param clientSeed the client seed used for HMAC computation
+     * @param nonce the nonce to ensure uniqueness of each draw
+     * @param category the category identifier for the draw operation
+     * @param table the compiled table to select from
+     * @param mode the draw mode
+     * @return the selected item from the table
+     */
+    public static <T> T drawWeighted(String serverSeed, String clientSeed, long nonce, String category,
+                                     WeightedTable<T> table, DrawMode mode) {
+        return table.get(Prf.cursor(new RollContext(serverSeed, clientSeed, nonce), category).nextWeighted(table, mode));
+    }
+
+    /**
+     * Draws from a snapshot of a dynamic weighted table. Totals up to {@link Integer#MAX_VALUE} select the
+     * same item as {@link #drawWeighted(String, String, long, String, WeightedTable, DrawMode)} with the
+     * same weights; larger totals consume two draws per attempt.
+     *
+     * @param <T> the type of items in the table
+     * @param serverSeed the server seed used for HMAC computation
+     * @param clientSeed the client seed used for HMAC computation
+     * @param nonce the nonce to ensure uniqueness of each draw
+     * @param category the category identifier for the draw operation
+     * @param table the snapshot to select from; its total weight must be positive
+     * @param mode the draw mode
+     * @return the selected item from the snapshot
+     * @throws IllegalArgumentException if the snapshot's total weight is zero
+     */
+    public static <T> T drawWeighted(String serverSeed, String clientSeed, long nonce, String category,
+                                     DynamicWeightedTable.Snapshot<T> table, DrawMode mode) {
+        return table.get(Prf.cursor(new RollContext(serverSeed, clientSeed, nonce), category).nextWeighted(table, mode));
+    }
+
+    /**
+     * Draws several indices in [0, size) for a single roll, such as the dice of 10d6.
+     * <p>
+     * The draws come from one {@link PrfCursor} over the context and category, so eight draws cost
+     * a single HMAC. {@code out[0]} equals {@link #drawIndex} for the same inputs.
+     *
+     * @param ctx the roll context containing server seed, client seed, and nonce
+     * @param category the category identifier of the stream
+     * @param count the number of draws
+     * @param size the upper bound (exclusive) of the index range; if not positive every index is -1
+     * @param out the destination; must hold at least {@code count} elements
+     * @throws IllegalArgumentException if count is negative or out is too small
+     */
+    public static void drawIndices(RollContext ctx, String category, int count, int size, int[] out) {
+        checkBatch(count, out);
+        PrfCursor cursor = Prf.cursor(ctx, category);
+
+        for (int i = 0; i < count; i++) {
+            out[i] = cursor.nextIndex(size);
+        }
+    }
+
+    /**
+     * Returns a provably fair permutation of the given items.
+     * <p>
+     * Performs a Fisher-Yates shuffle from the last position down, swapping position {@code i}
+     * with {@code cursor.nextIndex(i + 1)} drawn from a single {@link PrfCursor}.
+     *
+     * @param <T> the type of items in the list
+     * @param ctx the roll context containing server seed, client seed, and nonce
+     * @param category the category identifier of the stream
+     * @param items the items to shuffle; not modified
+     * @return a new list with the shuffled items
+     */
+    public static <T> List<T> shuffle(RollContext ctx, String category, List<T> items) {
+        List<T> shuffled = new ArrayList<>(items);
+        PrfCursor cursor = Prf.cursor(ctx, category);
+
+        for (int i = shuffled.size() - 1; i > 0; i--) {
+            Collections.swap(shuffled, i, cursor.nextIndex(i + 1));
+        }
+        return shuffled;
+    }
+
+    /**
+     * Draws indices in [0, size) for a contiguous range of nonces into a caller-provided array.
+     * <p>
+     * {@code out[i]} receives exactly what {@link #drawIndex} returns for nonce {@code nonceStart + i}.
+     * The seeds are taken from the context (its nonce is not used). One keyed PRF, one message buffer
+     * and one digest buffer are reused for the whole range, so nothing is allocated per element.
+     *
+     * @param ctx the roll context supplying the server and client seeds
+     * @param category the category identifier for the draw operation
+     * @param nonceStart the nonce of the first draw
+     * @param count the number of consecutive nonces to draw
+     * @param size the upper bound (exclusive) of the index range; if not positive every index is -1
+     * @param out the destination; must hold at least {@code count} elements
+     * @throws IllegalArgumentException if count is negative or out is too small
+     */
+    public static void drawIndexBatch(RollContext ctx, String category, long nonceStart, int count, int size,
+                                      int[] out) {
+        drawIndexBatch(ctx, category, nonceStart, count, size, DrawMode.MODULO, out);
+    }
+
+    /**
+     * Same as {@link #drawIndexBatch(RollContext, String, long, int, int, int[])}, mapping the draws
+     * with the given mode; {@code out[i]} equals {@link #drawIndex(String, String, long, String, int, DrawMode)}.
+     * A rejected draw falls back to the nonce's cursor stream, which is the only case that allocates.
+     *
+     * @param ctx the roll context supplying the server and client seeds
+     * @param category the category identifier for the draw operation
+     * @param nonceStart the nonce of the first draw
+     * @param count the number of consecutive nonces to draw
+     * @param size the upper bound (exclusive) of the index range; if not positive every index is -1
+     * @param mode the draw mode
+     * @param out the destination; must hold at least {@code count} elements
+     * @throws IllegalArgumentException if count is negative or out is too small
+     */
+    public static void drawIndexBatch(RollContext ctx, String category, long nonceStart, int count, int size,
+                                      DrawMode mode, int[] out) {
+        checkBatch(count, out);
+        if (size <= 0) {
+            Arrays.fill(out, 0, count, -1);
+            return;
+        }
+
+        KeyedPrf prf = KeyedPrf.forSeed(ctx.serverSeed());
+        MessageBuffer message = new MessageBuffer(ctx.clientSeed());
+        byte[] suffix = MessageBuffer.suffix(category);
+        byte[] digest = new byte[KeyedPrf.DIGEST_LENGTH];
+        long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+
+        for (int i = 0; i < count; i++) {
+            int length = message.encode(nonceStart + i, suffix);
+            prf.digest(message.buffer(), 0, length, digest, 0);
+            int draw = Prf.accepted(prf, ctx.clientSeed(), nonceStart + i, category, digest, mode, size);
+            out[i] = mode.index(draw, size);
+        }
+
+        if (ForgeMetrics.ENABLED) {
+            ForgeMetrics.get().recordDraws(category, count, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Draws item indices from a compiled weighted table for a contiguous range of nonces into a
+     * caller-provided array.
+     * <p>
+     * {@code out[i]} receives the index of the item {@link #drawWeighted(String, String, long, String, WeightedTable)}
+     * selects for nonce {@code nonceStart + i}. Like {@link #drawIndexBatch}, nothing is allocated per element.
+     *
+     * @param ctx the roll context supplying the server and client seeds
+     * @param category the category identifier for the draw operation
+     * @param nonceStart the nonce of the first draw
+     * @param count the number of consecutive nonces to draw
+     * @param table the compiled table to select from
+     * @param out the destination; must hold at least {@code count} elements
+     * @throws IllegalArgumentException if count is negative or out is too small
+     */
+    public static void drawWeightedBatch(RollContext ctx, String category, long nonceStart, int count,
+                                         WeightedTable<?> table, int[] out) {
+        drawWeightedBatch(ctx, category, nonceStart, count, table, DrawMode.MODULO, out);
+    }
+
+    /**
+     * Same as {@link #drawWeightedBatch(RollContext, String, long, int, WeightedTable, int[])}, mapping
+     * the draws with the given mode.
+     *
+     * @param ctx the roll context supplying the server and client seeds
+     * @param category the category identifier for the draw operation
+     * @param nonceStart the nonce of the first draw
+     * @param count the number of consecutive nonces to draw
+     * @param table the compiled table to select from
+     * @param mode the draw mode
+     * @param out the destination; must hold at least {@code count} elements
+     * @throws IllegalArgumentException if count is negative or out is too small
+     */
+    public static void drawWeightedBatch(RollContext ctx, String category, long nonceStart, int count,
+                                         WeightedTable<?> table, DrawMode mode, int[] out) {
+        checkBatch(count, out);
+
+        KeyedPrf prf = KeyedPrf.forSeed(ctx.serverSeed());
+        MessageBuffer message = new MessageBuffer(ctx.clientSeed());
+        byte[] suffix = MessageBuffer.suffix(category);
+        byte[] digest = new byte[KeyedPrf.DIGEST_LENGTH];
+        long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+
+        int totalWeight = table.totalWeight();
+        for (int i = 0; i < count; i++) {
+            int length = message.encode(nonceStart + i, suffix);
+            prf.digest(message.buffer(), 0, length, digest, 0);
+            int draw = Prf.accepted(prf, ctx.clientSeed(), nonceStart + i, category, digest, mode, totalWeight);
+            out[i] = table.indexForRoll(mode.index(draw, totalWeight));
+        }
+
+        if (ForgeMetrics.ENABLED) {
+            ForgeMetrics.get().recordDraws(category, count, System.nanoTime() - start);
+        }
+    }
+
+    private static void checkBatch(int count, int[] out) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        if (out == null || out.length < count) {
+            throw new IllegalArgumentException("out must hold at least " + count + " elements");
+        }
+    }
+
     /**
      * Fairly select a value from a given list based on the server seed,
      * client seed, and nonce, and return the result as a FairRoll object.
@@ -234,6 +636,8 @@ public class Roll {
      * generate the HMAC-SHA256 of the client seed, nonce, and message "item".
      * The first four bytes of this HMAC are interpreted as an unsigned integer,
      * and this value is used to select an item from the selected value.
+     * Each of the two HMACs is computed exactly once; the debug hex and numeric prefixes
+     * are derived from the same digest.
      *
      * @param serverSeed the server seed to use for the HMAC computation
      * @param clientSeed the client seed to use for the HMAC computation
@@ -247,60 +651,296 @@ public class Roll {
      */
     public static FairRoll fairRoll(String serverSeed, String clientSeed, long nonce,
             List<Value> values, boolean advanceServerSeed) {
+        return fairRoll(serverSeed, clientSeed, nonce, values, advanceServerSeed, DebugLevel.FULL);
+    }
+
+    /**
+     * Same as {@link #fairRoll(String, String, long, List, boolean)}, keeping only as much debug
+     * information as the given level asks for.
+     * <p>
+     * With {@link DebugLevel#SUMMARY} the rollout retains the two raw digests and rebuilds the
+     * {@link Debug} bean only when {@link Rollout#getDebug()} is called; with {@link DebugLevel#NONE}
+     * nothing is retained. Either way the hex strings, messages and boxed numbers of the debug
+     * are not created on the roll itself.
+     *
+     * @param serverSeed the server seed to use for the HMAC computation
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param values the list of values to select from
+     * @param advanceServerSeed whether to advance the server seed
+     * @param debugLevel how much debug information the rollout keeps
+     * @return the result as a FairRoll object
+     * @throws IllegalArgumentException if the given list of values is null or empty
+     */
+    public static FairRoll fairRoll(String serverSeed, String clientSeed, long nonce,
+            List<Value> values, boolean advanceServerSeed, DebugLevel debugLevel) {
+        return fairRoll(serverSeed, clientSeed, nonce, values, advanceServerSeed, RollOptions.of(debugLevel));
+    }
+
+    /**
+     * Same as {@link #fairRoll(String, String, long, List, boolean, DebugLevel)}, with the debug level,
+     * draw mode and PRF backend taken from the options. With {@link DrawMode#LEMIRE} a rejected draw of
+     * either stage is replaced by the next draw of that stage's {@link PrfCursor} stream, whose block 0 is
+     * the HMAC recorded in the debug. With a backend other than HMAC-SHA256 the debug records block 0 of
+     * that backend's streams instead, and the backend's id.
+     *
+     * @param serverSeed the server seed to use for the HMAC computation
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param values the list of values to select from
+     * @param advanceServerSeed whether to advance the server seed
+     * @param options the debug level, draw mode and PRF backend
+     * @return the result as a FairRoll object
+     * @throws IllegalArgumentException if the given list of values is null or empty
+     */
+    public static FairRoll fairRoll(String serverSeed, String clientSeed, long nonce,
+            List<Value> values, boolean advanceServerSeed, RollOptions options) {
         if (values == null || values.isEmpty()) {
             throw new IllegalArgumentException("values must be a non-empty list");
         }
 
-        int totalWeight = values.stream()
-                .map(r -> r.getWeight() == null ? 0 : r.getWeight())
-                .reduce(0, Integer::sum);
+        int totalWeight = 0;
+        for (Value value : values) {
+            totalWeight += value.getWeight() == null ? 0 : value.getWeight();
+        }
         if (totalWeight <= 0) {
             throw new IllegalArgumentException("Sum of weights must be positive");
         }
 
+        PrfKey prf = options.prfBackend().forSeed(serverSeed);
+        RollContext ctx = new RollContext(serverSeed, clientSeed, nonce);
+        Draw valueDraw = Prf.draw(prf, ctx, "value");
+        int valueAccepted = Prf.accepted(prf, clientSeed, nonce, "value", valueDraw.digest(), options.drawMode(), totalWeight);
+        Value chosenValue = getChosenValue(values, options.drawMode().index(valueAccepted, totalWeight));
+
+        return completeFairRoll(prf, ctx, valueDraw, valueAccepted, chosenValue, totalWeight, advanceServerSeed, options);
+    }
+
+    /**
+     * Same as {@link #fairRoll(String, String, long, List, boolean)}, but selects the value from a
+     * compiled table in O(1) expected time. The result is identical to rolling the table's values as a list.
+     *
+     * @param serverSeed the server seed to use for the HMAC computation
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param table the compiled table of values to select from
+     * @param advanceServerSeed whether to advance the server seed by computing its
+     *            SHA-256 hash and returning the result as a hexadecimal string
+     * @return the result as a FairRoll object
+     */
+    public static FairRoll fairRoll(String serverSeed, String clientSeed, long nonce,
+            WeightedTable<Value> table, boolean advanceServerSeed) {
+        return fairRoll(serverSeed, clientSeed, nonce, table, advanceServerSeed, DebugLevel.FULL);
+    }
+
+    /**
+     * Same as {@link #fairRoll(String, String, long, WeightedTable, boolean)}, keeping only as much
+     * debug information as the given level asks for.
+     *
+     * @param serverSeed the server seed to use for the HMAC computation
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param table the compiled table of values to select from
+     * @param advanceServerSeed whether to advance the server seed
+     * @param debugLevel how much debug information the rollout keeps
+     * @return the result as a FairRoll object
+     * @see #fairRoll(String, String, long, List, boolean, DebugLevel)
+     */
+    public static FairRoll fairRoll(String serverSeed, String clientSeed, long nonce,
+            WeightedTable<Value> table, boolean advanceServerSeed, DebugLevel debugLevel) {
+        return fairRoll(KeyedPrf.forSeed(serverSeed), clientSeed, nonce, table, advanceServerSeed,
+                RollOptions.of(debugLevel));
+    }
+
+    /**
+     * Same as {@link #fairRoll(String, String, long, WeightedTable, boolean, DebugLevel)}, with the
+     * debug level, draw mode and PRF backend taken from the options.
+     *
+     * @param serverSeed the server seed to use for the HMAC computation
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param table the compiled table of values to select from
+     * @param advanceServerSeed whether to advance the server seed
+     * @param options the debug level, draw mode and PRF backend
+     * @return the result as a FairRoll object
+     * @see #fairRoll(String, String, long, List, boolean, RollOptions)
+     */
+    public static FairRoll fairRoll(String serverSeed, String clientSeed, long nonce,
+            WeightedTable<Value> table, boolean advanceServerSeed, RollOptions options) {
+        return fairRoll(options.prfBackend().forSeed(serverSeed), clientSeed, nonce, table, advanceServerSeed,
+                options);
+    }
+
+    /**
+     * Same as {@link #fairRoll(String, String, long, WeightedTable, boolean, DebugLevel)}, computing
+     * both HMACs with the given keyed PRF. Callers rolling many times with one server seed outside
+     * a long-lived thread (a batch, a virtual thread) can key the PRF once and reuse it.
+     *
+     * @param prf the keyed PRF for the server seed
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param table the compiled table of values to select from
+     * @param advanceServerSeed whether to advance the server seed
+     * @param debugLevel how much debug information the rollout keeps
+     * @return the result as a FairRoll object
+     */
+    public static FairRoll fairRoll(KeyedPrf prf, String clientSeed, long nonce,
+            WeightedTable<Value> table, boolean advanceServerSeed, DebugLevel debugLevel) {
+        return fairRoll(prf, clientSeed, nonce, table, advanceServerSeed, RollOptions.of(debugLevel));
+    }
+
+    /**
+     * Same as {@link #fairRoll(KeyedPrf, String, long, WeightedTable, boolean, DebugLevel)}, with the
+     * debug level and draw mode taken from the options. The draws come from the given key, so its
+     * backend is the one used and recorded; the options' backend is not consulted.
+     *
+     * @param prf the key for the server seed, of any {@link PrfBackend}
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param table the compiled table of values to select from
+     * @param advanceServerSeed whether to advance the server seed
+     * @param options the debug level and draw mode
+     * @return the result as a FairRoll object
+     */
+    public static FairRoll fairRoll(PrfKey prf, String clientSeed, long nonce,
+            WeightedTable<Value> table, boolean advanceServerSeed, RollOptions options) {
+        RollContext ctx = new RollContext(prf.serverSeed(), clientSeed, nonce);
+        Draw valueDraw = Prf.draw(prf, ctx, "value");
+        int totalWeight = table.totalWeight();
+        int valueAccepted = Prf.accepted(prf, clientSeed, nonce, "value", valueDraw.digest(), options.drawMode(), totalWeight);
+        Value chosenValue = table.get(table.indexForRoll(options.drawMode().index(valueAccepted, totalWeight)));
+
+        return completeFairRoll(prf, ctx, valueDraw, valueAccepted, chosenValue, totalWeight, advanceServerSeed, options);
+    }
+
+    /**
+     * Same as {@link #fairRoll(String, String, long, WeightedTable, boolean, RollOptions)} for a snapshot of a
+     * dynamic weighted table, so live weight changes need no recompilation. The weight recorded for the
+     * selected value is its weight in the snapshot, so the roll verifies like one made from a list of
+     * values carrying those weights.
+     *
+     * @param serverSeed the server seed to use for the HMAC computation
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param table the snapshot of values to select from
+     * @param advanceServerSeed whether to advance the server seed
+     * @param options the debug level, draw mode and PRF backend
+     * @return the result as a FairRoll object
+     * @throws IllegalArgumentException if the total weight is zero or exceeds {@link Integer#MAX_VALUE}
+     */
+    public static FairRoll fairRoll(String serverSeed, String clientSeed, long nonce,
+            DynamicWeightedTable.Snapshot<Value> table, boolean advanceServerSeed, RollOptions options) {
+        long total = table.totalWeight();
+        if (total <= 0 || total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Sum of weights must be in [1, " + Integer.MAX_VALUE + "]");
+        }
+        int totalWeight = (int) total;
+
+        PrfKey prf = options.prfBackend().forSeed(serverSeed);
         RollContext ctx = new RollContext(serverSeed, clientSeed, nonce);
-        int valueValue = Prf.drawInt(ctx, "value");
-        String valueMsg = buildMessage(clientSeed, nonce, "value");
-        String valueHmacHex = Prf.drawHex(ctx, "value");
-        Integer valueRoll = Math.floorMod(valueValue, totalWeight);
+        Draw valueDraw = Prf.draw(prf, ctx, "value");
+        int valueAccepted = Prf.accepted(prf, clientSeed, nonce, "value", valueDraw.digest(), options.drawMode(), totalWeight);
+        int index = table.indexForRoll(options.drawMode().index(valueAccepted, totalWeight));
 
-        Value chosenValue = getChosenValue(values, valueValue, totalWeight);
+        return completeFairRoll(prf, ctx, valueDraw, valueAccepted, table.get(index), (int) table.weight(index),
+                totalWeight, advanceServerSeed, options);
+    }
 
-        int itemValue = Prf.drawInt(ctx, "item");
-        String itemMsg = buildMessage(clientSeed, nonce, "item");
-        String itemHmacHex = Prf.drawHex(ctx, "item");
+    /**
+     * Rolls like {@link #fairRoll(KeyedPrf, String, long, WeightedTable, boolean, DebugLevel)} but returns
+     * the compact form directly: both HMACs are written into the rollout's digest array and no debug
+     * strings, boxed numbers or intermediate beans are created.
+     *
+     * @param prf the keyed PRF for the server seed
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param table the compiled table of values to select from
+     * @return the compact rollout
+     */
+    public static CompactRollout compactRoll(KeyedPrf prf, String clientSeed, long nonce, WeightedTable<Value> table) {
+        return compactRoll(prf, clientSeed, nonce, table, DrawMode.MODULO);
+    }
+
+    /**
+     * Same as {@link #compactRoll(KeyedPrf, String, long, WeightedTable)}, mapping the draws with the given mode.
+     *
+     * @param prf the keyed PRF for the server seed
+     * @param clientSeed the client seed to use for the HMAC computation
+     * @param nonce the nonce to use for the HMAC computation
+     * @param table the compiled table of values to select from
+     * @param mode the draw mode
+     * @return the compact rollout
+     */
+    public static CompactRollout compactRoll(KeyedPrf prf, String clientSeed, long nonce, WeightedTable<Value> table,
+                                             DrawMode mode) {
+        MessageBuffer message = new MessageBuffer(clientSeed);
+        byte[] digests = new byte[2 * KeyedPrf.DIGEST_LENGTH];
+        long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+        int length = message.encode(nonce, VALUE_SUFFIX);
+        prf.digest(message.buffer(), 0, length, digests, 0);
+        long valueDone = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+        length = message.encode(nonce, ITEM_SUFFIX);
+        prf.digest(message.buffer(), 0, length, digests, KeyedPrf.DIGEST_LENGTH);
+
+        if (ForgeMetrics.ENABLED) {
+            ForgeMetrics.get().recordDraws("value", 1, valueDone - start);
+            ForgeMetrics.get().recordDraws("item", 1, System.nanoTime() - valueDone);
+        }
+
+        int totalWeight = table.totalWeight();
+        int valueDraw = firstFourBytesAsInt(digests);
+        if (!mode.accepts(valueDraw, totalWeight)) {
+            valueDraw = Prf.accepted(prf, clientSeed, nonce, "value",
+                    Arrays.copyOfRange(digests, 0, KeyedPrf.DIGEST_LENGTH), mode, totalWeight);
+        }
+        Value chosenValue = table.get(table.indexForRoll(mode.index(valueDraw, totalWeight)));
+
+        Integer items = chosenValue.getCount();
+        int itemDraw = intAt(digests, KeyedPrf.DIGEST_LENGTH);
+        if (items != null && items > 0 && !mode.accepts(itemDraw, items)) {
+            itemDraw = Prf.accepted(prf, clientSeed, nonce, "item",
+                    Arrays.copyOfRange(digests, KeyedPrf.DIGEST_LENGTH, 2 * KeyedPrf.DIGEST_LENGTH), mode, items);
+        }
+        return new CompactRollout(prf.serverSeed(), clientSeed, nonce, chosenValue.getId(), totalWeight,
+                chosenValue.getWeight() == null ? CompactRollout.ABSENT : chosenValue.getWeight(),
+                items == null ? CompactRollout.ABSENT : items, digests, mode, valueDraw, itemDraw);
+    }
+
+    private static FairRoll completeFairRoll(PrfKey prf, RollContext ctx, Draw valueDraw, int valueAccepted,
+            Value chosenValue, int totalWeight, boolean advanceServerSeed, RollOptions options) {
+        return completeFairRoll(prf, ctx, valueDraw, valueAccepted, chosenValue, chosenValue.getWeight(), totalWeight,
+                advanceServerSeed, options);
+    }
+
+    private static FairRoll completeFairRoll(PrfKey prf, RollContext ctx, Draw valueDraw, int valueAccepted,
+            Value chosenValue, Integer selectedWeight, int totalWeight, boolean advanceServerSeed, RollOptions options) {
+        Draw itemDraw = Prf.draw(prf, ctx, "item");
+        DrawMode mode = options.drawMode();
 
         Integer itemsInValue = chosenValue.getCount();
+        int itemAccepted = itemDraw.prefix();
         Integer itemIndex = null;
         if (itemsInValue != null && itemsInValue > 0) {
-            itemIndex = Math.floorMod(itemValue, itemsInValue);
-        }
-
-        String nextServerSeed = advanceServerSeed ? seedChainAdvance(serverSeed) : serverSeed;
-
-        Rollout rollout = new Rollout(chosenValue.getId(), itemIndex, Debug.builder()
-                .serverSeedUsed(serverSeed)
-                .clientSeed(clientSeed)
-                .nonce(nonce)
-                .valueMsg(valueMsg)
-                .valueHmacHex(valueHmacHex)
-                .hmacValueNumericPrefix(Integer.toUnsignedLong(valueValue))
-                .selectedValueWeight(chosenValue.getWeight())
-                .itemMsg(itemMsg)
-                .itemHmacHex(itemHmacHex)
-                .hmacItemNumericPrefix(Integer.toUnsignedLong(itemValue))
-                .itemIndex(itemIndex)
-                .itemsInValue(itemsInValue)
-                .totalWeight(totalWeight)
-                .rollValue(valueRoll)
-        .build());
+            itemAccepted = Prf.accepted(prf, ctx.clientSeed(), ctx.nonce(), "item", itemDraw.digest(), mode, itemsInValue);
+            itemIndex = mode.index(itemAccepted, itemsInValue);
+        }
+
+        String nextServerSeed = advanceServerSeed ? seedChainAdvance(ctx.serverSeed()) : ctx.serverSeed();
+
+        Rollout rollout = switch (options.debugLevel()) {
+            case NONE -> new Rollout(chosenValue.getId(), itemIndex, null);
+            case SUMMARY -> Rollout.withLazyDebug(chosenValue.getId(), itemIndex, new RollEvidence(ctx, mode,
+                    prf.backend(), valueDraw.digest(), itemDraw.digest(), valueAccepted, itemAccepted, totalWeight,
+                    selectedWeight, itemsInValue));
+            case FULL -> new Rollout(chosenValue.getId(), itemIndex, new RollEvidence(ctx, mode,
+                    prf.backend(), valueDraw.digest(), itemDraw.digest(), valueAccepted, itemAccepted, totalWeight,
+                    selectedWeight, itemsInValue).get());
+        };
 
         return new FairRoll(rollout, nextServerSeed);
     }
 
-    private static Value getChosenValue(List<Value> values, int valueValue, int totalWeight) {
-        int valueRoll = Math.floorMod(valueValue, totalWeight);
-
+    private static Value getChosenValue(List<Value> values, int valueRoll) {
         int cumulative = 0;
         Value chosenValue = null;
         for (Value value : values) {
@@ -321,7 +961,8 @@ public class Roll {
      * Validates the HMAC-SHA256 of a given message using a given secret key.
      * This method is safe against timing attacks, as it uses the constant-time
      * comparison provided by MessageDigest.isEqual on the bytes of the actual and expected
-     * HMACs.
+     * HMACs. The expected hex is decoded to bytes (upper- or lowercase digits); malformed hex
+     * never matches.
      *
      * @param secretKey the secret key to use for the HMAC computation
      * @param message the message to compute the HMAC of
@@ -329,10 +970,14 @@ public class Roll {
      * @return whether the actual HMAC matches the expected HMAC
      */
     public static boolean validateHmac(String secretKey, String message, String expectedHmacHex) {
-        String actual = hmacHex(secretKey, message);
-        // Constant-time comparison using MessageDigest.isEqual on bytes
-        return MessageDigest.isEqual(actual.getBytes(StandardCharsets.UTF_8),
-                expectedHmacHex.getBytes(StandardCharsets.UTF_8));
+        byte[] expected = new byte[KeyedPrf.DIGEST_LENGTH];
+        if (expectedHmacHex == null || expectedHmacHex.length() != KeyedPrf.DIGEST_LENGTH * 2
+                || !Hex.decode(expectedHmacHex, expected, 0)) {
+            return false;
+        }
+
+        // Constant-time comparison using MessageDigest.isEqual on the raw digest bytes
+        return MessageDigest.isEqual(hmacBytes(secretKey, message), expected);
     }
 
     /**
@@ -355,17 +1000,17 @@ public class Roll {
 
 
     private static int firstFourBytesAsInt(byte[] bytes) {
-        // Use big-endian of first 4 bytes; treat as unsigned by using toUnsignedLong when needed
-        ByteBuffer bb = ByteBuffer.wrap(bytes, 0, 4);
-        return bb.getInt();
+        return intAt(bytes, 0);
+    }
+
+    static int intAt(byte[] bytes, int offset) {
+        // Use big-endian of 4 bytes; treat as unsigned by using toUnsignedLong when needed
+        return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16 | (bytes[offset + 2] & 0xff) << 8
+                | bytes[offset + 3] & 0xff;
     }
 
     private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
+        return Hex.encode(bytes);
     }
 
     /**
@@ -390,4 +1035,109 @@ public class Roll {
      * @param nextServerSeed the server seed to use for the next roll (may be the same or advanced)
      */
     public record FairRoll(Rollout result, String nextServerSeed) { }
+
+    /**
+     * Raw data of a two-stage roll from which its {@link Debug} can be rebuilt at any time.
+     * Retained instead of the debug bean when rolling with {@link DebugLevel#SUMMARY}, and stored
+     * as is by the rollout journal.
+     *
+     * @param ctx the roll context
+     * @param drawMode how the draws were mapped to indices
+     * @param prfBackend the PRF the draws came from
+     * @param valueDigest the 32-byte HMAC of the "value" message (block 0 of its stream); must not be modified
+     * @param itemDigest the 32-byte HMAC of the "item" message (block 0 of its stream); must not be modified
+     * @param valueDraw the accepted value draw; the prefix of the value digest unless a draw was rejected
+     * @param itemDraw the accepted item draw; the prefix of the item digest unless a draw was rejected
+     * @param totalWeight the total weight of the rolled values
+     * @param selectedValueWeight the weight of the selected value
+     * @param itemsInValue the item count of the selected value
+     */
+    public record RollEvidence(RollContext ctx, DrawMode drawMode, PrfBackend prfBackend, byte[] valueDigest,
+                               byte[] itemDigest, int valueDraw, int itemDraw, int totalWeight,
+                               Integer selectedValueWeight, Integer itemsInValue) implements Supplier<Debug> {
+        /**
+         * Evidence of a roll drawn from the default HMAC-SHA256 backend.
+         */
+        public RollEvidence(RollContext ctx, DrawMode drawMode, byte[] valueDigest, byte[] itemDigest,
+                            int valueDraw, int itemDraw, int totalWeight, Integer selectedValueWeight,
+                            Integer itemsInValue) {
+            this(ctx, drawMode, PrfBackends.HMAC_SHA256, valueDigest, itemDigest, valueDraw, itemDraw, totalWeight,
+                    selectedValueWeight, itemsInValue);
+        }
+
+        /**
+         * Evidence of a {@link DrawMode#MODULO} roll, whose draws are the digest prefixes.
+         */
+        public RollEvidence(RollContext ctx, byte[] valueDigest, byte[] itemDigest, int totalWeight,
+                            Integer selectedValueWeight, Integer itemsInValue) {
+            this(ctx, DrawMode.MODULO, valueDigest, itemDigest, firstFourBytesAsInt(valueDigest),
+                    firstFourBytesAsInt(itemDigest), totalWeight, selectedValueWeight, itemsInValue);
+        }
+
+        /**
+         * @return the selected item index, or {@code null} if the selected value has no items
+         */
+        public Integer itemIndex() {
+            return itemsInValue != null && itemsInValue > 0 ? drawMode.index(itemDraw, itemsInValue) : null;
+        }
+
+        @Override
+        public Debug get() {
+            int valueValue = firstFourBytesAsInt(valueDigest);
+            int itemValue = firstFourBytesAsInt(itemDigest);
+            Integer itemIndex = itemIndex();
+
+            return Debug.builder()
+                    .serverSeedUsed(ctx.serverSeed())
+                    .clientSeed(ctx.clientSeed())
+                    .nonce(ctx.nonce())
+                    .valueMsg(buildMessage(ctx.clientSeed(), ctx.nonce(), "value"))
+                    .valueHmacHex(bytesToHex(valueDigest))
+                    .hmacValueNumericPrefix(Integer.toUnsignedLong(valueValue))
+                    .selectedValueWeight(selectedValueWeight)
+                    .itemMsg(buildMessage(ctx.clientSeed(), ctx.nonce(), "item"))
+                    .itemHmacHex(bytesToHex(itemDigest))
+                    .hmacItemNumericPrefix(Integer.toUnsignedLong(itemValue))
+                    .itemIndex(itemIndex)
+                    .itemsInValue(itemsInValue)
+                    .totalWeight(totalWeight)
+                    .rollValue(drawMode.index(valueDraw, totalWeight))
+                    .drawVersion(drawMode.version())
+                    .prfBackend(prfBackend.id())
+                    .build();
+        }
+    }
+
+    /**
+     * A single PRF evaluation: the message that was authenticated and its raw HMAC-SHA256 digest, or
+     * block 0 of another backend's stream for the message.
+     * <p>
+     * The numeric prefix and hex form are derived from the digest on demand, so one HMAC
+     * serves both the selection and the audit trail.
+     *
+     * @param message the message built by {@link #buildMessage(String, long, String)}
+     * @param digest the 32-byte HMAC-SHA256 of the message; must not be modified
+     */
+    public record Draw(String message, byte[] digest) {
+        /**
+         * @return the first four bytes of the digest as a big-endian signed integer
+         */
+        public int prefix() {
+            return firstFourBytesAsInt(digest);
+        }
+
+        /**
+         * @return the first four bytes of the digest as an unsigned integer
+         */
+        public long unsignedPrefix() {
+            return Integer.toUnsignedLong(prefix());
+        }
+
+        /**
+         * @return the full digest as a lowercase hexadecimal string
+         */
+        public String hex() {
+            return bytesToHex(digest);
+        }
+    }
 }
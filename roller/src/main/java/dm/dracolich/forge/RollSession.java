@@ -0,0 +1,216 @@
+package dm.dracolich.forge;
+
+import dm.dracolich.forge.metrics.ForgeMetrics;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.prf.MessageBuffer;
+import dm.dracolich.forge.prf.PrfCursor;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DrawMode;
+
+/**
+ * The rolls of one client seed under one server seed, drawn without per-roll allocation.
+ * <p>
+ * A session owns a {@link KeyedPrf}, a {@link MessageBuffer} holding the encoded {@code clientSeed:} prefix
+ * and a digest buffer, and tracks the nonce itself. Categories are pre-encoded once into {@link Category}
+ * handles, usually kept in constants. Every draw writes the nonce digits into the buffer and hashes it in
+ * place, so the messages are byte-identical to {@link Roll#buildMessage(String, long, String)} and the
+ * draws equal those of {@link Roll.Prf#drawInt}, {@link Roll#drawIndex} and {@link Roll#drawWeighted} for
+ * the same nonce. Only a draw rejected by {@link DrawMode#LEMIRE} allocates, for the cursor that continues
+ * the stream.
+ * <p>
+ * The {@code draw*} methods read the current nonce and leave it in place, so one roll can draw several
+ * categories; {@link #advance()} moves to the next roll. The {@code next*} methods draw and advance.
+ * <p>
+ * Sessions are <b>not</b> thread-safe, but may be handed from one thread to another.
+ */
+public final class RollSession {
+    private final KeyedPrf prf;
+    private final String clientSeed;
+    private final MessageBuffer message;
+    private final byte[] digest = new byte[KeyedPrf.DIGEST_LENGTH];
+    private long nonce;
+
+    private RollSession(KeyedPrf prf, String clientSeed, long nonce) {
+        this.prf = prf;
+        this.clientSeed = clientSeed;
+        this.message = new MessageBuffer(clientSeed);
+        this.nonce = nonce;
+    }
+
+    /**
+     * Opens a session with its own keyed PRF, positioned at the given nonce.
+     *
+     * @param serverSeed the server seed used as the HMAC key
+     * @param clientSeed the client seed
+     * @param nonce the nonce of the first roll
+     * @return the session
+     * @throws IllegalArgumentException if the server seed is null or empty, or the client seed is null
+     */
+    public static RollSession open(String serverSeed, String clientSeed, long nonce) {
+        if (clientSeed == null) {
+            throw new IllegalArgumentException("clientSeed must not be null");
+        }
+        return new RollSession(KeyedPrf.create(serverSeed), clientSeed, nonce);
+    }
+
+    /**
+     * Pre-encodes a category.
+     *
+     * @param name the category identifier; must not contain {@code ':'}
+     * @return a handle usable with any session
+     * @throws IllegalArgumentException if the name is null or contains {@code ':'}
+     */
+    public static Category category(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("category must not be null");
+        }
+        PrfCursor.checkCategory(name);
+        return new Category(name, MessageBuffer.suffix(name));
+    }
+
+    public String serverSeed() {
+        return prf.serverSeed();
+    }
+
+    public String clientSeed() {
+        return clientSeed;
+    }
+
+    /**
+     * @return the nonce the next draw uses
+     */
+    public long nonce() {
+        return nonce;
+    }
+
+    /**
+     * Moves to the next roll.
+     *
+     * @return the new nonce
+     */
+    public long advance() {
+        return ++nonce;
+    }
+
+    /**
+     * Positions the session at the given nonce, for example one handed out by a {@code NonceAllocator}.
+     *
+     * @param nonce the nonce the next draw uses
+     */
+    public void seek(long nonce) {
+        this.nonce = nonce;
+    }
+
+    /**
+     * Computes the HMAC-SHA256 of {@code clientSeed:nonce:category} for the current nonce into {@code out}.
+     *
+     * @param category the category handle
+     * @param out the destination; needs {@link KeyedPrf#DIGEST_LENGTH} bytes from {@code offset}
+     * @param offset where the digest is written
+     */
+    public void digest(Category category, byte[] out, int offset) {
+        long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+        int length = message.encode(nonce, category.suffix);
+        prf.digest(message.buffer(), 0, length, out, offset);
+
+        if (ForgeMetrics.ENABLED) {
+            ForgeMetrics.get().recordDraws(category.name, 1, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Same as {@link Roll.Prf#drawInt(Roll.RollContext, String)} for the current nonce.
+     *
+     * @param category the category handle
+     * @return the first four bytes of the HMAC as a big-endian integer
+     */
+    public int drawInt(Category category) {
+        digest(category, digest, 0);
+        return Roll.intAt(digest, 0);
+    }
+
+    /**
+     * Same as {@link Roll#drawIndex(String, String, long, String, int, DrawMode)} for the current nonce.
+     *
+     * @param category the category handle
+     * @param size the upper bound (exclusive) of the index range
+     * @param mode the draw mode
+     * @return an index in {@code [0, size)}, or -1 if size is not positive
+     */
+    public int drawIndex(Category category, int size, DrawMode mode) {
+        if (size <= 0) return -1;
+        return mode.index(accepted(category, size, mode), size);
+    }
+
+    /**
+     * Same as {@link Roll#drawWeighted(String, String, long, String, WeightedTable, DrawMode)} for the
+     * current nonce.
+     *
+     * @param <T> the type of items in the table
+     * @param category the category handle
+     * @param table the compiled table to select from
+     * @param mode the draw mode
+     * @return the selected item
+     */
+    public <T> T drawWeighted(Category category, WeightedTable<T> table, DrawMode mode) {
+        return table.get(drawWeightedIndex(category, table, mode));
+    }
+
+    /**
+     * Same as {@link #drawWeighted}, returning the index of the selected item.
+     *
+     * @param category the category handle
+     * @param table the compiled table to select from
+     * @param mode the draw mode
+     * @return the index of the selected item in the table
+     */
+    public int drawWeightedIndex(Category category, WeightedTable<?> table, DrawMode mode) {
+        int totalWeight = table.totalWeight();
+        return table.indexForRoll(mode.index(accepted(category, totalWeight, mode), totalWeight));
+    }
+
+    /**
+     * {@link #drawIndex} followed by {@link #advance()}.
+     */
+    public int nextIndex(Category category, int size, DrawMode mode) {
+        int index = drawIndex(category, size, mode);
+        nonce++;
+        return index;
+    }
+
+    /**
+     * {@link #drawWeighted} followed by {@link #advance()}.
+     */
+    public <T> T nextWeighted(Category category, WeightedTable<T> table, DrawMode mode) {
+        T item = drawWeighted(category, table, mode);
+        nonce++;
+        return item;
+    }
+
+    private int accepted(Category category, int size, DrawMode mode) {
+        digest(category, digest, 0);
+        return Roll.Prf.accepted(prf, clientSeed, nonce, category.name, digest, mode, size);
+    }
+
+    /**
+     * A category with its {@code :category} message suffix encoded once.
+     */
+    public static final class Category {
+        private final String name;
+        private final byte[] suffix;
+
+        private Category(String name, byte[] suffix) {
+            this.name = name;
+            this.suffix = suffix;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
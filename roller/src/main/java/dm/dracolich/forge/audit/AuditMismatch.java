@@ -0,0 +1,19 @@
+package dm.dracolich.forge.audit;
+
+/**
+ * A stored rollout whose debug data does not match what the seeds produce.
+ *
+ * @param position the zero-based position of the rollout in the verified input
+ * @param clientSeed the client seed recorded in the rollout's debug data
+ * @param nonce the nonce recorded in the rollout's debug data
+ * @param reason the first check that failed
+ */
+public record AuditMismatch(long position, String clientSeed, Long nonce, Reason reason) {
+
+    public enum Reason {
+        VALUE_MESSAGE, VALUE_HMAC, VALUE_PREFIX, VALUE_ROLL,
+        ITEM_MESSAGE, ITEM_HMAC, ITEM_PREFIX, ITEM_INDEX,
+        /** The debug data is incomplete, or verifying it failed with an exception. */
+        MALFORMED
+    }
+}
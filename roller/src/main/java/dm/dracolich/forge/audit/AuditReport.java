@@ -0,0 +1,31 @@
+package dm.dracolich.forge.audit;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk verification run.
+ *
+ * @param total the number of rollouts read from the input
+ * @param verified the number of rollouts whose debug data matched
+ * @param mismatched the number of rollouts with at least one failed check
+ * @param skipped the number of rollouts without debug data
+ * @param mismatches the first mismatches found, ordered by position; capped by the verifier
+ * @param elapsedNanos the wall-clock duration of the run
+ */
+public record AuditReport(long total, long verified, long mismatched, long skipped, List<AuditMismatch> mismatches,
+                          long elapsedNanos) {
+
+    /**
+     * @return whether every rollout that had debug data verified
+     */
+    public boolean passed() {
+        return mismatched == 0;
+    }
+
+    /**
+     * @return the number of rollouts processed per second
+     */
+    public double throughputPerSecond() {
+        return elapsedNanos == 0 ? 0 : total * 1_000_000_000d / elapsedNanos;
+    }
+}
@@ -0,0 +1,310 @@
+package dm.dracolich.forge.audit;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.codec.Hex;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.prf.MessageBuffer;
+import dm.dracolich.forge.prf.PrfBackend;
+import dm.dracolich.forge.prf.PrfBackends;
+import dm.dracolich.forge.prf.PrfKey;
+import dm.dracolich.forge.to.Debug;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.Rollout;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Re-verifies stored rollouts in bulk against their recorded seeds.
+ * <p>
+ * The input is read sequentially in chunks; each chunk is verified on a {@link ForkJoinPool} by a
+ * task that splits it down to small slices, so verification spreads across all cores while at most
+ * {@code maxInFlightChunks} chunks are buffered. For each rollout the value and item HMACs are
+ * recomputed with the worker's cached {@link KeyedPrf}, the stored hex is decoded straight into a
+ * byte buffer and both are compared in constant time with {@link MessageDigest#isEqual}. The numeric
+ * prefixes, the value roll and the item index are checked against the digests as well, using the draw
+ * mode recorded in {@link Debug#getDrawVersion()}; a rejected {@link DrawMode#LEMIRE} draw is followed
+ * into the next draws of its stream. Rolls of another {@link PrfBackend}, named by
+ * {@link Debug#getPrfBackend()}, are checked against block 0 of that backend's streams the same way.
+ * <p>
+ * Instances are immutable and can be shared; configure them through {@link #builder()}.
+ */
+@Slf4j
+@Builder
+public final class AuditVerifier {
+    private static final int SLICE = 256;
+
+    private static final byte[] VALUE_SUFFIX = MessageBuffer.suffix("value");
+    private static final byte[] ITEM_SUFFIX = MessageBuffer.suffix("item");
+
+    /** The pool the verification runs on. */
+    @Builder.Default
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    /** How many rollouts are read from the input before being handed to the pool. */
+    @Builder.Default
+    private final int chunkSize = 4096;
+    /** How many chunks may be queued or running at once. */
+    @Builder.Default
+    private final int maxInFlightChunks = Runtime.getRuntime().availableProcessors() * 2;
+    /** How many mismatches the report lists, the lowest positions first; all of them are counted. */
+    @Builder.Default
+    private final int maxReportedMismatches = 1000;
+
+    /**
+     * Verifies every rollout of a stream. The stream is consumed sequentially by the calling thread.
+     *
+     * @param rollouts the stored rollouts
+     * @return the verification report
+     */
+    public AuditReport verify(Stream<? extends Rollout> rollouts) {
+        return verify(rollouts.iterator());
+    }
+
+    /**
+     * Verifies every rollout returned by an iterator. The iterator is only touched by the calling thread.
+     *
+     * @param rollouts the stored rollouts
+     * @return the verification report
+     * @throws RuntimeException if the run is interrupted or a worker fails unexpectedly
+     */
+    public AuditReport verify(Iterator<? extends Rollout> rollouts) {
+        long start = System.nanoTime();
+        Run run = new Run();
+        Semaphore inFlight = new Semaphore(maxInFlightChunks);
+        long position = 0;
+
+        try {
+            while (rollouts.hasNext()) {
+                Rollout[] chunk = new Rollout[chunkSize];
+                int size = 0;
+                while (size < chunkSize && rollouts.hasNext()) {
+                    chunk[size++] = rollouts.next();
+                }
+
+                inFlight.acquire();
+                SliceTask task = new SliceTask(run, chunk, position, 0, size);
+                pool.execute(new ChunkTask(task, inFlight));
+                position += size;
+            }
+            inFlight.acquire(maxInFlightChunks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while verifying rollouts", e);
+        }
+
+        if (run.failure.get() != null) {
+            throw new RuntimeException("Failed to verify rollouts", run.failure.get());
+        }
+
+        List<AuditMismatch> mismatches;
+        synchronized (run.mismatches) {
+            mismatches = new ArrayList<>(run.mismatches);
+        }
+        mismatches.sort(Comparator.comparingLong(AuditMismatch::position));
+        AuditReport report = new AuditReport(position, run.verified.sum(), run.mismatched.sum(), run.skipped.sum(),
+                List.copyOf(mismatches), System.nanoTime() - start);
+
+        log.debug("Verified rollouts [total: {}, mismatched: {}, skipped: {}, per second: {}]", report.total(),
+                report.mismatched(), report.skipped(), Math.round(report.throughputPerSecond()));
+        return report;
+    }
+
+    /**
+     * Verifies a single rollout.
+     *
+     * @param rollout the stored rollout
+     * @return the first failed check, or {@code null} if the rollout verifies
+     */
+    public static AuditMismatch.Reason check(Rollout rollout) {
+        return check(rollout, new byte[KeyedPrf.DIGEST_LENGTH], new byte[KeyedPrf.DIGEST_LENGTH]);
+    }
+
+    private static AuditMismatch.Reason check(Rollout rollout, byte[] actual, byte[] expected) {
+        Debug debug = rollout.getDebug();
+        if (debug.getServerSeedUsed() == null || debug.getClientSeed() == null || debug.getNonce() == null
+                || debug.getTotalWeight() == null || debug.getTotalWeight() <= 0) {
+            return AuditMismatch.Reason.MALFORMED;
+        }
+        DrawMode mode;
+        PrfKey prf;
+        try {
+            mode = DrawMode.ofVersion(debug.getDrawVersion());
+            prf = PrfBackends.of(debug.getPrfBackend()).forSeed(debug.getServerSeedUsed());
+        } catch (IllegalArgumentException e) {
+            return AuditMismatch.Reason.MALFORMED;
+        }
+
+        MessageBuffer message = new MessageBuffer(debug.getClientSeed());
+        long nonce = debug.getNonce();
+        String messagePrefix = debug.getClientSeed() + ":" + nonce;
+
+        if (!(messagePrefix + ":value").equals(debug.getValueMsg())) {
+            return AuditMismatch.Reason.VALUE_MESSAGE;
+        }
+        firstBlock(prf, message, debug.getClientSeed(), nonce, "value", VALUE_SUFFIX, actual);
+        if (!matches(debug.getValueHmacHex(), actual, expected)) {
+            return AuditMismatch.Reason.VALUE_HMAC;
+        }
+        int valueValue = prefix(actual);
+        if (!Long.valueOf(Integer.toUnsignedLong(valueValue)).equals(debug.getHmacValueNumericPrefix())) {
+            return AuditMismatch.Reason.VALUE_PREFIX;
+        }
+        int valueDraw = Roll.Prf.accepted(prf, debug.getClientSeed(), nonce, "value", actual, mode, debug.getTotalWeight());
+        if (debug.getRollValue() == null || mode.index(valueDraw, debug.getTotalWeight()) != debug.getRollValue()) {
+            return AuditMismatch.Reason.VALUE_ROLL;
+        }
+
+        if (!(messagePrefix + ":item").equals(debug.getItemMsg())) {
+            return AuditMismatch.Reason.ITEM_MESSAGE;
+        }
+        firstBlock(prf, message, debug.getClientSeed(), nonce, "item", ITEM_SUFFIX, actual);
+        if (!matches(debug.getItemHmacHex(), actual, expected)) {
+            return AuditMismatch.Reason.ITEM_HMAC;
+        }
+        int itemValue = prefix(actual);
+        if (!Long.valueOf(Integer.toUnsignedLong(itemValue)).equals(debug.getHmacItemNumericPrefix())) {
+            return AuditMismatch.Reason.ITEM_PREFIX;
+        }
+        Integer items = debug.getItemsInValue();
+        Integer itemIndex = items != null && items > 0
+                ? mode.index(Roll.Prf.accepted(prf, debug.getClientSeed(), nonce, "item", actual, mode, items), items)
+                : null;
+        if (!Objects.equals(itemIndex, debug.getItemIndex())
+                || !Objects.equals(itemIndex, rollout.getValue())) {
+            return AuditMismatch.Reason.ITEM_INDEX;
+        }
+        return null;
+    }
+
+    private static void firstBlock(PrfKey prf, MessageBuffer message, String clientSeed, long nonce, String category,
+                                   byte[] suffix, byte[] out) {
+        if (prf instanceof KeyedPrf keyed) {
+            int length = message.encode(nonce, suffix);
+            keyed.digest(message.buffer(), 0, length, out, 0);
+        } else {
+            prf.open(clientSeed, nonce, category).block(0, out, 0);
+        }
+    }
+
+    private static boolean matches(String expectedHex, byte[] actual, byte[] expected) {
+        if (expectedHex == null || expectedHex.length() != KeyedPrf.DIGEST_LENGTH * 2
+                || !Hex.decode(expectedHex, expected, 0)) {
+            return false;
+        }
+        return MessageDigest.isEqual(actual, expected);
+    }
+
+    private static int prefix(byte[] digest) {
+        return (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8 | digest[3] & 0xff;
+    }
+
+    private final class Run {
+        private final LongAdder verified = new LongAdder();
+        private final LongAdder mismatched = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        /** Max-heap on position holding the lowest positions seen, so the report does not depend on scheduling. */
+        private final PriorityQueue<AuditMismatch> mismatches =
+                new PriorityQueue<>(Comparator.comparingLong(AuditMismatch::position).reversed());
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private void mismatch(long position, Rollout rollout, AuditMismatch.Reason reason) {
+            mismatched.increment();
+            synchronized (mismatches) {
+                if (mismatches.size() >= maxReportedMismatches
+                        && (mismatches.isEmpty() || position > mismatches.peek().position())) {
+                    return;
+                }
+                Debug debug = rollout.getDebug();
+                mismatches.add(new AuditMismatch(position, debug.getClientSeed(), debug.getNonce(), reason));
+                if (mismatches.size() > maxReportedMismatches) {
+                    mismatches.poll();
+                }
+            }
+        }
+    }
+
+    private static final class SliceTask extends RecursiveAction {
+        private final Run run;
+        private final Rollout[] chunk;
+        private final long basePosition;
+        private final int from;
+        private final int to;
+
+        private SliceTask(Run run, Rollout[] chunk, long basePosition, int from, int to) {
+            this.run = run;
+            this.chunk = chunk;
+            this.basePosition = basePosition;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SLICE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SliceTask(run, chunk, basePosition, from, mid),
+                        new SliceTask(run, chunk, basePosition, mid, to));
+                return;
+            }
+
+            byte[] actual = new byte[KeyedPrf.DIGEST_LENGTH];
+            byte[] expected = new byte[KeyedPrf.DIGEST_LENGTH];
+            for (int i = from; i < to; i++) {
+                Rollout rollout = chunk[i];
+                if (rollout == null || rollout.getDebug() == null) {
+                    run.skipped.increment();
+                    continue;
+                }
+
+                AuditMismatch.Reason reason;
+                try {
+                    reason = check(rollout, actual, expected);
+                } catch (RuntimeException e) {
+                    reason = AuditMismatch.Reason.MALFORMED;
+                }
+                if (reason == null) {
+                    run.verified.increment();
+                } else {
+                    run.mismatch(basePosition + i, rollout, reason);
+                }
+            }
+        }
+    }
+
+    /**
+     * Root task of a chunk: records failures and frees the chunk's in-flight permit when done.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        private final SliceTask task;
+        private final Semaphore permits;
+
+        private ChunkTask(SliceTask task, Semaphore permits) {
+            this.task = task;
+            this.permits = permits;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                task.invoke();
+            } catch (Throwable t) {
+                task.run.failure.compareAndSet(null, t);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package dm.dracolich.forge.chain;
+
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Seed chain traversed from checkpoints instead of being stored.
+ * <p>
+ * Only every {@code k}-th entry is kept (k = ceil(sqrt(length)) by default), which takes one forward
+ * pass over the chain. Revealing seeds in reverse order then recomputes one interval of {@code k}
+ * entries at a time from its checkpoint, so the whole reveal sequence costs about one extra hash per
+ * seed while holding only about {@code 2 * sqrt(length)} entries in memory. Use this when the chain is
+ * too large, or not worth, keeping in a {@link SeedChainStore}.
+ * <p>
+ * Not thread-safe.
+ */
+public final class PebbledSeedChain {
+    private final long length;
+    private final int interval;
+    private final byte[][] checkpoints;
+    private final MessageDigest digest = SeedChain.newDigest();
+    private final byte[] hex = new byte[SeedChain.ENTRY_LENGTH * 2];
+
+    /**
+     * @param genesis the 32-byte entry at index 0
+     * @param length the number of entries in the chain; at least 2
+     */
+    public PebbledSeedChain(byte[] genesis, long length) {
+        this(genesis, length, (int) Math.max(1, Math.ceil(Math.sqrt(length))));
+    }
+
+    /**
+     * @param genesis the 32-byte entry at index 0
+     * @param length the number of entries in the chain; at least 2
+     * @param interval the distance between checkpoints
+     */
+    public PebbledSeedChain(byte[] genesis, long length, int interval) {
+        if (genesis == null || genesis.length != SeedChain.ENTRY_LENGTH) {
+            throw new IllegalArgumentException("genesis must be " + SeedChain.ENTRY_LENGTH + " bytes");
+        }
+        if (length < 2) {
+            throw new IllegalArgumentException("length must be at least 2");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+
+        this.length = length;
+        this.interval = interval;
+        this.checkpoints = new byte[Math.toIntExact((length + interval - 1) / interval)][];
+
+        byte[] entry = genesis.clone();
+        for (long i = 0; i < length; i++) {
+            if (i > 0) {
+                SeedChain.step(digest, entry, hex, entry);
+            }
+            if (i % interval == 0) {
+                checkpoints[(int) (i / interval)] = entry.clone();
+            }
+        }
+    }
+
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Computes an entry from its nearest checkpoint, in at most {@code interval - 1} hashes.
+     *
+     * @param index the entry index
+     * @return the entry
+     */
+    public byte[] entry(long index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index must be in [0, " + length + ")");
+        }
+
+        byte[] entry = checkpoints[(int) (index / interval)].clone();
+        for (long i = index - index % interval; i < index; i++) {
+            SeedChain.step(digest, entry, hex, entry);
+        }
+        return entry;
+    }
+
+    public String seed(long index) {
+        return SeedChain.seed(entry(index));
+    }
+
+    /**
+     * @return the seed to publish before any round is played
+     */
+    public String commitment() {
+        return seed(length - 1);
+    }
+
+    /**
+     * Iterates the seeds in reveal order: round 0 is {@code seed(length - 2)}, the last round is {@code seed(0)}.
+     *
+     * @return an iterator over the revealed seeds
+     */
+    public Iterator<String> reveals() {
+        return new Iterator<>() {
+            private final byte[][] window = new byte[interval][];
+            private long next = length - 2;
+            private long windowStart = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                if (next < windowStart || windowStart < 0) {
+                    fill(next - next % interval);
+                }
+                return SeedChain.seed(window[(int) (next-- - windowStart)]);
+            }
+
+            private void fill(long start) {
+                windowStart = start;
+                byte[] entry = checkpoints[(int) (start / interval)].clone();
+                long end = Math.min(start + interval, length);
+                for (long i = start; i < end; i++) {
+                    if (i > start) {
+                        SeedChain.step(digest, entry, hex, entry);
+                    }
+                    window[(int) (i - start)] = entry.clone();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package dm.dracolich.forge.chain;
+
+import dm.dracolich.forge.codec.Hex;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Hash-chain primitives shared by {@link SeedChainStore} and {@link PebbledSeedChain}.
+ * <p>
+ * A chain is a sequence of 32-byte entries where {@code entry(0)} is a random genesis and
+ * {@code entry(i + 1) = SHA-256(hex(entry(i)))}. The server seed at index {@code i} is
+ * {@code hex(entry(i))}, so stepping the chain is exactly {@code Roll.seedChainAdvance}.
+ * <p>
+ * For commit-reveal the chain is used backwards: the terminal seed {@code seed(length - 1)} is
+ * published as the commitment, and round {@code r} uses {@code seed(length - 2 - r)}. Anyone can
+ * check a revealed seed by advancing it once and comparing with the seed revealed (or committed)
+ * before it, see {@link #verifies(String, String)}.
+ */
+public final class SeedChain {
+    public static final int ENTRY_LENGTH = 32;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SeedChain() {
+    }
+
+    /**
+     * @return a new random 32-byte genesis entry
+     */
+    public static byte[] randomGenesis() {
+        byte[] genesis = new byte[ENTRY_LENGTH];
+        RANDOM.nextBytes(genesis);
+        return genesis;
+    }
+
+    /**
+     * @return a new SHA-256 digest for {@link #step}
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to compute SHA-256", e);
+        }
+    }
+
+    /**
+     * Computes the next chain entry without allocating.
+     *
+     * @param digest a SHA-256 digest owned by the caller
+     * @param entry the current entry
+     * @param hexScratch scratch space of at least 64 bytes
+     * @param next the destination of the next entry; may be the same array as {@code entry}
+     */
+    public static void step(MessageDigest digest, byte[] entry, byte[] hexScratch, byte[] next) {
+        Hex.encode(entry, hexScratch, 0);
+        digest.update(hexScratch, 0, ENTRY_LENGTH * 2);
+        try {
+            digest.digest(next, 0, ENTRY_LENGTH);
+        } catch (DigestException e) {
+            throw new RuntimeException("Failed to compute SHA-256", e);
+        }
+    }
+
+    /**
+     * @param entry a chain entry
+     * @return the server seed of the entry
+     */
+    public static String seed(byte[] entry) {
+        return Hex.encode(entry);
+    }
+
+    /**
+     * Checks a revealed seed against the seed revealed or committed just before it.
+     *
+     * @param revealed the newly revealed seed
+     * @param previous the previously revealed seed, or the commitment for the first round
+     * @return whether advancing {@code revealed} once yields {@code previous}
+     */
+    public static boolean verifies(String revealed, String previous) {
+        byte[] entry = Hex.decode(revealed);
+        if (entry.length != ENTRY_LENGTH) {
+            return false;
+        }
+
+        byte[] next = new byte[ENTRY_LENGTH];
+        step(newDigest(), entry, new byte[ENTRY_LENGTH * 2], next);
+        return MessageDigest.isEqual(next, Hex.decode(previous));
+    }
+}
@@ -0,0 +1,237 @@
+package dm.dracolich.forge.chain;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed seed chains kept in a memory-mapped file of 32-byte entries.
+ * <p>
+ * A store holds one or more independent chain segments of equal length, each grown from its own
+ * genesis (see {@link SeedChain} for the chain definition and the reveal order). Hashing a single
+ * chain is sequential by construction, so {@link #build} computes the segments in parallel, one
+ * per core, writing straight into the mapped file. Lookups are O(1): the entry of
+ * {@code (segment, index)} lives at a fixed offset and is read from the page cache without
+ * loading the chain into the heap.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * 0   int   magic 'DFSC'
+ * 4   int   version (1)
+ * 8   int   segment count
+ * 12  long  segment length (entries per segment)
+ * 64  entries, segment by segment, 32 bytes each
+ * </pre>
+ * Reads are thread-safe.
+ */
+@Slf4j
+public final class SeedChainStore implements Closeable {
+    private static final int MAGIC = 0x44465343;
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 64;
+    // Entries never straddle two mappings: both the header and the mapping size are multiples of 32
+    private static final long MAPPING_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] mappings;
+    private final int segments;
+    private final long segmentLength;
+
+    private SeedChainStore(FileChannel channel, MappedByteBuffer[] mappings, int segments, long segmentLength) {
+        this.channel = channel;
+        this.mappings = mappings;
+        this.segments = segments;
+        this.segmentLength = segmentLength;
+    }
+
+    /**
+     * Builds a store with one chain segment per genesis entry, computing the segments in parallel.
+     * An existing file is overwritten.
+     *
+     * @param file the file to write
+     * @param genesis the 32-byte genesis entry of each segment
+     * @param segmentLength the number of entries per segment; at least 2
+     * @return the opened store
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public static SeedChainStore build(Path file, List<byte[]> genesis, long segmentLength) {
+        if (genesis == null || genesis.isEmpty()) {
+            throw new IllegalArgumentException("genesis must be non-empty");
+        }
+        if (segmentLength < 2) {
+            throw new IllegalArgumentException("segmentLength must be at least 2");
+        }
+        for (byte[] entry : genesis) {
+            if (entry == null || entry.length != SeedChain.ENTRY_LENGTH) {
+                throw new IllegalArgumentException("genesis entries must be " + SeedChain.ENTRY_LENGTH + " bytes");
+            }
+        }
+
+        int segments = genesis.size();
+        long size = fileSize(segments, segmentLength);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer[] mappings = map(channel, FileChannel.MapMode.READ_WRITE, size);
+
+            ByteBuffer header = mappings[0];
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, segments).putLong(12, segmentLength);
+
+            long start = System.nanoTime();
+            IntStream.range(0, segments).parallel()
+                    .forEach(s -> fillSegment(mappings, s, segmentLength, genesis.get(s)));
+            for (MappedByteBuffer mapping : mappings) {
+                mapping.force();
+            }
+            log.debug("Built seed chain store [file: {}, segments: {}, segment length: {}, millis: {}]",
+                    file, segments, segmentLength, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build seed chain store " + file, e);
+        }
+        return open(file);
+    }
+
+    /**
+     * Opens an existing store read-only.
+     *
+     * @param file the store file
+     * @return the opened store
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a seed chain store
+     */
+    public static SeedChainStore open(Path file) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                channel.read(header, 0);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IllegalArgumentException("Not a seed chain store: " + file);
+                }
+                int segments = header.getInt(8);
+                long segmentLength = header.getLong(12);
+                long size = fileSize(segments, segmentLength);
+                if (channel.size() < size) {
+                    throw new IllegalArgumentException("Truncated seed chain store: " + file);
+                }
+
+                return new SeedChainStore(channel, map(channel, FileChannel.MapMode.READ_ONLY, size),
+                        segments, segmentLength);
+            } catch (RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open seed chain store " + file, e);
+        }
+    }
+
+    public int segments() {
+        return segments;
+    }
+
+    public long segmentLength() {
+        return segmentLength;
+    }
+
+    /**
+     * Copies an entry into a caller-provided buffer.
+     *
+     * @param segment the segment
+     * @param index the entry index within the segment
+     * @param out the destination; needs 32 bytes from {@code offset}
+     * @param offset where the entry is written
+     */
+    public void entry(int segment, long index, byte[] out, int offset) {
+        long position = position(segment, index);
+        mappings[(int) (position / MAPPING_SIZE)].get((int) (position % MAPPING_SIZE), out, offset,
+                SeedChain.ENTRY_LENGTH);
+    }
+
+    public byte[] entry(int segment, long index) {
+        byte[] out = new byte[SeedChain.ENTRY_LENGTH];
+        entry(segment, index, out, 0);
+        return out;
+    }
+
+    /**
+     * @return the server seed at the given position of a segment
+     */
+    public String seed(int segment, long index) {
+        return SeedChain.seed(entry(segment, index));
+    }
+
+    /**
+     * @return the seed to publish before any round of the segment is played
+     */
+    public String commitment(int segment) {
+        return seed(segment, segmentLength - 1);
+    }
+
+    /**
+     * @param segment the segment
+     * @param round the zero-based round; rounds run from 0 to {@code segmentLength - 2}
+     * @return the server seed used (and later revealed) in the given round
+     */
+    public String revealed(int segment, long round) {
+        if (round < 0 || round > segmentLength - 2) {
+            throw new IndexOutOfBoundsException("round must be in [0, " + (segmentLength - 1) + ")");
+        }
+        return seed(segment, segmentLength - 2 - round);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long position(int segment, long index) {
+        if (segment < 0 || segment >= segments) {
+            throw new IndexOutOfBoundsException("segment must be in [0, " + segments + ")");
+        }
+        if (index < 0 || index >= segmentLength) {
+            throw new IndexOutOfBoundsException("index must be in [0, " + segmentLength + ")");
+        }
+        return HEADER_LENGTH + (segment * segmentLength + index) * SeedChain.ENTRY_LENGTH;
+    }
+
+    private static void fillSegment(MappedByteBuffer[] mappings, int segment, long segmentLength, byte[] genesis) {
+        var digest = SeedChain.newDigest();
+        byte[] hex = new byte[SeedChain.ENTRY_LENGTH * 2];
+        byte[] entry = genesis.clone();
+        long position = HEADER_LENGTH + segment * segmentLength * SeedChain.ENTRY_LENGTH;
+
+        for (long i = 0; i < segmentLength; i++, position += SeedChain.ENTRY_LENGTH) {
+            if (i > 0) {
+                SeedChain.step(digest, entry, hex, entry);
+            }
+            mappings[(int) (position / MAPPING_SIZE)].put((int) (position % MAPPING_SIZE), entry);
+        }
+    }
+
+    private static long fileSize(int segments, long segmentLength) {
+        if (segments <= 0 || segmentLength < 2) {
+            throw new IllegalArgumentException("Invalid seed chain store dimensions");
+        }
+        return HEADER_LENGTH + Math.multiplyExact(Math.multiplyExact(segments, segmentLength),
+                (long) SeedChain.ENTRY_LENGTH);
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size)
+            throws IOException {
+        MappedByteBuffer[] mappings = new MappedByteBuffer[(int) ((size + MAPPING_SIZE - 1) / MAPPING_SIZE)];
+        for (int i = 0; i < mappings.length; i++) {
+            long start = i * MAPPING_SIZE;
+            mappings[i] = channel.map(mode, start, Math.min(MAPPING_SIZE, size - start));
+        }
+        return mappings;
+    }
+}
@@ -0,0 +1,103 @@
+package dm.dracolich.forge.codec;
+
+import java.util.Arrays;
+
+/**
+ * Table-driven hexadecimal codec.
+ * <p>
+ * Encoding writes lowercase digits from a lookup table and decoding maps characters through a
+ * reverse table, so neither allocates per byte nor goes through {@code String.format} or
+ * {@code Integer.parseInt}.
+ */
+public final class Hex {
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private Hex() {
+    }
+
+    /**
+     * @param bytes the bytes to encode
+     * @return the bytes as a lowercase hexadecimal string
+     */
+    public static String encode(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = DIGITS[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Writes the lowercase hexadecimal digits of {@code bytes} as ASCII bytes without allocating.
+     *
+     * @param bytes the bytes to encode
+     * @param out the destination; needs {@code 2 * bytes.length} bytes from {@code offset}
+     * @param offset where the first digit is written
+     */
+    public static void encode(byte[] bytes, byte[] out, int offset) {
+        for (int i = 0; i < bytes.length; i++) {
+            out[offset + i * 2] = (byte) DIGITS[(bytes[i] >> 4) & 0xf];
+            out[offset + i * 2 + 1] = (byte) DIGITS[bytes[i] & 0xf];
+        }
+    }
+
+    /**
+     * Decodes a hexadecimal string.
+     *
+     * @param hex the string to decode; upper- and lowercase digits are accepted
+     * @return the decoded bytes
+     * @throws IllegalArgumentException if the string has an odd length or a non-hex character
+     */
+    public static byte[] decode(CharSequence hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Hex string must have an even length");
+        }
+
+        byte[] out = new byte[hex.length() / 2];
+        if (!decode(hex, out, 0)) {
+            throw new IllegalArgumentException("Invalid hex string");
+        }
+        return out;
+    }
+
+    /**
+     * Decodes a hexadecimal string into an existing buffer without allocating.
+     *
+     * @param hex the string to decode; must hold exactly {@code 2 * n} hex digits for {@code n} output bytes
+     * @param out the destination
+     * @param offset where the first decoded byte is written
+     * @return {@code true} if the whole string was valid hex and fitted, {@code false} otherwise
+     */
+    public static boolean decode(CharSequence hex, byte[] out, int offset) {
+        int length = hex.length();
+        if (length % 2 != 0 || offset < 0 || offset + length / 2 > out.length) {
+            return false;
+        }
+
+        int invalid = 0;
+        for (int i = 0; i < length; i += 2) {
+            int high = value(hex.charAt(i));
+            int low = value(hex.charAt(i + 1));
+            invalid |= high | low;
+            out[offset + i / 2] = (byte) (high << 4 | low);
+        }
+        return invalid >= 0;
+    }
+
+    private static int value(char c) {
+        return c < 128 ? VALUES[c] : -1;
+    }
+}
@@ -0,0 +1,196 @@
+package dm.dracolich.forge.codec;
+
+import dm.dracolich.forge.to.CompactRollout;
+import dm.dracolich.forge.to.DrawMode;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary codec for {@link CompactRollout}.
+ * <p>
+ * Layout (big-endian): {@code byte version}, then the server seed, client seed and value id as
+ * strings, {@code long nonce}, {@code int totalWeight, selectedValueWeight, itemsInValue}, the
+ * 64 digest bytes and {@code byte drawVersion}. Unless the draw mode is {@link DrawMode#MODULO}, whose
+ * draws are the digest prefixes, {@code int valueDraw, itemDraw} follow. A string is a varint of
+ * {@code length + 1} ({@code 0} for null) followed by its UTF-8 bytes. A typical dice roll encodes to
+ * about 130 bytes.
+ * <p>
+ * Version 1 encodings, which end after the digests, still decode as {@link DrawMode#MODULO} rollouts.
+ */
+public final class RolloutCodec {
+    public static final byte VERSION = 2;
+
+    private static final byte MODULO_ONLY_VERSION = 1;
+
+    private static final int FIXED_LENGTH = 1 + 8 + 3 * 4 + 2 * CompactRollout.DIGEST_LENGTH + 1;
+
+    private RolloutCodec() {
+    }
+
+    /**
+     * @param rollout the rollout to encode
+     * @return the encoded bytes
+     */
+    public static byte[] encode(CompactRollout rollout) {
+        byte[] serverSeed = utf8(rollout.getServerSeed());
+        byte[] clientSeed = utf8(rollout.getClientSeed());
+        byte[] valueId = utf8(rollout.getValueId());
+
+        ByteBuffer out = ByteBuffer.allocate(FIXED_LENGTH + drawsLength(rollout) + stringLength(serverSeed)
+                + stringLength(clientSeed) + stringLength(valueId));
+        write(rollout, serverSeed, clientSeed, valueId, out);
+        return out.array();
+    }
+
+    /**
+     * Encodes a rollout at the buffer's position and advances it.
+     *
+     * @param rollout the rollout to encode
+     * @param out the destination
+     * @return the number of bytes written
+     * @throws BufferOverflowException if the buffer has too little room
+     */
+    public static int encode(CompactRollout rollout, ByteBuffer out) {
+        int start = out.position();
+        write(rollout, utf8(rollout.getServerSeed()), utf8(rollout.getClientSeed()), utf8(rollout.getValueId()), out);
+        return out.position() - start;
+    }
+
+    /**
+     * @param bytes the encoded rollout
+     * @return the decoded rollout
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static CompactRollout decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decodes a rollout at the buffer's position and advances it past the encoding.
+     *
+     * @param in the source
+     * @return the decoded rollout
+     * @throws IllegalArgumentException if the buffer does not hold a valid encoding
+     */
+    public static CompactRollout decode(ByteBuffer in) {
+        try {
+            byte version = in.get();
+            if (version != VERSION && version != MODULO_ONLY_VERSION) {
+                throw new IllegalArgumentException("Unsupported rollout encoding version " + version);
+            }
+
+            String serverSeed = readString(in);
+            String clientSeed = readString(in);
+            String valueId = readString(in);
+            long nonce = in.getLong();
+            int totalWeight = in.getInt();
+            int selectedValueWeight = in.getInt();
+            int itemsInValue = in.getInt();
+            byte[] digests = new byte[2 * CompactRollout.DIGEST_LENGTH];
+            in.get(digests);
+
+            DrawMode mode = version == MODULO_ONLY_VERSION ? DrawMode.MODULO : DrawMode.ofVersion((int) in.get());
+            if (mode == DrawMode.MODULO) {
+                return new CompactRollout(serverSeed, clientSeed, nonce, valueId, totalWeight, selectedValueWeight,
+                        itemsInValue, digests);
+            }
+            int valueDraw = in.getInt();
+            int itemDraw = in.getInt();
+            return new CompactRollout(serverSeed, clientSeed, nonce, valueId, totalWeight, selectedValueWeight,
+                    itemsInValue, digests, mode, valueDraw, itemDraw);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated rollout encoding", e);
+        }
+    }
+
+    private static void write(CompactRollout rollout, byte[] serverSeed, byte[] clientSeed, byte[] valueId,
+                              ByteBuffer out) {
+        out.put(VERSION);
+        writeString(serverSeed, out);
+        writeString(clientSeed, out);
+        writeString(valueId, out);
+        out.putLong(rollout.getNonce())
+                .putInt(rollout.getTotalWeight())
+                .putInt(rollout.getSelectedValueWeight())
+                .putInt(rollout.getItemsInValue());
+
+        int position = out.position();
+        if (out.remaining() < 2 * CompactRollout.DIGEST_LENGTH) {
+            throw new BufferOverflowException();
+        }
+        if (out.hasArray()) {
+            rollout.copyDigests(out.array(), out.arrayOffset() + position);
+        } else {
+            byte[] digests = new byte[2 * CompactRollout.DIGEST_LENGTH];
+            rollout.copyDigests(digests, 0);
+            out.put(position, digests);
+        }
+        out.position(position + 2 * CompactRollout.DIGEST_LENGTH);
+
+        out.put((byte) rollout.getDrawMode().version());
+        if (rollout.getDrawMode() != DrawMode.MODULO) {
+            out.putInt(rollout.getValueDraw()).putInt(rollout.getItemDraw());
+        }
+    }
+
+    private static int drawsLength(CompactRollout rollout) {
+        return rollout.getDrawMode() == DrawMode.MODULO ? 0 : 2 * 4;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringLength(byte[] bytes) {
+        int length = bytes == null ? 0 : bytes.length + 1;
+        int varint = 1;
+        while ((length >>>= 7) != 0) {
+            varint++;
+        }
+        return varint + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void writeString(byte[] bytes, ByteBuffer out) {
+        int length = bytes == null ? 0 : bytes.length + 1;
+        while ((length & ~0x7f) != 0) {
+            out.put((byte) ((length & 0x7f) | 0x80));
+            length >>>= 7;
+        }
+        out.put((byte) length);
+        if (bytes != null) {
+            out.put(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed string length in rollout encoding");
+            }
+            byte b = in.get();
+            length |= (b & 0x7f) << shift;
+            if (b >= 0) break;
+        }
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > in.remaining() || length < 0) {
+            throw new IllegalArgumentException("Truncated rollout encoding");
+        }
+
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length - 1, StandardCharsets.UTF_8);
+            in.position(in.position() + length - 1);
+        } else {
+            byte[] bytes = new byte[length - 1];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+}
@@ -1,9 +1,98 @@
 package dm.dracolich.forge.config;
 
-import org.springframework.context.annotation.ComponentScan;
-import org.springframework.context.annotation.Configuration;
+import dm.dracolich.forge.journal.RolloutJournal;
+import dm.dracolich.forge.metrics.ForgeMetrics;
+import dm.dracolich.forge.metrics.RollMetrics;
+import dm.dracolich.forge.nonce.JournaledNonceAllocator;
+import dm.dracolich.forge.nonce.NonceAllocator;
+import dm.dracolich.forge.service.RolloutService;
+import dm.dracolich.forge.service.RolloutServiceImpl;
+import dm.dracolich.forge.service.ShardedRollExecutor;
+import dm.dracolich.forge.to.RollOptions;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
-@Configuration
-@ComponentScan(basePackages = "dm.dracolich.forge")
+/**
+ * Auto-configuration of the roller, bound from {@link ForgeProperties}.
+ * <p>
+ * Every bean backs off when the application defines its own. The process-wide cache sizes are applied
+ * when the configuration is created, so they are in place before any roll.
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(ForgeProperties.class)
+@ImportRuntimeHints(ForgeRuntimeHints.class)
 public class ForgeAutoConfiguration {
-}
\ No newline at end of file
+
+    public ForgeAutoConfiguration(ForgeProperties properties) {
+        properties.getCache().apply();
+    }
+
+    /**
+     * The active roll metrics recorder; {@link RollMetrics#NOOP} unless the JVM runs with
+     * {@code -Ddracolich.forge.metrics.enabled=true}.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RollMetrics rollMetrics() {
+        return ForgeMetrics.get();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(RolloutService.class)
+    public RolloutServiceImpl rolloutService(ForgeProperties properties) {
+        RolloutServiceImpl service = new RolloutServiceImpl();
+        service.setDebugLevel(properties.getRoll().getDebugLevel());
+        service.setDrawMode(properties.getRoll().getDrawMode());
+        service.setAsyncBatchSize(properties.getAsync().getBatchSize());
+        service.setAsyncMaxWait(properties.getAsync().getMaxWait());
+        return service;
+    }
+
+    /**
+     * Per-client-seed ordered execution on top of the {@link RolloutService} bean.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ShardedRollExecutor shardedRollExecutor(RolloutService rolloutService, ForgeProperties properties) {
+        ForgeProperties.Executor executor = properties.getExecutor();
+        return new ShardedRollExecutor(rolloutService, executor.getLanes(), executor.getQueueCapacity(),
+                executor.getOfferTimeout());
+    }
+
+    /**
+     * Durable nonce allocator, registered only when {@code dracolich.forge.nonce.journal} points to a journal file.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = ForgeProperties.PREFIX + ".nonce", name = "journal")
+    public NonceAllocator nonceAllocator(ForgeProperties properties) {
+        ForgeProperties.Nonce nonce = properties.getNonce();
+        return JournaledNonceAllocator.open(nonce.getJournal(), nonce.getLeaseSize(), nonce.getCompactThreshold());
+    }
+
+    /**
+     * Binary rollout journal, registered only when {@code dracolich.forge.journal.dir} points to a directory.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = ForgeProperties.PREFIX + ".journal", name = "dir")
+    public RolloutJournal rolloutJournal(ForgeProperties properties) {
+        ForgeProperties.Journal journal = properties.getJournal();
+        return RolloutJournal.open(journal.getDir(), journal.getRecordsPerSegment());
+    }
+
+    /**
+     * Startup warmup, registered only when {@code dracolich.forge.warmup.enabled=true}.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = ForgeProperties.PREFIX + ".warmup", name = "enabled", havingValue = "true")
+    public ForgeWarmup forgeWarmup(ForgeProperties properties) {
+        ForgeProperties.Warmup warmup = properties.getWarmup();
+        return new ForgeWarmup(warmup.getIterations(), warmup.getExpressions(),
+                new RollOptions(properties.getRoll().getDebugLevel(), properties.getRoll().getDrawMode()));
+    }
+}
@@ -0,0 +1,113 @@
+package dm.dracolich.forge.config;
+
+import dm.dracolich.forge.journal.RolloutJournal;
+import dm.dracolich.forge.loot.LootTable;
+import dm.dracolich.forge.nonce.JournaledNonceAllocator;
+import dm.dracolich.forge.notation.DiceExpression;
+import dm.dracolich.forge.odds.Odds;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.service.RolloutServiceImpl;
+import dm.dracolich.forge.service.ShardedRollExecutor;
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DrawMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the forge auto-configuration, bound from {@code dracolich.forge.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = ForgeProperties.PREFIX)
+public class ForgeProperties {
+    public static final String PREFIX = "dracolich.forge";
+
+    private final Roll roll = new Roll();
+    private final Async async = new Async();
+    private final Executor executor = new Executor();
+    private final Cache cache = new Cache();
+    private final Nonce nonce = new Nonce();
+    private final Journal journal = new Journal();
+    private final Warmup warmup = new Warmup();
+
+    /**
+     * Defaults of the {@code RolloutService} bean.
+     */
+    @Data
+    public static class Roll {
+        private DebugLevel debugLevel = DebugLevel.FULL;
+        private DrawMode drawMode = DrawMode.MODULO;
+    }
+
+    /**
+     * Batching of {@code rollDiceAsync} requests.
+     */
+    @Data
+    public static class Async {
+        private int batchSize = RolloutServiceImpl.DEFAULT_ASYNC_BATCH_SIZE;
+        private Duration maxWait = RolloutServiceImpl.DEFAULT_ASYNC_MAX_WAIT;
+    }
+
+    /**
+     * Lanes of the {@link ShardedRollExecutor} bean.
+     */
+    @Data
+    public static class Executor {
+        private int lanes = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = ShardedRollExecutor.DEFAULT_QUEUE_CAPACITY;
+        private Duration offerTimeout = ShardedRollExecutor.DEFAULT_OFFER_TIMEOUT;
+    }
+
+    /**
+     * Sizes of the process-wide caches. They are static, so the last context to start wins.
+     */
+    @Data
+    public static class Cache {
+        private int expressions = DiceExpression.DEFAULT_CACHE_SIZE;
+        private int lootTables = LootTable.DEFAULT_CACHE_SIZE;
+        private int odds = Odds.DEFAULT_CACHE_SIZE;
+        private int keysPerThread = KeyedPrf.DEFAULT_MAX_KEYS_PER_THREAD;
+
+        void apply() {
+            DiceExpression.setCacheSize(expressions);
+            LootTable.setCacheSize(lootTables);
+            Odds.setCacheSize(odds);
+            KeyedPrf.setMaxKeysPerThread(keysPerThread);
+        }
+    }
+
+    /**
+     * The durable nonce allocator, registered when {@code journal} is set.
+     */
+    @Data
+    public static class Nonce {
+        private Path journal;
+        private int leaseSize = JournaledNonceAllocator.DEFAULT_LEASE_SIZE;
+        private long compactThreshold = JournaledNonceAllocator.DEFAULT_COMPACT_THRESHOLD;
+    }
+
+    /**
+     * The binary rollout journal, registered when {@code dir} is set.
+     */
+    @Data
+    public static class Journal {
+        private Path dir;
+        private int recordsPerSegment = RolloutJournal.DEFAULT_RECORDS_PER_SEGMENT;
+    }
+
+    /**
+     * Startup warmup, see {@link ForgeWarmup}.
+     */
+    @Data
+    public static class Warmup {
+        private boolean enabled = false;
+        /** Rolls run through each hot path, enough for the JIT to compile it. */
+        private int iterations = 20_000;
+        /** Dice notations compiled into the expression cache. */
+        private List<String> expressions = new ArrayList<>();
+    }
+}
@@ -0,0 +1,35 @@
+package dm.dracolich.forge.config;
+
+import dm.dracolich.forge.prf.PrfBackend;
+import dm.dracolich.forge.to.CompactRollout;
+import dm.dracolich.forge.to.Debug;
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.Rollout;
+import dm.dracolich.forge.to.Value;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+
+/**
+ * GraalVM native image hints for the roller, applied by Spring AOT through {@link ForgeAutoConfiguration}.
+ * <p>
+ * Registers the transfer objects for data binding, so rollouts serialize to JSON in a native image,
+ * and the {@link PrfBackend} service file, so backends registered through {@code ServiceLoader}
+ * are found. The JCE algorithms ({@code HmacSHA256}, {@code SHA-256}, {@code ChaCha20}) are requested
+ * with constant names and are picked up by the native image builder on its own.
+ */
+public class ForgeRuntimeHints implements RuntimeHintsRegistrar {
+    private static final Class<?>[] BOUND_TYPES = {
+            Rollout.class, Debug.class, Value.class, CompactRollout.class, RollOptions.class,
+            DiceEnum.class, DebugLevel.class, DrawMode.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), BOUND_TYPES);
+        hints.resources().registerPattern("META-INF/services/" + PrfBackend.class.getName());
+    }
+}
@@ -0,0 +1,67 @@
+package dm.dracolich.forge.config;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.notation.DiceExpression;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.RollOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import java.util.List;
+
+/**
+ * Warms the roller up once all singletons exist, before the context publishes itself as started.
+ * <p>
+ * Forces the {@link DiceEnum} tables to compile, compiles the configured notations into the expression
+ * cache, and runs the single-roll and batch HMAC paths on a throwaway seed until the JIT has compiled
+ * them, so the first real rolls do not pay for class loading, JCE provider lookup or interpretation.
+ * Warmup rolls bypass the service and record no metrics.
+ */
+@Slf4j
+public class ForgeWarmup implements SmartInitializingSingleton {
+    private static final String SERVER_SEED = "dracolich-forge-warmup";
+    private static final String CLIENT_SEED = "warmup";
+    private static final int BATCH = 256;
+
+    private final int iterations;
+    private final List<String> expressions;
+    private final RollOptions options;
+
+    public ForgeWarmup(int iterations, List<String> expressions, RollOptions options) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("iterations must not be negative");
+        }
+        this.iterations = iterations;
+        this.expressions = List.copyOf(expressions);
+        this.options = options;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        DiceEnum[] dice = DiceEnum.values();
+        DiceExpression[] compiled = new DiceExpression[expressions.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = DiceExpression.compile(expressions.get(i));
+        }
+
+        int[] faces = new int[BATCH];
+        for (int nonce = 0; nonce < iterations; nonce++) {
+            DiceEnum d = dice[nonce % dice.length];
+            Roll.fairRoll(SERVER_SEED, CLIENT_SEED, nonce, d.getTable(), false, options);
+            if (compiled.length > 0) {
+                compiled[nonce % compiled.length].roll(new Roll.RollContext(SERVER_SEED, CLIENT_SEED, nonce));
+            }
+        }
+        for (int nonce = 0; nonce < iterations; nonce += BATCH) {
+            DiceEnum d = dice[(nonce / BATCH) % dice.length];
+            Roll.drawWeightedBatch(new Roll.RollContext(SERVER_SEED, CLIENT_SEED, nonce), "value",
+                    nonce, BATCH, d.getTable(), options.drawMode(), faces);
+        }
+        KeyedPrf.clearThreadCache();
+
+        log.info("Forge warmup done [iterations: {}, expressions: {}, took: {} ms]",
+                iterations, compiled.length, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,36 @@
+package dm.dracolich.forge.journal;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.to.CompactRollout;
+import dm.dracolich.forge.to.Rollout;
+
+/**
+ * A rollout read back from a {@link RolloutJournal}.
+ *
+ * @param position the global record position in the journal
+ * @param valueId the id of the selected value
+ * @param evidence the raw roll data
+ */
+public record JournalRecord(long position, String valueId, Roll.RollEvidence evidence) {
+    /**
+     * @return the rollout as returned by the roll, with its {@code Debug} rebuilt on first access
+     */
+    public Rollout toRollout() {
+        return Rollout.withLazyDebug(valueId, evidence.itemIndex(), evidence);
+    }
+
+    /**
+     * @return the compact form of the rollout
+     */
+    public CompactRollout toCompact() {
+        return CompactRollout.of(valueId, evidence);
+    }
+
+    public String clientSeed() {
+        return evidence.ctx().clientSeed();
+    }
+
+    public long nonce() {
+        return evidence.ctx().nonce();
+    }
+}
@@ -0,0 +1,517 @@
+package dm.dracolich.forge.journal;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.prf.PrfBackends;
+import dm.dracolich.forge.to.CompactRollout;
+import dm.dracolich.forge.to.Debug;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.Rollout;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only binary journal of rollouts, stored in memory-mapped rolling segment files.
+ * <p>
+ * Every roll is one fixed-size record of primitives: interned seed and value ids, the nonce, the
+ * weights, the two raw 32-byte digests and the accepted draws with their draw version, which is everything needed to rebuild the roll's
+ * {@link Debug}. Records are numbered by a global position; segment {@code s} holds positions
+ * {@code [s * recordsPerSegment, (s + 1) * recordsPerSegment)} in a file named
+ * {@code rollouts-<s>.seg}. Strings live once in a {@code symbols.dat} side table.
+ * <p>
+ * Each record also points back to the previous record of the same client seed. In memory the
+ * journal keeps, per client seed, its latest record and, per server seed that client rolled with, a
+ * sparse list of checkpoints (one every {@value #CHECKPOINT_INTERVAL} records of that pair), so looking
+ * up a (client seed, nonce) walks about one checkpoint interval of the chain per server seed instead of
+ * scanning the journal. Rotating the server seed restarts the nonces without affecting the other
+ * seeds' checkpoints. Only a pair whose nonces decrease falls back to walking the client's whole chain.
+ * The index is rebuilt from the segments on open.
+ * <p>
+ * Records carry a CRC32C. Recovery stops at the first invalid record, wipes what follows it and
+ * resumes appending there. Appends reach the page cache immediately; call {@link #force()} to make
+ * them durable. All methods are thread-safe.
+ */
+@Slf4j
+public final class RolloutJournal implements Closeable {
+    public static final int RECORD_LENGTH = 120;
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 16;
+
+    static final int CHECKPOINT_INTERVAL = 64;
+
+    private static final int HEADER_LENGTH = 64;
+    private static final int MAGIC = 0x4446524A; // "DFRJ"
+    private static final int VERSION = 2;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    // Record layout
+    private static final int SERVER_SEED = 0;
+    private static final int CLIENT_SEED = 4;
+    private static final int NONCE = 8;
+    private static final int VALUE_ID = 16;
+    private static final int TOTAL_WEIGHT = 20;
+    private static final int VALUE_WEIGHT = 24;
+    private static final int ITEMS_IN_VALUE = 28;
+    private static final int VALUE_DIGEST = 32;
+    private static final int ITEM_DIGEST = 64;
+    private static final int PREVIOUS = 96;
+    private static final int VALUE_DRAW = 104;
+    private static final int ITEM_DRAW = 108;
+    private static final int DRAW_VERSION = 112;
+    private static final int CRC = 116;
+
+    private final Path dir;
+    private final int recordsPerSegment;
+    private final SymbolTable symbols;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<Integer, ClientIndex> index = new HashMap<>();
+    private final byte[] scratch = new byte[RECORD_LENGTH];
+    private final CRC32C crc = new CRC32C();
+
+    private long size;
+    private long loads;
+
+    private RolloutJournal(Path dir, int recordsPerSegment) throws IOException {
+        this.dir = dir;
+        this.recordsPerSegment = recordsPerSegment;
+        this.symbols = new SymbolTable(dir.resolve("symbols.dat"));
+    }
+
+    /**
+     * Opens the journal in the given directory, creating it if needed, and rebuilds its index.
+     *
+     * @param dir the journal directory
+     * @return the journal
+     */
+    public static RolloutJournal open(Path dir) {
+        return open(dir, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    /**
+     * @param dir the journal directory
+     * @param recordsPerSegment the capacity of a segment file; must match the existing segments
+     * @return the journal
+     * @see #open(Path)
+     */
+    public static RolloutJournal open(Path dir, int recordsPerSegment) {
+        if (recordsPerSegment <= 0 || (long) recordsPerSegment * RECORD_LENGTH + HEADER_LENGTH > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("recordsPerSegment must be positive and fit a 2 GB segment");
+        }
+
+        try {
+            Files.createDirectories(dir);
+            RolloutJournal journal = new RolloutJournal(dir, recordsPerSegment);
+            journal.recover();
+            return journal;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open rollout journal " + dir, e);
+        }
+    }
+
+    /**
+     * Appends a roll.
+     *
+     * @param valueId the id of the selected value
+     * @param evidence the raw roll data
+     * @return the position of the new record
+     * @throws IllegalArgumentException if the roll was not drawn from the HMAC-SHA256 backend
+     */
+    public synchronized long append(String valueId, Roll.RollEvidence evidence) {
+        if (evidence.prfBackend() != PrfBackends.HMAC_SHA256) {
+            throw new IllegalArgumentException("Only " + PrfBackends.HMAC_SHA256.id() + " rolls can be journaled, not "
+                    + evidence.prfBackend().id());
+        }
+        Roll.RollContext ctx = evidence.ctx();
+        try {
+            int serverSeed = symbols.intern(ctx.serverSeed());
+            int clientSeed = symbols.intern(ctx.clientSeed());
+            int value = symbols.intern(valueId);
+
+            ByteBuffer record = ByteBuffer.wrap(scratch);
+            record.putInt(SERVER_SEED, serverSeed)
+                    .putInt(CLIENT_SEED, clientSeed)
+                    .putLong(NONCE, ctx.nonce())
+                    .putInt(VALUE_ID, value)
+                    .putInt(TOTAL_WEIGHT, evidence.totalWeight())
+                    .putInt(VALUE_WEIGHT, orNull(evidence.selectedValueWeight()))
+                    .putInt(ITEMS_IN_VALUE, orNull(evidence.itemsInValue()))
+                    .put(VALUE_DIGEST, evidence.valueDigest(), 0, 32)
+                    .put(ITEM_DIGEST, evidence.itemDigest(), 0, 32)
+                    .putInt(VALUE_DRAW, evidence.valueDraw())
+                    .putInt(ITEM_DRAW, evidence.itemDraw())
+                    .putInt(DRAW_VERSION, evidence.drawMode().version());
+
+            ClientIndex client = index.computeIfAbsent(clientSeed, k -> new ClientIndex());
+            record.putLong(PREVIOUS, client.last);
+            crc.reset();
+            crc.update(scratch, 0, CRC);
+            record.putInt(CRC, (int) crc.getValue());
+
+            long position = size;
+            segment(position, true).buffer.put(offset(position), scratch, 0, RECORD_LENGTH);
+            client.add(position, serverSeed, ctx.nonce());
+            size++;
+            return position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to rollout journal " + dir, e);
+        }
+    }
+
+    /**
+     * Appends a rollout that carries its debug information.
+     *
+     * @param rollout the rollout; its debug must be available
+     * @return the position of the new record
+     * @throws IllegalArgumentException if the rollout has no debug information
+     */
+    public long append(Rollout rollout) {
+        Debug debug = rollout.getDebug();
+        if (debug == null) {
+            throw new IllegalArgumentException("rollout must carry debug information");
+        }
+
+        return append(rollout.getId(), CompactRollout.of(rollout).evidence());
+    }
+
+    /**
+     * @param position the record position
+     * @return the record
+     * @throws IndexOutOfBoundsException if no record exists at the position
+     */
+    public synchronized JournalRecord read(long position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + " outside [0, " + size + ")");
+        }
+
+        ByteBuffer record = load(position);
+        return new JournalRecord(position, symbols.get(record.getInt(VALUE_ID)), new Roll.RollEvidence(
+                new Roll.RollContext(symbols.get(record.getInt(SERVER_SEED)), symbols.get(record.getInt(CLIENT_SEED)),
+                        record.getLong(NONCE)),
+                DrawMode.ofVersion(record.getInt(DRAW_VERSION)),
+                Arrays.copyOfRange(scratch, VALUE_DIGEST, VALUE_DIGEST + 32),
+                Arrays.copyOfRange(scratch, ITEM_DIGEST, ITEM_DIGEST + 32),
+                record.getInt(VALUE_DRAW), record.getInt(ITEM_DRAW),
+                record.getInt(TOTAL_WEIGHT), fromNull(record.getInt(VALUE_WEIGHT)),
+                fromNull(record.getInt(ITEMS_IN_VALUE))));
+    }
+
+    /**
+     * Finds every roll journaled for a client seed and nonce (one per server seed it was rolled with).
+     *
+     * @param clientSeed the client seed
+     * @param nonce the nonce
+     * @return the matching records, newest first; empty if there are none
+     */
+    public synchronized List<JournalRecord> find(String clientSeed, long nonce) {
+        List<JournalRecord> found = new ArrayList<>();
+        Integer id = symbols.find(clientSeed);
+        ClientIndex client = id == null ? null : index.get(id);
+        if (client == null) {
+            return found;
+        }
+
+        List<Long> positions = new ArrayList<>();
+        for (Map.Entry<Integer, Checkpoints> server : client.servers.entrySet()) {
+            int serverSeed = server.getKey();
+            Checkpoints checkpoints = server.getValue();
+            long position = checkpoints.monotonic ? checkpoints.start(nonce) : client.last;
+            // nothing of this pair lies before its first record, so never walk into older history
+            long first = checkpoints.first();
+            while (position >= first) {
+                ByteBuffer record = load(position);
+                long previous = record.getLong(PREVIOUS);
+                if (record.getInt(SERVER_SEED) == serverSeed) {
+                    long recordNonce = record.getLong(NONCE);
+                    if (recordNonce == nonce) {
+                        positions.add(position);
+                    } else if (checkpoints.monotonic && recordNonce < nonce) {
+                        break;
+                    }
+                }
+                position = previous;
+            }
+        }
+
+        positions.sort(Comparator.reverseOrder());
+        for (long position : positions) {
+            found.add(read(position));
+        }
+        return found;
+    }
+
+    /**
+     * Streams the rolls of one client seed, newest first, by following the back-pointers.
+     *
+     * @param clientSeed the client seed
+     * @return the client's records
+     */
+    public Stream<JournalRecord> stream(String clientSeed) {
+        long last;
+        synchronized (this) {
+            Integer id = symbols.find(clientSeed);
+            ClientIndex client = id == null ? null : index.get(id);
+            last = client == null ? -1 : client.last;
+        }
+
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<JournalRecord>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private long next = last;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super JournalRecord> action) {
+                if (next < 0) return false;
+                JournalRecord record;
+                synchronized (RolloutJournal.this) {
+                    record = read(next);
+                    next = load(next).getLong(PREVIOUS);
+                }
+                action.accept(record);
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * Streams every record appended so far, in append order.
+     *
+     * @return the records
+     */
+    public Stream<JournalRecord> stream() {
+        return LongStream.range(0, size()).mapToObj(this::read);
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * @return the number of records read from the segments so far, including lookups' chain walks
+     */
+    synchronized long loads() {
+        return loads;
+    }
+
+    /**
+     * Flushes the symbol table and every mapped segment to disk.
+     */
+    public synchronized void force() {
+        try {
+            symbols.force();
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush rollout journal " + dir, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        segments.clear();
+        symbols.close();
+    }
+
+    private void recover() throws IOException {
+        for (int s = 0; Files.exists(segmentFile(s)); s++) {
+            segments.add(Segment.open(segmentFile(s), s, recordsPerSegment, false));
+        }
+
+        long capacity = (long) segments.size() * recordsPerSegment;
+        while (size < capacity && valid(size)) {
+            ByteBuffer record = ByteBuffer.wrap(scratch);
+            index.computeIfAbsent(record.getInt(CLIENT_SEED), k -> new ClientIndex())
+                    .add(size, record.getInt(SERVER_SEED), record.getLong(NONCE));
+            size++;
+        }
+
+        int keep = (int) ((size + recordsPerSegment - 1) / recordsPerSegment);
+        while (segments.size() > keep) {
+            Segment stale = segments.removeLast();
+            stale.channel.close();
+            Files.delete(stale.file);
+        }
+
+        // Pages of a mapped file may reach the disk out of order, so wipe anything after the last
+        // valid record; otherwise it could resurface once new records fill the gap
+        long end = (long) segments.size() * recordsPerSegment;
+        boolean wiped = false;
+        byte[] zeros = new byte[RECORD_LENGTH];
+        for (long position = size; position < end; position++) {
+            if (!isZero(position)) {
+                segment(position, false).buffer.put(offset(position), zeros);
+                wiped = true;
+            }
+        }
+        if (wiped) {
+            log.warn("Discarded torn rollout journal tail [dir: {}, valid records: {}]", dir, size);
+            segment(size, false).buffer.force();
+        }
+    }
+
+    private boolean valid(long position) {
+        ByteBuffer record = load(position);
+        crc.reset();
+        crc.update(scratch, 0, CRC);
+        if (record.getInt(CRC) != (int) crc.getValue()) {
+            return false;
+        }
+
+        // A record may reach the disk before the symbols it references
+        int symbolCount = symbols.size();
+        return record.getInt(SERVER_SEED) < symbolCount && record.getInt(CLIENT_SEED) < symbolCount
+                && record.getInt(VALUE_ID) < symbolCount;
+    }
+
+    private boolean isZero(long position) {
+        load(position);
+        for (byte b : scratch) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private ByteBuffer load(long position) {
+        loads++;
+        segment(position, false).buffer.get(offset(position), scratch, 0, RECORD_LENGTH);
+        return ByteBuffer.wrap(scratch);
+    }
+
+    private Segment segment(long position, boolean create) {
+        int s = (int) (position / recordsPerSegment);
+        if (s == segments.size() && create) {
+            try {
+                segments.add(Segment.open(segmentFile(s), s, recordsPerSegment, true));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create rollout journal segment " + segmentFile(s), e);
+            }
+        }
+        return segments.get(s);
+    }
+
+    private int offset(long position) {
+        return HEADER_LENGTH + (int) (position % recordsPerSegment) * RECORD_LENGTH;
+    }
+
+    private Path segmentFile(int segment) {
+        return dir.resolve("rollouts-%08d.seg".formatted(segment));
+    }
+
+    private static int orNull(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    private static Integer fromNull(int value) {
+        return value == NULL_INT ? null : value;
+    }
+
+    private record Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+        private static Segment open(Path file, int number, int recordsPerSegment, boolean create) throws IOException {
+            FileChannel channel = create
+                    ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_LENGTH + (long) recordsPerSegment * RECORD_LENGTH);
+
+            if (create) {
+                buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_LENGTH)
+                        .putInt(12, recordsPerSegment).putInt(16, number);
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getInt(8) != RECORD_LENGTH || buffer.getInt(12) != recordsPerSegment) {
+                channel.close();
+                throw new IOException("Not a compatible rollout journal segment: " + file);
+            }
+            return new Segment(file, channel, buffer);
+        }
+    }
+
+    /**
+     * Per-client back-pointer head plus sparse nonce checkpoints per server seed.
+     */
+    private static final class ClientIndex {
+        private long last = -1;
+        private final Map<Integer, Checkpoints> servers = new HashMap<>(2);
+
+        private void add(long position, int serverSeed, long nonce) {
+            servers.computeIfAbsent(serverSeed, k -> new Checkpoints()).add(position, nonce);
+            last = position;
+        }
+    }
+
+    /**
+     * Sparse nonce checkpoints of one (server seed, client seed) pair.
+     */
+    private static final class Checkpoints {
+        private long last = -1;
+        private long lastNonce;
+        private long count;
+        private boolean monotonic = true;
+        private long[] checkpointNonces = new long[4];
+        private long[] checkpointPositions = new long[4];
+        private int checkpoints;
+
+        private void add(long position, long nonce) {
+            if (count > 0 && nonce < lastNonce) {
+                monotonic = false;
+            }
+            if (count % CHECKPOINT_INTERVAL == 0) {
+                if (checkpoints == checkpointNonces.length) {
+                    checkpointNonces = Arrays.copyOf(checkpointNonces, checkpoints * 2);
+                    checkpointPositions = Arrays.copyOf(checkpointPositions, checkpoints * 2);
+                }
+                checkpointNonces[checkpoints] = nonce;
+                checkpointPositions[checkpoints] = position;
+                checkpoints++;
+            }
+            last = position;
+            lastNonce = nonce;
+            count++;
+        }
+
+        private long first() {
+            return checkpointPositions[0];
+        }
+
+        /**
+         * @return the position to start walking back from when looking for the nonce, or -1 if the
+         *         nonce lies below every nonce of the pair
+         */
+        private long start(long nonce) {
+            // First checkpoint past the nonce: every match lies before it, within one interval
+            int low = 0;
+            int high = checkpoints;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (checkpointNonces[mid] <= nonce) low = mid + 1;
+                else high = mid;
+            }
+            if (low == 0) {
+                return -1;
+            }
+            return low < checkpoints ? checkpointPositions[low] : last;
+        }
+    }
+}
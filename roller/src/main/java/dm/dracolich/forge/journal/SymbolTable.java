@@ -0,0 +1,103 @@
+package dm.dracolich.forge.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only table of interned strings (seeds, value ids), so journal records store them as ints.
+ * <p>
+ * Entries are {@code int length, UTF-8 bytes}; ids are assigned in file order. A torn last entry is
+ * truncated on open. Not thread-safe; guarded by the journal.
+ */
+@Slf4j
+final class SymbolTable implements Closeable {
+    static final int NULL_ID = -1;
+
+    private final FileChannel channel;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+
+    SymbolTable(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        long size = channel.size();
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+        while (data.hasRemaining() && channel.read(data, data.position()) > 0) {
+            // read the whole table
+        }
+        data.flip();
+
+        int valid = 0;
+        while (data.remaining() >= 4) {
+            int length = data.getInt();
+            if (length < 0 || data.remaining() < length) break;
+            String symbol = new String(data.array(), data.position(), length, StandardCharsets.UTF_8);
+            data.position(data.position() + length);
+            ids.put(symbol, symbols.size());
+            symbols.add(symbol);
+            valid = data.position();
+        }
+        if (valid < size) {
+            log.warn("Truncating torn symbol table tail [file: {}, bytes: {}]", file, size - valid);
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+    }
+
+    int intern(String symbol) throws IOException {
+        if (symbol == null) {
+            return NULL_ID;
+        }
+
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+
+        byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes).flip();
+        while (entry.hasRemaining()) {
+            channel.write(entry);
+        }
+        id = symbols.size();
+        ids.put(symbol, id);
+        symbols.add(symbol);
+        return id;
+    }
+
+    /**
+     * @return the id of an interned symbol, or {@code null} if it was never interned
+     */
+    Integer find(String symbol) {
+        return ids.get(symbol);
+    }
+
+    String get(int id) {
+        return id == NULL_ID ? null : symbols.get(id);
+    }
+
+    int size() {
+        return symbols.size();
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
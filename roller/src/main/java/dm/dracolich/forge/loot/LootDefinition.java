@@ -0,0 +1,90 @@
+package dm.dracolich.forge.loot;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A set of named loot tables and the name of the one a roll starts from.
+ * <p>
+ * Definitions are built with {@link #builder()} or parsed from the loot DSL:
+ * <pre>
+ * # comments run to the end of the line
+ * table drop    = pick { 70: common, 25: rare, 4: epic, 1: nothing }
+ * table common  = pick { 3: item "potion", 1: weapons }
+ * table rare    = all { weapons, repeat 1..2 affixes }
+ * table epic    = all { weapons, repeat 3 affixes }
+ * table weapons = pick { 1: item "sword", 1: item "axe" }
+ * table affixes = pick { 2: item "of fire", 1: item "of ice" }
+ * root drop
+ * </pre>
+ * Without a {@code root} statement the first table is the root. Names may contain letters, digits,
+ * {@code _}, {@code -} and {@code .}; item ids are double-quoted.
+ *
+ * @param tables the tables by name, in declaration order
+ * @param root the name of the root table
+ */
+public record LootDefinition(Map<String, LootNode> tables, String root) {
+    public LootDefinition {
+        if (tables == null || tables.isEmpty()) {
+            throw new IllegalArgumentException("definition must have tables");
+        }
+        if (root == null || !tables.containsKey(root)) {
+            throw new IllegalArgumentException("Unknown root table: " + root);
+        }
+        tables = Collections.unmodifiableMap(new LinkedHashMap<>(tables));
+    }
+
+    /**
+     * Parses a definition written in the loot DSL.
+     *
+     * @param source the DSL text
+     * @return the definition
+     * @throws IllegalArgumentException if the text is invalid
+     */
+    public static LootDefinition parse(String source) {
+        return LootParser.parse(source);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final Map<String, LootNode> tables = new LinkedHashMap<>();
+        private String root;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a named table; the first table added is the root unless {@link #root(String)} is called.
+         *
+         * @param name the table name
+         * @param node the table
+         * @return this builder
+         * @throws IllegalArgumentException if a table with the name already exists
+         */
+        public Builder table(String name, LootNode node) {
+            if (name == null || name.isEmpty() || node == null) {
+                throw new IllegalArgumentException("table must have a name and a node");
+            }
+            if (tables.putIfAbsent(name, node) != null) {
+                throw new IllegalArgumentException("Duplicate table: " + name);
+            }
+            if (root == null) {
+                root = name;
+            }
+            return this;
+        }
+
+        public Builder root(String name) {
+            this.root = name;
+            return this;
+        }
+
+        public LootDefinition build() {
+            return new LootDefinition(tables, root);
+        }
+    }
+}
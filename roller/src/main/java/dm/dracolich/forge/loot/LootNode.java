@@ -0,0 +1,139 @@
+package dm.dracolich.forge.loot;
+
+import java.util.List;
+
+/**
+ * Uncompiled loot table model, built in code or parsed from the loot DSL by {@link LootDefinition#parse(String)}.
+ * <p>
+ * A node either drops something ({@link Item}), drops nothing ({@link Nothing}), or combines other nodes:
+ * {@link Pick} chooses one entry by weight, {@link All} evaluates every child in order and {@link Repeat}
+ * evaluates its child a drawn number of times. {@link Ref} points to a named table of the same definition,
+ * which is how tables are shared; {@link LootTable#compile} turns the graph into an immutable DAG.
+ */
+public sealed interface LootNode {
+
+    static Item item(String id) {
+        return new Item(id);
+    }
+
+    static Nothing nothing() {
+        return Nothing.INSTANCE;
+    }
+
+    static Ref ref(String table) {
+        return new Ref(table);
+    }
+
+    static Pick pick(Entry... entries) {
+        return new Pick(List.of(entries));
+    }
+
+    static All all(LootNode... children) {
+        return new All(List.of(children));
+    }
+
+    static Repeat repeat(int min, int max, LootNode child) {
+        return new Repeat(min, max, child);
+    }
+
+    static Entry entry(int weight, LootNode node) {
+        return new Entry(weight, node);
+    }
+
+    /**
+     * Drops the item with the given id.
+     *
+     * @param id the item id
+     */
+    record Item(String id) implements LootNode {
+        public Item {
+            if (id == null || id.isEmpty()) {
+                throw new IllegalArgumentException("item id must be non-empty");
+            }
+        }
+    }
+
+    /**
+     * Drops nothing; useful as a weighted "no drop" entry.
+     */
+    record Nothing() implements LootNode {
+        static final Nothing INSTANCE = new Nothing();
+    }
+
+    /**
+     * Evaluates the named table of the enclosing definition.
+     *
+     * @param table the table name
+     */
+    record Ref(String table) implements LootNode {
+        public Ref {
+            if (table == null || table.isEmpty()) {
+                throw new IllegalArgumentException("table name must be non-empty");
+            }
+        }
+    }
+
+    /**
+     * Chooses one entry by weight with a single draw; zero-weight entries are never chosen.
+     *
+     * @param entries the entries; their weights must sum to a positive int
+     */
+    record Pick(List<Entry> entries) implements LootNode {
+        public Pick {
+            if (entries == null || entries.isEmpty()) {
+                throw new IllegalArgumentException("pick must have entries");
+            }
+            entries = List.copyOf(entries);
+        }
+    }
+
+    /**
+     * Evaluates every child in order, e.g. a base item followed by its affixes.
+     *
+     * @param children the children
+     */
+    record All(List<LootNode> children) implements LootNode {
+        public All {
+            if (children == null || children.isEmpty()) {
+                throw new IllegalArgumentException("all must have children");
+            }
+            children = List.copyOf(children);
+        }
+    }
+
+    /**
+     * Evaluates the child a number of times drawn uniformly from {@code [min, max]}; no draw is made
+     * when {@code min == max}.
+     *
+     * @param min the minimum count
+     * @param max the maximum count
+     * @param child the repeated node
+     */
+    record Repeat(int min, int max, LootNode child) implements LootNode {
+        public Repeat {
+            if (min < 0 || max < min) {
+                throw new IllegalArgumentException("repeat count must satisfy 0 <= min <= max");
+            }
+            if (child == null) {
+                throw new IllegalArgumentException("repeat must have a child");
+            }
+        }
+    }
+
+    /**
+     * A weighted entry of a {@link Pick}.
+     *
+     * @param weight the weight; must not be negative
+     * @param node the node evaluated when the entry is chosen
+     */
+    record Entry(int weight, LootNode node) {
+        public Entry {
+            if (weight < 0) {
+                throw new IllegalArgumentException("weight must not be negative");
+            }
+            if (node == null) {
+                throw new IllegalArgumentException("entry must have a node");
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package dm.dracolich.forge.loot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive-descent parser for the loot DSL.
+ * <pre>
+ * definition := statement+
+ * statement  := 'table' name '=' node
+ *             | 'root' name
+ * node       := 'pick' '{' entry (',' entry)* '}'
+ *             | 'all' '{' node (',' node)* '}'
+ *             | 'repeat' integer ['..' integer] node
+ *             | 'item' string
+ *             | 'nothing'
+ *             | name                          reference to a table
+ * entry      := integer ':' node
+ * </pre>
+ * Whitespace separates tokens and {@code #} starts a comment that runs to the end of the line.
+ */
+final class LootParser {
+    private final String source;
+    private int pos;
+
+    private LootParser(String source) {
+        this.source = source;
+    }
+
+    static LootDefinition parse(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Loot definition must be non-empty");
+        }
+        return new LootParser(source).definition();
+    }
+
+    private LootDefinition definition() {
+        LootDefinition.Builder builder = LootDefinition.builder();
+        String root = null;
+
+        skipSpace();
+        while (pos < source.length()) {
+            String keyword = name();
+            if (keyword.equals("table")) {
+                String table = name();
+                expect('=');
+                int at = pos;
+                LootNode node = node();
+                try {
+                    builder.table(table, node);
+                } catch (IllegalArgumentException e) {
+                    pos = at;
+                    throw error(e.getMessage());
+                }
+            } else if (keyword.equals("root")) {
+                if (root != null) throw error("Duplicate root statement");
+                root = name();
+            } else {
+                throw error("Expected 'table' or 'root'");
+            }
+            skipSpace();
+        }
+
+        if (root != null) {
+            builder.root(root);
+        }
+        return builder.build();
+    }
+
+    private LootNode node() {
+        skipSpace();
+        if (peek('"')) {
+            throw error("Expected a node; item ids need the 'item' keyword");
+        }
+
+        int at = pos;
+        String word = name();
+        try {
+            return switch (word) {
+                case "pick" -> {
+                    List<LootNode.Entry> entries = new ArrayList<>();
+                    expect('{');
+                    do {
+                        int weight = integer();
+                        expect(':');
+                        entries.add(new LootNode.Entry(weight, node()));
+                    } while (accept(','));
+                    expect('}');
+                    yield new LootNode.Pick(entries);
+                }
+                case "all" -> {
+                    List<LootNode> children = new ArrayList<>();
+                    expect('{');
+                    do {
+                        children.add(node());
+                    } while (accept(','));
+                    expect('}');
+                    yield new LootNode.All(children);
+                }
+                case "repeat" -> {
+                    int min = integer();
+                    int max = min;
+                    skipSpace();
+                    if (source.startsWith("..", pos)) {
+                        pos += 2;
+                        max = integer();
+                    }
+                    yield new LootNode.Repeat(min, max, node());
+                }
+                case "item" -> new LootNode.Item(string());
+                case "nothing" -> LootNode.nothing();
+                default -> new LootNode.Ref(word);
+            };
+        } catch (IllegalArgumentException e) {
+            if (e.getMessage() != null && e.getMessage().contains(" at position ")) {
+                throw e;
+            }
+            pos = at;
+            throw error(e.getMessage());
+        }
+    }
+
+    private String name() {
+        skipSpace();
+        int start = pos;
+        while (pos < source.length() && isNameChar(source.charAt(pos))
+                && !source.startsWith("..", pos)) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error("Expected a name");
+        }
+        return source.substring(start, pos);
+    }
+
+    private String string() {
+        skipSpace();
+        if (!peek('"')) {
+            throw error("Expected a quoted item id");
+        }
+        int start = ++pos;
+        while (pos < source.length() && source.charAt(pos) != '"' && source.charAt(pos) != '\n') {
+            pos++;
+        }
+        if (!peek('"')) {
+            throw error("Unterminated item id");
+        }
+        return source.substring(start, pos++);
+    }
+
+    private int integer() {
+        skipSpace();
+        int start = pos;
+        while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error("Expected a number");
+        }
+        try {
+            return Integer.parseInt(source, start, pos, 10);
+        } catch (NumberFormatException e) {
+            throw error("Number out of range");
+        }
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private boolean accept(char c) {
+        skipSpace();
+        if (peek(c)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpace() {
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '#') {
+                while (pos < source.length() && source.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else if (Character.isWhitespace(c)) {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean peek(char c) {
+        return pos < source.length() && source.charAt(pos) == c;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(String.format("%s at position %d of loot definition", message, pos));
+    }
+}
@@ -0,0 +1,173 @@
+package dm.dracolich.forge.loot;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.to.Debug;
+import dm.dracolich.forge.to.DrawMode;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Result of rolling a {@link LootTable}: the drops plus the compact path that produced them.
+ * <p>
+ * The path holds one step per draw, in stream order: the compiled node that drew, the accepted draw and
+ * the choice it led to (the entry index of a pick, the count of a repeat). Together with the context,
+ * category and draw mode this is everything needed to replay and verify the roll.
+ */
+public final class LootResult {
+    private final LootTable table;
+    private final Roll.RollContext ctx;
+    private final String category;
+    private final DrawMode drawMode;
+    private final int[] nodes;
+    private final int[] draws;
+    private final int[] choices;
+    private final String[] drops;
+    private final int blocks;
+
+    private LootResult(LootTable table, Roll.RollContext ctx, String category, DrawMode drawMode, int[] nodes,
+                       int[] draws, int[] choices, String[] drops, int blocks) {
+        this.table = table;
+        this.ctx = ctx;
+        this.category = category;
+        this.drawMode = drawMode;
+        this.nodes = nodes;
+        this.draws = draws;
+        this.choices = choices;
+        this.drops = drops;
+        this.blocks = blocks;
+    }
+
+    /**
+     * @return the dropped item ids in evaluation order
+     */
+    public List<String> drops() {
+        return List.of(drops);
+    }
+
+    public LootTable table() {
+        return table;
+    }
+
+    public Roll.RollContext context() {
+        return ctx;
+    }
+
+    public String category() {
+        return category;
+    }
+
+    public DrawMode drawMode() {
+        return drawMode;
+    }
+
+    /**
+     * @return the number of steps (draws) of the path
+     */
+    public int steps() {
+        return nodes.length;
+    }
+
+    /**
+     * @param step the step index
+     * @return the table name of the node that drew, with the entry path appended for nested nodes
+     */
+    public String node(int step) {
+        return table.label(nodes[step]);
+    }
+
+    /**
+     * @param step the step index
+     * @return the accepted draw of the step
+     */
+    public int draw(int step) {
+        return draws[step];
+    }
+
+    /**
+     * @param step the step index
+     * @return the entry index chosen by a pick, or the count drawn by a repeat
+     */
+    public int choice(int step) {
+        return choices[step];
+    }
+
+    /**
+     * @return the number of HMAC blocks the roll consumed
+     */
+    public int blocks() {
+        return blocks;
+    }
+
+    /**
+     * Builds the verification data of the roll using the existing {@link Debug} fields: seeds, nonce,
+     * draw version, and the message, HMAC and numeric prefix of the stream's first block. The block is
+     * recomputed here, so callers that never look at it pay nothing.
+     *
+     * @return the debug information of the roll
+     */
+    public Debug toDebug() {
+        Roll.Draw first = Roll.Prf.draw(ctx, category);
+
+        return Debug.builder()
+                .serverSeedUsed(ctx.serverSeed())
+                .clientSeed(ctx.clientSeed())
+                .nonce(ctx.nonce())
+                .valueMsg(first.message())
+                .valueHmacHex(first.hex())
+                .hmacValueNumericPrefix(first.unsignedPrefix())
+                .drawVersion(drawMode.version())
+                .build();
+    }
+
+    boolean sameRoll(LootResult other) {
+        return Arrays.equals(nodes, other.nodes) && Arrays.equals(draws, other.draws)
+                && Arrays.equals(choices, other.choices) && Arrays.equals(drops, other.drops);
+    }
+
+    @Override
+    public String toString() {
+        return (table.id() == null ? "loot" : table.id()) + " = " + Arrays.toString(drops)
+                + " (" + nodes.length + " draws)";
+    }
+
+    static final class Builder {
+        private int[] nodes;
+        private int[] draws;
+        private int[] choices;
+        private int steps;
+        private String[] drops = new String[4];
+        private int dropCount;
+
+        Builder(int capacity) {
+            this.nodes = new int[Math.max(capacity, 1)];
+            this.draws = new int[nodes.length];
+            this.choices = new int[nodes.length];
+        }
+
+        void step(int node, int draw, int choice) {
+            if (steps == nodes.length) {
+                nodes = Arrays.copyOf(nodes, steps * 2);
+                draws = Arrays.copyOf(draws, steps * 2);
+                choices = Arrays.copyOf(choices, steps * 2);
+            }
+            nodes[steps] = node;
+            draws[steps] = draw;
+            choices[steps] = choice;
+            steps++;
+        }
+
+        void drop(String item) {
+            if (dropCount == drops.length) {
+                drops = Arrays.copyOf(drops, dropCount * 2);
+            }
+            drops[dropCount++] = item;
+        }
+
+        LootResult build(LootTable table, Roll.RollContext ctx, String category, DrawMode drawMode, int blocks) {
+            return new LootResult(table, ctx, category, drawMode, Arrays.copyOf(nodes, steps),
+                    Arrays.copyOf(draws, steps), Arrays.copyOf(choices, steps), Arrays.copyOf(drops, dropCount),
+                    blocks);
+        }
+    }
+}
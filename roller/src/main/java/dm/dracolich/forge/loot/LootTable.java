@@ -0,0 +1,418 @@
+package dm.dracolich.forge.loot;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.prf.PrfCursor;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DrawMode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled, immutable loot table: a {@link LootDefinition} flattened into a DAG of primitive nodes.
+ * <p>
+ * Every named table is compiled once and shared by all references to it; references that form a cycle,
+ * unknown names, picks without positive weight and tables that could draw more than {@value #MAX_DRAWS}
+ * times or visit more than {@value #MAX_VISITS} nodes are rejected at compile time. Picks are backed by {@link WeightedTable}s, so choosing an entry
+ * takes O(1) expected time.
+ * <p>
+ * A roll walks the DAG depth-first, children in order, drawing everything from one {@link PrfCursor}
+ * on the {@value #DEFAULT_CATEGORY} stream: a pick consumes one accepted draw and chooses the entry whose
+ * cumulative weight range contains {@code mode.index(draw, totalWeight)}, a repeat with {@code min < max}
+ * consumes one and evaluates its child {@code min + mode.index(draw, max - min + 1)} times. The
+ * {@link LootResult} keeps every draw and choice, so the roll can be replayed and verified.
+ * <p>
+ * Compiled tables are kept in a bounded LRU cache keyed by table id and version; bump the version when
+ * a table's definition changes.
+ */
+public final class LootTable {
+    /** Category of the PRF stream used when none is given. */
+    public static final String DEFAULT_CATEGORY = "loot";
+    /** Maximum number of draws a single roll may need. */
+    public static final int MAX_DRAWS = 10_000;
+    /** Maximum number of nodes a single roll may visit, which also bounds its drops. */
+    public static final int MAX_VISITS = 100_000;
+
+    private static final byte PICK = 0;
+    private static final byte ALL = 1;
+    private static final byte REPEAT = 2;
+    private static final byte ITEM = 3;
+    private static final byte NOTHING = 4;
+
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private static int cacheSize = DEFAULT_CACHE_SIZE;
+
+    private static final Map<Key, LootTable> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, LootTable> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private final String id;
+    private final long version;
+    private final LootDefinition definition;
+    private final byte[] kinds;
+    private final int[][] children;
+    private final WeightedTable<?>[] picks;
+    private final int[] min;
+    private final int[] max;
+    private final String[] items;
+    private final String[] labels;
+    private final int root;
+    private final int maxDraws;
+
+    private LootTable(String id, long version, LootDefinition definition, Compiler compiled) {
+        this.id = id;
+        this.version = version;
+        this.definition = definition;
+        int size = compiled.kinds.size();
+        this.kinds = new byte[size];
+        this.children = compiled.children.toArray(new int[0][]);
+        this.picks = compiled.picks.toArray(new WeightedTable<?>[0]);
+        this.min = compiled.min.stream().mapToInt(Integer::intValue).toArray();
+        this.max = compiled.max.stream().mapToInt(Integer::intValue).toArray();
+        this.items = compiled.items.toArray(new String[0]);
+        this.labels = compiled.labels.toArray(new String[0]);
+        for (int i = 0; i < size; i++) {
+            kinds[i] = compiled.kinds.get(i);
+        }
+        this.root = compiled.root;
+        this.maxDraws = (int) compiled.draws.get(root).longValue();
+    }
+
+    /**
+     * Returns the compiled table for an id and version, compiling the definition only on the first request.
+     *
+     * @param id the table id
+     * @param version the version of the definition
+     * @param definition the definition; only read on a cache miss
+     * @return the cached compiled table
+     * @throws IllegalArgumentException if the definition cannot be compiled
+     */
+    public static LootTable compile(String id, long version, LootDefinition definition) {
+        Key key = new Key(id, version);
+        synchronized (CACHE) {
+            LootTable cached = CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        LootTable compiled = build(id, version, definition);
+        synchronized (CACHE) {
+            CACHE.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Same as {@link #compile(String, long, LootDefinition)}, parsing the DSL source only on a cache miss.
+     *
+     * @param id the table id
+     * @param version the version of the source
+     * @param source the definition in the loot DSL
+     * @return the cached compiled table
+     * @throws IllegalArgumentException if the source is invalid or cannot be compiled
+     */
+    public static LootTable compile(String id, long version, String source) {
+        synchronized (CACHE) {
+            LootTable cached = CACHE.get(new Key(id, version));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return compile(id, version, LootDefinition.parse(source));
+    }
+
+    /**
+     * Compiles a definition without consulting or filling the cache.
+     *
+     * @param definition the definition
+     * @return a new compiled table with no id and version 0
+     * @throws IllegalArgumentException if the definition cannot be compiled
+     */
+    public static LootTable of(LootDefinition definition) {
+        return build(null, 0, definition);
+    }
+
+    /**
+     * Sets the maximum number of compiled tables kept in the cache.
+     *
+     * @param size the cache size; must be positive
+     */
+    public static void setCacheSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        synchronized (CACHE) {
+            cacheSize = size;
+        }
+    }
+
+    private static LootTable build(String id, long version, LootDefinition definition) {
+        if (definition == null) {
+            throw new IllegalArgumentException("definition must not be null");
+        }
+        Compiler compiler = new Compiler(definition);
+        compiler.root = compiler.named(definition.root());
+        if (compiler.draws.get(compiler.root) > MAX_DRAWS) {
+            throw new IllegalArgumentException("Loot table may need more than " + MAX_DRAWS + " draws");
+        }
+        if (compiler.visits.get(compiler.root) > MAX_VISITS) {
+            throw new IllegalArgumentException("Loot table may visit more than " + MAX_VISITS + " nodes");
+        }
+        return new LootTable(id, version, definition, compiler);
+    }
+
+    /**
+     * Rolls the table on the {@value #DEFAULT_CATEGORY} stream with {@link DrawMode#MODULO}.
+     *
+     * @param ctx the roll context containing server seed, client seed, and nonce
+     * @return the drops and their verification data
+     */
+    public LootResult roll(Roll.RollContext ctx) {
+        return roll(ctx, DEFAULT_CATEGORY, DrawMode.MODULO);
+    }
+
+    /**
+     * Rolls the table on the {@value #DEFAULT_CATEGORY} stream.
+     *
+     * @param ctx the roll context containing server seed, client seed, and nonce
+     * @param mode the draw mode
+     * @return the drops and their verification data
+     */
+    public LootResult roll(Roll.RollContext ctx, DrawMode mode) {
+        return roll(ctx, DEFAULT_CATEGORY, mode);
+    }
+
+    /**
+     * Rolls the table on the given category stream.
+     *
+     * @param ctx the roll context containing server seed, client seed, and nonce
+     * @param category the category identifier of the PRF stream
+     * @param mode the draw mode
+     * @return the drops and their verification data
+     */
+    public LootResult roll(Roll.RollContext ctx, String category, DrawMode mode) {
+        return roll(KeyedPrf.forSeed(ctx.serverSeed()), ctx, category, mode);
+    }
+
+    /**
+     * Rolls the table with a caller-owned keyed PRF, for example one reused across a batch.
+     *
+     * @param prf the keyed PRF for the server seed
+     * @param clientSeed the client seed
+     * @param nonce the nonce
+     * @param mode the draw mode
+     * @return the drops and their verification data
+     */
+    public LootResult roll(KeyedPrf prf, String clientSeed, long nonce, DrawMode mode) {
+        return roll(prf, new Roll.RollContext(prf.serverSeed(), clientSeed, nonce), DEFAULT_CATEGORY, mode);
+    }
+
+    private LootResult roll(KeyedPrf prf, Roll.RollContext ctx, String category, DrawMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        PrfCursor cursor = new PrfCursor(prf, ctx.clientSeed(), ctx.nonce(), category);
+        LootResult.Builder result = new LootResult.Builder(Math.min(maxDraws, 64));
+        evaluate(root, cursor, mode, result);
+        return result.build(this, ctx, category, mode, cursor.blocks());
+    }
+
+    private void evaluate(int node, PrfCursor cursor, DrawMode mode, LootResult.Builder result) {
+        switch (kinds[node]) {
+            case PICK -> {
+                WeightedTable<?> pick = picks[node];
+                int total = pick.totalWeight();
+                int draw = cursor.nextAccepted(mode, total);
+                int choice = pick.indexForRoll(mode.index(draw, total));
+                result.step(node, draw, choice);
+                evaluate(children[node][choice], cursor, mode, result);
+            }
+            case ALL -> {
+                for (int child : children[node]) {
+                    evaluate(child, cursor, mode, result);
+                }
+            }
+            case REPEAT -> {
+                int count = min[node];
+                if (max[node] > min[node]) {
+                    int span = max[node] - min[node] + 1;
+                    int draw = cursor.nextAccepted(mode, span);
+                    count += mode.index(draw, span);
+                    result.step(node, draw, count);
+                }
+                for (int i = 0; i < count; i++) {
+                    evaluate(children[node][0], cursor, mode, result);
+                }
+            }
+            case ITEM -> result.drop(items[node]);
+            default -> { }
+        }
+    }
+
+    /**
+     * Re-rolls a result's context with this table and checks that every draw, choice and drop matches.
+     *
+     * @param result the result to verify
+     * @return whether the result is what this table rolls for its seeds, nonce, category and draw mode
+     */
+    public boolean verify(LootResult result) {
+        LootResult expected = roll(result.context(), result.category(), result.drawMode());
+        return expected.sameRoll(result);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public LootDefinition definition() {
+        return definition;
+    }
+
+    /**
+     * @return the number of compiled nodes; shared tables count once
+     */
+    public int nodes() {
+        return kinds.length;
+    }
+
+    /**
+     * @return the maximum number of draws a roll can need
+     */
+    public int maxDraws() {
+        return maxDraws;
+    }
+
+    /**
+     * @param node a compiled node
+     * @return the table name of the node, with the entry path appended for nodes nested in a table
+     */
+    String label(int node) {
+        return labels[node];
+    }
+
+    @Override
+    public String toString() {
+        return "LootTable[" + id + "@" + version + ", root=" + definition.root() + ", nodes=" + kinds.length + "]";
+    }
+
+    private record Key(String id, long version) { }
+
+    private static final class Compiler {
+        private final LootDefinition definition;
+        private final Map<String, Integer> named = new HashMap<>();
+        private final Set<String> visiting = new HashSet<>();
+
+        private final List<Byte> kinds = new ArrayList<>();
+        private final List<int[]> children = new ArrayList<>();
+        private final List<WeightedTable<?>> picks = new ArrayList<>();
+        private final List<Integer> min = new ArrayList<>();
+        private final List<Integer> max = new ArrayList<>();
+        private final List<String> items = new ArrayList<>();
+        private final List<String> labels = new ArrayList<>();
+        private final List<Long> draws = new ArrayList<>();
+        private final List<Long> visits = new ArrayList<>();
+        private int root;
+
+        private Compiler(LootDefinition definition) {
+            this.definition = definition;
+        }
+
+        private int named(String name) {
+            Integer compiled = named.get(name);
+            if (compiled != null) {
+                return compiled;
+            }
+
+            LootNode node = definition.tables().get(name);
+            if (node == null) {
+                throw new IllegalArgumentException("Unknown loot table: " + name);
+            }
+            if (!visiting.add(name)) {
+                throw new IllegalArgumentException("Loot table references itself: " + name);
+            }
+            int id = node(node, name);
+            visiting.remove(name);
+            named.put(name, id);
+            return id;
+        }
+
+        private int node(LootNode node, String label) {
+            return switch (node) {
+                case LootNode.Ref ref -> named(ref.table());
+                case LootNode.Item item -> add(ITEM, null, null, 0, 0, item.id(), label, 0, 1);
+                case LootNode.Nothing ignored -> add(NOTHING, null, null, 0, 0, null, label, 0, 1);
+                case LootNode.All all -> {
+                    int[] ids = new int[all.children().size()];
+                    long draws = 0;
+                    long visits = 1;
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = node(all.children().get(i), label + "/" + i);
+                        draws += this.draws.get(ids[i]);
+                        visits += this.visits.get(ids[i]);
+                    }
+                    yield add(ALL, ids, null, 0, 0, null, label, draws, visits);
+                }
+                case LootNode.Repeat repeat -> {
+                    int child = node(repeat.child(), label + "/0");
+                    long draws = (repeat.max() > repeat.min() ? 1 : 0) + repeat.max() * this.draws.get(child);
+                    long visits = 1 + repeat.max() * this.visits.get(child);
+                    yield add(REPEAT, new int[]{child}, null, repeat.min(), repeat.max(), null, label, draws, visits);
+                }
+                case LootNode.Pick pick -> {
+                    List<LootNode.Entry> entries = pick.entries();
+                    int[] ids = new int[entries.size()];
+                    long draws = 0;
+                    long visits = 0;
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = node(entries.get(i).node(), label + "/" + i);
+                        if (entries.get(i).weight() > 0) {
+                            draws = Math.max(draws, this.draws.get(ids[i]));
+                            visits = Math.max(visits, this.visits.get(ids[i]));
+                        }
+                    }
+                    List<Integer> positions = new ArrayList<>(ids.length);
+                    for (int i = 0; i < ids.length; i++) {
+                        positions.add(i);
+                    }
+                    WeightedTable<Integer> weights;
+                    try {
+                        weights = WeightedTable.of(positions, i -> entries.get(i).weight());
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Invalid pick in loot table " + label + ": " + e.getMessage(), e);
+                    }
+                    yield add(PICK, ids, weights, 0, 0, null, label, 1 + draws, 1 + visits);
+                }
+            };
+        }
+
+        private int add(byte kind, int[] ids, WeightedTable<?> pick, int min, int max, String item, String label,
+                        long draws, long visits) {
+            kinds.add(kind);
+            children.add(ids);
+            picks.add(pick);
+            this.min.add(min);
+            this.max.add(max);
+            items.add(item);
+            labels.add(label);
+            // Saturate; anything above the limits is rejected anyway
+            this.draws.add(Math.min(draws, MAX_DRAWS + 1L));
+            this.visits.add(Math.min(visits, MAX_VISITS + 1L));
+            return kinds.size() - 1;
+        }
+    }
+}
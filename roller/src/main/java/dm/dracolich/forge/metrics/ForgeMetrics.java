@@ -0,0 +1,45 @@
+package dm.dracolich.forge.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Global switch and holder of the active {@link RollMetrics}.
+ * <p>
+ * Metrics are enabled with the JVM flag {@code -Ddracolich.forge.metrics.enabled=true}. The flag is
+ * read once into the constant {@link #ENABLED}, and every instrumentation point is guarded by it,
+ * so with metrics disabled the JIT removes the guarded code, including the {@code nanoTime} calls.
+ */
+@Slf4j
+public final class ForgeMetrics {
+    public static final String ENABLED_PROPERTY = "dracolich.forge.metrics.enabled";
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private static volatile RollMetrics metrics = ENABLED ? new StripedRollMetrics() : RollMetrics.NOOP;
+
+    private ForgeMetrics() {
+    }
+
+    /**
+     * @return the active recorder; {@link RollMetrics#NOOP} when metrics are disabled
+     */
+    public static RollMetrics get() {
+        return metrics;
+    }
+
+    /**
+     * Replaces the active recorder, for example with one that forwards to a metrics registry.
+     * Ignored when metrics are disabled.
+     *
+     * @param recorder the recorder to use
+     */
+    public static void set(RollMetrics recorder) {
+        if (recorder == null) {
+            throw new IllegalArgumentException("recorder must not be null");
+        }
+        if (!ENABLED) {
+            log.warn("Ignoring roll metrics recorder, metrics are disabled [enable with: -D{}=true]", ENABLED_PROPERTY);
+            return;
+        }
+        metrics = recorder;
+    }
+}
@@ -0,0 +1,40 @@
+package dm.dracolich.forge.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram with power-of-two buckets: bucket {@code b} counts values in
+ * {@code [2^b, 2^(b+1))}, bucket 0 also counts zero (so it spans {@code [0, 2)}). Recording is one striped add, so
+ * contended threads do not share a cache line; percentiles are accurate to a factor of two.
+ */
+final class Log2Histogram {
+    static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+
+    Log2Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records {@code count} observations of {@code value}.
+     */
+    void record(long value, int count) {
+        long v = Math.max(0, value);
+        buckets[v == 0 ? 0 : 63 - Long.numberOfLeadingZeros(v)].add(count);
+        sum.add(v * count);
+    }
+
+    MetricsSnapshot.Histogram snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        return new MetricsSnapshot.Histogram(count, sum.sum(), counts);
+    }
+}
@@ -0,0 +1,51 @@
+package dm.dracolich.forge.metrics;
+
+import dm.dracolich.forge.to.DiceEnum;
+
+import java.util.Map;
+
+/**
+ * Point-in-time copy of the recorded metrics.
+ *
+ * @param categories HMAC counts and per-HMAC latency in nanoseconds, by draw category
+ * @param dice roll counts and per-roll latency in nanoseconds, by dice
+ * @param seedAdvances the number of server seed advances
+ * @param tableSizes the sizes of the compiled weighted tables
+ */
+public record MetricsSnapshot(Map<String, Histogram> categories, Map<DiceEnum, Histogram> dice, long seedAdvances,
+                              Histogram tableSizes) {
+    public static final MetricsSnapshot EMPTY = new MetricsSnapshot(Map.of(), Map.of(), 0,
+            new Histogram(0, 0, new long[Log2Histogram.BUCKETS]));
+
+    /**
+     * Power-of-two histogram; {@code buckets[b]} counts values in {@code [2^b, 2^(b+1))}.
+     *
+     * @param count the number of observations
+     * @param sum the sum of all observations
+     * @param buckets the bucket counts
+     */
+    public record Histogram(long count, long sum, long[] buckets) {
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @param quantile the quantile in {@code [0, 1]}
+         * @return the exclusive upper bound of the bucket holding the quantile, or 0 if empty
+         */
+        public long percentile(double quantile) {
+            if (quantile < 0 || quantile > 1) {
+                throw new IllegalArgumentException("quantile must be in [0, 1]");
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank && seen > 0) {
+                    return b >= 62 ? Long.MAX_VALUE : 1L << (b + 1);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dm.dracolich.forge.metrics;
+
+import dm.dracolich.forge.to.DiceEnum;
+
+/**
+ * Instrumentation SPI for the roll hot paths.
+ * <p>
+ * The library only calls a recorder when {@link ForgeMetrics#ENABLED} is set, so implementations
+ * are never invoked, and cost nothing, by default. Implementations must be thread-safe and should
+ * not block; the built-in {@link StripedRollMetrics} only touches striped counters.
+ */
+public interface RollMetrics {
+    /**
+     * A recorder that ignores everything.
+     */
+    RollMetrics NOOP = new RollMetrics() {
+        @Override
+        public void recordDraws(String category, int hmacs, long nanos) {
+        }
+
+        @Override
+        public void recordSeedAdvance() {
+        }
+
+        @Override
+        public void recordTableCompiled(int size) {
+        }
+
+        @Override
+        public void recordDiceRolls(DiceEnum dice, int rolls, long nanos) {
+        }
+
+        @Override
+        public MetricsSnapshot snapshot() {
+            return MetricsSnapshot.EMPTY;
+        }
+    };
+
+    /**
+     * Records PRF evaluations (HMACs) for a category.
+     *
+     * @param category the draw category
+     * @param hmacs the number of HMACs computed
+     * @param nanos the time spent on all of them
+     */
+    void recordDraws(String category, int hmacs, long nanos);
+
+    /**
+     * Records one server seed advance (a SHA-256 of the seed).
+     */
+    void recordSeedAdvance();
+
+    /**
+     * Records the compilation of a weighted table.
+     *
+     * @param size the number of entries in the table
+     */
+    void recordTableCompiled(int size);
+
+    /**
+     * Records service-level dice rolls.
+     *
+     * @param dice the dice rolled
+     * @param rolls the number of rolls
+     * @param nanos the time spent on all of them
+     */
+    void recordDiceRolls(DiceEnum dice, int rolls, long nanos);
+
+    /**
+     * @return the values recorded so far
+     */
+    MetricsSnapshot snapshot();
+}
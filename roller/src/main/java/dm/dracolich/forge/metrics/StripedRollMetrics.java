@@ -0,0 +1,76 @@
+package dm.dracolich.forge.metrics;
+
+import dm.dracolich.forge.to.DiceEnum;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default recorder: a {@link Log2Histogram} of latencies per draw category and per {@link DiceEnum},
+ * plus striped counters. Batched calls are recorded as their per-HMAC (or per-roll) average,
+ * weighted by the batch size. At most {@value #MAX_CATEGORIES} draw categories get their own histogram;
+ * draws of any further category are folded into {@value #OTHER_CATEGORY}, so caller-supplied category
+ * names cannot grow the recorder without bound.
+ */
+public final class StripedRollMetrics implements RollMetrics {
+    public static final int MAX_CATEGORIES = 256;
+    public static final String OTHER_CATEGORY = "other";
+
+    private final ConcurrentHashMap<String, Log2Histogram> categories = new ConcurrentHashMap<>();
+    // Not an array indexed by ordinal: this class must not initialize DiceEnum, whose tables report here
+    private final ConcurrentHashMap<DiceEnum, Log2Histogram> dice = new ConcurrentHashMap<>();
+    private final LongAdder seedAdvances = new LongAdder();
+    private final Log2Histogram tableSizes = new Log2Histogram();
+
+    @Override
+    public void recordDraws(String category, int hmacs, long nanos) {
+        if (hmacs <= 0) return;
+        category(category).record(nanos / hmacs, hmacs);
+    }
+
+    @Override
+    public void recordSeedAdvance() {
+        seedAdvances.increment();
+    }
+
+    @Override
+    public void recordTableCompiled(int size) {
+        tableSizes.record(size, 1);
+    }
+
+    @Override
+    public void recordDiceRolls(DiceEnum dice, int rolls, long nanos) {
+        if (rolls <= 0) return;
+        histogram(this.dice, dice).record(nanos / rolls, rolls);
+    }
+
+    @Override
+    public MetricsSnapshot snapshot() {
+        Map<String, MetricsSnapshot.Histogram> categorySnapshots = new HashMap<>();
+        categories.forEach((category, histogram) -> categorySnapshots.put(category, histogram.snapshot()));
+
+        Map<DiceEnum, MetricsSnapshot.Histogram> diceSnapshots = new EnumMap<>(DiceEnum.class);
+        dice.forEach((d, histogram) -> diceSnapshots.put(d, histogram.snapshot()));
+
+        return new MetricsSnapshot(Map.copyOf(categorySnapshots), diceSnapshots, seedAdvances.sum(),
+                tableSizes.snapshot());
+    }
+
+    private Log2Histogram category(String category) {
+        Log2Histogram histogram = categories.get(category);
+        if (histogram != null) {
+            return histogram;
+        }
+        // Racing first draws may overshoot the cap by a few; it bounds the map, not an exact count
+        return histogram(categories, categories.size() < MAX_CATEGORIES ? category : OTHER_CATEGORY);
+    }
+
+    private static <K> Log2Histogram histogram(ConcurrentHashMap<K, Log2Histogram> histograms, K key) {
+        // get() first: computeIfAbsent locks the bin even when the key is present
+        Log2Histogram histogram = histograms.get(key);
+        return histogram != null ? histogram : histograms.computeIfAbsent(key, k -> new Log2Histogram());
+    }
+}
@@ -0,0 +1,122 @@
+package dm.dracolich.forge.nonce;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free nonce allocator backed by a durable {@link NonceJournal}.
+ * <p>
+ * Each client seed has its own counter; handing out a nonce is a single atomic add. Durability is
+ * handled with leases: a nonce is only returned once a high-water mark above it has been fsynced to
+ * the journal. When a counter runs past its lease, one caller queues a new mark {@code leaseSize}
+ * nonces ahead while concurrent callers wait on the same flush, and the journal group-commits marks
+ * from all client seeds with one fsync. After a crash each counter restarts at its last durable mark,
+ * so the unused rest of a lease is skipped and no nonce is ever reused.
+ */
+public final class JournaledNonceAllocator implements NonceAllocator, Closeable {
+    public static final int DEFAULT_LEASE_SIZE = 1_000;
+    public static final long DEFAULT_COMPACT_THRESHOLD = 64L * 1024 * 1024;
+
+    private final NonceJournal journal;
+    private final int leaseSize;
+    private final Map<String, Long> recovered;
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private JournaledNonceAllocator(NonceJournal journal, int leaseSize) {
+        this.journal = journal;
+        this.leaseSize = leaseSize;
+        this.recovered = journal.recovered();
+    }
+
+    /**
+     * Opens (or creates) the journal and recovers the counters from it.
+     *
+     * @param journalFile the journal file
+     * @param leaseSize how many nonces each durable mark reserves ahead; must be positive
+     * @param compactThreshold the journal size in bytes above which it is compacted
+     * @return the allocator
+     */
+    public static JournaledNonceAllocator open(Path journalFile, int leaseSize, long compactThreshold) {
+        if (leaseSize <= 0) {
+            throw new IllegalArgumentException("leaseSize must be positive");
+        }
+        return new JournaledNonceAllocator(NonceJournal.open(journalFile, compactThreshold), leaseSize);
+    }
+
+    public static JournaledNonceAllocator open(Path journalFile) {
+        return open(journalFile, DEFAULT_LEASE_SIZE, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    @Override
+    public long nextBlock(String clientSeed, int count) {
+        if (clientSeed == null) {
+            throw new IllegalArgumentException("clientSeed must not be null");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+
+        Counter counter = counters.computeIfAbsent(clientSeed, k -> new Counter(recovered.getOrDefault(k, 0L)));
+        long first = counter.next.getAndAdd(count);
+        long end = first + count;
+        while (end > counter.limit) {
+            extend(clientSeed, counter, end).join();
+        }
+        return first;
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private CompletableFuture<Void> extend(String clientSeed, Counter counter, long end) {
+        while (true) {
+            CompletableFuture<Void> pending = counter.pending.get();
+            if (pending != null) {
+                return pending;
+            }
+
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            if (!counter.pending.compareAndSet(null, mine)) {
+                continue;
+            }
+            if (end <= counter.limit) {
+                counter.pending.set(null);
+                mine.complete(null);
+                return mine;
+            }
+
+            long mark = Math.max(counter.next.get(), end) + leaseSize;
+            journal.append(clientSeed, mark).whenComplete((ignored, error) -> {
+                if (error == null) {
+                    counter.limit = mark;
+                }
+                counter.pending.set(null);
+                if (error == null) {
+                    mine.complete(null);
+                } else {
+                    mine.completeExceptionally(error);
+                }
+            });
+            return mine;
+        }
+    }
+
+    private static final class Counter {
+        private final AtomicLong next;
+        private final AtomicReference<CompletableFuture<Void>> pending = new AtomicReference<>();
+        private volatile long limit;
+
+        private Counter(long start) {
+            this.next = new AtomicLong(start);
+            this.limit = start;
+        }
+    }
+}
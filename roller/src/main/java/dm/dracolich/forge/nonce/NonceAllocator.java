@@ -0,0 +1,24 @@
+package dm.dracolich.forge.nonce;
+
+/**
+ * Hands out nonces per client seed. A nonce is never handed out twice for the same client seed,
+ * including across restarts.
+ */
+public interface NonceAllocator {
+    /**
+     * @param clientSeed the client seed
+     * @return the next unused nonce for the client seed
+     */
+    default long next(String clientSeed) {
+        return nextBlock(clientSeed, 1);
+    }
+
+    /**
+     * Reserves {@code count} consecutive nonces at once, for batch rolls.
+     *
+     * @param clientSeed the client seed
+     * @param count the number of nonces; must be positive
+     * @return the first nonce of the block; the block is {@code [first, first + count)}
+     */
+    long nextBlock(String clientSeed, int count);
+}
@@ -0,0 +1,271 @@
+package dm.dracolich.forge.nonce;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of nonce high-water marks with group commit.
+ * <p>
+ * Each record stores a client seed and the exclusive upper bound of the nonces that may be handed
+ * out for it. Appends are queued and written by a single writer thread, which takes every request
+ * that arrived while the previous batch was being flushed, writes them in one go and fsyncs once;
+ * the returned futures complete only after that fsync. When the file outgrows the compaction
+ * threshold, the writer replaces it with a snapshot holding one record per client seed.
+ * <p>
+ * Record layout: {@code int payloadLength, short seedLength, seed (UTF-8), long highWater, int crc32c},
+ * where the checksum covers everything before it. Recovery stops at the first torn or corrupt
+ * record and truncates the file there.
+ */
+@Slf4j
+final class NonceJournal implements Closeable {
+    private static final int MAX_BATCH = 4096;
+
+    private final Path file;
+    private final long compactThreshold;
+    private final Map<String, Long> highWater;
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private FileChannel channel;
+    private volatile boolean closed;
+
+    private NonceJournal(Path file, long compactThreshold, Map<String, Long> highWater, FileChannel channel) {
+        this.file = file;
+        this.compactThreshold = compactThreshold;
+        this.highWater = highWater;
+        this.channel = channel;
+        this.writer = Thread.ofPlatform().daemon().name("forge-nonce-journal").start(this::drain);
+    }
+
+    static NonceJournal open(Path file, long compactThreshold) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            Map<String, Long> highWater = recover(channel, file);
+            channel.position(channel.size());
+            return new NonceJournal(file, compactThreshold, highWater, channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open nonce journal " + file, e);
+        }
+    }
+
+    /**
+     * @return a copy of the latest durable high-water mark of every client seed
+     */
+    Map<String, Long> recovered() {
+        synchronized (highWater) {
+            return Map.copyOf(highWater);
+        }
+    }
+
+    /**
+     * Queues a high-water mark for a client seed.
+     *
+     * @return a future completed once the record is durable on disk
+     */
+    CompletableFuture<Void> append(String clientSeed, long mark) {
+        Append append = new Append(clientSeed, mark, new CompletableFuture<>());
+        if (closed) {
+            append.done.completeExceptionally(new IllegalStateException("Nonce journal is closed"));
+            return append.done;
+        }
+        queue.add(append);
+        // close() may have let the writer finish between the check and the add; nobody would take the entry
+        if (closed && queue.remove(append)) {
+            append.done.completeExceptionally(new IllegalStateException("Nonce journal is closed"));
+        }
+        return append.done;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void drain() {
+        List<Append> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                if (closed && queue.isEmpty()) break;
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            try {
+                write(batch);
+                batch.forEach(a -> a.done.complete(null));
+            } catch (Exception e) {
+                log.error("Failed to write nonce journal [file: {}]", file, e);
+                batch.forEach(a -> a.done.completeExceptionally(e));
+            }
+            batch.clear();
+
+            // the batch is durable already; compaction only shrinks the file, so it never fails an append
+            if (size() > compactThreshold) {
+                compact();
+            }
+        }
+        queue.forEach(a -> a.done.completeExceptionally(new IllegalStateException("Nonce journal is closed")));
+    }
+
+    private void write(List<Append> batch) throws IOException {
+        List<byte[]> records = new ArrayList<>(batch.size());
+        int size = 0;
+        for (Append append : batch) {
+            byte[] record = encode(append.clientSeed, append.mark);
+            records.add(record);
+            size += record.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        records.forEach(buffer::put);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+
+        synchronized (highWater) {
+            for (Append append : batch) {
+                highWater.merge(append.clientSeed, append.mark, Math::max);
+            }
+        }
+    }
+
+    private long size() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Replaces the journal with a snapshot. The snapshot is written and synced through its own channel,
+     * which is only swapped in once the atomic move succeeded; on any failure the current channel stays
+     * in use, so the journal keeps working and the next batch over the threshold tries again.
+     */
+    private void compact() {
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        Map<String, Long> snapshot;
+        synchronized (highWater) {
+            snapshot = new HashMap<>(highWater);
+        }
+
+        FileChannel out = null;
+        try {
+            out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+                ByteBuffer record = ByteBuffer.wrap(encode(entry.getKey(), entry.getValue()));
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+            out.force(true);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to compact nonce journal, keeping the current file [file: {}]", file, e);
+            closeQuietly(out);
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // a stale snapshot is truncated by the next attempt
+            }
+            return;
+        }
+
+        closeQuietly(channel);
+        channel = out;
+        log.debug("Compacted nonce journal [file: {}, client seeds: {}]", file, snapshot.size());
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close nonce journal channel", e);
+        }
+    }
+
+    private static byte[] encode(String clientSeed, long mark) {
+        byte[] seed = clientSeed.getBytes(StandardCharsets.UTF_8);
+        if (seed.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("clientSeed is too long for the nonce journal");
+        }
+
+        int payload = 2 + seed.length + 8;
+        ByteBuffer record = ByteBuffer.allocate(4 + payload + 4);
+        record.putInt(payload).putShort((short) seed.length).put(seed).putLong(mark);
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue());
+        return record.array();
+    }
+
+    private static Map<String, Long> recover(FileChannel channel, Path file) throws IOException {
+        Map<String, Long> highWater = new HashMap<>();
+        ByteBuffer data = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE));
+        while (data.hasRemaining() && channel.read(data, data.position()) > 0) {
+            // read the whole journal; compaction keeps it small
+        }
+        data.flip();
+
+        int valid = 0;
+        CRC32C crc = new CRC32C();
+        while (data.remaining() >= 4) {
+            int start = data.position();
+            int payload = data.getInt();
+            if (payload < 10 || data.remaining() < payload + 4) break;
+
+            crc.reset();
+            crc.update(data.array(), start, 4 + payload);
+            short seedLength = data.getShort();
+            if (seedLength < 0 || seedLength != payload - 10) break;
+            String seed = new String(data.array(), data.position(), seedLength, StandardCharsets.UTF_8);
+            data.position(data.position() + seedLength);
+            long mark = data.getLong();
+            if (data.getInt() != (int) crc.getValue()) break;
+
+            highWater.merge(seed, mark, Math::max);
+            valid = data.position();
+        }
+
+        if (valid < channel.size()) {
+            log.warn("Truncating torn nonce journal tail [file: {}, bytes: {}]", file, channel.size() - valid);
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        return highWater;
+    }
+
+    private record Append(String clientSeed, long mark, CompletableFuture<Void> done) { }
+}
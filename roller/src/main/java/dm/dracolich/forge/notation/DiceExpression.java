@@ -0,0 +1,232 @@
+package dm.dracolich.forge.notation;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.prf.PrfCursor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled, immutable evaluation plan for a dice expression such as {@code 4d6kh3+2}, {@code 2d20kl1},
+ * {@code 3d6!} or the pool {@code 6d10>=8}.
+ * <p>
+ * Expressions are parsed once by {@link #compile(String)} and kept in a bounded LRU cache, so hot
+ * expressions never hit the parser again. All dice of an evaluation are drawn in order from a single
+ * {@link PrfCursor}, which means an expression costs one HMAC per eight dice. Die {@code i} of the
+ * audit trail is {@code floorMod(draw(i), sides) + 1} of that stream, explosions included, so a roll
+ * can be verified by replaying the cursor.
+ * <p>
+ * Supported notation:
+ * <ul>
+ * <li>{@code NdS} rolls N dice with S sides ({@code d%} is a d100, N defaults to 1)</li>
+ * <li>{@code kh K} / {@code k K} keeps the K highest, {@code kl K} the K lowest</li>
+ * <li>{@code dl K} / {@code d K} drops the K lowest, {@code dh K} the K highest</li>
+ * <li>{@code !} explodes dice on their highest face, {@code !>=N} (or any comparison) on a custom condition;
+ * an exploding chain stops after {@value #MAX_EXPLOSIONS} extra dice</li>
+ * <li>a trailing comparison such as {@code >=8} counts successes among the kept dice instead of summing them</li>
+ * <li>integer constants, combined with {@code +} and {@code -}</li>
+ * </ul>
+ * Expressions whose total could leave the {@code int} range, explosions included, are rejected.
+ */
+public final class DiceExpression {
+    /** Category of the PRF stream used when none is given. */
+    public static final String DEFAULT_CATEGORY = "dice";
+    /** Maximum number of extra dice a single die can explode into. */
+    public static final int MAX_EXPLOSIONS = 100;
+
+    public static final int DEFAULT_CACHE_SIZE = 512;
+
+    private static int cacheSize = DEFAULT_CACHE_SIZE;
+
+    private static final Map<String, DiceExpression> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DiceExpression> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private final String notation;
+    private final List<DiceTerm> terms;
+    private final int baseDice;
+
+    private DiceExpression(String notation, List<DiceTerm> terms) {
+        long bound = 0;
+        for (DiceTerm term : terms) {
+            bound += bound(term);
+        }
+        if (bound > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format(
+                    "Total of dice notation [%s] may exceed %d", notation, Integer.MAX_VALUE));
+        }
+        this.notation = notation;
+        this.terms = Collections.unmodifiableList(terms);
+        this.baseDice = terms.stream().mapToInt(DiceTerm::count).sum();
+    }
+
+    /**
+     * Returns the compiled plan for a dice notation, parsing it only on the first request.
+     *
+     * @param notation the dice notation, e.g. {@code "4d6kh3+2"}
+     * @return the cached compiled expression
+     * @throws IllegalArgumentException if the notation is invalid or its total may overflow an int
+     */
+    public static DiceExpression compile(String notation) {
+        synchronized (CACHE) {
+            DiceExpression cached = CACHE.get(notation);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        DiceExpression compiled = parse(notation);
+        synchronized (CACHE) {
+            CACHE.put(notation, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Parses a dice notation without consulting or filling the cache.
+     *
+     * @param notation the dice notation
+     * @return a new compiled expression
+     * @throws IllegalArgumentException if the notation is invalid or its total may overflow an int
+     */
+    public static DiceExpression parse(String notation) {
+        return new DiceExpression(notation, DiceParser.parse(notation));
+    }
+
+    /**
+     * Sets the maximum number of compiled expressions kept in the cache.
+     *
+     * @param size the cache size; must be positive
+     */
+    public static void setCacheSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        synchronized (CACHE) {
+            cacheSize = size;
+        }
+    }
+
+    /**
+     * Evaluates the expression on the {@value #DEFAULT_CATEGORY} stream of the given context.
+     *
+     * @param ctx the roll context containing server seed, client seed, and nonce
+     * @return the total and per-die audit trail
+     */
+    public DiceResult roll(Roll.RollContext ctx) {
+        return roll(ctx, DEFAULT_CATEGORY);
+    }
+
+    /**
+     * Evaluates the expression on the given category stream of the context.
+     *
+     * @param ctx the roll context containing server seed, client seed, and nonce
+     * @param category the category identifier of the PRF stream
+     * @return the total and per-die audit trail
+     */
+    public DiceResult roll(Roll.RollContext ctx, String category) {
+        PrfCursor cursor = Roll.Prf.cursor(ctx, category);
+        DiceResult.Builder result = new DiceResult.Builder(baseDice);
+        long total = 0;
+
+        for (int t = 0; t < terms.size(); t++) {
+            DiceTerm term = terms.get(t);
+            if (term.isConstant()) {
+                total += (long) term.sign() * term.sides();
+                continue;
+            }
+
+            int start = result.size();
+            for (int d = 0; d < term.count(); d++) {
+                int face = cursor.nextIndex(term.sides()) + 1;
+                result.add(face, t, 0);
+
+                for (int extra = 0; term.explode() != null && term.explode().test(face) && extra < MAX_EXPLOSIONS;
+                        extra++) {
+                    face = cursor.nextIndex(term.sides()) + 1;
+                    result.add(face, t, DiceResult.EXPLODED);
+                }
+            }
+
+            keep(term, result, start, result.size());
+
+            long value = 0;
+            for (int i = start; i < result.size(); i++) {
+                if (!result.kept(i)) continue;
+                if (term.success() == null) {
+                    value += result.face(i);
+                } else if (term.success().test(result.face(i))) {
+                    result.mark(i, DiceResult.SUCCESS);
+                    value++;
+                }
+            }
+            total += term.sign() * value;
+        }
+
+        return result.build(this, ctx, category, Math.toIntExact(total), cursor.blocks());
+    }
+
+    /**
+     * @return the largest magnitude a term can add to or subtract from the total
+     */
+    private static long bound(DiceTerm term) {
+        if (term.isConstant()) {
+            return term.sides();
+        }
+        long rolled = (long) term.count() * (term.explode() == null ? 1 : 1 + MAX_EXPLOSIONS);
+        long kept = switch (term.keep()) {
+            case ALL -> rolled;
+            case KEEP_HIGHEST, KEEP_LOWEST -> Math.min(term.keepCount(), rolled);
+            case DROP_HIGHEST, DROP_LOWEST -> Math.max(0, rolled - term.keepCount());
+        };
+        return kept * (term.success() == null ? term.sides() : 1);
+    }
+
+    private static void keep(DiceTerm term, DiceResult.Builder result, int start, int end) {
+        int size = end - start;
+        int kept = switch (term.keep()) {
+            case ALL -> size;
+            case KEEP_HIGHEST, KEEP_LOWEST -> Math.min(term.keepCount(), size);
+            case DROP_HIGHEST, DROP_LOWEST -> Math.max(0, size - term.keepCount());
+        };
+        boolean highest = term.keep() == DiceTerm.Keep.ALL || term.keep() == DiceTerm.Keep.KEEP_HIGHEST
+                || term.keep() == DiceTerm.Keep.DROP_LOWEST;
+
+        // Order by face (highest or lowest first), earlier dice first on ties
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            long key = highest ? -result.face(start + i) : result.face(start + i);
+            order[i] = key << 32 | i;
+        }
+        Arrays.sort(order);
+        for (int i = 0; i < kept; i++) {
+            result.mark(start + (int) order[i], DiceResult.KEPT);
+        }
+    }
+
+    public String notation() {
+        return notation;
+    }
+
+    public List<DiceTerm> terms() {
+        return terms;
+    }
+
+    /**
+     * @return the number of dice rolled when nothing explodes
+     */
+    public int baseDice() {
+        return baseDice;
+    }
+
+    @Override
+    public String toString() {
+        return notation;
+    }
+}
@@ -0,0 +1,178 @@
+package dm.dracolich.forge.notation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recursive-descent parser for dice notation.
+ * <pre>
+ * expression := term (('+' | '-') term)*
+ * term       := integer | [integer] 'd' (integer | '%') modifier*
+ * modifier   := '!' [compare]                explode, on the highest face by default
+ *             | ('kh' | 'kl' | 'dh' | 'dl' | 'k' | 'd') integer
+ *             | compare                      count successes instead of summing
+ * compare    := ('=' | '&gt;' | '&gt;=' | '&lt;' | '&lt;=') integer
+ * </pre>
+ * Whitespace is ignored and letters are case-insensitive.
+ */
+final class DiceParser {
+    static final int MAX_DICE = 1_000;
+    static final int MAX_SIDES = 1_000_000;
+
+    private final String source;
+    private final String text;
+    private int pos;
+
+    private DiceParser(String source) {
+        this.source = source;
+        this.text = source.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+    }
+
+    static List<DiceTerm> parse(String notation) {
+        if (notation == null || notation.isBlank()) {
+            throw new IllegalArgumentException("Dice notation must be non-empty");
+        }
+        return new DiceParser(notation).expression();
+    }
+
+    private List<DiceTerm> expression() {
+        List<DiceTerm> terms = new ArrayList<>();
+        int sign = 1;
+        if (peek('-') || peek('+')) {
+            sign = text.charAt(pos++) == '-' ? -1 : 1;
+        }
+        terms.add(term(sign));
+
+        while (pos < text.length()) {
+            char op = text.charAt(pos);
+            if (op != '+' && op != '-') {
+                throw error("Expected '+' or '-'");
+            }
+            pos++;
+            terms.add(term(op == '-' ? -1 : 1));
+        }
+        return terms;
+    }
+
+    private DiceTerm term(int sign) {
+        Integer count = peekDigit() ? integer() : null;
+        if (!peek('d')) {
+            if (count == null) {
+                throw error("Expected a number or dice");
+            }
+            return DiceTerm.constant(sign, count);
+        }
+        pos++;
+
+        int dice = count == null ? 1 : count;
+        int sides;
+        if (peek('%')) {
+            pos++;
+            sides = 100;
+        } else {
+            sides = integer();
+        }
+        if (dice < 1 || dice > MAX_DICE) {
+            throw error("Dice count must be between 1 and " + MAX_DICE);
+        }
+        if (sides < 1 || sides > MAX_SIDES) {
+            throw error("Dice sides must be between 1 and " + MAX_SIDES);
+        }
+
+        DiceTerm.Compare explode = null;
+        DiceTerm.Keep keep = DiceTerm.Keep.ALL;
+        int keepCount = 0;
+        DiceTerm.Compare success = null;
+
+        while (pos < text.length() && !peek('+') && !peek('-')) {
+            if (peek('!')) {
+                pos++;
+                if (explode != null) throw error("Duplicate explode modifier");
+                explode = peekCompare() ? compare() : new DiceTerm.Compare("=", sides);
+                if (explodesAlways(explode, sides)) {
+                    throw error("Explode condition matches every face");
+                }
+            } else if (peek('k') || peek('d')) {
+                if (keep != DiceTerm.Keep.ALL) throw error("Duplicate keep/drop modifier");
+                keep = keepMode();
+                keepCount = integer();
+                if (keepCount < 0 || keepCount > dice) {
+                    throw error("Keep/drop count must be between 0 and " + dice);
+                }
+            } else if (peekCompare()) {
+                if (success != null) throw error("Duplicate success condition");
+                success = compare();
+            } else {
+                throw error("Unknown modifier");
+            }
+        }
+
+        return new DiceTerm(sign, dice, sides, explode, keep, keepCount, success);
+    }
+
+    private DiceTerm.Keep keepMode() {
+        char kind = text.charAt(pos++);
+        char which = pos < text.length() ? text.charAt(pos) : 0;
+        boolean lowest = which == 'l';
+        if (which == 'h' || which == 'l') {
+            pos++;
+        }
+        if (kind == 'k') {
+            return lowest ? DiceTerm.Keep.KEEP_LOWEST : DiceTerm.Keep.KEEP_HIGHEST;
+        }
+        // A bare 'd' modifier drops the lowest dice, as in 4d6d1
+        return which == 'h' ? DiceTerm.Keep.DROP_HIGHEST : DiceTerm.Keep.DROP_LOWEST;
+    }
+
+    private DiceTerm.Compare compare() {
+        String operator;
+        if (text.startsWith(">=", pos) || text.startsWith("<=", pos)) {
+            operator = text.substring(pos, pos + 2);
+            pos += 2;
+        } else {
+            operator = text.substring(pos, pos + 1);
+            pos++;
+        }
+        return new DiceTerm.Compare(operator, integer());
+    }
+
+    private static boolean explodesAlways(DiceTerm.Compare explode, int sides) {
+        for (int face = 1; face <= sides; face++) {
+            if (!explode.test(face)) return false;
+        }
+        return true;
+    }
+
+    private int integer() {
+        int start = pos;
+        while (peekDigit()) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error("Expected a number");
+        }
+        try {
+            return Integer.parseInt(text, start, pos, 10);
+        } catch (NumberFormatException e) {
+            throw error("Number out of range");
+        }
+    }
+
+    private boolean peek(char c) {
+        return pos < text.length() && text.charAt(pos) == c;
+    }
+
+    private boolean peekDigit() {
+        return pos < text.length() && Character.isDigit(text.charAt(pos));
+    }
+
+    private boolean peekCompare() {
+        return peek('=') || peek('>') || peek('<');
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(String.format("%s at position %d of dice notation [%s]",
+                message, pos, source));
+    }
+}
@@ -0,0 +1,163 @@
+package dm.dracolich.forge.notation;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.to.Debug;
+
+import java.util.Arrays;
+
+/**
+ * Result of evaluating a {@link DiceExpression}: the total plus a compact per-die audit trail.
+ * <p>
+ * Die {@code i} is the {@code i}-th draw of the expression's PRF stream. For each die the result keeps
+ * its face, the index of the term that rolled it and whether it was kept, produced by an explosion or
+ * counted as a success, all in primitive arrays.
+ */
+public final class DiceResult {
+    static final int KEPT = 1;
+    static final int EXPLODED = 1 << 1;
+    static final int SUCCESS = 1 << 2;
+
+    private static final int TERM_SHIFT = 8;
+
+    private final DiceExpression expression;
+    private final Roll.RollContext ctx;
+    private final String category;
+    private final int total;
+    private final int[] faces;
+    private final int[] flags;
+    private final int blocks;
+
+    private DiceResult(DiceExpression expression, Roll.RollContext ctx, String category, int total,
+                       int[] faces, int[] flags, int blocks) {
+        this.expression = expression;
+        this.ctx = ctx;
+        this.category = category;
+        this.total = total;
+        this.faces = faces;
+        this.flags = flags;
+        this.blocks = blocks;
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public DiceExpression expression() {
+        return expression;
+    }
+
+    public String category() {
+        return category;
+    }
+
+    /**
+     * @return the number of dice rolled, explosions included
+     */
+    public int dice() {
+        return faces.length;
+    }
+
+    public int face(int die) {
+        return faces[die];
+    }
+
+    /**
+     * @return the index of the expression term that rolled the die
+     */
+    public int term(int die) {
+        return flags[die] >>> TERM_SHIFT;
+    }
+
+    public boolean kept(int die) {
+        return (flags[die] & KEPT) != 0;
+    }
+
+    public boolean exploded(int die) {
+        return (flags[die] & EXPLODED) != 0;
+    }
+
+    public boolean success(int die) {
+        return (flags[die] & SUCCESS) != 0;
+    }
+
+    /**
+     * @return a copy of all faces in draw order
+     */
+    public int[] faces() {
+        return faces.clone();
+    }
+
+    /**
+     * @return the number of HMAC blocks the evaluation consumed
+     */
+    public int blocks() {
+        return blocks;
+    }
+
+    /**
+     * Builds the verification data of the roll using the existing {@link Debug} fields: seeds, nonce,
+     * and the message, HMAC and numeric prefix of the stream's first block. The block is recomputed
+     * here, so callers that never look at it pay nothing.
+     *
+     * @return the debug information of the roll
+     */
+    public Debug toDebug() {
+        Roll.Draw first = Roll.Prf.draw(ctx, category);
+
+        return Debug.builder()
+                .serverSeedUsed(ctx.serverSeed())
+                .clientSeed(ctx.clientSeed())
+                .nonce(ctx.nonce())
+                .valueMsg(first.message())
+                .valueHmacHex(first.hex())
+                .hmacValueNumericPrefix(first.unsignedPrefix())
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        return expression.notation() + " = " + total + " " + Arrays.toString(faces);
+    }
+
+    static final class Builder {
+        private int[] faces;
+        private int[] flags;
+        private int size;
+
+        Builder(int capacity) {
+            this.faces = new int[Math.max(capacity, 1)];
+            this.flags = new int[faces.length];
+        }
+
+        void add(int face, int term, int flag) {
+            if (size == faces.length) {
+                faces = Arrays.copyOf(faces, size * 2);
+                flags = Arrays.copyOf(flags, size * 2);
+            }
+            faces[size] = face;
+            flags[size] = term << TERM_SHIFT | flag;
+            size++;
+        }
+
+        void mark(int die, int flag) {
+            flags[die] |= flag;
+        }
+
+        int face(int die) {
+            return faces[die];
+        }
+
+        boolean kept(int die) {
+            return (flags[die] & KEPT) != 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        DiceResult build(DiceExpression expression, Roll.RollContext ctx, String category, int total, int blocks) {
+            return new DiceResult(expression, ctx, category, total, Arrays.copyOf(faces, size),
+                    Arrays.copyOf(flags, size), blocks);
+        }
+    }
+}
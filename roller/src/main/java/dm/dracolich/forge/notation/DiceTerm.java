@@ -0,0 +1,54 @@
+package dm.dracolich.forge.notation;
+
+/**
+ * One compiled term of a {@link DiceExpression}: either a constant or a group of dice with modifiers.
+ *
+ * @param sign +1 or -1, how the term contributes to the total
+ * @param count the number of dice rolled before explosions; 0 for a constant term
+ * @param sides the number of faces per die; for a constant term, the constant itself
+ * @param explode the condition under which a die explodes (rolls an extra die), or {@code null}
+ * @param keep which dice are kept after rolling
+ * @param keepCount how many dice {@code keep} keeps or drops
+ * @param success the condition counted as a success in a dice pool, or {@code null} to sum the faces
+ */
+public record DiceTerm(int sign, int count, int sides, Compare explode, Keep keep, int keepCount, Compare success) {
+
+    /**
+     * Which dice of a term contribute to its result.
+     */
+    public enum Keep {
+        ALL, KEEP_HIGHEST, KEEP_LOWEST, DROP_HIGHEST, DROP_LOWEST
+    }
+
+    /**
+     * A comparison against a die face, used for explosions and success pools.
+     *
+     * @param operator one of {@code =}, {@code >}, {@code >=}, {@code <}, {@code <=}
+     * @param value the value compared against
+     */
+    public record Compare(String operator, int value) {
+        public boolean test(int face) {
+            return switch (operator) {
+                case "=" -> face == value;
+                case ">" -> face > value;
+                case ">=" -> face >= value;
+                case "<" -> face < value;
+                case "<=" -> face <= value;
+                default -> throw new IllegalStateException("Unknown operator: " + operator);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return operator + value;
+        }
+    }
+
+    static DiceTerm constant(int sign, int value) {
+        return new DiceTerm(sign, 0, value, null, Keep.ALL, 0, null);
+    }
+
+    public boolean isConstant() {
+        return count == 0;
+    }
+}
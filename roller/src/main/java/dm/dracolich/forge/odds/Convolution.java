@@ -0,0 +1,101 @@
+package dm.dracolich.forge.odds;
+
+/**
+ * Convolution of probability vectors. Small operands are convolved directly; once the direct product
+ * exceeds {@link #FFT_THRESHOLD} multiply-adds a radix-2 FFT is used instead.
+ */
+final class Convolution {
+    /** Direct convolutions above this many multiply-adds (and with both operands this long) use the FFT. */
+    static final long FFT_THRESHOLD = 1 << 20;
+    private static final int FFT_MIN_LENGTH = 64;
+
+    private Convolution() {
+    }
+
+    static double[] convolve(double[] a, double[] b) {
+        if (Math.min(a.length, b.length) >= FFT_MIN_LENGTH && (long) a.length * b.length > FFT_THRESHOLD) {
+            return fft(a, b);
+        }
+        return direct(a, b);
+    }
+
+    static double[] direct(double[] a, double[] b) {
+        double[] out = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            double x = a[i];
+            if (x == 0) continue;
+            for (int j = 0; j < b.length; j++) {
+                out[i + j] += x * b[j];
+            }
+        }
+        return out;
+    }
+
+    static double[] fft(double[] a, double[] b) {
+        int length = a.length + b.length - 1;
+        int n = Integer.highestOneBit(length);
+        if (n < length) n <<= 1;
+
+        double[] re = new double[n];
+        double[] im = new double[n];
+        // both real inputs in one complex transform: a in the real part, b in the imaginary part
+        System.arraycopy(a, 0, re, 0, a.length);
+        System.arraycopy(b, 0, im, 0, b.length);
+        transform(re, im, false);
+
+        // A(k) B(k) = (Z(k)^2 - conj(Z(n-k))^2) / 4i
+        double[] pr = new double[n];
+        double[] pi = new double[n];
+        for (int k = 0; k < n; k++) {
+            int m = (n - k) & (n - 1);
+            double zr = re[k], zi = im[k];
+            double wr = re[m], wi = -im[m];
+            double sr = zr * zr - zi * zi - (wr * wr - wi * wi);
+            double si = 2 * zr * zi - 2 * wr * wi;
+            pr[k] = si / 4;
+            pi[k] = -sr / 4;
+        }
+        transform(pr, pi, true);
+
+        double[] out = new double[length];
+        for (int i = 0; i < length; i++) {
+            // round-off leaves tiny negative values where the true probability is zero or negligible
+            out[i] = Math.max(0, pr[i] / n);
+        }
+        return out;
+    }
+
+    private static void transform(double[] re, double[] im, boolean inverse) {
+        int n = re.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+
+        for (int len = 2; len <= n; len <<= 1) {
+            double angle = 2 * Math.PI / len * (inverse ? 1 : -1);
+            int half = len >> 1;
+            for (int k = 0; k < half; k++) {
+                // twiddles computed directly rather than by repeated multiplication, to keep errors flat
+                double wr = Math.cos(angle * k);
+                double wi = Math.sin(angle * k);
+                for (int i = k; i < n; i += len) {
+                    int j = i + half;
+                    double xr = re[j] * wr - im[j] * wi;
+                    double xi = re[j] * wi + im[j] * wr;
+                    re[j] = re[i] - xr;
+                    im[j] = im[i] - xi;
+                    re[i] += xr;
+                    im[i] += xi;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package dm.dracolich.forge.odds;
+
+import java.util.Arrays;
+
+/**
+ * Immutable probability distribution over a contiguous range of integer outcomes.
+ * <p>
+ * Probabilities are computed analytically, so they are exact up to double rounding; sums of large
+ * pools go through {@link Convolution}'s FFT, whose absolute error is around {@code 1e-15}, so
+ * probabilities far below that are rounded to zero there.
+ */
+public final class Distribution {
+    private final int min;
+    private final double[] probabilities;
+
+    Distribution(int min, double[] probabilities) {
+        this.min = min;
+        this.probabilities = probabilities;
+    }
+
+    /**
+     * Builds a distribution from relative weights of consecutive outcomes.
+     *
+     * @param min the outcome of the first weight
+     * @param weights non-negative weights, at least one positive
+     * @return the normalized distribution, without leading or trailing zero-probability outcomes
+     * @throws IllegalArgumentException if a weight is negative or all weights are zero
+     */
+    public static Distribution of(int min, double... weights) {
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("weights must be finite and non-negative");
+            }
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("weights must have a positive total");
+        }
+
+        int from = 0;
+        int to = weights.length;
+        while (weights[from] == 0) from++;
+        while (weights[to - 1] == 0) to--;
+
+        double[] probabilities = new double[to - from];
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] = weights[from + i] / total;
+        }
+        return new Distribution(Math.addExact(min, from), probabilities);
+    }
+
+    /**
+     * @param value the only outcome
+     * @return the distribution that is always {@code value}
+     */
+    public static Distribution constant(int value) {
+        return new Distribution(value, new double[]{1});
+    }
+
+    /**
+     * @param sides the number of faces
+     * @return the distribution of a fair die numbered {@code 1..sides}
+     */
+    public static Distribution uniform(int sides) {
+        if (sides <= 0) {
+            throw new IllegalArgumentException("sides must be positive");
+        }
+        double[] probabilities = new double[sides];
+        Arrays.fill(probabilities, 1d / sides);
+        return new Distribution(1, probabilities);
+    }
+
+    /**
+     * @return the smallest possible outcome
+     */
+    public int min() {
+        return min;
+    }
+
+    /**
+     * @return the largest possible outcome
+     */
+    public int max() {
+        return min + probabilities.length - 1;
+    }
+
+    /**
+     * @param outcome an outcome
+     * @return the probability of exactly that outcome
+     */
+    public double probability(int outcome) {
+        long index = (long) outcome - min;
+        return index < 0 || index >= probabilities.length ? 0 : probabilities[(int) index];
+    }
+
+    /**
+     * @param outcome an outcome
+     * @return the probability of an outcome of at least {@code outcome}
+     */
+    public double atLeast(int outcome) {
+        double sum = 0;
+        for (int i = probabilities.length - 1; i >= 0 && min + i >= outcome; i--) {
+            sum += probabilities[i];
+        }
+        return Math.min(sum, 1);
+    }
+
+    /**
+     * @param outcome an outcome
+     * @return the probability of an outcome of at most {@code outcome}
+     */
+    public double atMost(int outcome) {
+        double sum = 0;
+        for (int i = 0; i < probabilities.length && min + i <= outcome; i++) {
+            sum += probabilities[i];
+        }
+        return Math.min(sum, 1);
+    }
+
+    public double mean() {
+        double mean = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            mean += (double) (min + i) * probabilities[i];
+        }
+        return mean;
+    }
+
+    public double variance() {
+        double mean = mean();
+        double variance = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            double d = min + i - mean;
+            variance += d * d * probabilities[i];
+        }
+        return variance;
+    }
+
+    /**
+     * @return the probabilities of {@code min()..max()}, as a copy
+     */
+    public double[] probabilities() {
+        return probabilities.clone();
+    }
+
+    /**
+     * @param other an independent distribution
+     * @return the distribution of the sum of both outcomes
+     */
+    public Distribution plus(Distribution other) {
+        return new Distribution(Math.addExact(min, other.min),
+                Convolution.convolve(probabilities, other.probabilities));
+    }
+
+    /**
+     * @param constant a constant
+     * @return this distribution shifted by the constant
+     */
+    public Distribution plus(int constant) {
+        return constant == 0 ? this : new Distribution(Math.addExact(min, constant), probabilities);
+    }
+
+    /**
+     * @return the distribution of the negated outcome
+     */
+    public Distribution negate() {
+        double[] reversed = new double[probabilities.length];
+        for (int i = 0; i < reversed.length; i++) {
+            reversed[i] = probabilities[probabilities.length - 1 - i];
+        }
+        return new Distribution(Math.negateExact(max()), reversed);
+    }
+
+    /**
+     * Sums {@code count} independent copies by repeated squaring, so a pool costs {@code O(log count)}
+     * convolutions.
+     *
+     * @param count the number of copies; 0 gives the constant 0
+     * @return the distribution of the sum
+     */
+    public Distribution times(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+
+        Distribution result = constant(0);
+        Distribution power = this;
+        for (int n = count; n > 0; n >>= 1) {
+            if ((n & 1) != 0) result = result.plus(power);
+            if (n > 1) power = power.plus(power);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Distribution other)) return false;
+        return min == other.min && Arrays.equals(probabilities, other.probabilities);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * min + Arrays.hashCode(probabilities);
+    }
+
+    @Override
+    public String toString() {
+        return "Distribution[" + min + ".." + max() + ", mean=" + mean() + "]";
+    }
+}
@@ -0,0 +1,418 @@
+package dm.dracolich.forge.odds;
+
+import dm.dracolich.forge.notation.DiceExpression;
+import dm.dracolich.forge.notation.DiceTerm;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.Value;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Exact outcome distributions of dice, weighted tables and dice expressions, computed without sampling.
+ * <p>
+ * Methods without a {@link DrawMode} return the declared odds: the weights taken at face value, which
+ * are also the exact odds of {@link DrawMode#LEMIRE} rolls. Passing {@link DrawMode#MODULO} gives the
+ * exact odds of modulo rolls instead, including the slight bias of {@code floorMod} over the 2^32
+ * possible draws towards low rolls.
+ * <p>
+ * Results are memoized. Table odds are cached per compiled table for as long as the table lives. Die,
+ * pool and expression distributions are kept in a bounded LRU cache, and pools are built from cached
+ * power-of-two sums of the same die, so {@code 100d6} after {@code 64d6} costs two convolutions.
+ */
+public final class Odds {
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final double DRAWS = 0x1p32;
+
+    private static int cacheSize = DEFAULT_CACHE_SIZE;
+
+    private static final Map<Object, Object> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    // probabilities only: holding the items could keep a table cached by WeightedTable.cached alive
+    private static final Map<WeightedTable<?>, double[][]> TABLES = new WeakHashMap<>();
+
+    private Odds() {
+    }
+
+    /**
+     * Sets the maximum number of distributions kept in the cache.
+     *
+     * @param size the cache size; must be positive
+     */
+    public static void setCacheSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        synchronized (CACHE) {
+            cacheSize = size;
+        }
+    }
+
+    /**
+     * @param table a compiled table
+     * @return the declared selection probabilities of the table's items
+     */
+    public static <T> TableOdds<T> of(WeightedTable<T> table) {
+        return of(table, DrawMode.LEMIRE);
+    }
+
+    /**
+     * @param table a compiled table
+     * @param mode the draw mode of the rolls
+     * @return the exact selection probabilities of the table's items under the mode
+     */
+    public static <T> TableOdds<T> of(WeightedTable<T> table, DrawMode mode) {
+        synchronized (TABLES) {
+            double[][] cached = TABLES.get(table);
+            if (cached != null && cached[mode.ordinal()] != null) {
+                return new TableOdds<>(table.items(), cached[mode.ordinal()], mode);
+            }
+        }
+
+        int total = table.totalWeight();
+        double[] probabilities = new double[table.size()];
+        int from = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            int to = from + table.weight(i);
+            probabilities[i] = rollProbability(mode, total, from, to);
+            from = to;
+        }
+        synchronized (TABLES) {
+            TABLES.computeIfAbsent(table, t -> new double[DrawMode.values().length][])[mode.ordinal()] = probabilities;
+        }
+        return new TableOdds<>(table.items(), probabilities, mode);
+    }
+
+    /**
+     * @param values the values, weighted by {@link Value#getWeight()}
+     * @return the declared selection probabilities of the values
+     */
+    public static TableOdds<Value> of(List<Value> values) {
+        return of(WeightedTable.cached(values));
+    }
+
+    /**
+     * @param values the values, weighted by {@link Value#getWeight()}
+     * @param mode the draw mode of the rolls
+     * @return the exact selection probabilities of the values under the mode
+     */
+    public static TableOdds<Value> of(List<Value> values, DrawMode mode) {
+        return of(WeightedTable.cached(values), mode);
+    }
+
+    /**
+     * @param dice a dice
+     * @return the declared distribution of the face rolled
+     */
+    public static Distribution of(DiceEnum dice) {
+        return of(dice, DrawMode.LEMIRE);
+    }
+
+    /**
+     * @param dice a dice
+     * @param mode the draw mode of the rolls
+     * @return the exact distribution of the face rolled under the mode
+     * @throws IllegalArgumentException if a face id is not a number
+     */
+    public static Distribution of(DiceEnum dice, DrawMode mode) {
+        return cached(new DiceKey(dice, mode), () -> {
+            TableOdds<Value> odds = of(dice.getTable(), mode);
+            int[] faces = new int[odds.size()];
+            for (int i = 0; i < faces.length; i++) {
+                faces[i] = face(odds.get(i));
+            }
+
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int face : faces) {
+                min = Math.min(min, face);
+                max = Math.max(max, face);
+            }
+            double[] weights = new double[max - min + 1];
+            for (int i = 0; i < faces.length; i++) {
+                weights[faces[i] - min] += odds.probability(i);
+            }
+            return Distribution.of(min, weights);
+        });
+    }
+
+    /**
+     * @param dice a dice
+     * @param count how many of the dice are rolled
+     * @return the declared distribution of the sum of the faces
+     */
+    public static Distribution sum(DiceEnum dice, int count) {
+        return sum(dice, count, DrawMode.LEMIRE);
+    }
+
+    /**
+     * @param dice a dice
+     * @param count how many of the dice are rolled
+     * @param mode the draw mode of the rolls
+     * @return the exact distribution of the sum of the faces under the mode
+     */
+    public static Distribution sum(DiceEnum dice, int count, DrawMode mode) {
+        return pool(new DiceKey(dice, mode), () -> of(dice, mode), count);
+    }
+
+    /**
+     * @param sides the number of faces
+     * @param mode the draw mode of the rolls
+     * @return the exact distribution of a die numbered {@code 1..sides}, rolled as {@link DiceExpression} rolls it
+     */
+    public static Distribution die(int sides, DrawMode mode) {
+        if (sides <= 0) {
+            throw new IllegalArgumentException("sides must be positive");
+        }
+        return cached(new DieKey(sides, mode), () -> {
+            double[] weights = new double[sides];
+            for (int roll = 0; roll < sides; roll++) {
+                weights[roll] = rollProbability(mode, sides, roll, roll + 1);
+            }
+            return Distribution.of(1, weights);
+        });
+    }
+
+    /**
+     * @param notation a dice notation, e.g. {@code "4d6kh3+2"}
+     * @return the declared distribution of the expression's total
+     * @see #of(DiceExpression, DrawMode)
+     */
+    public static Distribution of(String notation) {
+        return of(DiceExpression.compile(notation), DrawMode.LEMIRE);
+    }
+
+    /**
+     * @param expression a compiled expression
+     * @return the declared distribution of the expression's total
+     * @see #of(DiceExpression, DrawMode)
+     */
+    public static Distribution of(DiceExpression expression) {
+        return of(expression, DrawMode.LEMIRE);
+    }
+
+    /**
+     * Computes the distribution of an expression's total. Plain sums and success pools are convolved;
+     * keep and drop modifiers are solved per face with the multinomial distribution of the dice; an
+     * exploding die is followed up to {@link DiceExpression#MAX_EXPLOSIONS} extra dice, exactly as
+     * rolled. Keeping or dropping exploding dice is not supported.
+     * <p>
+     * {@link DiceExpression} draws its dice with {@link DrawMode#MODULO}, so that is the mode whose
+     * odds match its rolls exactly.
+     *
+     * @param expression a compiled expression
+     * @param mode the draw mode of the dice
+     * @return the exact distribution of the expression's total under the mode
+     * @throws IllegalArgumentException if a term keeps or drops exploding dice
+     */
+    public static Distribution of(DiceExpression expression, DrawMode mode) {
+        return cached(new ExpressionKey(expression.notation(), mode), () -> {
+            Distribution total = Distribution.constant(0);
+            for (DiceTerm term : expression.terms()) {
+                Distribution value = term.isConstant() ? Distribution.constant(term.sides()) : term(term, mode);
+                total = total.plus(term.sign() < 0 ? value.negate() : value);
+            }
+            return total;
+        });
+    }
+
+    private static Distribution term(DiceTerm term, DrawMode mode) {
+        DiceTerm.Compare explode = term.explode();
+        DiceTerm.Compare success = term.success();
+        Distribution die = die(term.sides(), mode);
+
+        if (term.keep() != DiceTerm.Keep.ALL) {
+            if (explode != null) {
+                throw new IllegalArgumentException("Exact odds of kept or dropped exploding dice are not supported");
+            }
+            return cached(new KeptKey(term, mode), () -> kept(term, die));
+        }
+
+        DieKey key = new DieKey(term.sides(), explode, success, mode);
+        return pool(key, () -> cached(key, () -> explode == null ? values(die, success) : chain(die, explode, success)),
+                term.count());
+    }
+
+    /** The distribution of one die's contribution: its face, or 1 for a success and 0 otherwise. */
+    private static Distribution values(Distribution die, DiceTerm.Compare success) {
+        if (success == null) return die;
+
+        double hit = 0;
+        for (int face = die.min(); face <= die.max(); face++) {
+            if (success.test(face)) hit += die.probability(face);
+        }
+        return Distribution.of(0, 1 - hit, hit);
+    }
+
+    /** The contribution of a die and the dice it explodes into, capped like {@link DiceExpression}. */
+    private static Distribution chain(Distribution die, DiceTerm.Compare explode, DiceTerm.Compare success) {
+        Distribution chain = values(die, success);
+        for (int depth = 0; depth < DiceExpression.MAX_EXPLOSIONS; depth++) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int face = die.min(); face <= die.max(); face++) {
+                int value = value(face, success);
+                min = Math.min(min, explode.test(face) ? chain.min() + value : value);
+                max = Math.max(max, explode.test(face) ? chain.max() + value : value);
+            }
+
+            double[] weights = new double[max - min + 1];
+            for (int face = die.min(); face <= die.max(); face++) {
+                double p = die.probability(face);
+                int value = value(face, success);
+                if (!explode.test(face)) {
+                    weights[value - min] += p;
+                    continue;
+                }
+                for (int v = chain.min(); v <= chain.max(); v++) {
+                    weights[v + value - min] += p * chain.probability(v);
+                }
+            }
+            chain = Distribution.of(min, weights);
+        }
+        return chain;
+    }
+
+    private static int value(int face, DiceTerm.Compare success) {
+        return success == null ? face : success.test(face) ? 1 : 0;
+    }
+
+    /**
+     * Kept dice of a pool, solved face by face from the kept end: for each face, every number of the
+     * remaining dice that can show it is weighted by its binomial probability, and the dice that still
+     * fit in the kept slots add their value.
+     */
+    private static Distribution kept(DiceTerm term, Distribution die) {
+        int n = term.count();
+        int k = switch (term.keep()) {
+            case KEEP_HIGHEST, KEEP_LOWEST -> Math.min(term.keepCount(), n);
+            case DROP_HIGHEST, DROP_LOWEST -> Math.max(0, n - term.keepCount());
+            case ALL -> n;
+        };
+        boolean highest = term.keep() == DiceTerm.Keep.KEEP_HIGHEST || term.keep() == DiceTerm.Keep.DROP_LOWEST;
+        int maxValue = term.success() == null ? die.max() : 1;
+
+        // dp[j][s]: j dice placed on the faces seen so far, kept values summing to s
+        double[][] dp = new double[n + 1][k * maxValue + 1];
+        dp[0][0] = 1;
+        for (int step = 0; step < term.sides(); step++) {
+            int face = highest ? term.sides() - step : step + 1;
+            double p = die.probability(face);
+            if (p == 0) continue;
+            int value = value(face, term.success());
+
+            double[][] next = new double[n + 1][k * maxValue + 1];
+            for (int j = 0; j <= n; j++) {
+                for (int s = 0; s < dp[j].length; s++) {
+                    double mass = dp[j][s];
+                    if (mass == 0) continue;
+                    double weight = mass;
+                    for (int c = 0; j + c <= n; c++) {
+                        if (c > 0) weight *= p * (n - j - c + 1) / c;
+                        if (weight == 0) break;
+                        int keptHere = Math.min(c, Math.max(0, k - j));
+                        next[j + c][s + keptHere * value] += weight;
+                    }
+                }
+            }
+            dp = next;
+        }
+        return Distribution.of(0, dp[n]);
+    }
+
+    private static Distribution pool(Object die, Supplier<Distribution> single, int count) {
+        return cached(new PoolKey(die, count), () -> {
+            Distribution result = Distribution.constant(0);
+            for (int bit = 0; (count >>> bit) != 0; bit++) {
+                if ((count >>> bit & 1) != 0) {
+                    result = result.plus(power(die, single, bit));
+                }
+            }
+            return result;
+        });
+    }
+
+    private static Distribution power(Object die, Supplier<Distribution> single, int bit) {
+        if (bit == 0) return single.get();
+        return cached(new PoolKey(die, 1 << bit), () -> {
+            Distribution half = power(die, single, bit - 1);
+            return half.plus(half);
+        });
+    }
+
+    private static Distribution cached(Object key, Supplier<Distribution> compute) {
+        synchronized (CACHE) {
+            Object cached = CACHE.get(key);
+            if (cached != null) {
+                return (Distribution) cached;
+            }
+        }
+
+        Distribution computed = compute.get();
+        synchronized (CACHE) {
+            CACHE.put(key, computed);
+        }
+        return computed;
+    }
+
+    /**
+     * Probability that a draw lands on a roll in {@code [from, to)} of {@code [0, total)}. Modulo maps the
+     * 2^32 signed draws onto the rolls starting at {@code floorMod(-2^31, total)}, so the
+     * {@code 2^32 mod total} rolls from there on (wrapping around) get one extra draw.
+     */
+    static double rollProbability(DrawMode mode, int total, int from, int to) {
+        if (from >= to) return 0;
+        if (mode == DrawMode.LEMIRE) return (double) (to - from) / total;
+
+        long quotient = (1L << 32) / total;
+        long extra = (1L << 32) % total;
+        long start = Math.floorMod(Integer.MIN_VALUE, total);
+        long end = start + extra;
+
+        long draws = quotient * (to - from) + overlap(from, to, start, Math.min(end, total));
+        if (end > total) {
+            draws += overlap(from, to, 0, end - total);
+        }
+        return draws / DRAWS;
+    }
+
+    private static long overlap(long from, long to, long start, long end) {
+        return Math.max(0, Math.min(to, end) - Math.max(from, start));
+    }
+
+    private static int face(Value value) {
+        try {
+            return Integer.parseInt(value.getId());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Dice face is not a number: " + value.getId(), e);
+        }
+    }
+
+    private record DiceKey(DiceEnum dice, DrawMode mode) {
+    }
+
+    private record DieKey(int sides, DiceTerm.Compare explode, DiceTerm.Compare success, DrawMode mode) {
+        DieKey(int sides, DrawMode mode) {
+            this(sides, null, null, mode);
+        }
+    }
+
+    private record KeptKey(DiceTerm term, DrawMode mode) {
+    }
+
+    private record PoolKey(Object die, int count) {
+    }
+
+    private record ExpressionKey(String notation, DrawMode mode) {
+    }
+}
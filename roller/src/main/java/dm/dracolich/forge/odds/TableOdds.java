@@ -0,0 +1,57 @@
+package dm.dracolich.forge.odds;
+
+import dm.dracolich.forge.to.DrawMode;
+
+import java.util.List;
+
+/**
+ * Exact selection probabilities of the items of a weighted table.
+ *
+ * @param <T> the type of the items
+ */
+public final class TableOdds<T> {
+    private final List<T> items;
+    private final double[] probabilities;
+    private final DrawMode drawMode;
+
+    TableOdds(List<T> items, double[] probabilities, DrawMode drawMode) {
+        this.items = items;
+        this.probabilities = probabilities;
+        this.drawMode = drawMode;
+    }
+
+    /**
+     * @param index a table index
+     * @return the probability that a draw selects the index
+     */
+    public double probability(int index) {
+        return probabilities[index];
+    }
+
+    /**
+     * @return the probability of every table index, as a copy
+     */
+    public double[] probabilities() {
+        return probabilities.clone();
+    }
+
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    public int size() {
+        return probabilities.length;
+    }
+
+    /**
+     * @return the draw mode the probabilities are exact for; the declared odds are those of
+     * {@link DrawMode#LEMIRE}
+     */
+    public DrawMode drawMode() {
+        return drawMode;
+    }
+
+    public List<T> items() {
+        return items;
+    }
+}
@@ -0,0 +1,148 @@
+package dm.dracolich.forge.prf;
+
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.ChaCha20ParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * ChaCha20 keystream engine bound to a single server seed, the key type of {@link PrfBackends#CHACHA20}.
+ * <p>
+ * The stream of a client seed, nonce and category is the RFC 8439 ChaCha20 keystream of the JDK's
+ * {@code ChaCha20} cipher, starting at block counter 0:
+ * <pre>
+ * key      = SHA-256(serverSeed)
+ * iv       = SHA-256("clientSeed:nonce:category")[0, 12)
+ * block(r) = keystream bytes [32 * r, 32 * r + 32)
+ * </pre>
+ * Opening a stream costs one SHA-256 and a cipher initialization; every further block is a fraction
+ * of an HMAC, so the backend pays off for rolls that need many draws. Blocks read in ascending order
+ * continue the running cipher; any other round re-initializes it at that round's counter.
+ * <p>
+ * Instances are <b>not</b> thread-safe. Like {@link KeyedPrf}, each thread keeps its engines in a small
+ * LRU pool of {@link KeyedPrf#getMaxKeysPerThread()} server seeds.
+ */
+public final class ChaCha20Prf implements PrfKey {
+    public static final String ALGORITHM = "ChaCha20";
+    public static final int IV_LENGTH = 12;
+
+    private static final SeedPool<ChaCha20Prf> POOL = new SeedPool<>(ChaCha20Prf::create, KeyedPrf::getMaxKeysPerThread);
+
+    private final String serverSeed;
+    private final SecretKeySpec key;
+    private final Cipher cipher;
+    private final MessageDigest sha256;
+    private final byte[] zeros = new byte[PrfStream.BLOCK_LENGTH];
+    private final byte[] skipped = new byte[PrfStream.BLOCK_LENGTH];
+
+    /** The stream the cipher is positioned in, and the round it will produce next. */
+    private Stream active;
+    private int nextRound;
+
+    private ChaCha20Prf(String serverSeed, Cipher cipher, MessageDigest sha256) {
+        this.serverSeed = serverSeed;
+        this.cipher = cipher;
+        this.sha256 = sha256;
+        this.key = new SecretKeySpec(sha256.digest(serverSeed.getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+    }
+
+    /**
+     * Returns the calling thread's engine for the given server seed, creating and caching it on first use.
+     *
+     * @param serverSeed the server seed the key is derived from
+     * @return a keyed engine confined to the calling thread
+     */
+    public static ChaCha20Prf forSeed(String serverSeed) {
+        return POOL.get(serverSeed);
+    }
+
+    /**
+     * Creates a new, uncached engine for the given server seed.
+     *
+     * @param serverSeed the server seed the key is derived from
+     * @return a keyed engine owned by the caller
+     * @throws IllegalArgumentException if the server seed is null or empty
+     * @throws RuntimeException if ChaCha20 or SHA-256 is not available
+     */
+    public static ChaCha20Prf create(String serverSeed) {
+        if (serverSeed == null || serverSeed.isEmpty()) {
+            throw new IllegalArgumentException("serverSeed must be non-empty");
+        }
+
+        try {
+            return new ChaCha20Prf(serverSeed, Cipher.getInstance(ALGORITHM), MessageDigest.getInstance("SHA-256"));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Failed to initialize ChaCha20", e);
+        }
+    }
+
+    /**
+     * Drops every engine cached by the calling thread.
+     */
+    public static void clearThreadCache() {
+        POOL.clear();
+    }
+
+    @Override
+    public PrfBackend backend() {
+        return PrfBackends.CHACHA20;
+    }
+
+    @Override
+    public String serverSeed() {
+        return serverSeed;
+    }
+
+    @Override
+    public PrfStream open(String clientSeed, long nonce, String category) {
+        String message = clientSeed + ":" + nonce + ":" + category;
+        byte[] digest = sha256.digest(message.getBytes(StandardCharsets.UTF_8));
+        byte[] iv = new byte[IV_LENGTH];
+        System.arraycopy(digest, 0, iv, 0, IV_LENGTH);
+        return new Stream(message, iv);
+    }
+
+    private final class Stream implements PrfStream {
+        private final String message;
+        private final byte[] iv;
+
+        private Stream(String message, byte[] iv) {
+            this.message = message;
+            this.iv = iv;
+        }
+
+        @Override
+        public void block(int round, byte[] out, int offset) {
+            try {
+                if (active != this || nextRound != round) {
+                    seek(round);
+                }
+                cipher.update(zeros, 0, BLOCK_LENGTH, out, offset);
+                nextRound = round + 1;
+            } catch (ShortBufferException e) {
+                throw new RuntimeException("Output buffer too short for a ChaCha20 block", e);
+            }
+        }
+
+        @Override
+        public String message(int round) {
+            return message;
+        }
+
+        private void seek(int round) throws ShortBufferException {
+            try {
+                // decryption of zeros is the bare keystream, and unlike encryption it may reuse a key and iv
+                cipher.init(Cipher.DECRYPT_MODE, key, new ChaCha20ParameterSpec(iv, round >>> 1));
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("Failed to position the ChaCha20 keystream", e);
+            }
+            if ((round & 1) != 0) {
+                cipher.update(zeros, 0, BLOCK_LENGTH, skipped, 0);
+            }
+            active = this;
+        }
+    }
+}
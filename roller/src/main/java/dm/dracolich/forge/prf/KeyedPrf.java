@@ -0,0 +1,186 @@
+package dm.dracolich.forge.prf;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * HMAC-SHA256 engine bound to a single server seed.
+ * <p>
+ * Looking up the provider and preparing the key costs far more than hashing the short roll
+ * messages, so a keyed engine initializes one {@link Mac} once and reuses it for every draw made
+ * with the same server seed. {@link #digest(byte[], int, int, byte[], int)} hashes a message
+ * straight from a caller's buffer into a caller's buffer. Instances are <b>not</b> thread-safe: use
+ * {@link #forSeed(String)} to get the calling thread's cached engine, or {@link #create(String)}
+ * for an engine owned by a single caller (a batch, a session, a virtual thread).
+ * <p>
+ * Each thread keeps its engines in a small LRU pool keyed by server seed; the least recently used
+ * seed is evicted once the pool holds {@link #getMaxKeysPerThread()} entries.
+ * <p>
+ * This is the key type of the default backend, {@link PrfBackends#HMAC_SHA256}.
+ */
+public final class KeyedPrf implements PrfKey {
+    public static final String ALGORITHM = "HmacSHA256";
+    public static final int DIGEST_LENGTH = 32;
+
+    public static final int DEFAULT_MAX_KEYS_PER_THREAD = 64;
+
+    private static volatile int maxKeysPerThread = DEFAULT_MAX_KEYS_PER_THREAD;
+
+    private static final SeedPool<KeyedPrf> POOL = new SeedPool<>(KeyedPrf::create, () -> maxKeysPerThread);
+
+    private final String serverSeed;
+    private final Mac mac;
+
+    private KeyedPrf(String serverSeed, Mac mac) {
+        this.serverSeed = serverSeed;
+        this.mac = mac;
+    }
+
+    /**
+     * Returns the calling thread's engine for the given server seed, creating and caching it
+     * on first use. The returned engine must not be handed to other threads.
+     *
+     * @param serverSeed the server seed used as the HMAC key
+     * @return a keyed engine confined to the calling thread
+     */
+    public static KeyedPrf forSeed(String serverSeed) {
+        return POOL.get(serverSeed);
+    }
+
+    /**
+     * Creates a new, uncached engine for the given server seed.
+     *
+     * @param serverSeed the server seed used as the HMAC key
+     * @return a keyed engine owned by the caller
+     * @throws IllegalArgumentException if the server seed is null or empty
+     * @throws RuntimeException if the HmacSHA256 algorithm is not available
+     */
+    public static KeyedPrf create(String serverSeed) {
+        if (serverSeed == null || serverSeed.isEmpty()) {
+            // HmacSHA256 rejects empty keys, keep failing the same way
+            throw new IllegalArgumentException("serverSeed must be non-empty");
+        }
+
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(serverSeed.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return new KeyedPrf(serverSeed, mac);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Failed to initialize HMAC-SHA256", e);
+        }
+    }
+
+    /**
+     * Sets how many server seeds each thread keeps initialized before evicting the least recently used.
+     * Pools that are already larger are trimmed on their next insertion.
+     *
+     * @param max the per-thread pool size; must be positive
+     */
+    public static void setMaxKeysPerThread(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        maxKeysPerThread = max;
+    }
+
+    public static int getMaxKeysPerThread() {
+        return maxKeysPerThread;
+    }
+
+    /**
+     * Drops every engine cached by the calling thread.
+     */
+    public static void clearThreadCache() {
+        POOL.clear();
+    }
+
+    @Override
+    public PrfBackend backend() {
+        return PrfBackends.HMAC_SHA256;
+    }
+
+    @Override
+    public String serverSeed() {
+        return serverSeed;
+    }
+
+    /**
+     * Opens the HMAC block stream of {@link PrfCursor}: block {@code r} is the HMAC of
+     * {@code clientSeed:nonce:category} for round 0 and of {@code clientSeed:nonce:category:r} after that.
+     */
+    @Override
+    public PrfStream open(String clientSeed, long nonce, String category) {
+        return new HmacStream(clientSeed, nonce, category);
+    }
+
+    /**
+     * Computes the HMAC-SHA256 of a UTF-8 encoded message.
+     *
+     * @param message the message to authenticate
+     * @return a new 32-byte digest
+     */
+    public byte[] digest(String message) {
+        return digest(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Computes the HMAC-SHA256 of a message.
+     *
+     * @param message the message to authenticate
+     * @return a new 32-byte digest
+     */
+    public byte[] digest(byte[] message) {
+        byte[] out = new byte[DIGEST_LENGTH];
+        digest(message, 0, message.length, out, 0);
+        return out;
+    }
+
+    /**
+     * Computes the HMAC-SHA256 of {@code message[offset, offset + length)} into {@code out}.
+     *
+     * @param message the buffer holding the message
+     * @param offset the message start
+     * @param length the message length
+     * @param out the destination; needs {@link #DIGEST_LENGTH} bytes from {@code outOffset}
+     * @param outOffset where the digest is written
+     * @throws RuntimeException if {@code out} is too short
+     */
+    public void digest(byte[] message, int offset, int length, byte[] out, int outOffset) {
+        try {
+            // doFinal checks the output length before finishing and resets the Mac either way,
+            // so a failed call never leaks state into the next HMAC of this engine
+            mac.update(message, offset, length);
+            mac.doFinal(out, outOffset);
+        } catch (ShortBufferException e) {
+            mac.reset();
+            throw new RuntimeException("Output buffer too short for HMAC-SHA256", e);
+        }
+    }
+
+    private final class HmacStream implements PrfStream {
+        private final MessageBuffer message;
+        private final byte[] suffix;
+        private final long nonce;
+
+        private HmacStream(String clientSeed, long nonce, String category) {
+            this.message = new MessageBuffer(clientSeed);
+            this.suffix = MessageBuffer.suffix(category);
+            this.nonce = nonce;
+        }
+
+        @Override
+        public void block(int round, byte[] out, int offset) {
+            int length = message.encode(nonce, suffix, round);
+            digest(message.buffer(), 0, length, out, offset);
+        }
+
+        @Override
+        public String message(int round) {
+            int length = message.encode(nonce, suffix, round);
+            return new String(message.buffer(), 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package dm.dracolich.forge.prf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable UTF-8 encoding of roll messages for one client seed.
+ * <p>
+ * Produces exactly the bytes of {@code Roll.buildMessage(clientSeed, nonce, category)} encoded as
+ * UTF-8, but writes them into a buffer that is kept between calls: the {@code clientSeed:} prefix
+ * is encoded once, nonce digits are written in place and category suffixes come pre-encoded from
+ * {@link #suffix(String)}. Not thread-safe.
+ */
+public final class MessageBuffer {
+    private static final int MAX_NONCE_LENGTH = 20;
+
+    private final byte[] prefix;
+    private byte[] buffer;
+
+    public MessageBuffer(String clientSeed) {
+        this.prefix = (clientSeed + ":").getBytes(StandardCharsets.UTF_8);
+        this.buffer = new byte[prefix.length + MAX_NONCE_LENGTH + 16];
+        System.arraycopy(prefix, 0, buffer, 0, prefix.length);
+    }
+
+    /**
+     * Encodes the {@code :category} suffix of a message.
+     *
+     * @param category the category identifier
+     * @return the UTF-8 bytes of {@code ":" + category}
+     */
+    public static byte[] suffix(String category) {
+        return (":" + category).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes {@code clientSeed:nonce:category} into the buffer.
+     *
+     * @param nonce the nonce
+     * @param suffix the category suffix from {@link #suffix(String)}
+     * @return the message length; the message occupies {@code buffer()[0, length)}
+     */
+    public int encode(long nonce, byte[] suffix) {
+        return encode(nonce, suffix, 0);
+    }
+
+    /**
+     * Writes the message of a {@link PrfCursor} block: {@code clientSeed:nonce:category} for round 0,
+     * {@code clientSeed:nonce:category:round} for any later round.
+     *
+     * @param nonce the nonce
+     * @param suffix the category suffix from {@link #suffix(String)}
+     * @param round the block round; must not be negative
+     * @return the message length; the message occupies {@code buffer()[0, length)}
+     */
+    public int encode(long nonce, byte[] suffix, int round) {
+        int required = prefix.length + MAX_NONCE_LENGTH + suffix.length + 1 + MAX_NONCE_LENGTH;
+        if (buffer.length < required) {
+            byte[] grown = new byte[required];
+            System.arraycopy(prefix, 0, grown, 0, prefix.length);
+            buffer = grown;
+        }
+
+        int end = writeDecimal(nonce, buffer, prefix.length);
+        System.arraycopy(suffix, 0, buffer, end, suffix.length);
+        end += suffix.length;
+        if (round > 0) {
+            buffer[end++] = ':';
+            end = writeDecimal(round, buffer, end);
+        }
+        return end;
+    }
+
+    /**
+     * @return the backing buffer; only valid up to the length returned by the last {@link #encode} call
+     */
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Writes the decimal form of a long, as produced by {@link Long#toString(long)}, as ASCII bytes.
+     *
+     * @param value the value to write
+     * @param out the destination; needs up to 20 bytes from {@code offset}
+     * @param offset where the first character is written
+     * @return the offset just past the last character written
+     */
+    static int writeDecimal(long value, byte[] out, int offset) {
+        // Work with the negated value so Long.MIN_VALUE needs no special case
+        long negative = value;
+        if (value < 0) {
+            out[offset++] = '-';
+        } else {
+            negative = -value;
+        }
+
+        int digits = 1;
+        for (long rest = negative; rest <= -10; rest /= 10) {
+            digits++;
+        }
+
+        int end = offset + digits;
+        for (int i = end - 1; i >= offset; i--) {
+            out[i] = (byte) ('0' - negative % 10);
+            negative /= 10;
+        }
+        return end;
+    }
+}
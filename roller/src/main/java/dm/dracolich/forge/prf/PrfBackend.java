@@ -0,0 +1,36 @@
+package dm.dracolich.forge.prf;
+
+/**
+ * A pseudorandom function family that turns a server seed, client seed, nonce and category into a
+ * verifiable stream of 32-byte blocks.
+ * <p>
+ * The built-in backends are {@link PrfBackends#HMAC_SHA256}, the default, and {@link PrfBackends#CHACHA20}.
+ * Further backends are found with {@link java.util.ServiceLoader}: list the implementation in
+ * {@code META-INF/services/dm.dracolich.forge.prf.PrfBackend} and it becomes available through
+ * {@link PrfBackends#of(String)}. Implementations must be thread-safe; the keys they hand out need not be.
+ */
+public interface PrfBackend {
+
+    /**
+     * @return the identifier recorded in {@code Debug.prfBackend}; must be unique and stable across releases
+     */
+    String id();
+
+    /**
+     * Returns the calling thread's cached key for a server seed, creating it on first use.
+     *
+     * @param serverSeed the server seed
+     * @return a key confined to the calling thread
+     * @throws IllegalArgumentException if the server seed is null or empty
+     */
+    PrfKey forSeed(String serverSeed);
+
+    /**
+     * Creates a new, uncached key for a server seed.
+     *
+     * @param serverSeed the server seed
+     * @return a key owned by the caller
+     * @throws IllegalArgumentException if the server seed is null or empty
+     */
+    PrfKey create(String serverSeed);
+}
@@ -0,0 +1,66 @@
+package dm.dracolich.forge.prf;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The built-in {@link PrfBackend}s and the lookup of backends by id.
+ */
+public final class PrfBackends {
+    /** HMAC-SHA256 over {@code clientSeed:nonce:category[:round]}, see {@link KeyedPrf} and {@link PrfCursor}. */
+    public static final PrfBackend HMAC_SHA256 = new Builtin("hmac-sha256", KeyedPrf::forSeed, KeyedPrf::create);
+    /** The ChaCha20 keystream, see {@link ChaCha20Prf}. */
+    public static final PrfBackend CHACHA20 = new Builtin("chacha20", ChaCha20Prf::forSeed, ChaCha20Prf::create);
+
+    private static final Map<String, PrfBackend> LOADED = new ConcurrentHashMap<>();
+
+    private PrfBackends() {
+    }
+
+    /**
+     * Returns the backend with the given id: a built-in one, or one registered through
+     * {@link ServiceLoader}.
+     *
+     * @param id the backend id as recorded in {@code Debug.prfBackend}; {@code null} means {@link #HMAC_SHA256}
+     * @return the backend
+     * @throws IllegalArgumentException if no backend has the id
+     */
+    public static PrfBackend of(String id) {
+        if (id == null || id.equals(HMAC_SHA256.id())) return HMAC_SHA256;
+        if (id.equals(CHACHA20.id())) return CHACHA20;
+
+        PrfBackend backend = LOADED.get(id);
+        if (backend == null) {
+            synchronized (LOADED) {
+                for (PrfBackend loaded : ServiceLoader.load(PrfBackend.class)) {
+                    LOADED.putIfAbsent(loaded.id(), loaded);
+                }
+            }
+            backend = LOADED.get(id);
+        }
+        if (backend == null) {
+            throw new IllegalArgumentException("Unknown PRF backend " + id);
+        }
+        return backend;
+    }
+
+    private record Builtin(String id, Function<String, PrfKey> cached, Function<String, PrfKey> owned)
+            implements PrfBackend {
+        @Override
+        public PrfKey forSeed(String serverSeed) {
+            return cached.apply(serverSeed);
+        }
+
+        @Override
+        public PrfKey create(String serverSeed) {
+            return owned.apply(serverSeed);
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package dm.dracolich.forge.prf;
+
+import dm.dracolich.forge.metrics.ForgeMetrics;
+import dm.dracolich.forge.table.DynamicWeightedTable;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DrawMode;
+
+/**
+ * Deterministic stream of 32-bit draws for one client seed, nonce and category.
+ * <p>
+ * A single HMAC-SHA256 yields 32 bytes, but a plain draw only uses the first four. The cursor reads
+ * every byte instead, so a roll that needs many draws (10d6, a shuffle, multi-stage loot) costs one
+ * HMAC per eight draws. The stream is defined as:
+ * <pre>
+ * block(0) = HMAC-SHA256(serverSeed, "clientSeed:nonce:category")
+ * block(r) = HMAC-SHA256(serverSeed, "clientSeed:nonce:category:r")   for r &gt;= 1
+ * draw(i)  = bytes [4 * (i % 8), 4 * (i % 8) + 4) of block(i / 8), as a big-endian signed int
+ * </pre>
+ * The first draw is therefore identical to {@code Roll.Prf.drawInt} for the same category, and a
+ * player can re-derive every draw from the revealed server seed. Because of the {@code :r} suffix,
+ * categories must not contain {@code ':'}; otherwise block 0 of {@code "x:1"} would be block 1 of
+ * {@code "x"}. Cursors reject such categories, see {@link #checkCategory(String)}.
+ * <p>
+ * That is the stream of the default {@link KeyedPrf}; a cursor over another {@link PrfKey} reads
+ * that backend's {@link PrfStream} blocks the same way.
+ * <p>
+ * Not thread-safe; a cursor is meant to serve a single roll.
+ */
+public final class PrfCursor {
+    /** Number of 32-bit draws that each block provides. */
+    public static final int DRAWS_PER_BLOCK = PrfStream.BLOCK_LENGTH / 4;
+
+    private final PrfStream stream;
+    private final String clientSeed;
+    private final long nonce;
+    private final String category;
+    private final byte[] block = new byte[PrfStream.BLOCK_LENGTH];
+
+    private int round = -1;
+    private int position = PrfStream.BLOCK_LENGTH;
+    private long draws;
+
+    /**
+     * @param prf the keyed PRF for the server seed
+     * @param clientSeed the client seed
+     * @param nonce the nonce of the roll
+     * @param category the category identifier of the stream; must not contain {@code ':'}
+     * @throws IllegalArgumentException if the category contains {@code ':'}
+     */
+    public PrfCursor(PrfKey prf, String clientSeed, long nonce, String category) {
+        checkCategory(category);
+        this.stream = prf.open(clientSeed, nonce, category);
+        this.clientSeed = clientSeed;
+        this.nonce = nonce;
+        this.category = category;
+    }
+
+    /**
+     * Creates a cursor whose block 0 was already computed, for example by {@code Roll.Prf.draw}.
+     *
+     * @param prf the keyed PRF for the server seed
+     * @param clientSeed the client seed
+     * @param nonce the nonce of the roll
+     * @param category the category identifier of the stream; must not contain {@code ':'}
+     * @param firstBlock block 0 of the stream; copied
+     * @throws IllegalArgumentException if the category contains {@code ':'}
+     */
+    public PrfCursor(PrfKey prf, String clientSeed, long nonce, String category, byte[] firstBlock) {
+        this(prf, clientSeed, nonce, category);
+        System.arraycopy(firstBlock, 0, block, 0, PrfStream.BLOCK_LENGTH);
+        round = 0;
+        position = 0;
+    }
+
+    /**
+     * Rejects categories whose messages could collide with another category's later blocks.
+     *
+     * @param category the category identifier
+     * @throws IllegalArgumentException if the category contains {@code ':'}
+     */
+    public static void checkCategory(String category) {
+        if (category != null && category.indexOf(':') >= 0) {
+            throw new IllegalArgumentException("category must not contain ':' [category: " + category + "]");
+        }
+    }
+
+    /**
+     * @return the next draw of the stream as a signed 32-bit integer
+     */
+    public int nextInt() {
+        if (position == PrfStream.BLOCK_LENGTH) {
+            nextBlock();
+        }
+
+        int value = (block[position] & 0xff) << 24 | (block[position + 1] & 0xff) << 16
+                | (block[position + 2] & 0xff) << 8 | block[position + 3] & 0xff;
+        position += 4;
+        draws++;
+        return value;
+    }
+
+    /**
+     * @return the next two draws of the stream combined into a signed 64-bit integer, first draw high
+     */
+    public long nextLong() {
+        return (long) nextInt() << 32 | Integer.toUnsignedLong(nextInt());
+    }
+
+    /**
+     * Draws an index in [0, size) by {@code floorMod(nextInt(), size)}, like {@code Roll.Select.indexChoice}.
+     *
+     * @param size the upper bound (exclusive) of the index range
+     * @return an index in the range [0, size), or -1 if size is not positive (no draw is consumed)
+     */
+    public int nextIndex(int size) {
+        if (size <= 0) return -1;
+        return Math.floorMod(nextInt(), size);
+    }
+
+    /**
+     * Draws until the draw mode accepts a draw for the size, and returns that draw. With
+     * {@link DrawMode#MODULO} this is simply {@link #nextInt()}.
+     *
+     * @param mode the draw mode
+     * @param size the upper bound (exclusive) of the index range; must be positive
+     * @return the accepted draw, to be mapped with {@link DrawMode#index(int, int)}
+     */
+    public int nextAccepted(DrawMode mode, int size) {
+        int draw = nextInt();
+        while (!mode.accepts(draw, size)) {
+            draw = nextInt();
+        }
+        return draw;
+    }
+
+    /**
+     * Draws an index in [0, size) with the given draw mode.
+     *
+     * @param size the upper bound (exclusive) of the index range
+     * @param mode the draw mode
+     * @return an index in the range [0, size), or -1 if size is not positive (no draw is consumed)
+     */
+    public int nextIndex(int size, DrawMode mode) {
+        if (size <= 0) return -1;
+        return mode.index(nextAccepted(mode, size), size);
+    }
+
+    /**
+     * Draws an index in [0, size) for a size that may exceed the int range. Sizes up to
+     * {@link Integer#MAX_VALUE} consume draws exactly like {@link #nextIndex(int, DrawMode)}; larger
+     * sizes use {@link #nextLong()}, either as an unsigned remainder ({@link DrawMode#MODULO}) or with
+     * a 64-bit multiply-shift and rejection ({@link DrawMode#LEMIRE}).
+     *
+     * @param size the upper bound (exclusive) of the index range
+     * @param mode the draw mode
+     * @return an index in the range [0, size), or -1 if size is not positive (no draw is consumed)
+     */
+    public long nextIndex(long size, DrawMode mode) {
+        if (size <= Integer.MAX_VALUE) {
+            return nextIndex((int) size, mode);
+        }
+        if (mode == DrawMode.MODULO) {
+            return Long.remainderUnsigned(nextLong(), size);
+        }
+
+        while (true) {
+            long draw = nextLong();
+            long low = draw * size;
+            // 2^64 mod size, only needed when the low word is small
+            if (Long.compareUnsigned(low, size) >= 0 || Long.compareUnsigned(low, Long.remainderUnsigned(-size, size)) >= 0) {
+                return Math.unsignedMultiplyHigh(draw, size);
+            }
+        }
+    }
+
+    /**
+     * Draws an item index from a dynamic weighted table snapshot with the given draw mode. For totals
+     * up to {@link Integer#MAX_VALUE} this selects the same item as a {@link WeightedTable} with the
+     * same weights.
+     *
+     * @param table the snapshot to select from; its total weight must be positive
+     * @param mode the draw mode
+     * @return the index of the selected item
+     * @throws IllegalArgumentException if the total weight is zero
+     */
+    public int nextWeighted(DynamicWeightedTable.Snapshot<?> table, DrawMode mode) {
+        if (table.totalWeight() <= 0) {
+            throw new IllegalArgumentException("Sum of weights must be positive");
+        }
+        return table.indexForRoll(nextIndex(table.totalWeight(), mode));
+    }
+
+    /**
+     * Draws an item index from a compiled weighted table with the given draw mode.
+     *
+     * @param table the table to select from
+     * @param mode the draw mode
+     * @return the index of the selected item
+     */
+    public int nextWeighted(WeightedTable<?> table, DrawMode mode) {
+        return table.indexForRoll(nextIndex(table.totalWeight(), mode));
+    }
+
+    /**
+     * Draws an item index from a compiled weighted table.
+     *
+     * @param table the table to select from
+     * @return the index of the selected item
+     */
+    public int nextWeighted(WeightedTable<?> table) {
+        return table.indexOf(nextInt());
+    }
+
+    /**
+     * @return the number of blocks (HMAC computations with the default backend) generated so far
+     */
+    public int blocks() {
+        return round + 1;
+    }
+
+    /**
+     * @return the number of draws consumed so far
+     */
+    public long draws() {
+        return draws;
+    }
+
+    /**
+     * Returns the message authenticated for a block, for audit and verification.
+     *
+     * @param round the block round
+     * @return the message string of the block
+     */
+    public String message(int round) {
+        return stream.message(round);
+    }
+
+    public String clientSeed() {
+        return clientSeed;
+    }
+
+    public long nonce() {
+        return nonce;
+    }
+
+    public String category() {
+        return category;
+    }
+
+    private void nextBlock() {
+        long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+        round++;
+        stream.block(round, block, 0);
+        position = 0;
+
+        if (ForgeMetrics.ENABLED) {
+            ForgeMetrics.get().recordDraws(category, 1, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package dm.dracolich.forge.prf;
+
+/**
+ * A {@link PrfBackend} keyed with one server seed. Keys are <b>not</b> thread-safe, and neither are the
+ * streams they open.
+ */
+public interface PrfKey {
+
+    PrfBackend backend();
+
+    String serverSeed();
+
+    /**
+     * Opens the block stream of a client seed, nonce and category.
+     *
+     * @param clientSeed the client seed
+     * @param nonce the nonce
+     * @param category the category identifier of the stream
+     * @return the stream, positioned nowhere; blocks are read by round
+     */
+    PrfStream open(String clientSeed, long nonce, String category);
+}
@@ -0,0 +1,26 @@
+package dm.dracolich.forge.prf;
+
+/**
+ * The deterministic block sequence of one client seed, nonce and category. {@link PrfCursor} reads it as
+ * a stream of 32-bit draws.
+ */
+public interface PrfStream {
+    /** Length in bytes of every block. */
+    int BLOCK_LENGTH = 32;
+
+    /**
+     * Writes a block of the stream. Reading rounds in ascending order is the fast path, but any round
+     * can be read at any time and always yields the same bytes.
+     *
+     * @param round the block round; must not be negative
+     * @param out the destination; needs {@link #BLOCK_LENGTH} bytes from {@code offset}
+     * @param offset where the block is written
+     */
+    void block(int round, byte[] out, int offset);
+
+    /**
+     * @param round the block round
+     * @return the input of the block as shown to players for verification
+     */
+    String message(int round);
+}
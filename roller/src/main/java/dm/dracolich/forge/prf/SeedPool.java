@@ -0,0 +1,69 @@
+package dm.dracolich.forge.prf;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Per-thread LRU pool of keyed engines, keyed by server seed.
+ * <p>
+ * Each thread has its own pool, so engines that are not thread-safe are never shared. A pool evicts its
+ * least recently used seed once it holds more than the current limit, which is read on every insertion
+ * so that pools already larger than a lowered limit are trimmed on their next insertion.
+ *
+ * @param <T> the engine type
+ */
+final class SeedPool<T> {
+    private final Function<String, T> factory;
+    private final IntSupplier maxSize;
+    private final ThreadLocal<Lru<T>> pools = ThreadLocal.withInitial(Lru::new);
+
+    /**
+     * @param factory creates the engine of a server seed on a miss
+     * @param maxSize the number of seeds each thread keeps
+     */
+    SeedPool(Function<String, T> factory, IntSupplier maxSize) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the calling thread's engine for the given server seed, creating and caching it on first use.
+     *
+     * @param serverSeed the server seed
+     * @return an engine confined to the calling thread
+     */
+    T get(String serverSeed) {
+        Lru<T> pool = pools.get();
+        T engine = pool.get(serverSeed);
+        if (engine == null) {
+            engine = factory.apply(serverSeed);
+            pool.put(serverSeed, engine);
+            pool.trim(maxSize.getAsInt());
+        }
+        return engine;
+    }
+
+    /**
+     * Drops every engine cached by the calling thread.
+     */
+    void clear() {
+        pools.remove();
+    }
+
+    private static final class Lru<T> extends LinkedHashMap<String, T> {
+        private Lru() {
+            super(16, 0.75f, true);
+        }
+
+        private void trim(int max) {
+            Iterator<Map.Entry<String, T>> eldest = entrySet().iterator();
+            while (size() > max) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package dm.dracolich.forge.replay;
+
+import dm.dracolich.forge.RollSession;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DrawMode;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Draws the value index of each nonce in a range, splitting it in halves. Each spliterator opens its own
+ * {@link RollSession} on first use, so nothing is allocated per nonce.
+ */
+final class IndexSpliterator implements Spliterator.OfInt {
+    private static final RollSession.Category VALUE = RollSession.category("value");
+
+    private final String serverSeed;
+    private final String clientSeed;
+    private final WeightedTable<?> table;
+    private final DrawMode mode;
+    private long next;
+    private final long end;
+    private RollSession session;
+
+    IndexSpliterator(String serverSeed, String clientSeed, WeightedTable<?> table, DrawMode mode,
+                     long next, long end) {
+        this.serverSeed = serverSeed;
+        this.clientSeed = clientSeed;
+        this.table = table;
+        this.mode = mode;
+        this.next = next;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        if (next >= end) return false;
+        action.accept(draw(next++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        long end = this.end;
+        for (long nonce = next; nonce < end; nonce++) {
+            next = nonce + 1;
+            action.accept(draw(nonce));
+        }
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+        long size = end - next;
+        if (size < 2L * Replay.MIN_SPLIT) return null;
+
+        long mid = next + (size >>> 1);
+        IndexSpliterator prefix = new IndexSpliterator(serverSeed, clientSeed, table, mode, next, mid);
+        next = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - next;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    private int draw(long nonce) {
+        if (session == null) {
+            session = RollSession.open(serverSeed, clientSeed, nonce);
+        } else {
+            session.seek(nonce);
+        }
+        return session.drawWeightedIndex(VALUE, table, mode);
+    }
+}
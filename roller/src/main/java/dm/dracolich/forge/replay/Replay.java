@@ -0,0 +1,105 @@
+package dm.dracolich.forge.replay;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.RollSession;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.Rollout;
+import dm.dracolich.forge.to.Value;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy replays of the rolls of a revealed server seed over a range of nonces.
+ * <p>
+ * A replay is a stream over {@code [nonceStart, nonceEnd)} whose element for each nonce is exactly what the
+ * roll produced, in nonce order. Nothing is rolled until the stream is consumed and no element is kept
+ * after it is passed on, so ranges of any length run in constant memory. The streams are backed by
+ * spliterators that split the nonce range in halves, so {@code parallel()} spreads a large range across
+ * the common fork/join pool, each half drawing with its own key. Ordered operations such as
+ * {@code forEachOrdered} or {@code toList} still see nonce order.
+ */
+public final class Replay {
+    /** Ranges are not split below this many nonces, so each key is used for a worthwhile run of rolls. */
+    public static final int MIN_SPLIT = 256;
+
+    private Replay() {
+    }
+
+    /**
+     * Replays {@link Roll#fairRoll(String, String, long, WeightedTable, boolean, RollOptions)} with
+     * {@link RollOptions#DEFAULT}.
+     *
+     * @see #rollouts(String, String, WeightedTable, long, long, RollOptions)
+     */
+    public static Stream<Rollout> rollouts(String serverSeed, String clientSeed, WeightedTable<Value> table,
+                                           long nonceStart, long nonceEnd) {
+        return rollouts(serverSeed, clientSeed, table, nonceStart, nonceEnd, RollOptions.DEFAULT);
+    }
+
+    /**
+     * Replays full rollouts: the element for nonce {@code n} equals
+     * {@code Roll.fairRoll(serverSeed, clientSeed, n, table, false, options).result()}.
+     *
+     * @param serverSeed the revealed server seed
+     * @param clientSeed the client seed
+     * @param table the compiled table of values that was rolled
+     * @param nonceStart the first nonce, inclusive
+     * @param nonceEnd the last nonce, exclusive
+     * @param options the debug level, draw mode and PRF backend of the original rolls
+     * @return a lazy, sized stream of one rollout per nonce
+     * @throws IllegalArgumentException if an argument is null or the range is invalid
+     */
+    public static Stream<Rollout> rollouts(String serverSeed, String clientSeed, WeightedTable<Value> table,
+                                           long nonceStart, long nonceEnd, RollOptions options) {
+        check(serverSeed, clientSeed, table, nonceStart, nonceEnd);
+        if (options == null) {
+            throw new IllegalArgumentException("options must not be null");
+        }
+        return StreamSupport.stream(
+                new RolloutSpliterator(serverSeed, clientSeed, table, options, nonceStart, nonceEnd), false);
+    }
+
+    /**
+     * Replays only the selected values, as indices into the table: the element for nonce {@code n} is the
+     * index of the item {@code Roll.drawWeighted(serverSeed, clientSeed, n, "value", table, mode)} selects,
+     * which is the value a {@link Roll#fairRoll} with that draw mode selected. Draws run through an
+     * allocation-free {@link RollSession}, so this is the fast way to tally or search a large range. The
+     * draws are always HMAC-SHA256.
+     *
+     * @param serverSeed the revealed server seed
+     * @param clientSeed the client seed
+     * @param table the compiled table that was rolled
+     * @param nonceStart the first nonce, inclusive
+     * @param nonceEnd the last nonce, exclusive
+     * @param mode the draw mode of the original rolls
+     * @return a lazy, sized stream of one table index per nonce
+     * @throws IllegalArgumentException if an argument is null or the range is invalid
+     */
+    public static IntStream indices(String serverSeed, String clientSeed, WeightedTable<?> table,
+                                    long nonceStart, long nonceEnd, DrawMode mode) {
+        check(serverSeed, clientSeed, table, nonceStart, nonceEnd);
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        return StreamSupport.intStream(
+                new IndexSpliterator(serverSeed, clientSeed, table, mode, nonceStart, nonceEnd), false);
+    }
+
+    private static void check(String serverSeed, String clientSeed, WeightedTable<?> table,
+                              long nonceStart, long nonceEnd) {
+        if (serverSeed == null || serverSeed.isEmpty()) {
+            throw new IllegalArgumentException("serverSeed must be non-empty");
+        }
+        if (clientSeed == null || table == null) {
+            throw new IllegalArgumentException("clientSeed and table must not be null");
+        }
+        if (nonceEnd < nonceStart || nonceEnd - nonceStart < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid nonce range [start: %d, end: %d]", nonceStart, nonceEnd));
+        }
+    }
+}
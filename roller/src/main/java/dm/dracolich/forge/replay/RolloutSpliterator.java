@@ -0,0 +1,79 @@
+package dm.dracolich.forge.replay;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.prf.PrfKey;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.Rollout;
+import dm.dracolich.forge.to.Value;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Rolls a nonce range into rollouts, splitting it in halves. Each spliterator creates its own key on
+ * first use, so the halves of a parallel replay share no PRF state.
+ */
+final class RolloutSpliterator implements Spliterator<Rollout> {
+    private final String serverSeed;
+    private final String clientSeed;
+    private final WeightedTable<Value> table;
+    private final RollOptions options;
+    private long next;
+    private final long end;
+    private PrfKey prf;
+
+    RolloutSpliterator(String serverSeed, String clientSeed, WeightedTable<Value> table, RollOptions options,
+                       long next, long end) {
+        this.serverSeed = serverSeed;
+        this.clientSeed = clientSeed;
+        this.table = table;
+        this.options = options;
+        this.next = next;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Rollout> action) {
+        if (next >= end) return false;
+        action.accept(roll(next++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Rollout> action) {
+        long end = this.end;
+        for (long nonce = next; nonce < end; nonce++) {
+            next = nonce + 1;
+            action.accept(roll(nonce));
+        }
+    }
+
+    @Override
+    public Spliterator<Rollout> trySplit() {
+        long size = end - next;
+        if (size < 2L * Replay.MIN_SPLIT) return null;
+
+        long mid = next + (size >>> 1);
+        RolloutSpliterator prefix = new RolloutSpliterator(serverSeed, clientSeed, table, options, next, mid);
+        next = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - next;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    private Rollout roll(long nonce) {
+        if (prf == null) {
+            prf = options.prfBackend().create(serverSeed);
+        }
+        return Roll.fairRoll(prf, clientSeed, nonce, table, false, options).result();
+    }
+}
@@ -0,0 +1,210 @@
+package dm.dracolich.forge.service;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.metrics.ForgeMetrics;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.Rollout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coalesces concurrent roll requests per server seed into small batches run on virtual threads.
+ * <p>
+ * Each server seed has a lane with a lock-free queue. The first request on an idle lane starts a
+ * virtual thread that waits up to {@code maxWait} for the lane to fill to {@code maxBatchSize}
+ * (a request that fills it wakes the worker early), then rolls the whole batch with one keyed PRF.
+ * The worker keeps draining while requests arrive and removes the lane once it runs dry, so idle
+ * server seeds hold no state.
+ * <p>
+ * Once closed, or if the executor refuses to start a worker, every request still queued fails with a
+ * {@link RejectedExecutionException}, so no future is left pending.
+ */
+final class RollBatcher implements AutoCloseable {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+    private volatile int maxBatchSize;
+    private volatile long maxWaitNanos;
+
+    RollBatcher(int maxBatchSize, Duration maxWait) {
+        setMaxBatchSize(maxBatchSize);
+        setMaxWait(maxWait);
+    }
+
+    void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    void setMaxWait(Duration maxWait) {
+        if (maxWait == null || maxWait.isNegative()) {
+            throw new IllegalArgumentException("maxWait must be zero or positive");
+        }
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    Duration getMaxWait() {
+        return Duration.ofNanos(maxWaitNanos);
+    }
+
+    CompletableFuture<Rollout> submit(DiceEnum dice, String serverSeed, String clientSeed, long nonce,
+                                      RollOptions options) {
+        Request request = new Request(dice, clientSeed, nonce, options, new CompletableFuture<>());
+        if (serverSeed == null) {
+            request.result.completeExceptionally(new IllegalArgumentException("serverSeed must not be null"));
+            return request.result;
+        }
+        if (closed) {
+            request.result.completeExceptionally(new RejectedExecutionException("Roll batcher is closed"));
+            return request.result;
+        }
+
+        // Enqueue under the map's bin lock so a worker cannot remove the lane in between
+        Lane lane = lanes.compute(serverSeed, (seed, existing) -> {
+            Lane l = existing == null ? new Lane() : existing;
+            l.queue.add(request);
+            l.size.incrementAndGet();
+            return l;
+        });
+
+        if (lane.running.compareAndSet(false, true)) {
+            start(serverSeed, lane);
+        } else if (lane.size.get() >= maxBatchSize) {
+            LockSupport.unpark(lane.worker);
+        }
+        return request.result;
+    }
+
+    /**
+     * Stops accepting requests, waits for the running workers to finish their lanes and fails whatever
+     * is still queued.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.close();
+        RejectedExecutionException closedError = new RejectedExecutionException("Roll batcher is closed");
+        lanes.forEach((serverSeed, lane) -> reject(lane, closedError));
+    }
+
+    /**
+     * Starts the worker of a lane whose {@code running} flag the caller just set.
+     */
+    private void start(String serverSeed, Lane lane) {
+        while (true) {
+            try {
+                executor.execute(() -> drain(serverSeed, lane));
+                return;
+            } catch (RejectedExecutionException e) {
+                // nothing will drain the lane, so fail what it holds and retire it like an idle worker would
+                reject(lane, e);
+                lane.running.set(false);
+                lanes.computeIfPresent(serverSeed, (seed, l) -> l == lane && l.size.get() == 0 ? null : l);
+                if (lane.size.get() == 0 || !lane.running.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void reject(Lane lane, RejectedExecutionException e) {
+        Request request;
+        while ((request = lane.queue.poll()) != null) {
+            lane.size.decrementAndGet();
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    private void drain(String serverSeed, Lane lane) {
+        lane.worker = Thread.currentThread();
+        List<Request> batch = new ArrayList<>();
+        KeyedPrf prf = null;
+
+        while (true) {
+            int batchSize = maxBatchSize;
+            long deadline = System.nanoTime() + maxWaitNanos;
+            long left;
+            while (lane.size.get() < batchSize && (left = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, left);
+            }
+
+            Request request;
+            while (batch.size() < batchSize && (request = lane.queue.poll()) != null) {
+                lane.size.decrementAndGet();
+                batch.add(request);
+            }
+
+            try {
+                if (prf == null) {
+                    prf = KeyedPrf.create(serverSeed);
+                }
+                for (Request r : batch) {
+                    roll(prf, r);
+                }
+            } catch (RuntimeException e) {
+                batch.forEach(r -> r.result.completeExceptionally(e));
+            }
+            batch.clear();
+
+            if (lane.size.get() > 0) {
+                continue;
+            }
+            lane.worker = null;
+            lane.running.set(false);
+            lanes.computeIfPresent(serverSeed, (seed, l) -> l == lane && l.size.get() == 0 ? null : l);
+            if (lane.size.get() == 0 || !lane.running.compareAndSet(false, true)) {
+                return;
+            }
+            lane.worker = Thread.currentThread();
+        }
+    }
+
+    private static void roll(KeyedPrf prf, Request request) {
+        if (request.result.isDone()) {
+            return;
+        }
+        try {
+            long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+            Roll.FairRoll roll = Roll.fairRoll(prf, request.clientSeed, request.nonce,
+                    request.dice.getTable(), false, request.options);
+
+            if (ForgeMetrics.ENABLED) {
+                ForgeMetrics.get().recordDiceRolls(request.dice, 1, System.nanoTime() - start);
+            }
+            request.result.complete(roll.result());
+        } catch (RuntimeException e) {
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    private record Request(DiceEnum dice, String clientSeed, long nonce, RollOptions options,
+                           CompletableFuture<Rollout> result) { }
+
+    private static final class Lane {
+        private final Queue<Request> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile Thread worker;
+    }
+}
@@ -1,8 +1,65 @@
 package dm.dracolich.forge.service;
 
+import dm.dracolich.forge.to.DebugLevel;
 import dm.dracolich.forge.to.DiceEnum;
 import dm.dracolich.forge.to.Rollout;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface RolloutService {
     Rollout rollDice(DiceEnum dice, String serverSeed, String clientSeed, Long nonce);
+
+    /**
+     * Rolls a dice, keeping only as much debug information as the given level asks for.
+     *
+     * @param dice the dice to roll
+     * @param serverSeed the server seed
+     * @param clientSeed the client seed
+     * @param nonce the nonce
+     * @param debugLevel how much debug information the rollout keeps
+     * @return the rollout
+     */
+    Rollout rollDice(DiceEnum dice, String serverSeed, String clientSeed, Long nonce, DebugLevel debugLevel);
+
+    /**
+     * Rolls a dice once for each nonce in {@code [nonceStart, nonceStart + count)}.
+     * <p>
+     * {@code faces[i]} receives the index into {@link DiceEnum#getDiceValues()} of the face that
+     * {@link #rollDice} selects (its {@code Rollout.id}) for nonce {@code nonceStart + i}.
+     * No rollout or debug objects are created.
+     *
+     * @param dice the dice to roll
+     * @param serverSeed the server seed
+     * @param clientSeed the client seed
+     * @param nonceStart the nonce of the first roll
+     * @param count the number of rolls
+     * @param faces the destination; must hold at least {@code count} elements
+     */
+    void rollDiceBatch(DiceEnum dice, String serverSeed, String clientSeed, long nonceStart, int count, int[] faces);
+
+    /**
+     * Rolls a dice asynchronously. Concurrent requests for the same server seed are rolled together
+     * in small batches that share one keyed PRF; the result is identical to {@link #rollDice}.
+     *
+     * @param dice the dice to roll
+     * @param serverSeed the server seed
+     * @param clientSeed the client seed
+     * @param nonce the nonce
+     * @return a future completed with the rollout, or exceptionally if the roll fails
+     */
+    CompletableFuture<Rollout> rollDiceAsync(DiceEnum dice, String serverSeed, String clientSeed, long nonce);
+
+    /**
+     * Same as {@link #rollDiceAsync(DiceEnum, String, String, long)}, keeping only as much debug
+     * information as the given level asks for.
+     *
+     * @param dice the dice to roll
+     * @param serverSeed the server seed
+     * @param clientSeed the client seed
+     * @param nonce the nonce
+     * @param debugLevel how much debug information the rollout keeps
+     * @return a future completed with the rollout, or exceptionally if the roll fails
+     */
+    CompletableFuture<Rollout> rollDiceAsync(DiceEnum dice, String serverSeed, String clientSeed, long nonce,
+                                             DebugLevel debugLevel);
 }
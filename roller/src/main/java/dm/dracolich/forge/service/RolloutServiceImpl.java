@@ -1,19 +1,111 @@
 package dm.dracolich.forge.service;
 
 import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.metrics.ForgeMetrics;
+import dm.dracolich.forge.to.DebugLevel;
 import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
 import dm.dracolich.forge.to.Rollout;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Service;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
-@Service
 @RequiredArgsConstructor
-public class RolloutServiceImpl implements RolloutService {
+public class RolloutServiceImpl implements RolloutService, AutoCloseable {
+    public static final int DEFAULT_ASYNC_BATCH_SIZE = 32;
+    public static final Duration DEFAULT_ASYNC_MAX_WAIT = Duration.ofMillis(1);
+
+    private final RollBatcher batcher = new RollBatcher(DEFAULT_ASYNC_BATCH_SIZE, DEFAULT_ASYNC_MAX_WAIT);
+
+    /**
+     * Debug level used by {@link #rollDice(DiceEnum, String, String, Long)}.
+     */
+    @Getter
+    @Setter
+    private DebugLevel debugLevel = DebugLevel.FULL;
+
+    /**
+     * Draw mode used by every roll of this service. Changing it only affects rolls made afterwards;
+     * each roll records its mode in {@code Debug.drawVersion}.
+     */
+    @Getter
+    @Setter
+    private DrawMode drawMode = DrawMode.MODULO;
+
     @Override
     public Rollout rollDice(DiceEnum dice, String serverSeed, String clientSeed, Long nonce) {
+        return rollDice(dice, serverSeed, clientSeed, nonce, debugLevel);
+    }
+
+    @Override
+    public Rollout rollDice(DiceEnum dice, String serverSeed, String clientSeed, Long nonce, DebugLevel debugLevel) {
+        long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+        // The advanced seed is not part of the returned rollout, so skip the extra SHA-256.
         Roll.FairRoll roll = Roll.fairRoll(serverSeed, clientSeed,
-                nonce, dice.getDiceValues(), true);
+                nonce, dice.getTable(), false, new RollOptions(debugLevel, drawMode));
 
+        if (ForgeMetrics.ENABLED) {
+            ForgeMetrics.get().recordDiceRolls(dice, 1, System.nanoTime() - start);
+        }
         return roll.result();
     }
+
+    @Override
+    public void rollDiceBatch(DiceEnum dice, String serverSeed, String clientSeed, long nonceStart, int count,
+                              int[] faces) {
+        long start = ForgeMetrics.ENABLED ? System.nanoTime() : 0L;
+        Roll.drawWeightedBatch(new Roll.RollContext(serverSeed, clientSeed, nonceStart), "value",
+                nonceStart, count, dice.getTable(), drawMode, faces);
+
+        if (ForgeMetrics.ENABLED) {
+            ForgeMetrics.get().recordDiceRolls(dice, count, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Rollout> rollDiceAsync(DiceEnum dice, String serverSeed, String clientSeed, long nonce) {
+        return rollDiceAsync(dice, serverSeed, clientSeed, nonce, debugLevel);
+    }
+
+    @Override
+    public CompletableFuture<Rollout> rollDiceAsync(DiceEnum dice, String serverSeed, String clientSeed, long nonce,
+                                                    DebugLevel debugLevel) {
+        return batcher.submit(dice, serverSeed, clientSeed, nonce, new RollOptions(debugLevel, drawMode));
+    }
+
+    /**
+     * Sets how many async requests for one server seed are rolled together at most.
+     *
+     * @param batchSize the maximum batch size; must be positive
+     */
+    public void setAsyncBatchSize(int batchSize) {
+        batcher.setMaxBatchSize(batchSize);
+    }
+
+    public int getAsyncBatchSize() {
+        return batcher.getMaxBatchSize();
+    }
+
+    /**
+     * Sets how long the first async request of a batch may wait for the batch to fill.
+     * {@link Duration#ZERO} rolls whatever is queued right away.
+     *
+     * @param maxWait the maximum added latency; must not be negative
+     */
+    public void setAsyncMaxWait(Duration maxWait) {
+        batcher.setMaxWait(maxWait);
+    }
+
+    public Duration getAsyncMaxWait() {
+        return batcher.getMaxWait();
+    }
+
+    @Override
+    public void close() {
+        batcher.close();
+    }
 }
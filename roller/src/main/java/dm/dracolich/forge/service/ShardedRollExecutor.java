@@ -0,0 +1,289 @@
+package dm.dracolich.forge.service;
+
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.Rollout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs roll requests sharded by client seed onto a fixed set of single-writer lanes.
+ * <p>
+ * A client seed always hashes to the same lane, and each lane is a lock-free FIFO queue drained by at
+ * most one virtual thread at a time, so the requests of one player run one after another in the order
+ * they were submitted, while players on different lanes run in parallel. Tasks that allocate a nonce,
+ * roll and journal the result therefore apply in nonce order without any lock around the roll. A lane
+ * without work holds no thread.
+ * <p>
+ * Each lane admits at most {@code queueCapacity} waiting requests. A submit to a full lane waits up to
+ * {@code offerTimeout} for room and otherwise fails its future with a {@link RejectedExecutionException},
+ * so a slow lane pushes back on its callers instead of growing without bound. {@link #laneStats()} reports
+ * the queue depth of every lane.
+ */
+public final class ShardedRollExecutor implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final Duration DEFAULT_OFFER_TIMEOUT = Duration.ofMillis(100);
+
+    private final RolloutService service;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Lane[] lanes;
+    private final long offerTimeoutNanos;
+    private volatile boolean closed;
+
+    /**
+     * Creates an executor with one lane per available processor and the default capacity and timeout.
+     *
+     * @param service the service rolls are made with
+     */
+    public ShardedRollExecutor(RolloutService service) {
+        this(service, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, DEFAULT_OFFER_TIMEOUT);
+    }
+
+    /**
+     * @param service the service rolls are made with
+     * @param lanes the number of lanes; must be positive
+     * @param queueCapacity the waiting requests each lane admits; must be positive
+     * @param offerTimeout how long a submit waits for room in a full lane; must not be negative
+     */
+    public ShardedRollExecutor(RolloutService service, int lanes, int queueCapacity, Duration offerTimeout) {
+        if (service == null) {
+            throw new IllegalArgumentException("service must not be null");
+        }
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("lanes must be positive");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        if (offerTimeout == null || offerTimeout.isNegative()) {
+            throw new IllegalArgumentException("offerTimeout must be zero or positive");
+        }
+        this.service = service;
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane(queueCapacity);
+        }
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+    }
+
+    /**
+     * Rolls a dice on the client seed's lane, after every request submitted earlier for that client seed.
+     *
+     * @param dice the dice to roll
+     * @param serverSeed the server seed
+     * @param clientSeed the client seed; selects the lane
+     * @param nonce the nonce
+     * @return a future completed with the rollout, or exceptionally if the roll fails or is rejected
+     */
+    public CompletableFuture<Rollout> rollDice(DiceEnum dice, String serverSeed, String clientSeed, long nonce) {
+        return submit(clientSeed, () -> service.rollDice(dice, serverSeed, clientSeed, nonce));
+    }
+
+    /**
+     * Same as {@link #rollDice(DiceEnum, String, String, long)}, keeping only as much debug information as
+     * the given level asks for.
+     */
+    public CompletableFuture<Rollout> rollDice(DiceEnum dice, String serverSeed, String clientSeed, long nonce,
+                                               DebugLevel debugLevel) {
+        return submit(clientSeed, () -> service.rollDice(dice, serverSeed, clientSeed, nonce, debugLevel));
+    }
+
+    /**
+     * Runs a task on the client seed's lane, after every task submitted earlier for that client seed.
+     * Tasks of one lane never run concurrently, so per-player state touched only from its lane, such as
+     * the next nonce, needs no further synchronization.
+     *
+     * @param <T> the result type
+     * @param clientSeed the client seed; selects the lane
+     * @param task the task; should not block for long, it holds up every player of its lane
+     * @return a future completed with the task's result, or exceptionally if it throws or is rejected
+     */
+    public <T> CompletableFuture<T> submit(String clientSeed, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (clientSeed == null || task == null) {
+            result.completeExceptionally(new IllegalArgumentException("clientSeed and task must not be null"));
+            return result;
+        }
+        if (closed) {
+            result.completeExceptionally(new RejectedExecutionException("Executor is closed"));
+            return result;
+        }
+
+        int index = laneOf(clientSeed);
+        Lane lane = lanes[index];
+        if (!lane.admit(offerTimeoutNanos)) {
+            lane.rejected.increment();
+            result.completeExceptionally(new RejectedExecutionException(
+                    "Lane " + index + " is full [capacity: " + lane.capacity + "]"));
+            return result;
+        }
+
+        // count before enqueueing so the drainer never takes the depth below zero
+        lane.recordDepth(lane.depth.incrementAndGet());
+        lane.queue.add(new Task<>(task, result));
+
+        while (lane.running.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> drain(lane));
+                break;
+            } catch (RejectedExecutionException e) {
+                // nothing will drain the lane, so fail what it holds; later submits hit the same rejection
+                reject(lane, e);
+                lane.running.set(false);
+                if (lane.queue.isEmpty()) break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param clientSeed the client seed
+     * @return the index of the lane the client seed's requests run on
+     */
+    public int laneOf(String clientSeed) {
+        int h = clientSeed.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    public int lanes() {
+        return lanes.length;
+    }
+
+    /**
+     * @return a point-in-time copy of every lane's counters, indexed by lane
+     */
+    public List<LaneStats> laneStats() {
+        List<LaneStats> stats = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            Lane lane = lanes[i];
+            stats.add(new LaneStats(i, lane.depth.get(), lane.maxDepth.get(), lane.completed.sum(),
+                    lane.rejected.sum()));
+        }
+        return stats;
+    }
+
+    /**
+     * Stops accepting requests and waits until the queued ones have run.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.close();
+    }
+
+    private static void reject(Lane lane, RejectedExecutionException e) {
+        Task<?> task;
+        while ((task = lane.queue.poll()) != null) {
+            lane.depth.decrementAndGet();
+            lane.permits.release();
+            lane.rejected.increment();
+            task.result.completeExceptionally(e);
+        }
+    }
+
+    private void drain(Lane lane) {
+        while (true) {
+            Task<?> task;
+            while ((task = lane.queue.poll()) != null) {
+                lane.depth.decrementAndGet();
+                lane.permits.release();
+                task.run(lane.completed);
+            }
+
+            lane.running.set(false);
+            // a submit that enqueued after the last poll saw running still set, so pick its task up here
+            if (lane.queue.isEmpty() || !lane.running.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Counters of one lane.
+     *
+     * @param lane the lane index
+     * @param depth the requests waiting right now
+     * @param maxDepth the most requests that have waited at once
+     * @param completed the requests run so far
+     * @param rejected the requests turned away because the lane was full
+     */
+    public record LaneStats(int lane, int depth, int maxDepth, long completed, long rejected) { }
+
+    private static final class Task<T> {
+        private final Supplier<T> body;
+        private final CompletableFuture<T> result;
+
+        private Task(Supplier<T> body, CompletableFuture<T> result) {
+            this.body = body;
+            this.result = result;
+        }
+
+        /**
+         * Runs the task, counting it before its future completes so callers that join see the count.
+         */
+        private void run(LongAdder completed) {
+            if (result.isDone()) {
+                completed.increment();
+                return;
+            }
+            T value;
+            try {
+                value = body.get();
+            } catch (Throwable e) {
+                // a task must never take its lane's drainer down with it
+                completed.increment();
+                result.completeExceptionally(e);
+                return;
+            }
+            completed.increment();
+            result.complete(value);
+        }
+    }
+
+    private static final class Lane {
+        private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+        private final int capacity;
+        private final Semaphore permits;
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private Lane(int capacity) {
+            this.capacity = capacity;
+            this.permits = new Semaphore(capacity);
+        }
+
+        private boolean admit(long timeoutNanos) {
+            if (permits.tryAcquire()) return true;
+            if (timeoutNanos == 0) return false;
+            try {
+                return permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void recordDepth(int d) {
+            if (d > maxDepth.get()) {
+                maxDepth.accumulateAndGet(d, Math::max);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package dm.dracolich.forge.sim;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.Value;
+import lombok.Builder;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo check that a weighted table rolls with the probabilities its weights declare.
+ * <p>
+ * The requested rolls are split by a fork/join task down to ranges of {@code leafSize}. Each leaf counts
+ * its own rolls into a {@code long[]} histogram indexed like the table, and histograms are summed as the
+ * tasks join, so workers never share a counter. In {@link SimulationMode#HMAC} mode a leaf draws its range
+ * of nonces with {@link Roll#drawWeightedBatch(Roll.RollContext, String, long, int, WeightedTable, DrawMode, int[])}
+ * on the worker's cached PRF, which is exactly the value draw of {@code Roll.fairRoll}. In
+ * {@link SimulationMode#FAST} mode the draws come from a {@link SplittableRandom} that is split along with
+ * the tasks, so a run is reproducible for a given seed and leaf size whatever the parallelism.
+ * <p>
+ * Instances are immutable and can be shared; configure them through {@link #builder()}.
+ */
+@Builder
+public final class FairnessSimulator {
+    private static final int BATCH = 4096;
+
+    /** The pool the simulation runs on. */
+    @Builder.Default
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    /** How many rolls a task draws itself instead of splitting further. */
+    @Builder.Default
+    private final int leafSize = 1 << 16;
+    /** How draws are mapped to weights. */
+    @Builder.Default
+    private final DrawMode drawMode = DrawMode.MODULO;
+    /** The server seed of {@link SimulationMode#HMAC} runs. */
+    @Builder.Default
+    private final String serverSeed = "simulation";
+    /** The client seed of {@link SimulationMode#HMAC} runs. */
+    @Builder.Default
+    private final String clientSeed = "simulation";
+    /** The nonce of the first {@link SimulationMode#HMAC} roll; the others follow consecutively. */
+    @Builder.Default
+    private final long firstNonce = 0;
+    /** The seed of {@link SimulationMode#FAST} runs. */
+    @Builder.Default
+    private final long seed = 0x5DEECE66DL;
+
+    /**
+     * Simulates rolls of a dice.
+     *
+     * @param dice the dice
+     * @param rolls the number of rolls
+     * @param mode where the draws come from
+     * @return the report; indices are those of {@link DiceEnum#getTable()}
+     */
+    public SimulationReport simulate(DiceEnum dice, long rolls, SimulationMode mode) {
+        return simulate(dice.getTable(), rolls, mode);
+    }
+
+    /**
+     * Simulates the value draw of rolls over a list of values.
+     *
+     * @param values the values, weighted by {@link Value#getWeight()}
+     * @param rolls the number of rolls
+     * @param mode where the draws come from
+     * @return the report; indices are those of the list
+     */
+    public SimulationReport simulate(List<Value> values, long rolls, SimulationMode mode) {
+        return simulate(WeightedTable.of(values), rolls, mode);
+    }
+
+    /**
+     * Simulates draws from a compiled table.
+     *
+     * @param table the table
+     * @param rolls the number of rolls
+     * @param mode where the draws come from
+     * @return the report; indices are those of the table
+     * @throws IllegalArgumentException if rolls is not positive
+     */
+    public SimulationReport simulate(WeightedTable<?> table, long rolls, SimulationMode mode) {
+        if (rolls <= 0) {
+            throw new IllegalArgumentException("rolls must be positive");
+        }
+        if (leafSize <= 0) {
+            throw new IllegalArgumentException("leafSize must be positive");
+        }
+
+        double[] expected = new double[table.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (double) table.weight(i) / table.totalWeight();
+        }
+
+        long start = System.nanoTime();
+        long[] counts = pool.invoke(new SimulationTask(table, mode, 0, rolls,
+                mode == SimulationMode.FAST ? new SplittableRandom(seed) : null));
+        return SimulationReport.of(mode, drawMode, counts, expected, System.nanoTime() - start);
+    }
+
+    private final class SimulationTask extends RecursiveTask<long[]> {
+        private final WeightedTable<?> table;
+        private final SimulationMode mode;
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        SimulationTask(WeightedTable<?> table, SimulationMode mode, long from, long to, SplittableRandom random) {
+            this.table = table;
+            this.mode = mode;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= leafSize) {
+                long[] counts = new long[table.size()];
+                if (mode == SimulationMode.HMAC) {
+                    drawPrf(counts);
+                } else {
+                    drawFast(counts);
+                }
+                return counts;
+            }
+
+            long mid = from + (to - from) / 2;
+            SimulationTask right = new SimulationTask(table, mode, mid, to, random == null ? null : random.split());
+            right.fork();
+            long[] counts = new SimulationTask(table, mode, from, mid, random).compute();
+            long[] other = right.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other[i];
+            }
+            return counts;
+        }
+
+        private void drawPrf(long[] counts) {
+            Roll.RollContext ctx = new Roll.RollContext(serverSeed, clientSeed, firstNonce + from);
+            int[] indices = new int[(int) Math.min(BATCH, to - from)];
+
+            for (long at = from; at < to; at += indices.length) {
+                int count = (int) Math.min(indices.length, to - at);
+                Roll.drawWeightedBatch(ctx, "value", firstNonce + at, count, table, drawMode, indices);
+                for (int i = 0; i < count; i++) {
+                    counts[indices[i]]++;
+                }
+            }
+        }
+
+        private void drawFast(long[] counts) {
+            int totalWeight = table.totalWeight();
+            for (long at = from; at < to; at++) {
+                int draw = random.nextInt();
+                while (!drawMode.accepts(draw, totalWeight)) {
+                    draw = random.nextInt();
+                }
+                counts[table.indexForRoll(drawMode.index(draw, totalWeight))]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package dm.dracolich.forge.sim;
+
+/**
+ * Where a {@link FairnessSimulator} takes its draws from.
+ */
+public enum SimulationMode {
+    /**
+     * The production path: HMAC-SHA256 draws of the {@code value} category over consecutive nonces,
+     * mapped exactly like {@code Roll.fairRoll} maps them. Slow, but it tests the real implementation.
+     */
+    HMAC,
+
+    /**
+     * A {@link java.util.SplittableRandom} stream mapped through the same table and draw mode. Not
+     * cryptographic and not reproducible by players; meant for design-time runs of many billions of rolls.
+     */
+    FAST
+}
@@ -0,0 +1,85 @@
+package dm.dracolich.forge.sim;
+
+import dm.dracolich.forge.to.DrawMode;
+
+/**
+ * Outcome of a simulation run: the histogram of selected table indices and how well it fits the
+ * declared weights.
+ * <p>
+ * The chi-square test compares every index with a positive weight; zero-weight indices are left out of
+ * it, and any hit on one makes the statistic infinite. The Kolmogorov-Smirnov statistic is the largest
+ * gap between the observed and declared cumulative distributions in table order. Its p-value uses the
+ * asymptotic Kolmogorov tail, which is conservative for a discrete distribution.
+ *
+ * @param mode where the draws came from
+ * @param drawMode how draws were mapped to weights
+ * @param rolls the number of rolls
+ * @param counts how many rolls selected each table index
+ * @param expected the declared probability of each table index
+ * @param chiSquare the Pearson chi-square statistic
+ * @param degreesOfFreedom the number of positive-weight indices minus one
+ * @param chiSquarePValue the probability of a statistic at least this large under the declared weights
+ * @param ksStatistic the Kolmogorov-Smirnov distance {@code D}
+ * @param ksPValue the asymptotic probability of a distance at least this large
+ * @param elapsedNanos the wall-clock duration of the run
+ */
+public record SimulationReport(SimulationMode mode, DrawMode drawMode, long rolls, long[] counts, double[] expected,
+                               double chiSquare, int degreesOfFreedom, double chiSquarePValue, double ksStatistic,
+                               double ksPValue, long elapsedNanos) {
+
+    static SimulationReport of(SimulationMode mode, DrawMode drawMode, long[] counts, double[] expected,
+                               long elapsedNanos) {
+        long rolls = 0;
+        for (long count : counts) {
+            rolls += count;
+        }
+
+        double chiSquare = 0;
+        int categories = 0;
+        double observedCdf = 0;
+        double expectedCdf = 0;
+        double ks = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (expected[i] > 0) {
+                double e = rolls * expected[i];
+                double diff = counts[i] - e;
+                chiSquare += diff * diff / e;
+                categories++;
+            } else if (counts[i] > 0) {
+                chiSquare = Double.POSITIVE_INFINITY;
+            }
+
+            observedCdf += (double) counts[i] / rolls;
+            expectedCdf += expected[i];
+            ks = Math.max(ks, Math.abs(observedCdf - expectedCdf));
+        }
+
+        int degreesOfFreedom = Math.max(categories - 1, 0);
+        return new SimulationReport(mode, drawMode, rolls, counts, expected, chiSquare, degreesOfFreedom,
+                Statistics.chiSquareSurvival(chiSquare, degreesOfFreedom), ks,
+                Statistics.kolmogorovSurvival(Math.sqrt(rolls) * ks), elapsedNanos);
+    }
+
+    /**
+     * @param index a table index
+     * @return the observed frequency of the index
+     */
+    public double frequency(int index) {
+        return rolls == 0 ? 0 : (double) counts[index] / rolls;
+    }
+
+    /**
+     * @param alpha the significance level, e.g. {@code 0.001}
+     * @return whether neither test rejects the declared weights at the given level
+     */
+    public boolean fits(double alpha) {
+        return chiSquarePValue >= alpha && ksPValue >= alpha;
+    }
+
+    /**
+     * @return the number of rolls simulated per second
+     */
+    public double throughputPerSecond() {
+        return elapsedNanos == 0 ? 0 : rolls * 1_000_000_000d / elapsedNanos;
+    }
+}
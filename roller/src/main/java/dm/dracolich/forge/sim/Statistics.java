@@ -0,0 +1,94 @@
+package dm.dracolich.forge.sim;
+
+/**
+ * Distribution tails used by the goodness-of-fit reports.
+ */
+final class Statistics {
+    private static final int MAX_ITERATIONS = 10_000;
+    private static final double EPSILON = 1e-15;
+    private static final double TINY = 1e-300;
+
+    private static final double[] LANCZOS = {
+            0.99999999999980993, 676.5203681218851, -1259.1392167224028, 771.32342877765313,
+            -176.61502916214059, 12.507343278686905, -0.13857109526572012, 9.9843695780195716e-6,
+            1.5056327351493116e-7
+    };
+
+    private Statistics() {
+    }
+
+    /**
+     * @param x the chi-square statistic
+     * @param degreesOfFreedom the degrees of freedom
+     * @return {@code P(X >= x)} for a chi-square variable with the given degrees of freedom
+     */
+    static double chiSquareSurvival(double x, int degreesOfFreedom) {
+        if (degreesOfFreedom <= 0 || x <= 0) return 1;
+        if (Double.isInfinite(x)) return 0;
+        return upperGamma(degreesOfFreedom / 2d, x / 2);
+    }
+
+    /**
+     * @param lambda {@code sqrt(n) * D}
+     * @return the asymptotic Kolmogorov tail {@code P(K >= lambda)}
+     */
+    static double kolmogorovSurvival(double lambda) {
+        if (lambda <= 0) return 1;
+        if (Double.isInfinite(lambda)) return 0;
+
+        double sum = 0;
+        for (int k = 1; k <= 100; k++) {
+            double term = Math.exp(-2d * k * k * lambda * lambda);
+            sum += (k % 2 == 1) ? term : -term;
+            if (term < EPSILON * Math.abs(sum)) break;
+        }
+        return Math.max(0, Math.min(1, 2 * sum));
+    }
+
+    /** Regularized upper incomplete gamma {@code Q(a, x)}. */
+    private static double upperGamma(double a, double x) {
+        if (x < a + 1) {
+            // series for P(a, x)
+            double term = 1 / a;
+            double sum = term;
+            for (int n = 1; n < MAX_ITERATIONS; n++) {
+                term *= x / (a + n);
+                sum += term;
+                if (Math.abs(term) < Math.abs(sum) * EPSILON) break;
+            }
+            return Math.max(0, 1 - sum * Math.exp(-x + a * Math.log(x) - logGamma(a)));
+        }
+
+        // Lentz's continued fraction for Q(a, x)
+        double b = x + 1 - a;
+        double c = 1 / TINY;
+        double d = 1 / b;
+        double h = d;
+        for (int n = 1; n < MAX_ITERATIONS; n++) {
+            double an = -n * (n - a);
+            b += 2;
+            d = an * d + b;
+            if (Math.abs(d) < TINY) d = TINY;
+            c = b + an / c;
+            if (Math.abs(c) < TINY) c = TINY;
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < EPSILON) break;
+        }
+        return Math.exp(-x + a * Math.log(x) - logGamma(a)) * h;
+    }
+
+    private static double logGamma(double x) {
+        if (x < 0.5) {
+            return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1 - x);
+        }
+        x -= 1;
+        double sum = LANCZOS[0];
+        double t = x + 7.5;
+        for (int i = 1; i < LANCZOS.length; i++) {
+            sum += LANCZOS[i] / (x + i);
+        }
+        return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(sum);
+    }
+}
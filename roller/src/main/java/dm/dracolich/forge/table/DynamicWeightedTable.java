@@ -0,0 +1,338 @@
+package dm.dracolich.forge.table;
+
+import dm.dracolich.forge.to.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Mutable weighted table with O(log n) weight updates and O(log n) draws.
+ * <p>
+ * Items live in the leaves of a persistent segment tree whose inner nodes hold the {@code long} sum of
+ * their subtree, so totals cannot overflow like the {@code int} total of {@link WeightedTable}. An update
+ * copies only the path from the root to the changed leaf and publishes the new root as an immutable
+ * {@link Snapshot}; every other node is shared with the previous snapshot. Readers never lock: they draw
+ * from {@link #snapshot()}, which stays valid and unchanged however the table is modified afterwards.
+ * Writers are serialized.
+ * <p>
+ * A draw is mapped like {@link dm.dracolich.forge.Roll.Select#weightedChoice}: the roll is
+ * {@code floorMod(draw, totalWeight)} and the selected item is the one whose cumulative weight range
+ * contains it. A snapshot therefore selects the same item as a {@link WeightedTable} compiled from the
+ * same items and weights. Zero-weight items are never selected.
+ *
+ * @param <T> the type of the items in the table
+ */
+public final class DynamicWeightedTable<T> {
+    private static final ToLongFunction<Value> VALUE_WEIGHT = v -> v.getWeight() == null ? 0 : v.getWeight();
+
+    private volatile Snapshot<T> current;
+
+    private DynamicWeightedTable(Snapshot<T> initial) {
+        this.current = initial;
+    }
+
+    /**
+     * Creates a table from a list of values, using {@link Value#getWeight()} as initial weight
+     * ({@code null} and negative weights count as zero).
+     *
+     * @param values the initial values; may be empty
+     * @return a new table
+     * @throws IllegalArgumentException if values is null or the weights overflow a long
+     */
+    public static DynamicWeightedTable<Value> of(List<Value> values) {
+        return of(values, VALUE_WEIGHT);
+    }
+
+    /**
+     * Creates a table from items and a weight function that gives each item's initial weight
+     * (negative weights count as zero). The weight function is called once per item.
+     *
+     * @param <T> the type of the items
+     * @param items the initial items; may be empty
+     * @param weightFn a function that returns the initial weight of each item
+     * @return a new table
+     * @throws IllegalArgumentException if items is null or the weights overflow a long
+     */
+    public static <T> DynamicWeightedTable<T> of(List<T> items, ToLongFunction<? super T> weightFn) {
+        if (items == null) {
+            throw new IllegalArgumentException("items must not be null");
+        }
+
+        int size = items.size();
+        int height = 0;
+        while (1L << height < size) {
+            height++;
+        }
+        Node root = size == 0 ? null : build(new ArrayList<>(items), weightFn, 0, 1 << height);
+        return new DynamicWeightedTable<>(new Snapshot<>(root, height, size));
+    }
+
+    /**
+     * @return the current state of the table; never changes afterwards
+     */
+    public Snapshot<T> snapshot() {
+        return current;
+    }
+
+    /**
+     * Sets the weight of an item.
+     *
+     * @param index the item index
+     * @param weight the new weight; zero excludes the item from draws
+     * @return the snapshot that includes the change
+     * @throws IllegalArgumentException if the weight is negative or the total would overflow a long
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public synchronized Snapshot<T> setWeight(int index, long weight) {
+        Snapshot<T> snapshot = current;
+        return publish(snapshot.with(index, snapshot.leaf(index).item, weight));
+    }
+
+    /**
+     * Adds to the weight of an item, for boosts that stack.
+     *
+     * @param index the item index
+     * @param delta the change; the resulting weight must not be negative
+     * @return the snapshot that includes the change
+     * @throws IllegalArgumentException if the resulting weight is negative or the total would overflow a long
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public synchronized Snapshot<T> addWeight(int index, long delta) {
+        Snapshot<T> snapshot = current;
+        Node leaf = snapshot.leaf(index);
+        long weight;
+        try {
+            weight = Math.addExact(leaf.sum, delta);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Weight must not exceed " + Long.MAX_VALUE, e);
+        }
+        return publish(snapshot.with(index, leaf.item, weight));
+    }
+
+    /**
+     * Replaces an item, keeping its index.
+     *
+     * @param index the item index
+     * @param item the new item
+     * @param weight the weight of the new item
+     * @return the snapshot that includes the change
+     * @throws IllegalArgumentException if the weight is negative or the total would overflow a long
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public synchronized Snapshot<T> set(int index, T item, long weight) {
+        Snapshot<T> snapshot = current;
+        snapshot.leaf(index);
+        return publish(snapshot.with(index, item, weight));
+    }
+
+    /**
+     * Appends an item. Items cannot be removed; set their weight to zero instead.
+     *
+     * @param item the item
+     * @param weight the weight of the item
+     * @return the index of the new item
+     * @throws IllegalArgumentException if the weight is negative or the total would overflow a long
+     */
+    public synchronized int add(T item, long weight) {
+        Snapshot<T> snapshot = current;
+        int index = snapshot.size;
+        if (index == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Table is full");
+        }
+
+        Node root = snapshot.root;
+        int height = snapshot.height;
+        if (index == 1 << height) {
+            // Full: the old tree becomes the left half of one twice as large
+            root = new Node(root.sum, root, null, null);
+            height++;
+        }
+        publish(new Snapshot<T>(root, height, index + 1).with(index, item, weight));
+        return index;
+    }
+
+    /**
+     * @return the number of items in the current snapshot
+     */
+    public int size() {
+        return current.size();
+    }
+
+    /**
+     * @return the total weight of the current snapshot
+     */
+    public long totalWeight() {
+        return current.totalWeight();
+    }
+
+    private Snapshot<T> publish(Snapshot<T> snapshot) {
+        current = snapshot;
+        return snapshot;
+    }
+
+    private static <T> Node build(List<T> items, ToLongFunction<? super T> weightFn, int from, int width) {
+        if (from >= items.size()) {
+            return null;
+        }
+        if (width == 1) {
+            T item = items.get(from);
+            return new Node(Math.max(0, weightFn.applyAsLong(item)), null, null, item);
+        }
+
+        Node left = build(items, weightFn, from, width / 2);
+        Node right = build(items, weightFn, from + width / 2, width / 2);
+        return new Node(sum(left, right), left, right, null);
+    }
+
+    private static long sum(Node left, Node right) {
+        try {
+            return Math.addExact(left == null ? 0 : left.sum, right == null ? 0 : right.sum);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Sum of weights must not exceed " + Long.MAX_VALUE, e);
+        }
+    }
+
+    /**
+     * Immutable state of a {@link DynamicWeightedTable}. Safe to share between threads.
+     *
+     * @param <T> the type of the items in the table
+     */
+    public static final class Snapshot<T> {
+        private final Node root;
+        private final int height;
+        private final int size;
+
+        private Snapshot(Node root, int height, int size) {
+            this.root = root;
+            this.height = height;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long totalWeight() {
+            return root == null ? 0 : root.sum;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) leaf(index).item;
+        }
+
+        /**
+         * @param index the item index
+         * @return the weight of the item
+         */
+        public long weight(int index) {
+            return leaf(index).sum;
+        }
+
+        /**
+         * Maps a draw to an item index using {@code floorMod(draw, totalWeight)}.
+         * <p>
+         * A single 32-bit draw cannot reach every roll of a larger total, so totals above
+         * {@link Integer#MAX_VALUE} are rejected; draw those with
+         * {@link dm.dracolich.forge.prf.PrfCursor#nextWeighted(Snapshot, dm.dracolich.forge.to.DrawMode)}.
+         *
+         * @param draw the draw value used for selection
+         * @return the index of the selected item
+         * @throws IllegalArgumentException if the total weight is zero or exceeds {@link Integer#MAX_VALUE}
+         */
+        public int indexOf(int draw) {
+            long total = totalWeight();
+            if (total <= 0 || total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Sum of weights must be in [1, " + Integer.MAX_VALUE
+                        + "]; draw larger totals with PrfCursor.nextWeighted");
+            }
+            return indexForRoll(Math.floorMod(draw, (int) total));
+        }
+
+        /**
+         * Maps a roll in {@code [0, totalWeight)} to the index of the item whose cumulative range contains it.
+         *
+         * @param roll the roll; must be in {@code [0, totalWeight)}
+         * @return the index of the selected item
+         * @throws IllegalArgumentException if the roll is out of range
+         */
+        public int indexForRoll(long roll) {
+            if (roll < 0 || roll >= totalWeight()) {
+                throw new IllegalArgumentException("roll must be in [0, " + totalWeight() + ")");
+            }
+
+            Node node = root;
+            int index = 0;
+            for (int level = height - 1; level >= 0; level--) {
+                long left = node.left == null ? 0 : node.left.sum;
+                if (roll < left) {
+                    node = node.left;
+                } else {
+                    roll -= left;
+                    node = node.right;
+                    index |= 1 << level;
+                }
+            }
+            return index;
+        }
+
+        /**
+         * Selects an item using a draw value.
+         *
+         * @param draw the draw value used for selection
+         * @return the selected item
+         * @throws IllegalArgumentException if the total weight is zero or exceeds {@link Integer#MAX_VALUE}
+         */
+        public T pick(int draw) {
+            return get(indexOf(draw));
+        }
+
+        /**
+         * @return the items in index order; a copy
+         */
+        public List<T> items() {
+            List<T> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(get(i));
+            }
+            return items;
+        }
+
+        private Node leaf(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + " outside [0, " + size + ")");
+            }
+
+            Node node = root;
+            for (int level = height - 1; level >= 0; level--) {
+                node = (index >>> level & 1) == 0 ? node.left : node.right;
+            }
+            return node;
+        }
+
+        private Snapshot<T> with(int index, Object item, long weight) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("weight must not be negative");
+            }
+            return new Snapshot<>(with(root, height - 1, index, item, weight), height, size);
+        }
+
+        private static Node with(Node node, int level, int index, Object item, long weight) {
+            if (level < 0) {
+                return new Node(weight, null, null, item);
+            }
+
+            Node left = node == null ? null : node.left;
+            Node right = node == null ? null : node.right;
+            if ((index >>> level & 1) == 0) {
+                left = with(left, level - 1, index, item, weight);
+            } else {
+                right = with(right, level - 1, index, item, weight);
+            }
+            return new Node(sum(left, right), left, right, null);
+        }
+    }
+
+    private record Node(long sum, Node left, Node right, Object item) { }
+}
@@ -0,0 +1,64 @@
+package dm.dracolich.forge.table;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe cache keyed by object identity with weakly referenced keys.
+ * <p>
+ * Entries disappear once their key is garbage collected, so compiled artifacts never outlive the
+ * object they were compiled from. Values must not reference their key strongly, or the entry is
+ * never released.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+final class IdentityCache<K, V> {
+    private final ConcurrentHashMap<Key, V> map = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    V get(K key) {
+        expunge();
+        return map.get(new Key(key, null));
+    }
+
+    void put(K key, V value) {
+        expunge();
+        map.put(new Key(key, collected), value);
+    }
+
+    int size() {
+        expunge();
+        return map.size();
+    }
+
+    private void expunge() {
+        Object ref;
+        while ((ref = collected.poll()) != null) {
+            map.remove(ref);
+        }
+    }
+
+    private static final class Key extends WeakReference<Object> {
+        private final int hash;
+
+        private Key(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            Object referent = get();
+            return referent != null && referent == other.get();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package dm.dracolich.forge.table;
+
+import dm.dracolich.forge.metrics.ForgeMetrics;
+import dm.dracolich.forge.to.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable, precompiled weighted table with O(1) expected time per draw.
+ * <p>
+ * A draw is mapped exactly like {@link dm.dracolich.forge.Roll.Select#weightedChoice}: the roll is
+ * {@code floorMod(draw, totalWeight)} and the selected item is the one whose cumulative weight range
+ * contains the roll. Keeping that mapping is what lets historical rolls be verified against a table,
+ * which rules out Vose's alias method (it assigns rolls to items differently). Instead the table keeps
+ * the cumulative weights plus a guide table (Chen &amp; Asau): the roll range is split into one bucket
+ * per item and each bucket remembers the first item that can cover it, so a draw jumps straight to
+ * its bucket and scans on average fewer than two entries.
+ * <p>
+ * Negative weights are treated as zero, like {@code weightedChoice}; zero-weight items are never selected.
+ *
+ * @param <T> the type of the items in the table
+ */
+public final class WeightedTable<T> {
+    private static final IdentityCache<List<?>, WeightedTable<?>> CACHE = new IdentityCache<>();
+    private static final ToIntFunction<Value> VALUE_WEIGHT = v -> v.getWeight() == null ? 0 : v.getWeight();
+
+    private final List<T> items;
+    private final int[] cumulative;
+    private final int[] guide;
+    private final int totalWeight;
+    private final ToIntFunction<? super T> weightFn;
+
+    private WeightedTable(List<T> items, ToIntFunction<? super T> weightFn) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("items must be non-empty");
+        }
+
+        int size = items.size();
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.weightFn = weightFn;
+        this.cumulative = new int[size];
+
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += Math.max(0, weightFn.applyAsInt(this.items.get(i)));
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Sum of weights must not exceed " + Integer.MAX_VALUE);
+            }
+            cumulative[i] = (int) total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Sum of weights must be positive");
+        }
+        this.totalWeight = (int) total;
+
+        this.guide = new int[size];
+        int index = 0;
+        for (int bucket = 0; bucket < size; bucket++) {
+            // Lowest roll that falls into this bucket, ceil(bucket * total / size); buckets past
+            // the last roll exist only when total < size and are never looked up
+            long lowestRoll = Math.min((bucket * total + size - 1) / size, total - 1);
+            while (cumulative[index] <= lowestRoll) {
+                index++;
+            }
+            guide[bucket] = index;
+        }
+
+        if (ForgeMetrics.ENABLED) {
+            ForgeMetrics.get().recordTableCompiled(size);
+        }
+    }
+
+    /**
+     * Compiles a table from a list of values, using {@link Value#getWeight()} as weight
+     * ({@code null} counts as zero).
+     *
+     * @param values the values to compile; must be non-empty with a positive weight sum
+     * @return a new compiled table
+     * @throws IllegalArgumentException if values is null, empty, or the weights do not sum to a positive int
+     */
+    public static WeightedTable<Value> of(List<Value> values) {
+        return new WeightedTable<>(values, VALUE_WEIGHT);
+    }
+
+    /**
+     * Compiles a table from items and a weight function. The weight function is called once per item.
+     *
+     * @param <T> the type of the items
+     * @param items the items to compile; must be non-empty with a positive weight sum
+     * @param weightFn a function that returns the weight for each item
+     * @return a new compiled table
+     * @throws IllegalArgumentException if items is null, empty, or the weights do not sum to a positive int
+     */
+    public static <T> WeightedTable<T> of(List<T> items, ToIntFunction<? super T> weightFn) {
+        return new WeightedTable<>(items, weightFn);
+    }
+
+    /**
+     * Returns the compiled table for this exact list instance, compiling it on first use.
+     * <p>
+     * Tables are cached by list identity and released once the list is garbage collected. The cache
+     * cannot see changes made to the list or its values after compilation, so only pass lists that
+     * are treated as immutable.
+     *
+     * @param values the values to compile
+     * @return the cached compiled table for the list
+     */
+    public static WeightedTable<Value> cached(List<Value> values) {
+        return cached(values, VALUE_WEIGHT);
+    }
+
+    /**
+     * Returns the compiled table for this exact list instance and weight function, compiling it on first use.
+     * Weight functions are compared by identity, so pass the same instance (for example a constant)
+     * on every call; a different weight function for the same list replaces the cached table.
+     *
+     * @param <T> the type of the items
+     * @param items the items to compile
+     * @param weightFn a function that returns the weight for each item
+     * @return the cached compiled table for the list
+     * @see #cached(List)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> WeightedTable<T> cached(List<T> items, ToIntFunction<? super T> weightFn) {
+        if (items == null) {
+            throw new IllegalArgumentException("items must be non-empty");
+        }
+
+        WeightedTable<?> table = CACHE.get(items);
+        if (table == null || table.weightFn != weightFn) {
+            table = new WeightedTable<>(items, weightFn);
+            CACHE.put(items, table);
+        }
+        return (WeightedTable<T>) table;
+    }
+
+    /**
+     * Maps a draw to an item index using {@code floorMod(draw, totalWeight)}.
+     *
+     * @param draw the draw value used for selection
+     * @return the index of the selected item
+     */
+    public int indexOf(int draw) {
+        return indexForRoll(Math.floorMod(draw, totalWeight));
+    }
+
+    /**
+     * Maps a roll in {@code [0, totalWeight)} to the index of the item whose cumulative range contains it.
+     *
+     * @param roll the roll; must be in {@code [0, totalWeight)}
+     * @return the index of the selected item
+     * @throws IllegalArgumentException if the roll is out of range
+     */
+    public int indexForRoll(int roll) {
+        if (roll < 0 || roll >= totalWeight) {
+            throw new IllegalArgumentException("roll must be in [0, " + totalWeight + ")");
+        }
+
+        int index = guide[(int) ((long) roll * guide.length / totalWeight)];
+        while (cumulative[index] <= roll) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Selects an item using a draw value.
+     *
+     * @param draw the draw value used for selection
+     * @return the selected item
+     */
+    public T pick(int draw) {
+        return items.get(indexOf(draw));
+    }
+
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * @param index the item index
+     * @return the effective (non-negative) weight of the item
+     */
+    public int weight(int index) {
+        return index == 0 ? cumulative[0] : cumulative[index] - cumulative[index - 1];
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public int totalWeight() {
+        return totalWeight;
+    }
+
+    public List<T> items() {
+        return items;
+    }
+}
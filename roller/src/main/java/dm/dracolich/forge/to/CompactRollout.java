@@ -0,0 +1,233 @@
+package dm.dracolich.forge.to;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.codec.Hex;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.prf.PrfBackends;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.Value;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, compact form of a {@link Rollout} and its {@link Debug}.
+ * <p>
+ * Holds only what the debug is derived from: shared references to the seeds and value id, the nonce
+ * and weights as primitives, and both raw digests in one 64-byte array. Hex strings, messages, numeric
+ * prefixes and indices are recomputed on demand, so a compact rollout retains a small fraction of
+ * the heap of the bean pair. {@link #toRollout()} returns the bean view with its debug built lazily.
+ * <p>
+ * Absent {@code Integer}s of the bean are stored as {@link #ABSENT}. The accepted draws are kept next to
+ * the digests; with {@link DrawMode#MODULO} they are simply the digest prefixes, with
+ * {@link DrawMode#LEMIRE} they may come from later blocks of the streams after a rejection.
+ * <p>
+ * Compact rollouts are always drawn from the default HMAC-SHA256 backend; rolls of other
+ * {@link dm.dracolich.forge.prf.PrfBackend}s have no compact form.
+ */
+@Value
+public class CompactRollout {
+    public static final int ABSENT = Integer.MIN_VALUE;
+    public static final int DIGEST_LENGTH = 32;
+
+    String serverSeed;
+    String clientSeed;
+    long nonce;
+    String valueId;
+    int totalWeight;
+    int selectedValueWeight;
+    int itemsInValue;
+    DrawMode drawMode;
+    int valueDraw;
+    int itemDraw;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    byte[] digests;
+
+    /**
+     * Creates a compact {@link DrawMode#MODULO} rollout that takes ownership of {@code digests}.
+     *
+     * @param serverSeed the server seed
+     * @param clientSeed the client seed
+     * @param nonce the nonce
+     * @param valueId the id of the selected value
+     * @param totalWeight the total weight of the rolled values
+     * @param selectedValueWeight the weight of the selected value, or {@link #ABSENT}
+     * @param itemsInValue the item count of the selected value, or {@link #ABSENT}
+     * @param digests the value digest followed by the item digest; must hold exactly 64 bytes and not be modified afterwards
+     * @throws IllegalArgumentException if {@code digests} does not hold 64 bytes
+     */
+    public CompactRollout(String serverSeed, String clientSeed, long nonce, String valueId, int totalWeight,
+                          int selectedValueWeight, int itemsInValue, byte[] digests) {
+        this(serverSeed, clientSeed, nonce, valueId, totalWeight, selectedValueWeight, itemsInValue, digests,
+                DrawMode.MODULO, prefix(digests, 0), prefix(digests, DIGEST_LENGTH));
+    }
+
+    /**
+     * Creates a compact rollout that takes ownership of {@code digests}.
+     *
+     * @param serverSeed the server seed
+     * @param clientSeed the client seed
+     * @param nonce the nonce
+     * @param valueId the id of the selected value
+     * @param totalWeight the total weight of the rolled values
+     * @param selectedValueWeight the weight of the selected value, or {@link #ABSENT}
+     * @param itemsInValue the item count of the selected value, or {@link #ABSENT}
+     * @param digests the value digest followed by the item digest; must hold exactly 64 bytes and not be modified afterwards
+     * @param drawMode how the draws were mapped to indices
+     * @param valueDraw the accepted value draw
+     * @param itemDraw the accepted item draw
+     * @throws IllegalArgumentException if {@code digests} does not hold 64 bytes or the draw mode is null
+     */
+    public CompactRollout(String serverSeed, String clientSeed, long nonce, String valueId, int totalWeight,
+                          int selectedValueWeight, int itemsInValue, byte[] digests, DrawMode drawMode,
+                          int valueDraw, int itemDraw) {
+        if (digests == null || digests.length != 2 * DIGEST_LENGTH) {
+            throw new IllegalArgumentException("digests must hold " + 2 * DIGEST_LENGTH + " bytes");
+        }
+        if (drawMode == null) {
+            throw new IllegalArgumentException("drawMode must not be null");
+        }
+        this.serverSeed = serverSeed;
+        this.clientSeed = clientSeed;
+        this.nonce = nonce;
+        this.valueId = valueId;
+        this.totalWeight = totalWeight;
+        this.selectedValueWeight = selectedValueWeight;
+        this.itemsInValue = itemsInValue;
+        this.digests = digests;
+        this.drawMode = drawMode;
+        this.valueDraw = valueDraw;
+        this.itemDraw = itemDraw;
+    }
+
+    /**
+     * @param valueId the id of the selected value
+     * @param evidence the raw roll data
+     * @return the compact rollout
+     * @throws IllegalArgumentException if the roll was not drawn from the HMAC-SHA256 backend
+     */
+    public static CompactRollout of(String valueId, Roll.RollEvidence evidence) {
+        requireHmac(evidence.prfBackend().id());
+        byte[] digests = new byte[2 * DIGEST_LENGTH];
+        System.arraycopy(evidence.valueDigest(), 0, digests, 0, DIGEST_LENGTH);
+        System.arraycopy(evidence.itemDigest(), 0, digests, DIGEST_LENGTH, DIGEST_LENGTH);
+
+        Roll.RollContext ctx = evidence.ctx();
+        return new CompactRollout(ctx.serverSeed(), ctx.clientSeed(), ctx.nonce(), valueId, evidence.totalWeight(),
+                orAbsent(evidence.selectedValueWeight()), orAbsent(evidence.itemsInValue()), digests,
+                evidence.drawMode(), evidence.valueDraw(), evidence.itemDraw());
+    }
+
+    /**
+     * Compacts a rollout that carries its debug information. For a {@link DrawMode#LEMIRE} roll whose
+     * first draw was rejected, the accepted draw is re-derived from the server seed.
+     *
+     * @param rollout the rollout
+     * @return the compact rollout
+     * @throws IllegalArgumentException if the rollout has no debug information, an unknown draw version
+     * or was not drawn from the HMAC-SHA256 backend
+     */
+    public static CompactRollout of(Rollout rollout) {
+        Debug debug = rollout.getDebug();
+        if (debug == null) {
+            throw new IllegalArgumentException("rollout must carry debug information");
+        }
+        if (debug.getPrfBackend() != null) {
+            requireHmac(debug.getPrfBackend());
+        }
+
+        byte[] digests = new byte[2 * DIGEST_LENGTH];
+        if (!Hex.decode(debug.getValueHmacHex(), digests, 0) || !Hex.decode(debug.getItemHmacHex(), digests, DIGEST_LENGTH)) {
+            throw new IllegalArgumentException("debug digests must be 32-byte hex strings");
+        }
+        DrawMode mode = DrawMode.ofVersion(debug.getDrawVersion());
+        int valueDraw = prefix(digests, 0);
+        int itemDraw = prefix(digests, DIGEST_LENGTH);
+        if (mode != DrawMode.MODULO) {
+            KeyedPrf prf = KeyedPrf.forSeed(debug.getServerSeedUsed());
+            valueDraw = Roll.Prf.accepted(prf, debug.getClientSeed(), debug.getNonce(), "value",
+                    digests, mode, debug.getTotalWeight());
+            Integer items = debug.getItemsInValue();
+            if (items != null && items > 0) {
+                itemDraw = Roll.Prf.accepted(prf, debug.getClientSeed(), debug.getNonce(), "item",
+                        Arrays.copyOfRange(digests, DIGEST_LENGTH, 2 * DIGEST_LENGTH), mode, items);
+            }
+        }
+        return new CompactRollout(debug.getServerSeedUsed(), debug.getClientSeed(), debug.getNonce(), rollout.getId(),
+                debug.getTotalWeight(), orAbsent(debug.getSelectedValueWeight()), orAbsent(debug.getItemsInValue()),
+                digests, mode, valueDraw, itemDraw);
+    }
+
+    private static void requireHmac(String prfBackend) {
+        if (!PrfBackends.HMAC_SHA256.id().equals(prfBackend)) {
+            throw new IllegalArgumentException("Only " + PrfBackends.HMAC_SHA256.id()
+                    + " rollouts have a compact form, not " + prfBackend);
+        }
+    }
+
+    /**
+     * @return the selected item index, or {@link #ABSENT} if the selected value has no items
+     */
+    public int itemIndex() {
+        return itemsInValue != ABSENT && itemsInValue > 0 ? drawMode.index(itemDraw, itemsInValue) : ABSENT;
+    }
+
+    /**
+     * @return the roll that selected the value, the value draw mapped into {@code [0, totalWeight)}
+     */
+    public int rollValue() {
+        return drawMode.index(valueDraw, totalWeight);
+    }
+
+    public byte[] valueDigest() {
+        return Arrays.copyOfRange(digests, 0, DIGEST_LENGTH);
+    }
+
+    public byte[] itemDigest() {
+        return Arrays.copyOfRange(digests, DIGEST_LENGTH, 2 * DIGEST_LENGTH);
+    }
+
+    /**
+     * Copies both digests, value digest first, into {@code out}.
+     *
+     * @param out the destination; needs 64 bytes from {@code offset}
+     * @param offset where the digests are written
+     */
+    public void copyDigests(byte[] out, int offset) {
+        System.arraycopy(digests, 0, out, offset, 2 * DIGEST_LENGTH);
+    }
+
+    /**
+     * @return the raw roll data, from which {@link Debug} is built
+     */
+    public Roll.RollEvidence evidence() {
+        return new Roll.RollEvidence(new Roll.RollContext(serverSeed, clientSeed, nonce), drawMode, valueDigest(),
+                itemDigest(), valueDraw, itemDraw, totalWeight, fromAbsent(selectedValueWeight), fromAbsent(itemsInValue));
+    }
+
+    /**
+     * @return the bean view; its debug is built on first access
+     */
+    public Rollout toRollout() {
+        return Rollout.withLazyDebug(valueId, fromAbsent(itemIndex()), evidence());
+    }
+
+    private static int prefix(byte[] digests, int offset) {
+        if (digests == null || digests.length < offset + 4) {
+            return 0; // rejected by the constructor
+        }
+        return ((digests[offset] & 0xff) << 24) | ((digests[offset + 1] & 0xff) << 16)
+                | ((digests[offset + 2] & 0xff) << 8) | (digests[offset + 3] & 0xff);
+    }
+
+    private static int orAbsent(Integer value) {
+        return value == null ? ABSENT : value;
+    }
+
+    private static Integer fromAbsent(int value) {
+        return value == ABSENT ? null : value;
+    }
+}
@@ -2,6 +2,13 @@ package dm.dracolich.forge.to;
 
 import lombok.*;
 
+/**
+ * Verification data of one roll.
+ * <p>
+ * The all-args constructor gains a parameter with every new field ({@code drawVersion}, then
+ * {@code prfBackend}); the earlier forms are kept as deprecated constructors that leave the new fields
+ * null, which verifiers read as the original floorMod draws on HMAC-SHA256. Prefer {@link #builder()}.
+ */
 @Data
 @Getter
 @Setter
@@ -22,4 +29,36 @@ public class Debug {
     private Integer itemIndex; // item_value % items_in_value → index within the selected value (714466818 % 4 = 2)
     private Integer itemsInValue; // Number of items in the selected Value (from Value.getCount())
     private Integer totalWeight; // Sum of all weights across all Value objects in the input list
+    private Integer drawVersion; // Draw algorithm (DrawMode version): 1 or null = floorMod, 2 = multiply-shift with rejection
+    private String prfBackend; // PRF backend id (PrfBackend.id()): "hmac-sha256" or null = HMAC-SHA256, "chacha20" = ChaCha20 keystream
+
+    /**
+     * The constructor from before {@code drawVersion} and {@code prfBackend} were added.
+     *
+     * @deprecated use {@link #builder()}
+     */
+    @Deprecated
+    public Debug(String serverSeedUsed, String clientSeed, Long nonce, String valueMsg, String valueHmacHex,
+                 Long hmacValueNumericPrefix, Integer rollValue, Integer selectedValueWeight, String itemMsg,
+                 String itemHmacHex, Long hmacItemNumericPrefix, Integer itemIndex, Integer itemsInValue,
+                 Integer totalWeight) {
+        this(serverSeedUsed, clientSeed, nonce, valueMsg, valueHmacHex, hmacValueNumericPrefix, rollValue,
+                selectedValueWeight, itemMsg, itemHmacHex, hmacItemNumericPrefix, itemIndex, itemsInValue,
+                totalWeight, null, null);
+    }
+
+    /**
+     * The constructor from before {@code prfBackend} was added.
+     *
+     * @deprecated use {@link #builder()}
+     */
+    @Deprecated
+    public Debug(String serverSeedUsed, String clientSeed, Long nonce, String valueMsg, String valueHmacHex,
+                 Long hmacValueNumericPrefix, Integer rollValue, Integer selectedValueWeight, String itemMsg,
+                 String itemHmacHex, Long hmacItemNumericPrefix, Integer itemIndex, Integer itemsInValue,
+                 Integer totalWeight, Integer drawVersion) {
+        this(serverSeedUsed, clientSeed, nonce, valueMsg, valueHmacHex, hmacValueNumericPrefix, rollValue,
+                selectedValueWeight, itemMsg, itemHmacHex, hmacItemNumericPrefix, itemIndex, itemsInValue,
+                totalWeight, drawVersion, null);
+    }
 }
@@ -0,0 +1,20 @@
+package dm.dracolich.forge.to;
+
+/**
+ * How much verification data a roll keeps in its {@link Rollout}.
+ */
+public enum DebugLevel {
+    /**
+     * No debug data; {@link Rollout#getDebug()} returns null.
+     */
+    NONE,
+    /**
+     * Only the raw digests and selection numbers are retained; the {@link Debug} bean (hex strings,
+     * messages) is rebuilt from them the first time {@link Rollout#getDebug()} is called.
+     */
+    SUMMARY,
+    /**
+     * The {@link Debug} bean is built eagerly with the roll.
+     */
+    FULL
+}
@@ -1,6 +1,7 @@
 package dm.dracolich.forge.to;
 
 import dm.dracolich.forge.Dice;
+import dm.dracolich.forge.table.WeightedTable;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
@@ -8,6 +9,7 @@ import java.util.List;
 @Slf4j
 public enum DiceEnum {
     D4("d4", Dice.d4()),
+    D6("d6", Dice.d6()),
     D8("d8", Dice.d8()),
     D10("d10", Dice.d10()),
     D12("d12", Dice.d12()),
@@ -16,16 +18,25 @@ public enum DiceEnum {
 
     private final String id;
     private final List<Value> dice;
+    private final WeightedTable<Value> table;
 
     DiceEnum(String id, List<Value> dice) {
         this.id = id;
         this.dice = dice;
+        this.table = WeightedTable.of(dice);
     }
 
     public List<Value> getDiceValues() {
         return this.dice;
     }
 
+    /**
+     * @return the faces of this dice compiled once into a weighted table
+     */
+    public WeightedTable<Value> getTable() {
+        return this.table;
+    }
+
     public static DiceEnum of(String dice) {
         for (DiceEnum d : values()) {
             if (d.id.equalsIgnoreCase(dice)) {
@@ -0,0 +1,69 @@
+package dm.dracolich.forge.to;
+
+/**
+ * How a 32-bit draw is mapped to an index in {@code [0, size)}. The version is recorded in
+ * {@link Debug#getDrawVersion()} so verifiers know which algorithm produced a roll.
+ */
+public enum DrawMode {
+    /**
+     * Version 1, the original mapping: {@code floorMod(draw, size)} of the signed draw. Every draw is
+     * accepted, but sizes that do not divide 2^32 are slightly biased towards low indices.
+     */
+    MODULO(1),
+
+    /**
+     * Version 2: Lemire's multiply-shift, {@code (unsigned(draw) * size) >>> 32}, with rejection. A draw
+     * whose low product word falls below {@code 2^32 mod size} is rejected and the next draw of the same
+     * PRF stream is used instead, which makes every index exactly equally likely. The first draw is
+     * accepted with probability at least {@code 1 - size / 2^32}, and no division is needed unless the
+     * low word is below {@code size}.
+     */
+    LEMIRE(2);
+
+    private final int version;
+
+    DrawMode(int version) {
+        this.version = version;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    /**
+     * @param version a draw version, as recorded in {@link Debug#getDrawVersion()}; {@code null} means 1
+     * @return the draw mode of the version
+     * @throws IllegalArgumentException if the version is unknown
+     */
+    public static DrawMode ofVersion(Integer version) {
+        if (version == null || version == 1) return MODULO;
+        if (version == 2) return LEMIRE;
+        throw new IllegalArgumentException("Unknown draw version " + version);
+    }
+
+    /**
+     * @param draw the draw
+     * @param size the upper bound (exclusive); must be positive
+     * @return whether the draw can be mapped without bias
+     */
+    public boolean accepts(int draw, int size) {
+        if (this == MODULO) return true;
+
+        long low = (Integer.toUnsignedLong(draw) * size) & 0xFFFFFFFFL;
+        // 2^32 mod size, only computed on the rare path where rejection is possible
+        return low >= size || low >= (1L << 32) % size;
+    }
+
+    /**
+     * Maps an accepted draw to an index.
+     *
+     * @param draw the draw; must be {@linkplain #accepts accepted}
+     * @param size the upper bound (exclusive); must be positive
+     * @return an index in {@code [0, size)}
+     */
+    public int index(int draw, int size) {
+        return this == MODULO
+                ? Math.floorMod(draw, size)
+                : (int) ((Integer.toUnsignedLong(draw) * size) >>> 32);
+    }
+}
@@ -0,0 +1,45 @@
+package dm.dracolich.forge.to;
+
+import dm.dracolich.forge.prf.PrfBackend;
+import dm.dracolich.forge.prf.PrfBackends;
+
+/**
+ * Options of a two-stage fair roll.
+ *
+ * @param debugLevel how much debug information the rollout keeps
+ * @param drawMode how draws are mapped to indices
+ * @param prfBackend the PRF the draws come from
+ */
+public record RollOptions(DebugLevel debugLevel, DrawMode drawMode, PrfBackend prfBackend) {
+    /** Full debug information with the original modulo mapping over HMAC-SHA256. */
+    public static final RollOptions DEFAULT = new RollOptions(DebugLevel.FULL, DrawMode.MODULO);
+
+    public RollOptions {
+        if (debugLevel == null || drawMode == null || prfBackend == null) {
+            throw new IllegalArgumentException("debugLevel, drawMode and prfBackend must not be null");
+        }
+    }
+
+    /**
+     * Options drawing from the default {@link PrfBackends#HMAC_SHA256} backend.
+     */
+    public RollOptions(DebugLevel debugLevel, DrawMode drawMode) {
+        this(debugLevel, drawMode, PrfBackends.HMAC_SHA256);
+    }
+
+    public static RollOptions of(DebugLevel debugLevel) {
+        return new RollOptions(debugLevel, DrawMode.MODULO);
+    }
+
+    public RollOptions withDebugLevel(DebugLevel debugLevel) {
+        return new RollOptions(debugLevel, drawMode, prfBackend);
+    }
+
+    public RollOptions withDrawMode(DrawMode drawMode) {
+        return new RollOptions(debugLevel, drawMode, prfBackend);
+    }
+
+    public RollOptions withPrfBackend(PrfBackend prfBackend) {
+        return new RollOptions(debugLevel, drawMode, prfBackend);
+    }
+}
@@ -1,17 +1,69 @@
 package dm.dracolich.forge.to;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.ToString;
+
+import java.util.function.Supplier;
 
 @Data
 @Getter
 @Setter
-@AllArgsConstructor
 public class Rollout {
     private String id;
     private Integer value;
-    private Debug debug;
+    private volatile Debug debug;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile Supplier<Debug> debugSource; // Rebuilds the debug on first access (DebugLevel.SUMMARY)
+
+    public Rollout(String id, Integer value, Debug debug) {
+        this.id = id;
+        this.value = value;
+        this.debug = debug;
+    }
+
+    /**
+     * Creates a rollout whose {@link Debug} is only built when {@link #getDebug()} is first called.
+     *
+     * @param id the selected value id
+     * @param value the selected item index
+     * @param debugSource builds the debug information from retained roll data
+     * @return the rollout
+     */
+    public static Rollout withLazyDebug(String id, Integer value, Supplier<Debug> debugSource) {
+        Rollout rollout = new Rollout(id, value, null);
+        rollout.debugSource = debugSource;
+        return rollout;
+    }
+
+    /**
+     * Returns the debug information, building it on the first call if it is lazy. Concurrent first calls
+     * build it once and all see the same instance.
+     */
+    public Debug getDebug() {
+        Debug current = debug;
+        if (current != null || debugSource == null) {
+            return current;
+        }
+        synchronized (this) {
+            Supplier<Debug> source = debugSource;
+            if (debug == null && source != null) {
+                debug = source.get();
+                debugSource = null;
+            }
+            return debug;
+        }
+    }
 
+    public synchronized void setDebug(Debug debug) {
+        this.debug = debug;
+        this.debugSource = null;
+    }
 }
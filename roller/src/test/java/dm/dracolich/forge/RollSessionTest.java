@@ -0,0 +1,83 @@
+package dm.dracolich.forge;
+
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.Value;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollSessionTest {
+    private static final RollSession.Category VALUE = RollSession.category("value");
+    private static final RollSession.Category LOOT = RollSession.category("lööt");
+
+    @Test
+    void digests_match_hmac_of_built_message() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("server".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        RollSession session = RollSession.open("server", "clïent", -3);
+        byte[] digest = new byte[32];
+
+        for (int i = 0; i < 30; i++) {
+            long nonce = session.nonce();
+            session.digest(LOOT, digest, 0);
+            byte[] expected = mac.doFinal(Roll.buildMessage("clïent", nonce, "lööt").getBytes(StandardCharsets.UTF_8));
+            assertArrayEquals(expected, digest);
+            assertEquals(nonce + 1, session.advance());
+        }
+
+        session.seek(Long.MIN_VALUE);
+        session.digest(VALUE, digest, 0);
+        assertArrayEquals(mac.doFinal(Roll.buildMessage("clïent", Long.MIN_VALUE, "value")
+                .getBytes(StandardCharsets.UTF_8)), digest);
+    }
+
+    @Test
+    void draws_equal_the_stateless_api() {
+        RollSession session = RollSession.open("server", "client", 100);
+
+        for (long nonce = 100; nonce < 400; nonce++) {
+            assertEquals(nonce, session.nonce());
+            assertEquals(Roll.Prf.drawInt(new Roll.RollContext("server", "client", nonce), "value"),
+                    session.drawInt(VALUE));
+            for (DrawMode mode : DrawMode.values()) {
+                assertEquals(Roll.drawIndex("server", "client", nonce, "value", 37, mode),
+                        session.drawIndex(VALUE, 37, mode));
+                assertSame(Roll.drawWeighted("server", "client", nonce, "value", DiceEnum.D20.getTable(), mode),
+                        session.drawWeighted(VALUE, DiceEnum.D20.getTable(), mode));
+            }
+            assertEquals(nonce, session.nonce());
+            session.advance();
+        }
+        assertEquals(-1, session.drawIndex(VALUE, 0, DrawMode.LEMIRE));
+    }
+
+    @Test
+    void next_draws_advance_the_nonce() {
+        RollSession session = RollSession.open("server", "client", 0);
+        int[] faces = new int[50];
+        Roll.drawWeightedBatch(new Roll.RollContext("server", "client", 0), "value", 0, faces.length,
+                DiceEnum.D6.getTable(), DrawMode.LEMIRE, faces);
+
+        for (int face : faces) {
+            Value value = session.nextWeighted(VALUE, DiceEnum.D6.getTable(), DrawMode.LEMIRE);
+            assertSame(DiceEnum.D6.getDiceValues().get(face), value);
+        }
+        assertEquals(faces.length, session.nonce());
+        assertEquals(Roll.drawIndex("server", "client", 50, "value", 6, DrawMode.MODULO),
+                session.nextIndex(VALUE, 6, DrawMode.MODULO));
+        assertEquals(51, session.nonce());
+    }
+
+    @Test
+    void invalid_sessions_are_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> RollSession.open("", "client", 0));
+        assertThrows(IllegalArgumentException.class, () -> RollSession.open("server", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> RollSession.category(null));
+        assertThrows(IllegalArgumentException.class, () -> RollSession.category("dice:1"));
+    }
+}
@@ -1,5 +1,8 @@
 package dm.dracolich.forge;
 
+import dm.dracolich.forge.to.Debug;
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DiceEnum;
 import dm.dracolich.forge.to.Rollout;
 import dm.dracolich.forge.to.Value;
 import org.junit.jupiter.api.Test;
@@ -9,7 +12,13 @@ import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -123,4 +132,138 @@ class RollTest {
         Value chosen = Roll.drawWeighted(serverSeed, clientSeed, nonce, "value", List.of(a, b), f -> f.getWeight());
         assertTrue(chosen == a || chosen == b);
     }
+
+    @Test
+    void fairRoll_debug_matches_independent_hmacs() throws Exception {
+        Value a = Value.builder().id("A").weight(3).count(7).build();
+        Value b = Value.builder().id("B").weight(5).count(2).build();
+        String serverSeed = "seed-beta";
+        String clientSeed = "player-y";
+        long nonce = 1234L;
+
+        byte[] valueHmac = hmacSha256(serverSeed, clientSeed + ":" + nonce + ":value");
+        byte[] itemHmac = hmacSha256(serverSeed, clientSeed + ":" + nonce + ":item");
+
+        Debug debug = Roll.fairRoll(serverSeed, clientSeed, nonce, List.of(a, b), false).result().getDebug();
+
+        assertEquals(clientSeed + ":" + nonce + ":value", debug.getValueMsg());
+        assertEquals(clientSeed + ":" + nonce + ":item", debug.getItemMsg());
+        assertEquals(hex(valueHmac), debug.getValueHmacHex());
+        assertEquals(hex(itemHmac), debug.getItemHmacHex());
+        assertEquals(Integer.toUnsignedLong(firstFourBytesAsInt(valueHmac)), debug.getHmacValueNumericPrefix());
+        assertEquals(Integer.toUnsignedLong(firstFourBytesAsInt(itemHmac)), debug.getHmacItemNumericPrefix());
+        assertEquals(Math.floorMod(firstFourBytesAsInt(valueHmac), 8), debug.getRollValue());
+    }
+
+    @Test
+    void draw_derives_prefix_and_hex_from_one_digest() throws Exception {
+        Roll.Draw draw = Roll.Prf.draw(new Roll.RollContext("k", "c", 5L), "dice");
+
+        assertEquals("c:5:dice", draw.message());
+        assertArrayEquals(hmacSha256("k", "c:5:dice"), draw.digest());
+        assertEquals(Roll.Prf.drawInt(new Roll.RollContext("k", "c", 5L), "dice"), draw.prefix());
+        assertEquals(Roll.hmacHex("k", "c:5:dice"), draw.hex());
+    }
+
+    @Test
+    void drawIndexBatch_matches_single_draws() {
+        Roll.RollContext ctx = new Roll.RollContext("srv", "clï", 0L);
+        for (long start : new long[]{-15L, 0L, 9_999_990L, Long.MAX_VALUE - 3, Long.MIN_VALUE}) {
+            int[] out = new int[8];
+            Roll.drawIndexBatch(ctx, "dice", start, 4, 20, out);
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Roll.drawIndex("srv", "clï", start + i, "dice", 20), out[i]);
+            }
+            assertEquals(0, out[4]);
+        }
+    }
+
+    @Test
+    void drawWeightedBatch_matches_rollDice_faces() {
+        int[] faces = new int[50];
+        Roll.drawWeightedBatch(new Roll.RollContext("srv", "cli", 0L), "value", 100L, 50,
+                DiceEnum.D12.getTable(), faces);
+
+        for (int i = 0; i < 50; i++) {
+            Rollout single = Roll.fairRoll("srv", "cli", 100L + i, DiceEnum.D12.getDiceValues(), false).result();
+            assertEquals(single.getId(), DiceEnum.D12.getDiceValues().get(faces[i]).getId());
+        }
+    }
+
+    @Test
+    void batch_input_validation_errors() {
+        Roll.RollContext ctx = new Roll.RollContext("s", "c", 0L);
+        assertThrows(IllegalArgumentException.class, () -> Roll.drawIndexBatch(ctx, "dice", 0, 5, 6, new int[4]));
+        assertThrows(IllegalArgumentException.class, () -> Roll.drawIndexBatch(ctx, "dice", 0, -1, 6, new int[4]));
+
+        int[] out = new int[2];
+        Roll.drawIndexBatch(ctx, "dice", 0, 2, 0, out);
+        assertArrayEquals(new int[]{-1, -1}, out);
+    }
+
+    @Test
+    void debug_levels_keep_selection_and_materialize_debug_lazily() {
+        Value a = Value.builder().id("A").weight(2).count(9).build();
+        Value b = Value.builder().id("B").weight(7).count(4).build();
+        List<Value> values = List.of(a, b);
+
+        Rollout full = Roll.fairRoll("srv", "cli", 77L, values, false, DebugLevel.FULL).result();
+        Rollout summary = Roll.fairRoll("srv", "cli", 77L, values, false, DebugLevel.SUMMARY).result();
+        Rollout none = Roll.fairRoll("srv", "cli", 77L, values, false, DebugLevel.NONE).result();
+
+        assertEquals(full.getId(), none.getId());
+        assertEquals(full.getValue(), none.getValue());
+        assertNull(none.getDebug());
+
+        Debug lazy = summary.getDebug();
+        assertEquals(full.getDebug(), lazy);
+        assertSame(lazy, summary.getDebug());
+        assertEquals(full, summary);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void legacy_debug_constructors_leave_new_fields_unset() {
+        Debug legacy = new Debug("srv", "cli", 1L, "cli:1:value", "aa", 7L, 3, 2, "cli:1:item", "bb", 9L, 1, 4, 10);
+        assertNull(legacy.getDrawVersion());
+        assertNull(legacy.getPrfBackend());
+        assertEquals(legacy, Debug.builder().serverSeedUsed("srv").clientSeed("cli").nonce(1L)
+                .valueMsg("cli:1:value").valueHmacHex("aa").hmacValueNumericPrefix(7L).rollValue(3)
+                .selectedValueWeight(2).itemMsg("cli:1:item").itemHmacHex("bb").hmacItemNumericPrefix(9L)
+                .itemIndex(1).itemsInValue(4).totalWeight(10).build());
+        assertEquals(2, new Debug("srv", "cli", 1L, null, null, null, null, null, null, null, null, null, null, 10, 2)
+                .getDrawVersion());
+    }
+
+    @Test
+    void lazy_debug_is_built_once_under_contention() throws Exception {
+        Debug debug = Roll.fairRoll("srv", "cli", 1L, DiceEnum.D20.getTable(), false).result().getDebug();
+        AtomicInteger builds = new AtomicInteger();
+        Rollout rollout = Rollout.withLazyDebug("x", 0, () -> {
+            builds.incrementAndGet();
+            return debug;
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            List<Future<Debug>> seen = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                seen.add(pool.submit(() -> {
+                    start.await();
+                    return rollout.getDebug();
+                }));
+            }
+            start.countDown();
+            for (Future<Debug> future : seen) {
+                assertSame(debug, future.get());
+            }
+        }
+        assertEquals(1, builds.get());
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
 }
@@ -0,0 +1,116 @@
+package dm.dracolich.forge.audit;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.codec.Hex;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.Rollout;
+import dm.dracolich.forge.to.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditVerifierTest {
+
+    private static Rollout roll(long nonce) {
+        return Roll.fairRoll("server", "client-" + (nonce % 7), nonce, DiceEnum.D20.getTable(), false).result();
+    }
+
+    @Test
+    void genuine_rollouts_verify_in_parallel() {
+        AuditVerifier verifier = AuditVerifier.builder().chunkSize(100).maxInFlightChunks(3).build();
+
+        AuditReport report = verifier.verify(LongStream.range(0, 5_000).mapToObj(AuditVerifierTest::roll));
+
+        assertEquals(5_000, report.total());
+        assertEquals(5_000, report.verified());
+        assertTrue(report.passed());
+        assertTrue(report.throughputPerSecond() > 0);
+    }
+
+    @Test
+    void tampered_rollouts_are_reported_by_position() {
+        List<Rollout> rollouts = new ArrayList<>();
+        for (long nonce = 0; nonce < 1_000; nonce++) {
+            rollouts.add(roll(nonce));
+        }
+        rollouts.get(10).getDebug().setValueHmacHex("00".repeat(32));
+        rollouts.get(500).getDebug().setNonce(123_456L);
+        rollouts.get(700).setValue(rollouts.get(700).getValue() + 1);
+        rollouts.get(900).setDebug(null);
+
+        AuditReport report = AuditVerifier.builder().chunkSize(64).build().verify(rollouts.iterator());
+
+        assertEquals(1_000, report.total());
+        assertEquals(3, report.mismatched());
+        assertEquals(1, report.skipped());
+        assertEquals(996, report.verified());
+        assertEquals(List.of(10L, 500L, 700L), report.mismatches().stream().map(AuditMismatch::position).toList());
+        assertEquals(AuditMismatch.Reason.VALUE_HMAC, report.mismatches().get(0).reason());
+        assertEquals(AuditMismatch.Reason.VALUE_MESSAGE, report.mismatches().get(1).reason());
+        assertEquals(AuditMismatch.Reason.ITEM_INDEX, report.mismatches().get(2).reason());
+    }
+
+    @Test
+    void capped_reports_list_the_first_mismatches_by_position() {
+        List<Rollout> rollouts = new ArrayList<>();
+        for (long nonce = 0; nonce < 4_000; nonce++) {
+            Rollout rollout = roll(nonce);
+            if (nonce % 3 == 0) {
+                rollout.getDebug().setValueHmacHex("00".repeat(32));
+            }
+            rollouts.add(rollout);
+        }
+        AuditVerifier verifier = AuditVerifier.builder().chunkSize(256).maxReportedMismatches(50).build();
+        List<Long> first = LongStream.range(0, 50).map(i -> i * 3).boxed().toList();
+
+        for (int run = 0; run < 5; run++) {
+            AuditReport report = verifier.verify(rollouts.iterator());
+            assertEquals(1_334, report.mismatched());
+            assertEquals(first, report.mismatches().stream().map(AuditMismatch::position).toList());
+        }
+    }
+
+    @Test
+    void lemire_rollouts_verify_including_rejected_draws() {
+        // Sizes just above 2^30 reject about a quarter of first draws
+        WeightedTable<Value> table = WeightedTable.of(List.of(
+                Value.builder().id("A").weight(1 << 29).count((1 << 30) + 1).build(),
+                Value.builder().id("B").weight((1 << 29) + 1).count(3).build()));
+        RollOptions options = RollOptions.DEFAULT.withDrawMode(DrawMode.LEMIRE);
+
+        List<Rollout> rollouts = LongStream.range(0, 200)
+                .mapToObj(nonce -> Roll.fairRoll("server", "client", nonce, table, false, options).result())
+                .toList();
+
+        assertTrue(rollouts.stream().allMatch(r -> r.getDebug().getDrawVersion() == 2));
+        assertTrue(rollouts.stream().anyMatch(r -> Integer.toUnsignedLong(r.getDebug().getRollValue())
+                != (r.getDebug().getHmacValueNumericPrefix() * table.totalWeight()) >>> 32));
+        assertTrue(AuditVerifier.builder().build().verify(rollouts.iterator()).passed());
+
+        rollouts.getFirst().getDebug().setDrawVersion(1);
+        assertNotNull(AuditVerifier.check(rollouts.getFirst()));
+        rollouts.getFirst().getDebug().setDrawVersion(7);
+        assertEquals(AuditMismatch.Reason.MALFORMED, AuditVerifier.check(rollouts.getFirst()));
+    }
+
+    @Test
+    void hex_codec_round_trips_and_rejects_invalid_input() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) i;
+
+        String hex = Hex.encode(bytes);
+        assertArrayEquals(bytes, Hex.decode(hex));
+        assertArrayEquals(bytes, Hex.decode(hex.toUpperCase()));
+        assertEquals("00ff7f80", Hex.encode(new byte[]{0, -1, 127, -128}));
+        assertThrows(IllegalArgumentException.class, () -> Hex.decode("abc"));
+        assertThrows(IllegalArgumentException.class, () -> Hex.decode("zz"));
+        assertFalse(Hex.decode("0g", new byte[1], 0));
+    }
+}
@@ -0,0 +1,83 @@
+package dm.dracolich.forge.chain;
+
+import dm.dracolich.forge.Roll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeedChainStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void segments_follow_seedChainAdvance() throws Exception {
+        List<byte[]> genesis = List.of(SeedChain.randomGenesis(), SeedChain.randomGenesis(), SeedChain.randomGenesis());
+
+        try (SeedChainStore store = SeedChainStore.build(dir.resolve("chain.bin"), genesis, 200)) {
+            assertEquals(3, store.segments());
+            assertEquals(200, store.segmentLength());
+            for (int s = 0; s < 3; s++) {
+                String seed = SeedChain.seed(genesis.get(s));
+                for (long i = 0; i < 200; i++) {
+                    assertEquals(seed, store.seed(s, i));
+                    seed = Roll.seedChainAdvance(seed);
+                }
+            }
+        }
+        assertEquals(64 + 3 * 200 * 32, Files.size(dir.resolve("chain.bin")));
+    }
+
+    @Test
+    void reveals_verify_against_commitment_after_reopen() throws Exception {
+        Path file = dir.resolve("chain.bin");
+        SeedChainStore.build(file, List.of(SeedChain.randomGenesis()), 50).close();
+
+        try (SeedChainStore store = SeedChainStore.open(file)) {
+            String previous = store.commitment(0);
+            for (long round = 0; round < 49; round++) {
+                String revealed = store.revealed(0, round);
+                assertTrue(SeedChain.verifies(revealed, previous));
+                previous = revealed;
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> store.revealed(0, 49));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.seed(1, 0));
+        }
+    }
+
+    @Test
+    void pebbled_chain_matches_store_without_keeping_the_chain() throws Exception {
+        byte[] genesis = SeedChain.randomGenesis();
+        try (SeedChainStore store = SeedChainStore.build(dir.resolve("chain.bin"), List.of(genesis), 1_000)) {
+            PebbledSeedChain pebbled = new PebbledSeedChain(genesis, 1_000);
+
+            assertEquals(store.commitment(0), pebbled.commitment());
+            assertEquals(store.seed(0, 617), pebbled.seed(617));
+
+            List<String> reveals = new ArrayList<>();
+            Iterator<String> it = pebbled.reveals();
+            while (it.hasNext()) {
+                reveals.add(it.next());
+            }
+            assertEquals(999, reveals.size());
+            for (int round = 0; round < reveals.size(); round++) {
+                assertEquals(store.revealed(0, round), reveals.get(round));
+            }
+        }
+    }
+
+    @Test
+    void open_rejects_foreign_files() throws Exception {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[128]);
+
+        assertThrows(IllegalArgumentException.class, () -> SeedChainStore.open(file));
+    }
+}
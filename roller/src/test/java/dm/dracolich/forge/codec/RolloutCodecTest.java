@@ -0,0 +1,104 @@
+package dm.dracolich.forge.codec;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.CompactRollout;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.Rollout;
+import dm.dracolich.forge.to.Value;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RolloutCodecTest {
+
+    @Test
+    void compact_roll_matches_fair_roll_bean() {
+        for (long nonce = 0; nonce < 50; nonce++) {
+            Rollout bean = Roll.fairRoll("server", "client", nonce, DiceEnum.D20.getTable(), false).result();
+            CompactRollout compact = Roll.compactRoll(KeyedPrf.create("server"), "client", nonce, DiceEnum.D20.getTable());
+
+            assertEquals(CompactRollout.of(bean), compact);
+            assertEquals(bean, compact.toRollout());
+        }
+    }
+
+    @Test
+    void absent_counts_survive_the_bean_round_trip() {
+        WeightedTable<Value> table = WeightedTable.of(List.of(Value.builder().id("x").weight(3).build()));
+        CompactRollout compact = Roll.compactRoll(KeyedPrf.create("server"), "client", 1, table);
+        Rollout bean = Roll.fairRoll("server", "client", 1, table, false).result();
+
+        assertEquals(CompactRollout.ABSENT, compact.getItemsInValue());
+        assertEquals(CompactRollout.ABSENT, compact.itemIndex());
+        assertEquals(bean, compact.toRollout());
+    }
+
+    @Test
+    void codec_round_trips_through_arrays_and_direct_buffers() {
+        CompactRollout compact = Roll.compactRoll(KeyedPrf.create("sërvér"), "clïent", Long.MIN_VALUE,
+                DiceEnum.D100.getTable());
+
+        assertEquals(compact, RolloutCodec.decode(RolloutCodec.encode(compact)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(1024);
+        int first = RolloutCodec.encode(compact, direct);
+        int second = RolloutCodec.encode(compact, direct);
+        assertEquals(first, second);
+        direct.flip();
+        assertEquals(compact, RolloutCodec.decode(direct));
+        assertEquals(compact, RolloutCodec.decode(direct));
+        assertFalse(direct.hasRemaining());
+    }
+
+    @Test
+    void lemire_rollouts_keep_their_accepted_draws() {
+        WeightedTable<Value> table = WeightedTable.of(List.of(
+                Value.builder().id("x").weight((1 << 30) + 1).count((1 << 30) + 1).build()));
+        RollOptions options = RollOptions.DEFAULT.withDrawMode(DrawMode.LEMIRE);
+
+        for (long nonce = 0; nonce < 50; nonce++) {
+            Rollout bean = Roll.fairRoll("server", "client", nonce, table, false, options).result();
+            CompactRollout compact = Roll.compactRoll(KeyedPrf.create("server"), "client", nonce, table, DrawMode.LEMIRE);
+
+            assertEquals(DrawMode.LEMIRE, compact.getDrawMode());
+            assertEquals(CompactRollout.of(bean), compact);
+            assertEquals(bean, compact.toRollout());
+            assertEquals(compact, RolloutCodec.decode(RolloutCodec.encode(compact)));
+        }
+    }
+
+    @Test
+    void version_one_encodings_decode_as_modulo() {
+        CompactRollout compact = Roll.compactRoll(KeyedPrf.create("server"), "client", 5, DiceEnum.D20.getTable());
+        byte[] bytes = RolloutCodec.encode(compact);
+        byte[] legacy = Arrays.copyOf(bytes, bytes.length - 1);
+        legacy[0] = 1;
+
+        assertEquals(compact, RolloutCodec.decode(legacy));
+    }
+
+    @Test
+    void null_strings_are_encoded() {
+        CompactRollout compact = new CompactRollout(null, "client", 3, null, 10, CompactRollout.ABSENT, 4, new byte[64]);
+        assertEquals(compact, RolloutCodec.decode(RolloutCodec.encode(compact)));
+    }
+
+    @Test
+    void malformed_input_is_rejected() {
+        byte[] bytes = RolloutCodec.encode(Roll.compactRoll(KeyedPrf.create("server"), "client", 1,
+                DiceEnum.D6.getTable()));
+
+        assertThrows(IllegalArgumentException.class, () -> RolloutCodec.decode(Arrays.copyOf(bytes, bytes.length - 1)));
+        bytes[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> RolloutCodec.decode(bytes));
+        assertThrows(IllegalArgumentException.class, () -> new CompactRollout("s", "c", 1, "v", 1, 1, 1, new byte[32]));
+    }
+}
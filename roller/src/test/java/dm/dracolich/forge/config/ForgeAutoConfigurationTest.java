@@ -0,0 +1,114 @@
+package dm.dracolich.forge.config;
+
+import dm.dracolich.forge.journal.RolloutJournal;
+import dm.dracolich.forge.metrics.RollMetrics;
+import dm.dracolich.forge.nonce.NonceAllocator;
+import dm.dracolich.forge.prf.PrfBackend;
+import dm.dracolich.forge.service.RolloutService;
+import dm.dracolich.forge.service.RolloutServiceImpl;
+import dm.dracolich.forge.service.ShardedRollExecutor;
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.Rollout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForgeAutoConfigurationTest {
+
+    @TempDir
+    Path dir;
+
+    private static AnnotationConfigApplicationContext context(Map<String, Object> properties, Class<?>... extra) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+        if (extra.length > 0) {
+            context.register(extra);
+        }
+        context.register(ForgeAutoConfiguration.class);
+        context.refresh();
+        return context;
+    }
+
+    @Test
+    void service_is_configured_from_properties() {
+        try (AnnotationConfigApplicationContext context = context(Map.of(
+                "dracolich.forge.roll.debug-level", "summary",
+                "dracolich.forge.roll.draw-mode", "lemire",
+                "dracolich.forge.async.batch-size", "8",
+                "dracolich.forge.async.max-wait", "5ms",
+                "dracolich.forge.executor.lanes", "3"))) {
+            RolloutServiceImpl service = (RolloutServiceImpl) context.getBean(RolloutService.class);
+
+            assertEquals(DebugLevel.SUMMARY, service.getDebugLevel());
+            assertEquals(DrawMode.LEMIRE, service.getDrawMode());
+            assertEquals(8, service.getAsyncBatchSize());
+            assertEquals(Duration.ofMillis(5), service.getAsyncMaxWait());
+            assertEquals(3, context.getBean(ShardedRollExecutor.class).lanes());
+            assertNotNull(context.getBean(RollMetrics.class));
+            assertTrue(context.getBeansOfType(NonceAllocator.class).isEmpty());
+            assertTrue(context.getBeansOfType(RolloutJournal.class).isEmpty());
+            assertTrue(context.getBeansOfType(ForgeWarmup.class).isEmpty());
+        }
+    }
+
+    @Test
+    void journals_are_registered_when_their_paths_are_set() {
+        try (AnnotationConfigApplicationContext context = context(Map.of(
+                "dracolich.forge.nonce.journal", dir.resolve("nonces.log").toString(),
+                "dracolich.forge.nonce.lease-size", "10",
+                "dracolich.forge.journal.dir", dir.resolve("rollouts").toString()))) {
+            NonceAllocator allocator = context.getBean(NonceAllocator.class);
+
+            assertEquals(0, allocator.next("a"));
+            assertEquals(1, allocator.next("a"));
+            assertNotNull(context.getBean(RolloutJournal.class));
+        }
+    }
+
+    @Test
+    void application_beans_take_precedence() {
+        try (AnnotationConfigApplicationContext context = context(Map.of(), CustomService.class)) {
+            assertInstanceOf(CustomService.class, context.getBean(RolloutService.class));
+        }
+    }
+
+    @Test
+    void warmup_runs_when_enabled() {
+        try (AnnotationConfigApplicationContext context = context(Map.of(
+                "dracolich.forge.warmup.enabled", "true",
+                "dracolich.forge.warmup.iterations", "300",
+                "dracolich.forge.warmup.expressions", "4d6kh3,1d20+5"))) {
+            assertNotNull(context.getBean(ForgeWarmup.class));
+            Rollout rollout = context.getBean(RolloutService.class)
+                    .rollDice(DiceEnum.D20, "server", "client", 1L);
+            assertNotNull(rollout.getDebug());
+        }
+    }
+
+    @Test
+    void runtime_hints_cover_transfer_objects_and_backend_services() {
+        RuntimeHints hints = new RuntimeHints();
+        new ForgeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Rollout.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethodInvocation(Rollout.class, "getDebug").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource()
+                .forResource("META-INF/services/" + PrfBackend.class.getName()).test(hints));
+    }
+
+    static class CustomService extends RolloutServiceImpl {
+    }
+}
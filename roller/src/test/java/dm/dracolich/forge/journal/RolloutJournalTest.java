@@ -0,0 +1,158 @@
+package dm.dracolich.forge.journal;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.Rollout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RolloutJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static Rollout roll(String serverSeed, String clientSeed, long nonce) {
+        return Roll.fairRoll(serverSeed, clientSeed, nonce, DiceEnum.D20.getTable(), false).result();
+    }
+
+    @Test
+    void records_round_trip_to_identical_rollouts() throws Exception {
+        try (RolloutJournal journal = RolloutJournal.open(dir, 16)) {
+            for (int i = 0; i < 40; i++) {
+                assertEquals(i, journal.append(roll("server", "client-" + (i % 3), i)));
+            }
+
+            assertEquals(40, journal.size());
+            assertEquals(roll("server", "client-1", 7), journal.read(7).toRollout());
+            assertEquals(List.of(roll("server", "client-2", 38)),
+                    journal.find("client-2", 38).stream().map(JournalRecord::toRollout).toList());
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(3, files.filter(p -> p.toString().endsWith(".seg")).count());
+            }
+        }
+    }
+
+    @Test
+    void find_uses_the_client_chain_and_returns_every_server_seed() throws Exception {
+        try (RolloutJournal journal = RolloutJournal.open(dir, 64)) {
+            for (int i = 0; i < 500; i++) {
+                journal.append(roll("a", "client", i));
+                journal.append(roll("x", "other", i));
+            }
+            journal.append(roll("b", "client", 250));
+
+            List<JournalRecord> found = journal.find("client", 250);
+            assertEquals(2, found.size());
+            assertEquals(roll("b", "client", 250), found.get(0).toRollout());
+            assertEquals(roll("a", "client", 250), found.get(1).toRollout());
+            assertTrue(journal.find("client", 999).isEmpty());
+            assertTrue(journal.find("nobody", 1).isEmpty());
+            assertEquals(501, journal.stream("client").count());
+        }
+    }
+
+    @Test
+    void draw_mode_is_journaled() throws Exception {
+        RollOptions lemire = RollOptions.DEFAULT.withDrawMode(DrawMode.LEMIRE);
+        try (RolloutJournal journal = RolloutJournal.open(dir)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append(Roll.fairRoll("server", "client", i, DiceEnum.D100.getTable(), false, lemire).result());
+            }
+
+            Rollout expected = Roll.fairRoll("server", "client", 11, DiceEnum.D100.getTable(), false, lemire).result();
+            assertEquals(expected, journal.find("client", 11).getFirst().toRollout());
+            assertEquals(2, journal.read(11).toRollout().getDebug().getDrawVersion());
+        }
+    }
+
+    @Test
+    void find_keeps_checkpoints_per_server_seed_across_rotations() throws Exception {
+        try (RolloutJournal journal = RolloutJournal.open(dir, 128)) {
+            for (String serverSeed : List.of("a", "b", "c")) {
+                for (int i = 0; i < 300; i++) {
+                    journal.append(roll(serverSeed, "client", i));
+                }
+            }
+
+            List<JournalRecord> found = journal.find("client", 70);
+            assertEquals(List.of(roll("c", "client", 70), roll("b", "client", 70), roll("a", "client", 70)),
+                    found.stream().map(JournalRecord::toRollout).toList());
+            assertEquals(3, journal.find("client", 299).size());
+            assertTrue(journal.find("client", 300).isEmpty());
+        }
+    }
+
+    @Test
+    void find_does_not_walk_history_when_nonces_continue_across_rotations() throws Exception {
+        try (RolloutJournal journal = RolloutJournal.open(dir, 1024)) {
+            long nonce = 0;
+            for (int seed = 0; seed < 20; seed++) {
+                for (int i = 0; i < 200; i++) {
+                    journal.append(roll("server-" + seed, "client", nonce++));
+                }
+            }
+
+            long before = journal.loads();
+            assertEquals(List.of(roll("server-0", "client", 5)),
+                    journal.find("client", 5).stream().map(JournalRecord::toRollout).toList());
+            assertEquals(List.of(roll("server-19", "client", 3_999)),
+                    journal.find("client", 3_999).stream().map(JournalRecord::toRollout).toList());
+            assertTrue(journal.find("client", 4_000).isEmpty());
+            // three lookups, each within about one checkpoint interval of a single pair
+            long loaded = journal.loads() - before;
+            assertTrue(loaded < 3 * (2 * RolloutJournal.CHECKPOINT_INTERVAL + 2), "loaded " + loaded);
+        }
+    }
+
+    @Test
+    void find_falls_back_when_nonces_are_not_increasing() throws Exception {
+        try (RolloutJournal journal = RolloutJournal.open(dir, 64)) {
+            for (int i = 200; i > 0; i--) {
+                journal.append(roll("server", "client", i));
+            }
+            assertEquals(roll("server", "client", 3), journal.find("client", 3).getFirst().toRollout());
+        }
+    }
+
+    @Test
+    void index_is_rebuilt_and_torn_tail_discarded_on_reopen() throws Exception {
+        try (RolloutJournal journal = RolloutJournal.open(dir, 32)) {
+            for (int i = 0; i < 50; i++) {
+                journal.append(roll("server", "client", i));
+            }
+        }
+
+        // Corrupt the last record
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("rollouts-00000001.seg").toFile(), "rw")) {
+            file.seek(64 + 17L * RolloutJournal.RECORD_LENGTH + 40);
+            file.write(0xFF);
+        }
+
+        try (RolloutJournal journal = RolloutJournal.open(dir, 32)) {
+            assertEquals(49, journal.size());
+            assertTrue(journal.find("client", 49).isEmpty());
+            assertEquals(roll("server", "client", 20), journal.find("client", 20).getFirst().toRollout());
+
+            assertEquals(49, journal.append(roll("server", "client", 99)));
+            assertEquals(50, journal.stream().count());
+        }
+    }
+
+    @Test
+    void rollouts_without_debug_are_rejected() throws Exception {
+        try (RolloutJournal journal = RolloutJournal.open(dir)) {
+            assertThrows(IllegalArgumentException.class, () -> journal.append(new Rollout("1", null, null)));
+            assertThrows(IndexOutOfBoundsException.class, () -> journal.read(0));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package dm.dracolich.forge.loot;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.to.DrawMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static dm.dracolich.forge.loot.LootNode.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LootTableTest {
+
+    private static final String DROPS = """
+            # rarity -> item type -> base item -> affixes
+            table drop    = pick { 70: common, 25: rare, 4: epic, 1: nothing }
+            table common  = pick { 3: item "potion", 1: weapons }
+            table rare    = all { weapons, repeat 1..2 affixes }
+            table epic    = all { weapons, repeat 3 affixes }
+            table weapons = pick { 1: item "sword", 1: item "axe" }
+            table affixes = pick { 2: item "of fire", 1: item "of ice" }
+            root drop
+            """;
+
+    @Test
+    void rolls_are_deterministic_and_verify() {
+        LootTable table = LootTable.of(LootDefinition.parse(DROPS));
+        Set<String> known = Set.of("potion", "sword", "axe", "of fire", "of ice");
+
+        for (long nonce = 0; nonce < 500; nonce++) {
+            Roll.RollContext ctx = new Roll.RollContext("server", "client", nonce);
+            LootResult result = table.roll(ctx);
+
+            assertTrue(known.containsAll(result.drops()));
+            assertTrue(result.steps() <= table.maxDraws());
+            assertEquals(1, result.blocks());
+            assertEquals(result.drops(), table.roll(ctx).drops());
+            assertTrue(table.verify(result));
+            assertEquals("drop", result.node(0));
+        }
+    }
+
+    @Test
+    void first_step_matches_a_single_weighted_draw() {
+        LootTable table = LootTable.of(LootDefinition.builder()
+                .table("drop", pick(entry(1, item("a")), entry(3, item("b")), entry(0, item("never"))))
+                .build());
+        List<Integer> weights = List.of(1, 3, 0);
+
+        for (long nonce = 0; nonce < 200; nonce++) {
+            LootResult result = table.roll(new Roll.RollContext("server", "client", nonce));
+            int expected = Roll.drawWeighted("server", "client", nonce, LootTable.DEFAULT_CATEGORY,
+                    List.of(0, 1, 2), weights::get);
+
+            assertEquals(expected, result.choice(0));
+            assertEquals(List.of(expected == 0 ? "a" : "b"), result.drops());
+        }
+    }
+
+    @Test
+    void shared_tables_compile_once_and_bad_graphs_are_rejected() {
+        LootTable table = LootTable.of(LootDefinition.parse(DROPS));
+        // 6 tables, 5 items, 1 nothing and 2 repeats; weapons and affixes are compiled once each
+        assertEquals(14, table.nodes());
+        assertEquals(1 + 1 + 3, table.maxDraws());
+
+        assertThrows(IllegalArgumentException.class, () -> LootTable.of(LootDefinition.parse(
+                "table a = pick { 1: b }\ntable b = all { item \"x\", a }")));
+        assertThrows(IllegalArgumentException.class, () -> LootTable.of(LootDefinition.parse("table a = missing")));
+        assertThrows(IllegalArgumentException.class, () -> LootTable.of(LootDefinition.parse(
+                "table a = pick { 0: item \"x\" }")));
+        assertThrows(IllegalArgumentException.class, () -> LootTable.of(LootDefinition.parse(
+                "table a = repeat 100 b\ntable b = repeat 0..200 c\ntable c = pick { 1: item \"x\" }")));
+        IllegalArgumentException drops = assertThrows(IllegalArgumentException.class, () -> LootTable.of(
+                LootDefinition.parse("table a = repeat 100000 b\ntable b = repeat 100000 item \"x\"")));
+        assertTrue(drops.getMessage().contains("nodes"));
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> LootDefinition.parse("table a = pick { 1 item \"x\" }"));
+        assertTrue(error.getMessage().contains("Expected ':' at position"));
+        assertThrows(IllegalArgumentException.class, () -> LootDefinition.parse("table a = item \"x\"\nroot b"));
+    }
+
+    @Test
+    void compiled_tables_are_cached_by_version() {
+        LootTable v1 = LootTable.compile("chest", 1, DROPS);
+        assertSame(v1, LootTable.compile("chest", 1, "not parsed on a hit"));
+
+        LootTable v2 = LootTable.compile("chest", 2, DROPS.replace("70: common", "10: common"));
+        assertNotSame(v1, v2);
+        assertEquals(2, v2.version());
+
+        long mismatched = 0;
+        for (long nonce = 0; nonce < 200; nonce++) {
+            LootResult result = v1.roll(new Roll.RollContext("server", "client", nonce));
+            if (!v2.verify(result)) mismatched++;
+        }
+        assertTrue(mismatched > 0);
+    }
+
+    @Test
+    void lemire_rolls_record_their_mode() {
+        LootTable table = LootTable.of(LootDefinition.parse(DROPS));
+        LootResult result = table.roll(KeyedPrf.create("server"), "client", 9, DrawMode.LEMIRE);
+
+        assertEquals(DrawMode.LEMIRE, result.drawMode());
+        assertEquals(2, result.toDebug().getDrawVersion());
+        assertEquals("client:9:loot", result.toDebug().getValueMsg());
+        assertTrue(table.verify(result));
+    }
+}
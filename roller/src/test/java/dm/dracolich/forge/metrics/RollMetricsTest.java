@@ -0,0 +1,92 @@
+package dm.dracolich.forge.metrics;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.service.RolloutServiceImpl;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DiceEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RollMetricsTest {
+
+    private static long count(MetricsSnapshot snapshot, String category) {
+        MetricsSnapshot.Histogram histogram = snapshot.categories().get(category);
+        return histogram == null ? 0 : histogram.count();
+    }
+
+    @Test
+    void histograms_bucket_by_power_of_two() {
+        StripedRollMetrics metrics = new StripedRollMetrics();
+        metrics.recordDraws("value", 1, 0);
+        metrics.recordDraws("value", 1, 100);
+        metrics.recordDraws("value", 4, 4000);
+        metrics.recordDiceRolls(DiceEnum.D20, 10, 5000);
+        metrics.recordSeedAdvance();
+        metrics.recordTableCompiled(6);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        MetricsSnapshot.Histogram value = snapshot.categories().get("value");
+        assertEquals(6, value.count());
+        assertEquals(4100, value.sum());
+        assertEquals(1, value.buckets()[0]);
+        assertEquals(1, value.buckets()[6]);
+        assertEquals(4, value.buckets()[9]);
+        assertEquals(1024, value.percentile(0.5));
+        assertEquals(2, value.percentile(0));
+
+        assertEquals(10, snapshot.dice().get(DiceEnum.D20).count());
+        assertEquals(1, snapshot.seedAdvances());
+        assertEquals(1, snapshot.tableSizes().count());
+        assertFalse(snapshot.dice().containsKey(DiceEnum.D6));
+    }
+
+    @Test
+    void categories_beyond_the_cap_are_folded_into_other() {
+        StripedRollMetrics metrics = new StripedRollMetrics();
+        for (int i = 0; i < StripedRollMetrics.MAX_CATEGORIES + 50; i++) {
+            metrics.recordDraws("category-" + i, 1, 10);
+        }
+        metrics.recordDraws("category-0", 1, 10);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(StripedRollMetrics.MAX_CATEGORIES + 1, snapshot.categories().size());
+        assertEquals(2, count(snapshot, "category-0"));
+        assertEquals(50, count(snapshot, StripedRollMetrics.OTHER_CATEGORY));
+    }
+
+    @Test
+    void hot_paths_report_to_the_active_recorder() {
+        assumeTrue(ForgeMetrics.ENABLED, "metrics are disabled");
+        RollMetrics metrics = ForgeMetrics.get();
+        MetricsSnapshot before = metrics.snapshot();
+
+        Roll.fairRoll("server", "client", 1, DiceEnum.D20.getTable(), true);
+        Roll.drawIndexBatch(new Roll.RollContext("server", "client", 0), "metrics-batch", 0, 16, 6, new int[16]);
+        Roll.Prf.cursor(new Roll.RollContext("server", "client", 0), "metrics-cursor").nextIndex(6);
+        WeightedTable.of(List.of(1, 2, 3), Integer::intValue);
+        try (RolloutServiceImpl service = new RolloutServiceImpl()) {
+            service.rollDice(DiceEnum.D12, "server", "client", 1L);
+            service.rollDiceBatch(DiceEnum.D12, "server", "client", 0, 5, new int[5]);
+        }
+
+        MetricsSnapshot after = metrics.snapshot();
+        assertTrue(count(after, "value") >= count(before, "value") + 2);
+        assertTrue(count(after, "item") >= count(before, "item") + 2);
+        assertEquals(16, count(after, "metrics-batch"));
+        assertEquals(1, count(after, "metrics-cursor"));
+        assertTrue(after.seedAdvances() > before.seedAdvances());
+        assertTrue(after.tableSizes().count() > before.tableSizes().count());
+        assertTrue(after.dice().get(DiceEnum.D12).count() >= 6);
+    }
+
+    @Test
+    void noop_records_nothing() {
+        RollMetrics.NOOP.recordDraws("value", 1, 10);
+        assertSame(MetricsSnapshot.EMPTY, RollMetrics.NOOP.snapshot());
+        assertThrows(IllegalArgumentException.class, () -> ForgeMetrics.set(null));
+    }
+}
@@ -0,0 +1,139 @@
+package dm.dracolich.forge.nonce;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledNonceAllocatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void nonces_are_sequential_per_client_seed() throws Exception {
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(dir.resolve("nonces.log"), 10, 1 << 20)) {
+            assertEquals(0, allocator.next("a"));
+            assertEquals(1, allocator.next("a"));
+            assertEquals(0, allocator.next("b"));
+            assertEquals(2, allocator.nextBlock("a", 25));
+            assertEquals(27, allocator.next("a"));
+        }
+    }
+
+    @Test
+    void concurrent_callers_never_share_a_nonce() throws Exception {
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(dir.resolve("nonces.log"), 7, 1 << 20);
+             ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        assertTrue(seen.add(allocator.next("client")));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        assertEquals(4000, seen.size());
+    }
+
+    @Test
+    void reopening_skips_past_every_handed_out_nonce() throws Exception {
+        Path file = dir.resolve("nonces.log");
+        long last;
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(file, 100, 1 << 20)) {
+            last = allocator.nextBlock("client", 250) + 249;
+        }
+
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(file, 100, 1 << 20)) {
+            assertTrue(allocator.next("client") > last);
+            assertEquals(0, allocator.next("other"));
+        }
+    }
+
+    @Test
+    void torn_tail_is_ignored_on_recovery() throws Exception {
+        Path file = dir.resolve("nonces.log");
+        long last;
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(file, 10, 1 << 20)) {
+            last = allocator.nextBlock("client", 15) + 14;
+        }
+        long intact = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 30, 0, 6, 'c', 'l'}, StandardOpenOption.APPEND);
+
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(file, 10, 1 << 20)) {
+            assertEquals(intact, Files.size(file));
+            assertTrue(allocator.next("client") > last);
+        }
+    }
+
+    @Test
+    void compaction_keeps_the_latest_marks() throws Exception {
+        Path file = dir.resolve("nonces.log");
+        long last;
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(file, 1, 256)) {
+            for (int i = 0; i < 200; i++) {
+                allocator.next("client");
+            }
+            last = allocator.next("other");
+        }
+        assertTrue(Files.size(file) < 512);
+
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(file, 1, 256)) {
+            assertTrue(allocator.next("client") >= 200);
+            assertTrue(allocator.next("other") > last);
+        }
+    }
+
+    @Test
+    void failed_compaction_keeps_the_journal_working() throws Exception {
+        Path file = dir.resolve("nonces.log");
+        // a directory where the snapshot goes makes every compaction fail
+        Files.createDirectories(dir.resolve("nonces.log.compact").resolve("blocked"));
+        long last;
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(file, 1, 64)) {
+            for (int i = 0; i < 50; i++) {
+                allocator.next("client");
+            }
+            last = allocator.next("client");
+        }
+        assertTrue(Files.size(file) > 64);
+
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(file, 1, 64)) {
+            assertTrue(allocator.next("client") > last);
+        }
+    }
+
+    @Test
+    void appends_after_close_fail() throws Exception {
+        NonceJournal journal = NonceJournal.open(dir.resolve("nonces.log"), 1 << 20);
+        journal.append("client", 1).get();
+        journal.close();
+
+        assertThrows(Exception.class, () -> journal.append("client", 2).get());
+    }
+
+    @Test
+    void invalid_arguments_are_rejected() throws Exception {
+        try (JournaledNonceAllocator allocator = JournaledNonceAllocator.open(dir.resolve("nonces.log"))) {
+            assertThrows(IllegalArgumentException.class, () -> allocator.nextBlock("client", 0));
+            assertThrows(IllegalArgumentException.class, () -> allocator.next(null));
+        }
+        assertThrows(IllegalArgumentException.class, () -> JournaledNonceAllocator.open(dir.resolve("x"), 0, 1));
+    }
+}
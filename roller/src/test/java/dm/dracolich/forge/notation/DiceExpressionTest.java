@@ -0,0 +1,125 @@
+package dm.dracolich.forge.notation;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.prf.PrfCursor;
+import dm.dracolich.forge.to.Debug;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiceExpressionTest {
+
+    @Test
+    void compile_caches_and_parses_terms() {
+        DiceExpression expression = DiceExpression.compile("4d6kh3+2");
+
+        assertSame(expression, DiceExpression.compile("4d6kh3+2"));
+        assertEquals(2, expression.terms().size());
+        DiceTerm dice = expression.terms().get(0);
+        assertEquals(4, dice.count());
+        assertEquals(6, dice.sides());
+        assertEquals(DiceTerm.Keep.KEEP_HIGHEST, dice.keep());
+        assertEquals(3, dice.keepCount());
+        assertTrue(expression.terms().get(1).isConstant());
+        assertEquals(2, expression.terms().get(1).sides());
+    }
+
+    @Test
+    void dice_follow_the_prf_cursor_stream() {
+        Roll.RollContext ctx = new Roll.RollContext("srv", "cli", 11L);
+        DiceResult result = DiceExpression.compile("10d6").roll(ctx);
+
+        PrfCursor cursor = Roll.Prf.cursor(ctx, DiceExpression.DEFAULT_CATEGORY);
+        int total = 0;
+        for (int i = 0; i < 10; i++) {
+            int face = cursor.nextIndex(6) + 1;
+            assertEquals(face, result.face(i));
+            total += face;
+        }
+        assertEquals(total, result.total());
+        assertEquals(2, result.blocks());
+    }
+
+    @Test
+    void keep_highest_sums_the_best_dice() {
+        for (long nonce = 0; nonce < 50; nonce++) {
+            DiceResult result = DiceExpression.compile("4d6kh3+2").roll(new Roll.RollContext("srv", "cli", nonce));
+            int[] sorted = result.faces();
+            Arrays.sort(sorted);
+
+            assertEquals(sorted[1] + sorted[2] + sorted[3] + 2, result.total());
+            assertEquals(3, countKept(result));
+        }
+    }
+
+    @Test
+    void keep_lowest_takes_the_worst_die() {
+        DiceResult result = DiceExpression.compile("2d20kl1").roll(new Roll.RollContext("srv", "cli", 5L));
+
+        assertEquals(Math.min(result.face(0), result.face(1)), result.total());
+        assertEquals(1, countKept(result));
+    }
+
+    @Test
+    void exploding_dice_roll_again_on_max() {
+        boolean sawExplosion = false;
+        for (long nonce = 0; nonce < 200; nonce++) {
+            DiceResult result = DiceExpression.compile("3d4!").roll(new Roll.RollContext("srv", "cli", nonce));
+            int sum = 0;
+            for (int i = 0; i < result.dice(); i++) {
+                sum += result.face(i);
+                if (result.exploded(i)) {
+                    sawExplosion = true;
+                    assertEquals(4, result.face(i - 1));
+                }
+            }
+            assertEquals(sum, result.total());
+        }
+        assertTrue(sawExplosion);
+    }
+
+    @Test
+    void pools_count_successes() {
+        DiceResult result = DiceExpression.compile("6d10>=8").roll(new Roll.RollContext("srv", "cli", 9L));
+
+        long expected = Arrays.stream(result.faces()).filter(f -> f >= 8).count();
+        assertEquals(expected, result.total());
+    }
+
+    @Test
+    void debug_exposes_first_block() {
+        Roll.RollContext ctx = new Roll.RollContext("srv", "cli", 3L);
+        Debug debug = DiceExpression.compile("d20").roll(ctx).toDebug();
+
+        assertEquals("cli:3:dice", debug.getValueMsg());
+        assertEquals(Roll.Prf.drawHex(ctx, "dice"), debug.getValueHmacHex());
+        assertEquals(3L, debug.getNonce());
+    }
+
+    @Test
+    void invalid_notation_is_rejected() {
+        for (String bad : new String[]{"", "d", "4d", "4d6kh5", "1d1!", "2d6x", "3d6+", "0d6", "4d6kh1kl1"}) {
+            assertThrows(IllegalArgumentException.class, () -> DiceExpression.parse(bad), bad);
+        }
+    }
+
+    @Test
+    void totals_that_may_overflow_are_rejected() {
+        for (String bad : new String[]{"2147483647+1", "1000d1000000+1000d1000000+1000d1000000", "30d1000000!"}) {
+            assertThrows(IllegalArgumentException.class, () -> DiceExpression.compile(bad), bad);
+        }
+        Roll.RollContext ctx = new Roll.RollContext("srv", "cli", 1L);
+        assertEquals(Integer.MAX_VALUE, DiceExpression.compile("2147483647").roll(ctx).total());
+        assertNotNull(DiceExpression.compile("1000d1000000kh1!"));
+    }
+
+    private static int countKept(DiceResult result) {
+        int kept = 0;
+        for (int i = 0; i < result.dice(); i++) {
+            if (result.kept(i)) kept++;
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,81 @@
+package dm.dracolich.forge.odds;
+
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OddsTest {
+
+    @Test
+    void dice_sums_and_expressions_are_exact() {
+        Distribution twoD6 = Odds.sum(DiceEnum.D6, 2);
+        assertEquals(2, twoD6.min());
+        assertEquals(12, twoD6.max());
+        assertEquals(6 / 36d, twoD6.probability(7), 1e-15);
+        assertEquals(twoD6.probability(7), Odds.of("2d6").probability(7), 1e-15);
+
+        Distribution best3 = Odds.of("4d6kh3");
+        assertEquals(21 / 1296d, best3.probability(18), 1e-15);
+        assertEquals(15869 / 1296d, best3.mean(), 1e-12);
+        assertEquals(best3.probability(18), Odds.of("4d6kl3").probability(3), 1e-15);
+
+        Distribution pool = Odds.of("6d10>=8");
+        assertEquals(15 * 0.09 * Math.pow(0.7, 4), pool.probability(2), 1e-15);
+
+        assertEquals(4.2, Odds.of("d6!").mean(), 1e-9);
+        Distribution offset = Odds.of("5-2d4");
+        assertEquals(-3, offset.min());
+        assertEquals(3, offset.max());
+        assertEquals(0, offset.mean(), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> Odds.of("4d6!kh3"));
+    }
+
+    @Test
+    void modulo_odds_carry_the_draw_bias() {
+        // 2^32 = 715827882 * 6 + 4 and the draws start at roll floorMod(-2^31, 6) = 4
+        Distribution biased = Odds.die(6, DrawMode.MODULO);
+        double[] expected = {715827883, 715827883, 715827882, 715827882, 715827883, 715827883};
+        for (int face = 1; face <= 6; face++) {
+            assertEquals(expected[face - 1] / 0x1p32, biased.probability(face), 0);
+        }
+        assertEquals(1 / 6d, Odds.die(6, DrawMode.LEMIRE).probability(3), 1e-16);
+
+        List<Value> values = List.of(new Value("common", 70, 1), new Value("rare", 25, 1), new Value("epic", 5, 1));
+        TableOdds<Value> declared = Odds.of(values);
+        assertEquals(0.25, declared.probability(1), 0);
+        assertEquals("rare", declared.get(1).getId());
+        assertNotEquals(declared.probability(1), Odds.of(values, DrawMode.MODULO).probability(1));
+        assertEquals(1, Odds.of(values, DrawMode.MODULO).probabilities()[0]
+                + Odds.of(values, DrawMode.MODULO).probability(1) + Odds.of(values, DrawMode.MODULO).probability(2), 1e-15);
+    }
+
+    @Test
+    void large_pools_use_the_fft_and_are_memoized() {
+        SplittableRandom random = new SplittableRandom(7);
+        double[] a = random.doubles(3000).toArray();
+        double[] b = random.doubles(2000).toArray();
+        double[] direct = Convolution.direct(a, b);
+        double[] fft = Convolution.fft(a, b);
+        for (int i = 0; i < direct.length; i++) {
+            assertEquals(direct[i], fft[i], 1e-9 * direct[i] + 1e-9);
+        }
+
+        Distribution big = Odds.sum(DiceEnum.D20, 1000);
+        assertEquals(1000, big.min());
+        assertEquals(20_000, big.max());
+        assertEquals(10_500, big.mean(), 1e-6);
+        assertEquals(1000 * (20 * 20 - 1) / 12d, big.variance(), 1e-3);
+
+        assertSame(big, Odds.sum(DiceEnum.D20, 1000));
+        // the percentile die reads 00 to 90
+        assertEquals(0.1, Odds.of(DiceEnum.D100).probability(0), 1e-15);
+        assertSame(Odds.of(DiceEnum.D20), Odds.of(DiceEnum.D20));
+        assertEquals(0.05, Odds.of(DiceEnum.D20).probability(20), 1e-15);
+    }
+}
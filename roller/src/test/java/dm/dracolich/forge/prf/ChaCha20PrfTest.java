@@ -0,0 +1,104 @@
+package dm.dracolich.forge.prf;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.audit.AuditMismatch;
+import dm.dracolich.forge.audit.AuditVerifier;
+import dm.dracolich.forge.to.CompactRollout;
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.Rollout;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.ChaCha20ParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChaCha20PrfTest {
+
+    private static byte[] keystream(String serverSeed, String message, int length) throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        byte[] key = sha256.digest(serverSeed.getBytes(StandardCharsets.UTF_8));
+        byte[] iv = Arrays.copyOf(sha256.digest(message.getBytes(StandardCharsets.UTF_8)), 12);
+
+        Cipher cipher = Cipher.getInstance("ChaCha20");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "ChaCha20"), new ChaCha20ParameterSpec(iv, 0));
+        return cipher.update(new byte[length]);
+    }
+
+    @Test
+    void stream_follows_documented_keystream_definition() throws Exception {
+        PrfCursor cursor = new PrfCursor(ChaCha20Prf.create("server"), "client", 42L, "dice");
+
+        ByteBuffer expected = ByteBuffer.wrap(keystream("server", "client:42:dice", 5 * PrfStream.BLOCK_LENGTH));
+        for (int i = 0; i < 5 * PrfCursor.DRAWS_PER_BLOCK; i++) {
+            assertEquals(expected.getInt(), cursor.nextInt());
+        }
+        assertEquals(5, cursor.blocks());
+        assertEquals("client:42:dice", cursor.message(3));
+    }
+
+    @Test
+    void blocks_can_be_read_in_any_order_across_interleaved_streams() {
+        ChaCha20Prf prf = ChaCha20Prf.forSeed("server");
+        assertSame(prf, PrfBackends.CHACHA20.forSeed("server"));
+        PrfStream first = prf.open("client", 1, "value");
+        PrfStream second = prf.open("client", 2, "value");
+
+        byte[][] sequential = new byte[6][PrfStream.BLOCK_LENGTH];
+        for (int round = 0; round < 6; round++) {
+            first.block(round, sequential[round], 0);
+        }
+
+        byte[] block = new byte[PrfStream.BLOCK_LENGTH];
+        for (int round : new int[]{5, 2, 3, 0, 1, 4}) {
+            second.block(round, block, 0);
+            first.block(round, block, 0);
+            assertArrayEquals(sequential[round], block);
+        }
+        second.block(0, block, 0);
+        assertFalse(Arrays.equals(sequential[0], block));
+    }
+
+    @Test
+    void backends_are_looked_up_by_id() {
+        assertSame(PrfBackends.HMAC_SHA256, PrfBackends.of(null));
+        assertSame(PrfBackends.HMAC_SHA256, PrfBackends.of("hmac-sha256"));
+        assertSame(PrfBackends.CHACHA20, PrfBackends.of("chacha20"));
+        assertSame(PrfBackends.HMAC_SHA256, KeyedPrf.create("server").backend());
+        assertThrows(IllegalArgumentException.class, () -> PrfBackends.of("rot13"));
+        assertThrows(IllegalArgumentException.class, () -> ChaCha20Prf.create(""));
+    }
+
+    @Test
+    void chacha_rolls_record_their_backend_and_verify() {
+        RollOptions options = new RollOptions(DebugLevel.FULL, DrawMode.LEMIRE, PrfBackends.CHACHA20);
+
+        for (long nonce = 0; nonce < 200; nonce++) {
+            Rollout rollout = Roll.fairRoll("server", "client", nonce, DiceEnum.D20.getTable(), false, options).result();
+
+            assertEquals("chacha20", rollout.getDebug().getPrfBackend());
+            assertEquals("client:" + nonce + ":value", rollout.getDebug().getValueMsg());
+            assertNull(AuditVerifier.check(rollout));
+        }
+
+        Rollout rollout = Roll.fairRoll("server", "client", 7, DiceEnum.D20.getDiceValues(), false, options).result();
+        Rollout hmac = Roll.fairRoll("server", "client", 7, DiceEnum.D20.getDiceValues(), false,
+                options.withPrfBackend(PrfBackends.HMAC_SHA256)).result();
+        assertEquals("hmac-sha256", hmac.getDebug().getPrfBackend());
+        assertNotEquals(hmac.getDebug().getValueHmacHex(), rollout.getDebug().getValueHmacHex());
+        assertThrows(IllegalArgumentException.class, () -> CompactRollout.of(rollout));
+
+        rollout.getDebug().setPrfBackend("hmac-sha256");
+        assertEquals(AuditMismatch.Reason.VALUE_HMAC, AuditVerifier.check(rollout));
+        rollout.getDebug().setPrfBackend("unknown");
+        assertEquals(AuditMismatch.Reason.MALFORMED, AuditVerifier.check(rollout));
+    }
+}
@@ -0,0 +1,88 @@
+package dm.dracolich.forge.prf;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedPrfTest {
+
+    private static byte[] hmacSha256(String key, String message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void reset() {
+        KeyedPrf.setMaxKeysPerThread(64);
+        KeyedPrf.clearThreadCache();
+    }
+
+    @Test
+    void digest_matches_plain_mac_across_repeated_calls() throws Exception {
+        KeyedPrf prf = KeyedPrf.forSeed("server");
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(hmacSha256("server", "client:" + i + ":value"), prf.digest("client:" + i + ":value"));
+        }
+    }
+
+    @Test
+    void digest_matches_plain_mac_for_empty_and_long_keys() throws Exception {
+        String longKey = "k".repeat(100);
+
+        assertThrows(IllegalArgumentException.class, () -> KeyedPrf.create(""));
+        assertArrayEquals(hmacSha256(longKey, "client:1:value"), KeyedPrf.create(longKey).digest("client:1:value"));
+        assertArrayEquals(hmacSha256("sërvér", "clïent:1:välue"), KeyedPrf.create("sërvér").digest("clïent:1:välue"));
+    }
+
+    @Test
+    void digest_into_buffer_matches_allocating_digest() {
+        KeyedPrf prf = KeyedPrf.create("server");
+        byte[] msg = "xxclient:1:itemyy".getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[KeyedPrf.DIGEST_LENGTH + 4];
+
+        prf.digest(msg, 2, msg.length - 4, out, 4);
+
+        byte[] expected = prf.digest("client:1:item");
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], out[i + 4]);
+        }
+    }
+
+    @Test
+    void short_output_buffer_leaves_the_engine_intact() throws Exception {
+        KeyedPrf prf = KeyedPrf.forSeed("k");
+        byte[] msg = "m".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(RuntimeException.class, () -> prf.digest(msg, 0, msg.length, new byte[8], 0));
+        assertThrows(RuntimeException.class, () -> prf.digest(msg, 0, msg.length, new byte[40], 10));
+        assertArrayEquals(hmacSha256("k", "m"), prf.digest("m"));
+    }
+
+    @Test
+    void forSeed_is_cached_per_thread() throws Exception {
+        KeyedPrf mine = KeyedPrf.forSeed("server");
+        assertSame(mine, KeyedPrf.forSeed("server"));
+
+        KeyedPrf other = CompletableFuture.supplyAsync(() -> KeyedPrf.forSeed("server")).get();
+        assertNotSame(mine, other);
+    }
+
+    @Test
+    void least_recently_used_seed_is_evicted() {
+        KeyedPrf.setMaxKeysPerThread(2);
+        KeyedPrf a = KeyedPrf.forSeed("a");
+        KeyedPrf b = KeyedPrf.forSeed("b");
+        KeyedPrf.forSeed("a");
+        KeyedPrf.forSeed("c");
+
+        assertSame(a, KeyedPrf.forSeed("a"));
+        assertNotSame(b, KeyedPrf.forSeed("b"));
+    }
+}
@@ -0,0 +1,120 @@
+package dm.dracolich.forge.prf;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.to.DrawMode;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrfCursorTest {
+
+    private static byte[] hmacSha256(String key, String message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void stream_follows_documented_block_definition() throws Exception {
+        PrfCursor cursor = new PrfCursor(KeyedPrf.create("server"), "client", 42L, "dice");
+
+        for (int round = 0; round < 3; round++) {
+            String message = round == 0 ? "client:42:dice" : "client:42:dice:" + round;
+            ByteBuffer block = ByteBuffer.wrap(hmacSha256("server", message));
+            for (int i = 0; i < PrfCursor.DRAWS_PER_BLOCK; i++) {
+                assertEquals(block.getInt(), cursor.nextInt());
+            }
+            assertEquals(message, cursor.message(round));
+        }
+        assertEquals(3, cursor.blocks());
+        assertEquals(24, cursor.draws());
+    }
+
+    @Test
+    void categories_that_could_alias_later_blocks_are_rejected() {
+        // block 0 of "dice:1" would be block 1 of "dice"
+        assertThrows(IllegalArgumentException.class,
+                () -> new PrfCursor(KeyedPrf.create("server"), "client", 0, "dice:1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Roll.Prf.cursor(new Roll.RollContext("server", "client", 0), "dice:1"));
+        assertDoesNotThrow(() -> new PrfCursor(KeyedPrf.create("server"), "client:x", 0, "dice").nextInt());
+    }
+
+    @Test
+    void first_draw_matches_single_draw() {
+        Roll.RollContext ctx = new Roll.RollContext("srv", "cli", 7L);
+
+        assertEquals(Roll.Prf.drawInt(ctx, "value"), Roll.Prf.cursor(ctx, "value").nextInt());
+
+        int[] dice = new int[10];
+        Roll.drawIndices(ctx, "dice", 10, 6, dice);
+        assertEquals(Roll.drawIndex("srv", "cli", 7L, "dice", 6), dice[0]);
+        for (int face : dice) {
+            assertTrue(face >= 0 && face < 6);
+        }
+    }
+
+    @Test
+    void ten_dice_cost_two_hmacs() {
+        PrfCursor cursor = Roll.Prf.cursor(new Roll.RollContext("srv", "cli", 1L), "dice");
+        for (int i = 0; i < 10; i++) {
+            cursor.nextIndex(6);
+        }
+        assertEquals(2, cursor.blocks());
+    }
+
+    @Test
+    void lemire_draws_reject_biased_values_and_continue_the_stream() throws Exception {
+        int size = (1 << 30) + 1; // a quarter of all draws fall in the biased zone
+        long threshold = (1L << 32) % size;
+        int rejected = 0;
+
+        for (long nonce = 0; nonce < 64; nonce++) {
+            ByteBuffer block = ByteBuffer.wrap(hmacSha256("server", "client:" + nonce + ":dice"));
+            long product = Integer.toUnsignedLong(block.getInt()) * size;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                rejected++;
+                product = Integer.toUnsignedLong(block.getInt()) * size;
+            }
+
+            PrfCursor cursor = new PrfCursor(KeyedPrf.create("server"), "client", nonce, "dice");
+            assertEquals(product >>> 32, cursor.nextIndex(size, DrawMode.LEMIRE));
+            assertEquals(Roll.drawIndex("server", "client", nonce, "dice", size, DrawMode.LEMIRE),
+                    (int) (product >>> 32));
+        }
+        assertTrue(rejected > 0);
+    }
+
+    @Test
+    void modulo_mode_matches_plain_index() {
+        for (long nonce = 0; nonce < 32; nonce++) {
+            assertEquals(Roll.drawIndex("srv", "cli", nonce, "dice", 6),
+                    Roll.drawIndex("srv", "cli", nonce, "dice", 6, DrawMode.MODULO));
+        }
+        assertEquals(DrawMode.MODULO, DrawMode.ofVersion(null));
+        assertEquals(DrawMode.LEMIRE, DrawMode.ofVersion(2));
+        assertThrows(IllegalArgumentException.class, () -> DrawMode.ofVersion(3));
+    }
+
+    @Test
+    void shuffle_is_a_deterministic_permutation() {
+        List<Integer> items = IntStream.range(0, 52).boxed().toList();
+        Roll.RollContext ctx = new Roll.RollContext("srv", "cli", 3L);
+
+        List<Integer> shuffled = Roll.shuffle(ctx, "deck", items);
+
+        assertEquals(shuffled, Roll.shuffle(ctx, "deck", items));
+        assertNotEquals(items, shuffled);
+        List<Integer> sorted = new ArrayList<>(shuffled);
+        sorted.sort(null);
+        assertEquals(items, sorted);
+    }
+}
@@ -0,0 +1,34 @@
+package dm.dracolich.forge.prf;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeedPoolTest {
+
+    @Test
+    void engines_are_cached_per_thread_and_evicted_least_recently_used_first() throws Exception {
+        AtomicInteger max = new AtomicInteger(2);
+        SeedPool<Object> pool = new SeedPool<>(seed -> new Object(), max::get);
+
+        Object a = pool.get("a");
+        Object b = pool.get("b");
+        assertSame(a, pool.get("a"));
+        assertNotSame(a, CompletableFuture.supplyAsync(() -> pool.get("a")).get());
+
+        pool.get("c");
+        assertSame(a, pool.get("a"));
+        assertNotSame(b, pool.get("b"));
+
+        max.set(1);
+        Object d = pool.get("d");
+        assertSame(d, pool.get("d"));
+        assertNotSame(a, pool.get("a"));
+
+        pool.clear();
+        assertNotSame(d, pool.get("d"));
+    }
+}
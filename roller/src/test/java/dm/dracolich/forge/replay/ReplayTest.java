@@ -0,0 +1,105 @@
+package dm.dracolich.forge.replay;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.prf.PrfBackends;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.Rollout;
+import dm.dracolich.forge.to.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+    private static final WeightedTable<Value> LOOT = WeightedTable.of(List.of(
+            new Value("common", 70, 5), new Value("rare", 25, 3), new Value("legendary", 5, 1)));
+
+    @Test
+    void rollouts_equal_fair_rolls_in_nonce_order() {
+        RollOptions options = new RollOptions(DebugLevel.FULL, DrawMode.LEMIRE);
+        List<Rollout> replayed = Replay.rollouts("server", "client", LOOT, 40, 1_040, options).toList();
+
+        assertEquals(1_000, replayed.size());
+        for (int i = 0; i < replayed.size(); i++) {
+            assertEquals(Roll.fairRoll("server", "client", 40 + i, LOOT, false, options).result(), replayed.get(i));
+        }
+
+        RollOptions chacha = options.withPrfBackend(PrfBackends.CHACHA20);
+        assertEquals(Roll.fairRoll("server", "client", 7, LOOT, false, chacha).result(),
+                Replay.rollouts("server", "client", LOOT, 7, 8, chacha).findFirst().orElseThrow());
+    }
+
+    @Test
+    void parallel_replays_split_and_keep_encounter_order() {
+        List<Rollout> sequential = Replay.rollouts("server", "client", DiceEnum.D20.getTable(), 0, 5_000).toList();
+        List<Rollout> parallel = Replay.rollouts("server", "client", DiceEnum.D20.getTable(), 0, 5_000)
+                .parallel().toList();
+        assertEquals(sequential, parallel);
+
+        Spliterator<Rollout> right = Replay.rollouts("server", "client", LOOT, 0, 1_000).spliterator();
+        Spliterator<Rollout> left = right.trySplit();
+        assertNotNull(left);
+        assertEquals(500, left.estimateSize());
+        assertEquals(500, right.estimateSize());
+        assertTrue(right.hasCharacteristics(Spliterator.SUBSIZED | Spliterator.ORDERED));
+        assertNull(Replay.rollouts("server", "client", LOOT, 0, 2L * Replay.MIN_SPLIT - 1).spliterator().trySplit());
+    }
+
+    @Test
+    void streams_are_lazy() {
+        AtomicInteger rolled = new AtomicInteger();
+        List<Rollout> first = Replay.rollouts("server", "client", LOOT, 0, Long.MAX_VALUE)
+                .peek(r -> rolled.incrementAndGet())
+                .limit(3)
+                .toList();
+
+        assertEquals(3, first.size());
+        assertEquals(3, rolled.get());
+        assertEquals(Long.MAX_VALUE, Replay.indices("server", "client", LOOT, 0, Long.MAX_VALUE, DrawMode.MODULO)
+                .spliterator().estimateSize());
+    }
+
+    @Test
+    void indices_match_rollout_values() {
+        for (DrawMode mode : DrawMode.values()) {
+            int[] sequential = Replay.indices("server", "client", LOOT, 100, 3_100, mode).toArray();
+            int[] parallel = Replay.indices("server", "client", LOOT, 100, 3_100, mode).parallel().toArray();
+            assertArrayEquals(sequential, parallel);
+
+            RollOptions options = new RollOptions(DebugLevel.NONE, mode);
+            for (int i = 0; i < sequential.length; i += 37) {
+                Rollout rollout = Roll.fairRoll("server", "client", 100 + i, LOOT, false, options).result();
+                assertEquals(rollout.getId(), LOOT.get(sequential[i]).getId());
+            }
+        }
+
+        long[] tally = new long[DiceEnum.D6.getDiceValues().size()];
+        Replay.indices("server", "client", DiceEnum.D6.getTable(), 0, 60_000, DrawMode.LEMIRE)
+                .parallel()
+                .forEach(i -> {
+                    synchronized (tally) {
+                        tally[i]++;
+                    }
+                });
+        assertEquals(60_000, IntStream.range(0, tally.length).mapToLong(i -> tally[i]).sum());
+    }
+
+    @Test
+    void invalid_ranges_are_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> Replay.rollouts("server", "client", LOOT, 5, 4));
+        assertThrows(IllegalArgumentException.class,
+                () -> Replay.rollouts("server", "client", LOOT, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> Replay.rollouts("", "client", LOOT, 0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> Replay.indices("server", "client", LOOT, 0, 1, null));
+        assertEquals(0, Replay.rollouts("server", "client", LOOT, 9, 9).count());
+    }
+}
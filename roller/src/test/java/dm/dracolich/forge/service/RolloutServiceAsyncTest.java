@@ -0,0 +1,90 @@
+package dm.dracolich.forge.service;
+
+import dm.dracolich.forge.to.DebugLevel;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.Rollout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RolloutServiceAsyncTest {
+
+    private final RolloutServiceImpl service = new RolloutServiceImpl();
+
+    @AfterEach
+    void close() {
+        service.close();
+    }
+
+    @Test
+    void async_rolls_match_sync_rolls_across_seeds() {
+        service.setAsyncBatchSize(8);
+        service.setAsyncMaxWait(Duration.ofMillis(2));
+
+        List<CompletableFuture<Rollout>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            futures.add(service.rollDiceAsync(DiceEnum.D20, "server-" + (i % 3), "client", i));
+        }
+
+        for (int i = 0; i < 300; i++) {
+            Rollout expected = service.rollDice(DiceEnum.D20, "server-" + (i % 3), "client", (long) i);
+            assertEquals(expected, futures.get(i).join());
+        }
+    }
+
+    @Test
+    void zero_wait_and_single_batches_still_complete() {
+        service.setAsyncBatchSize(1);
+        service.setAsyncMaxWait(Duration.ZERO);
+
+        Rollout async = service.rollDiceAsync(DiceEnum.D6, "server", "client", 7, DebugLevel.NONE).join();
+        Rollout sync = service.rollDice(DiceEnum.D6, "server", "client", 7L, DebugLevel.NONE);
+
+        assertEquals(sync.getId(), async.getId());
+        assertNull(async.getDebug());
+    }
+
+    @Test
+    void submits_racing_close_never_leave_a_future_pending() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            RolloutServiceImpl racing = new RolloutServiceImpl();
+            racing.setAsyncBatchSize(16);
+            racing.setAsyncMaxWait(Duration.ofMillis(1));
+            List<CompletableFuture<Rollout>> futures = new ArrayList<>();
+            CountDownLatch started = new CountDownLatch(1);
+            Thread submitter = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    futures.add(racing.rollDiceAsync(DiceEnum.D6, "server-" + (i % 4), "client", i));
+                    if (i == 100) started.countDown();
+                }
+            });
+            started.await();
+            racing.close();
+            submitter.join();
+
+            for (CompletableFuture<Rollout> future : futures) {
+                assertTrue(future.isDone());
+            }
+            assertThrows(ExecutionException.class,
+                    () -> racing.rollDiceAsync(DiceEnum.D6, "server", "client", 1).get());
+        }
+    }
+
+    @Test
+    void failures_complete_exceptionally() {
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> service.rollDiceAsync(DiceEnum.D20, "", "client", 1).get());
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+
+        assertThrows(IllegalArgumentException.class, () -> service.setAsyncBatchSize(0));
+        assertThrows(IllegalArgumentException.class, () -> service.setAsyncMaxWait(Duration.ofMillis(-1)));
+    }
+}
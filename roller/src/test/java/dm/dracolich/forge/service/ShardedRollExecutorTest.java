@@ -0,0 +1,159 @@
+package dm.dracolich.forge.service;
+
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.Rollout;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedRollExecutorTest {
+
+    @Test
+    void each_client_seed_runs_in_submission_order() throws Exception {
+        RolloutServiceImpl service = new RolloutServiceImpl();
+        // only ever touched from the lane of its client seed, deliberately unsynchronized
+        Map<String, List<Long>> applied = new HashMap<>();
+        for (int c = 0; c < 16; c++) {
+            applied.put("client-" + c, new ArrayList<>());
+        }
+
+        try (ShardedRollExecutor executor = new ShardedRollExecutor(service, 4, 64, Duration.ofSeconds(10));
+             ExecutorService producers = Executors.newFixedThreadPool(4)) {
+            List<Future<List<CompletableFuture<Rollout>>>> produced = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                int producer = p;
+                produced.add(producers.submit(() -> {
+                    List<CompletableFuture<Rollout>> futures = new ArrayList<>();
+                    for (long nonce = 0; nonce < 500; nonce++) {
+                        for (int c = producer; c < 16; c += 4) {
+                            String clientSeed = "client-" + c;
+                            long n = nonce;
+                            executor.submit(clientSeed, () -> applied.get(clientSeed).add(n));
+                            futures.add(executor.rollDice(DiceEnum.D20, "server", clientSeed, nonce));
+                        }
+                    }
+                    return futures;
+                }));
+            }
+
+            for (int p = 0; p < 4; p++) {
+                List<CompletableFuture<Rollout>> futures = produced.get(p).get();
+                for (int i = 0; i < futures.size(); i++) {
+                    String clientSeed = "client-" + (p + 4 * (i % 4));
+                    Rollout expected = service.rollDice(DiceEnum.D20, "server", clientSeed, (long) (i / 4));
+                    assertEquals(expected, futures.get(i).join());
+                }
+            }
+        }
+
+        for (List<Long> nonces : applied.values()) {
+            assertEquals(500, nonces.size());
+            for (int i = 0; i < nonces.size(); i++) {
+                assertEquals(i, nonces.get(i));
+            }
+        }
+        service.close();
+    }
+
+    @Test
+    void full_lanes_push_back_and_report_their_depth() throws Exception {
+        RolloutServiceImpl service = new RolloutServiceImpl();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        try (ShardedRollExecutor executor = new ShardedRollExecutor(service, 1, 2, Duration.ZERO)) {
+            CompletableFuture<Boolean> blocker = executor.submit("a", () -> {
+                started.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            started.await();
+
+            CompletableFuture<Rollout> first = executor.rollDice(DiceEnum.D6, "server", "b", 1);
+            CompletableFuture<Rollout> second = executor.rollDice(DiceEnum.D6, "server", "c", 2);
+            CompletableFuture<Rollout> rejected = executor.rollDice(DiceEnum.D6, "server", "d", 3);
+
+            CompletionException e = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+            ShardedRollExecutor.LaneStats stats = executor.laneStats().getFirst();
+            assertEquals(2, stats.depth());
+            assertEquals(2, stats.maxDepth());
+            assertEquals(1, stats.rejected());
+
+            release.countDown();
+            assertTrue(blocker.join());
+            assertNotNull(first.join());
+            assertNotNull(second.join());
+            assertEquals(3, executor.laneStats().getFirst().completed());
+            assertEquals(0, executor.laneStats().getFirst().depth());
+
+            CompletableFuture<Object> failing = executor.submit("a", () -> {
+                throw new IllegalStateException("boom");
+            });
+            assertInstanceOf(IllegalStateException.class,
+                    assertThrows(CompletionException.class, failing::join).getCause());
+            assertNotNull(executor.rollDice(DiceEnum.D6, "server", "a", 4).join());
+        }
+        service.close();
+    }
+
+    @Test
+    void submits_racing_close_never_leave_a_future_pending() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            ShardedRollExecutor executor = new ShardedRollExecutor(new RolloutServiceImpl(), 2, 64, Duration.ZERO);
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            CountDownLatch started = new CountDownLatch(1);
+            Thread submitter = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    futures.add(executor.submit("client-" + (i % 4), () -> 1));
+                    if (i == 100) started.countDown();
+                }
+            });
+            started.await();
+            executor.close();
+            submitter.join();
+
+            for (CompletableFuture<Integer> future : futures) {
+                assertTrue(future.isDone());
+            }
+            for (ShardedRollExecutor.LaneStats stats : executor.laneStats()) {
+                assertEquals(0, stats.depth());
+            }
+        }
+    }
+
+    @Test
+    void closed_executors_and_invalid_arguments_are_rejected() {
+        RolloutServiceImpl service = new RolloutServiceImpl();
+        ShardedRollExecutor executor = new ShardedRollExecutor(service);
+        assertEquals(Runtime.getRuntime().availableProcessors(), executor.lanes());
+        assertEquals(executor.laneOf("player-42"), executor.laneOf("player-42"));
+        executor.close();
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> executor.rollDice(DiceEnum.D20, "server", "client", 1).join());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertThrows(IllegalArgumentException.class, () -> new ShardedRollExecutor(service, 0, 1, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedRollExecutor(service, 1, 0, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShardedRollExecutor(service, 1, 1, Duration.ofMillis(-1)));
+        service.close();
+    }
+}
@@ -0,0 +1,73 @@
+package dm.dracolich.forge.sim;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.table.WeightedTable;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairnessSimulatorTest {
+
+    @Test
+    void hmac_runs_count_the_production_draws() {
+        WeightedTable<Value> table = DiceEnum.D6.getTable();
+        FairnessSimulator simulator = FairnessSimulator.builder().leafSize(300).firstNonce(17).build();
+
+        SimulationReport report = simulator.simulate(table, 5_000, SimulationMode.HMAC);
+
+        long[] expected = new long[table.size()];
+        int[] out = new int[5_000];
+        Roll.drawWeightedBatch(new Roll.RollContext("simulation", "simulation", 17), "value", 17, 5_000, table, out);
+        for (int index : out) {
+            expected[index]++;
+        }
+        assertArrayEquals(expected, report.counts());
+        assertEquals(5_000, report.rolls());
+        assertEquals(5, report.degreesOfFreedom());
+    }
+
+    @Test
+    void fast_runs_fit_the_declared_weights_and_are_reproducible() {
+        List<Value> values = List.of(new Value("common", 70, 1), new Value("rare", 25, 1),
+                new Value("epic", 4, 1), new Value("legendary", 1, 1), new Value("cut", 0, 1));
+        FairnessSimulator simulator = FairnessSimulator.builder().drawMode(DrawMode.LEMIRE).seed(42).build();
+
+        SimulationReport report = simulator.simulate(values, 2_000_000, SimulationMode.FAST);
+
+        assertTrue(report.fits(0.0001), () -> "chi2 p=" + report.chiSquarePValue() + " ks p=" + report.ksPValue());
+        assertEquals(0, report.counts()[4]);
+        assertEquals(0.70, report.frequency(0), 0.002);
+        assertEquals(3, report.degreesOfFreedom());
+        assertArrayEquals(report.counts(), simulator.simulate(values, 2_000_000, SimulationMode.FAST).counts());
+    }
+
+    @Test
+    void skewed_histograms_are_rejected() {
+        double[] declared = {0.5, 0.5, 0};
+
+        SimulationReport skewed = SimulationReport.of(SimulationMode.FAST, DrawMode.MODULO,
+                new long[]{5_300, 4_700, 0}, declared, 1);
+        assertEquals(36, skewed.chiSquare(), 1e-9);
+        assertFalse(skewed.fits(0.001));
+
+        SimulationReport impossible = SimulationReport.of(SimulationMode.FAST, DrawMode.MODULO,
+                new long[]{5_000, 4_999, 1}, declared, 1);
+        assertEquals(Double.POSITIVE_INFINITY, impossible.chiSquare());
+        assertEquals(0, impossible.chiSquarePValue());
+    }
+
+    @Test
+    void tails_match_reference_values() {
+        assertEquals(0.05, Statistics.chiSquareSurvival(3.841459, 1), 1e-6);
+        assertEquals(0.05, Statistics.chiSquareSurvival(123.225221, 99), 1e-6);
+        assertEquals(0.5, Statistics.chiSquareSurvival(1.386294, 2), 1e-6);
+        assertEquals(0.05, Statistics.kolmogorovSurvival(1.358099), 1e-5);
+        assertThrows(IllegalArgumentException.class,
+                () -> FairnessSimulator.builder().build().simulate(DiceEnum.D4, 0, SimulationMode.FAST));
+    }
+}
@@ -0,0 +1,141 @@
+package dm.dracolich.forge.table;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.audit.AuditVerifier;
+import dm.dracolich.forge.prf.KeyedPrf;
+import dm.dracolich.forge.prf.PrfCursor;
+import dm.dracolich.forge.to.DrawMode;
+import dm.dracolich.forge.to.RollOptions;
+import dm.dracolich.forge.to.Rollout;
+import dm.dracolich.forge.to.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamicWeightedTableTest {
+
+    @Test
+    void draws_match_compiled_table_through_updates() {
+        SplittableRandom random = new SplittableRandom(7);
+        List<Integer> weights = new ArrayList<>();
+        for (int i = 0; i < 37; i++) {
+            weights.add(random.nextInt(0, 50));
+        }
+        weights.set(0, 1);
+        DynamicWeightedTable<Integer> dynamic = DynamicWeightedTable.of(new ArrayList<>(weights), Integer::longValue);
+
+        for (int update = 0; update < 100; update++) {
+            int index = random.nextInt(weights.size());
+            int weight = random.nextInt(0, 50);
+            weights.set(index, weight);
+            dynamic.setWeight(index, weight);
+
+            List<Integer> indices = new ArrayList<>();
+            for (int i = 0; i < weights.size(); i++) indices.add(i);
+            WeightedTable<Integer> compiled = WeightedTable.of(indices, weights::get);
+            DynamicWeightedTable.Snapshot<Integer> snapshot = dynamic.snapshot();
+            assertEquals(compiled.totalWeight(), snapshot.totalWeight());
+            for (int d = 0; d < 50; d++) {
+                int draw = random.nextInt();
+                assertEquals(compiled.indexOf(draw), snapshot.indexOf(draw));
+            }
+        }
+    }
+
+    @Test
+    void snapshots_are_unaffected_by_later_updates() {
+        DynamicWeightedTable<String> table = DynamicWeightedTable.of(List.of("a", "b", "c"), s -> 1);
+        DynamicWeightedTable.Snapshot<String> before = table.snapshot();
+
+        table.setWeight(1, 0);
+        table.addWeight(2, 4);
+        assertEquals(3, table.add("d", 10));
+        assertEquals(4, table.add("e", 0));
+        assertEquals(5, table.add("f", 2));
+
+        assertEquals(3, before.totalWeight());
+        assertEquals(List.of("a", "b", "c"), before.items());
+        assertEquals(1, before.weight(1));
+
+        DynamicWeightedTable.Snapshot<String> after = table.snapshot();
+        assertEquals(List.of("a", "b", "c", "d", "e", "f"), after.items());
+        assertEquals(1 + 5 + 10 + 2, after.totalWeight());
+        for (int roll = 0; roll < after.totalWeight(); roll++) {
+            String picked = after.get(after.indexForRoll(roll));
+            assertNotEquals("b", picked);
+            assertNotEquals("e", picked);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> table.setWeight(0, -1));
+        assertThrows(IllegalArgumentException.class, () -> table.addWeight(0, -2));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.setWeight(6, 1));
+        assertThrows(IllegalArgumentException.class, () -> DynamicWeightedTable.of(List.of("x"), s -> 0).snapshot().pick(1));
+    }
+
+    @Test
+    void long_totals_do_not_overflow() {
+        DynamicWeightedTable<String> table = DynamicWeightedTable.of(List.of("a", "b"), s -> 3_000_000_000L);
+        table.add("c", 6_000_000_000L);
+        DynamicWeightedTable.Snapshot<String> snapshot = table.snapshot();
+
+        assertEquals(12_000_000_000L, snapshot.totalWeight());
+        assertEquals("a", snapshot.get(snapshot.indexForRoll(2_999_999_999L)));
+        assertEquals("b", snapshot.get(snapshot.indexForRoll(3_000_000_000L)));
+        assertEquals("c", snapshot.get(snapshot.indexForRoll(11_999_999_999L)));
+        assertThrows(IllegalArgumentException.class, () -> table.addWeight(2, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.pick(7));
+        assertThrows(IllegalArgumentException.class, () -> Roll.Select.weightedChoice(snapshot, 7));
+
+        int[] counts = new int[3];
+        for (long nonce = 0; nonce < 600; nonce++) {
+            for (DrawMode mode : DrawMode.values()) {
+                PrfCursor cursor = new PrfCursor(KeyedPrf.create("server"), "client", nonce, "loot");
+                counts[cursor.nextWeighted(snapshot, mode)]++;
+            }
+        }
+        assertTrue(counts[2] > counts[0] && counts[2] > counts[1]);
+    }
+
+    @Test
+    void fair_roll_from_snapshot_verifies_and_matches_list_roll() {
+        List<Value> values = List.of(
+                Value.builder().id("common").weight(80).count(4).build(),
+                Value.builder().id("rare").weight(20).count(2).build());
+        DynamicWeightedTable<Value> table = DynamicWeightedTable.of(values);
+        table.setWeight(1, 60); // event boost
+
+        List<Value> boosted = List.of(values.get(0), Value.builder().id("rare").weight(60).count(2).build());
+        for (long nonce = 0; nonce < 100; nonce++) {
+            Rollout rollout = Roll.fairRoll("server", "client", nonce, table.snapshot(), false, RollOptions.DEFAULT).result();
+
+            assertEquals(Roll.fairRoll("server", "client", nonce, boosted, false, RollOptions.DEFAULT).result(), rollout);
+            assertNull(AuditVerifier.check(rollout));
+        }
+    }
+
+    @Test
+    void readers_see_consistent_snapshots_during_updates() throws Exception {
+        DynamicWeightedTable<Integer> table = DynamicWeightedTable.of(List.of(0, 1, 2, 3), i -> 10);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                // Drops and restores each weight; the total is 30 or 40 in between
+                table.setWeight(i % 4, 0);
+                table.setWeight(i % 4, 10);
+            }
+        });
+
+        while (!writer.isDone()) {
+            DynamicWeightedTable.Snapshot<Integer> snapshot = table.snapshot();
+            long sum = 0;
+            for (int i = 0; i < snapshot.size(); i++) sum += snapshot.weight(i);
+            assertEquals(snapshot.totalWeight(), sum);
+        }
+        writer.get();
+        assertEquals(40, table.totalWeight());
+    }
+}
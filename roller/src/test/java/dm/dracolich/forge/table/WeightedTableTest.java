@@ -0,0 +1,94 @@
+package dm.dracolich.forge.table;
+
+import dm.dracolich.forge.Roll;
+import dm.dracolich.forge.to.DiceEnum;
+import dm.dracolich.forge.to.Rollout;
+import dm.dracolich.forge.to.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedTableTest {
+
+    private static final ToIntFunction<Integer> IDENTITY = Integer::intValue;
+
+    @Test
+    void indexOf_matches_weightedChoice_for_random_tables() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int t = 0; t < 200; t++) {
+            int size = 1 + random.nextInt(60);
+            List<Integer> weights = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                // Mix in zero and negative weights, and totals smaller than the table size
+                weights.add(random.nextInt(10) < 3 ? random.nextInt(-2, 1) : random.nextInt(1, t % 2 == 0 ? 3 : 1000));
+            }
+            if (weights.stream().mapToInt(w -> Math.max(0, w)).sum() == 0) {
+                weights.set(0, 1);
+            }
+
+            WeightedTable<Integer> table = WeightedTable.of(weights, IDENTITY);
+            for (int d = 0; d < 500; d++) {
+                int draw = random.nextInt();
+                assertSame(Roll.Select.weightedChoice(weights, IDENTITY, draw), table.pick(draw));
+            }
+        }
+    }
+
+    @Test
+    void every_roll_maps_to_its_cumulative_bucket() {
+        List<Integer> weights = List.of(0, 3, 0, 1, 5, 0);
+        WeightedTable<Integer> table = WeightedTable.of(weights, IDENTITY);
+        int[] expected = {1, 1, 1, 3, 4, 4, 4, 4, 4};
+
+        assertEquals(9, table.totalWeight());
+        for (int roll = 0; roll < expected.length; roll++) {
+            assertEquals(expected[roll], table.indexForRoll(roll));
+        }
+        assertThrows(IllegalArgumentException.class, () -> table.indexForRoll(9));
+    }
+
+    @Test
+    void fairRoll_with_table_matches_fairRoll_with_list() {
+        Value a = Value.builder().id("A").weight(10).count(3).build();
+        Value b = Value.builder().id("B").weight(1).count(null).build();
+        Value c = Value.builder().id("C").weight(89).count(12).build();
+        List<Value> values = List.of(a, b, c);
+        WeightedTable<Value> table = WeightedTable.of(values);
+
+        for (long nonce = 0; nonce < 100; nonce++) {
+            Rollout fromList = Roll.fairRoll("srv", "cli", nonce, values, false).result();
+            Rollout fromTable = Roll.fairRoll("srv", "cli", nonce, table, false).result();
+            assertEquals(fromList, fromTable);
+        }
+    }
+
+    @Test
+    void cached_returns_same_table_for_same_list_instance() {
+        List<Value> values = List.of(Value.builder().id("A").weight(1).count(1).build());
+
+        assertSame(WeightedTable.cached(values), WeightedTable.cached(values));
+        assertNotSame(WeightedTable.cached(values), WeightedTable.cached(new ArrayList<>(values)));
+    }
+
+    @Test
+    void diceEnum_tables_are_precompiled() {
+        for (DiceEnum dice : DiceEnum.values()) {
+            assertEquals(dice.getDiceValues(), dice.getTable().items());
+            assertEquals(dice.getDiceValues().size(), dice.getTable().totalWeight());
+        }
+    }
+
+    @Test
+    void input_validation_errors() {
+        assertThrows(IllegalArgumentException.class, () -> WeightedTable.of(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> WeightedTable.of(List.of(Value.builder().id("Z").weight(0).build())));
+        assertThrows(IllegalArgumentException.class,
+                () -> WeightedTable.of(List.of(Integer.MAX_VALUE, 1), IDENTITY));
+    }
+}